@@ -1,7 +1,8 @@
 package pub.rj.paper.algorithm;
 
-import java.io.FileReader;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Random;
 
 import pub.rj.paper.common.*;
 import pub.rj.paper.exception.*;
@@ -30,6 +31,17 @@ public class ActiveLearning {
 	 */
 	Instances data;
 
+	/**
+	 * The columnar copy of the data for distance and centroid computation. It
+	 * is rebuilt whenever the data is changed.
+	 */
+	FeatureStore featureStore;
+
+	/**
+	 * Store the features and compute the distances in float or not.
+	 */
+	boolean singlePrecision;
+
 	/**
 	 * The number of classes. For binary classification it is 2.
 	 */
@@ -50,6 +62,35 @@ public class ActiveLearning {
 	 */
 	boolean disorder;
 
+	/**
+	 * The logical order of the instances. permutation[i] is the physical index
+	 * of the i-th instance. The data stay put, and disorder only shuffles this
+	 * array, so that anything indexed by the physical index remains valid
+	 * across resets.
+	 */
+	int[] permutation;
+
+	/**
+	 * The seed for the random generator of each run.
+	 */
+	long seed;
+
+	/**
+	 * Is the seed specified? If not, each run uses an unseeded generator.
+	 */
+	boolean seeded;
+
+	/**
+	 * The number of runs (resets) so far.
+	 */
+	int numRuns;
+
+	/**
+	 * The memory budget in bytes of the tiled distance cache, used when the full
+	 * one does not fit. 0 for computing on demand.
+	 */
+	long distanceCacheBudget;
+
 	/**
 	 * The distance measure.
 	 */
@@ -100,6 +141,13 @@ public class ActiveLearning {
 	 */
 	public int numQueries;
 
+	/**
+	 * The index over the queried instances, maintained by query(). Ties are
+	 * broken by the logical order. Null until used, and reset when the
+	 * permutation or the distance measure changes.
+	 */
+	DynamicNeighborIndex queriedIndex;
+
 	/**
 	 * Remaining queries provided by the oracle. The value is not initialized in
 	 * this class.
@@ -126,30 +174,63 @@ public class ActiveLearning {
 	 * The constructor.
 	 * 
 	 * @param paraFilename
-	 *            The given file.
+	 *            The given file, ARFF or BinaryDataset.FILE_EXTENSION.
 	 * @param paraDistanceMeasure
 	 *            The given distance measure in integer.
 	 * @param paraNormalizeData
 	 *            Normalize or not.
 	 * @param paraDisorderData
 	 *            Disorder data or not.
+	 * @param paraSinglePrecision
+	 *            Store the features and compute the distances in float or not.
 	 ********************
 	 */
 	public ActiveLearning(String paraFilename, int paraDistanceMeasure,
-			boolean paraNormalizeData, boolean paraDisorderData) {
+			boolean paraNormalizeData, boolean paraDisorderData,
+			boolean paraSinglePrecision) {
 		data = null;
+		featureStore = null;
+		boolean tempNormalized = false;
 		try {
-			FileReader fileReader = new FileReader(paraFilename);
-			data = new Instances(fileReader);
-			fileReader.close();
+			if (BinaryDataset.isBinaryFile(paraFilename)) {
+				// No text parsing, the feature block is copied from the
+				// mapped file in bulk. The weka instances are still built
+				// from it, so the loading is O(n * d).
+				BinaryDataset tempDataset = new BinaryDataset(paraFilename);
+				featureStore = tempDataset.getFeatureStore();
+				data = tempDataset.toInstances(featureStore);
+			} else {
+				// One pass, with minimal/maximal values for normalization.
+				ArffStreamReader tempReader = null;
+				try {
+					tempReader = new ArffStreamReader(paraFilename);
+				} catch (IOException ee) {
+					// String/date attributes or sparse instances, leave
+					// them to weka.
+					System.out.println("Reading " + paraFilename
+							+ " with weka: " + ee.getMessage());
+				} // Of try
+
+				if (tempReader == null) {
+					data = BinaryDataset.readInstances(paraFilename);
+				} else {
+					if (paraNormalizeData) {
+						tempReader.normalize();
+						tempNormalized = true;
+					} // Of if
+					featureStore = tempReader.getFeatureStore();
+					data = tempReader.toInstances();
+				} // Of if
+			} // Of if
 		} catch (Exception ee) {
 			System.out.println("Cannot read the file: " + paraFilename + "\r\n"
 					+ ee);
 			System.exit(0);
 		} // Of try
 
-		if (paraNormalizeData) {
+		if (paraNormalizeData && !tempNormalized) {
 			SimpleTools.normalizeDecisionSystem(data);
+			featureStore = null;
 		} // Of if
 
 		disorder = paraDisorderData;
@@ -159,6 +240,14 @@ public class ActiveLearning {
 		numInstances = data.numInstances();
 		numClasses = data.attribute(numConditions).numValues();
 
+		singlePrecision = paraSinglePrecision;
+		if (featureStore == null) {
+			featureStore = new FeatureStore(data);
+		} // Of if
+		if (singlePrecision) {
+			featureStore = featureStore.toSinglePrecision();
+		} // Of if
+		distanceCacheBudget = TiledDistanceCache.DEFAULT_MEMORY_BUDGET;
 		setDistanceMeasure(paraDistanceMeasure);
 		// distanceMeasure = new DistanceMeasure(data, paraDistanceMeasure);
 		querySequence = new int[numInstances];
@@ -169,11 +258,38 @@ public class ActiveLearning {
 		numQueries = 0;
 		instanceStatusArray = new int[numInstances];
 		Arrays.fill(instanceStatusArray, UNHANDLED);
+
+		permutation = new int[numInstances];
+		for (int i = 0; i < numInstances; i++) {
+			permutation[i] = i;
+		} // Of for i
+		seeded = false;
+		numRuns = 0;
 		
 		kValue = 1;
 		IRation = 0.9;
 	}// Of the constructor
 
+	/**
+	 ********************
+	 * The constructor in double precision.
+	 * 
+	 * @param paraFilename
+	 *            The given file, ARFF or BinaryDataset.FILE_EXTENSION.
+	 * @param paraDistanceMeasure
+	 *            The given distance measure in integer.
+	 * @param paraNormalizeData
+	 *            Normalize or not.
+	 * @param paraDisorderData
+	 *            Disorder data or not.
+	 ********************
+	 */
+	public ActiveLearning(String paraFilename, int paraDistanceMeasure,
+			boolean paraNormalizeData, boolean paraDisorderData) {
+		this(paraFilename, paraDistanceMeasure, paraNormalizeData,
+				paraDisorderData, false);
+	}// Of the second constructor
+
 	/**
 	 ********************
 	 * The constructor.
@@ -186,7 +302,7 @@ public class ActiveLearning {
 	 */
 	public ActiveLearning(String paraFilename, int paraDistanceMeasure) {
 		this(paraFilename, paraDistanceMeasure, true, false);
-	}// Of the second constructor
+	}// Of the third constructor
 
 	/**
 	 ********************
@@ -195,19 +311,60 @@ public class ActiveLearning {
 	 */
 	public void reset() {
 		numQueries = 0;
+		queriedIndex = null;
 		Arrays.fill(known, UNHANDLED);
 		Arrays.fill(instanceStatusArray, UNHANDLED);
 
+		// The data, the feature store and the distance measure are unchanged.
 		if (disorder) {
 			SimpleTools
 					.processTrackingOutput("ActiveLearning.reset(), Disorder data ...");
-			SimpleTools.disorderData(data);
+			permutation = SimpleTools.getRandomOrder(numInstances, getRunRandom());
 			SimpleTools.processTrackingOutput("done.\r\n");
 		} // Of if
 
-		setDistanceMeasure(distanceMeasure.getMeasure());
+		numRuns++;
 	}// Of reset
 
+	/**
+	 ************************* 
+	 * Set the seed, so that the disorder of each run is reproducible.
+	 * 
+	 * @param paraSeed
+	 *            The seed.
+	 ************************* 
+	 */
+	public void setSeed(long paraSeed) {
+		seed = paraSeed;
+		seeded = true;
+	}// Of setSeed
+
+	/**
+	 ************************* 
+	 * Get the random generator for the current run. With a seed, run #i always
+	 * gets the same generator, independent of the previous runs.
+	 * 
+	 * @return The random generator.
+	 ************************* 
+	 */
+	Random getRunRandom() {
+		if (seeded) {
+			return new Random(seed + numRuns);
+		} // Of if
+		return new Random();
+	}// Of getRunRandom
+
+	/**
+	 ************************* 
+	 * Get the logical order of the instances.
+	 * 
+	 * @return The permutation. Attention: it is shared, do not change it.
+	 ************************* 
+	 */
+	public int[] getPermutation() {
+		return permutation;
+	}// Of getPermutation
+
 	/**
 	 ************************* 
 	 * Is the instance queried?
@@ -259,16 +416,76 @@ public class ActiveLearning {
 
 	/**
 	 ************************* 
-	 * Set the distance measure.
+	 * Set the distance measure. The pairwise distances are cached and shared by
+	 * all clustering algorithms using this measure. If there are too many
+	 * instances, only the recently used tiles are cached within the budget.
 	 * 
 	 * @param paraDistanceMeasure
 	 *            The distance measure in int.
 	 ************************* 
 	 */
 	public void setDistanceMeasure(int paraDistanceMeasure) {
-		distanceMeasure = new DistanceMeasure(data, paraDistanceMeasure);
+		distanceMeasure = new DistanceMeasure(data, featureStore, paraDistanceMeasure);
+		enableDistanceCache();
+		queriedIndex = null;
 	}// Of setDistanceMeasure
 
+	/**
+	 ************************* 
+	 * Get the index over the queried instances. It is built from the query
+	 * sequence the first time, and then query() inserts into it.
+	 * 
+	 * @return The index.
+	 ************************* 
+	 */
+	public DynamicNeighborIndex getQueriedIndex() {
+		if (queriedIndex == null) {
+			// The position in the logical order breaks ties.
+			int[] tempKeys = new int[numInstances];
+			for (int i = 0; i < numInstances; i++) {
+				tempKeys[permutation[i]] = i;
+			} // Of for i
+
+			queriedIndex = new DynamicNeighborIndex(distanceMeasure, tempKeys);
+			for (int i = 0; i < numQueries; i++) {
+				queriedIndex.insert(querySequence[i]);
+			} // Of for i
+		} // Of if
+
+		return queriedIndex;
+	}// Of getQueriedIndex
+
+	/**
+	 ************************* 
+	 * Set the memory budget of the tiled distance cache, and rebuild the cache
+	 * of the current distance measure.
+	 * 
+	 * @param paraBudget
+	 *            The budget in bytes. 0 for computing on demand when the full
+	 *            cache does not fit.
+	 ************************* 
+	 */
+	public void setDistanceCacheBudget(long paraBudget) {
+		distanceCacheBudget = paraBudget;
+		distanceMeasure.disableCache();
+		enableDistanceCache();
+	}// Of setDistanceCacheBudget
+
+	/**
+	 ************************* 
+	 * Enable the cache of the distance measure and report the fallback.
+	 ************************* 
+	 */
+	void enableDistanceCache() {
+		if (!distanceMeasure.enableCache(distanceCacheBudget)) {
+			SimpleTools.processTrackingOutput("Too many instances (" + numInstances
+					+ ") to cache pairwise distances, computing them on demand.\r\n");
+		} else if (distanceMeasure.getTiledCache() != null) {
+			SimpleTools.processTrackingOutput("Too many instances (" + numInstances
+					+ ") to cache all pairwise distances, using " + distanceMeasure.getTiledCache() + ".\r\n");
+		} // Of if
+	}// Of enableDistanceCache
+
 	/**
 	 ************************* 
 	 * Get the distance measure.
@@ -383,12 +600,15 @@ public class ActiveLearning {
 		} // Of if
 
 		// Now execute these operations.
-		known[paraIndex] = (int) data.instance(paraIndex).classValue();
+		known[paraIndex] = featureStore.label(paraIndex);
 		changeInstanceStatus(paraIndex, QUERIED);
 		numRemainingQueries--;
 
 		querySequence[numQueries] = paraIndex;
 		numQueries++;
+		if (queriedIndex != null) {
+			queriedIndex.insert(paraIndex);
+		} // Of if
 
 		// System.out.print(" q(" + paraIndex + ")");
 	}// Of query
@@ -432,15 +652,16 @@ public class ActiveLearning {
 	 ************************* 
 	 */
 	public double computeAccuracy() {
+		int[] tempLabels = featureStore.getLabels();
 		double tempIncorrect = 0;
 		for (int i = 0; i < known.length; i++) {
 			if (instanceStatusArray[i] == QUERIED) {
 				continue;
 			} // Of if
 
-			if (known[i] != (int) data.instance(i).classValue()) {
+			if (known[i] != tempLabels[i]) {
 				tempIncorrect++;
-				System.out.println("the konwn[i] is :" + known[i] + "and the classvalue is : " + (int)data.instance(i).classValue());
+				System.out.println("the konwn[i] is :" + known[i] + "and the classvalue is : " + tempLabels[i]);
 				System.out.println("the tempIncorrect is :" + i);
 			} // Of if
 		} // Of for i
@@ -460,11 +681,12 @@ public class ActiveLearning {
 	 ************************* 
 	 */
 	public int getNumMisclassified() {
+		int[] tempLabels = featureStore.getLabels();
 		int resultNumMisclassified = 0;
 
 		// Step 1. Add to the array.
 		for (int i = 0; i < known.length; i++) {
-			if (known[i] != (int) data.instance(i).classValue()) {
+			if (known[i] != tempLabels[i]) {
 				resultNumMisclassified++;
 			} // Of if
 		} // Of for i
@@ -481,13 +703,14 @@ public class ActiveLearning {
 	 ************************* 
 	 */
 	public int[] getMisclassified() {
+		int[] tempLabels = featureStore.getLabels();
 		int tempNumMisclassify = getNumMisclassified();
 		int[] resultMisclassifies = new int[tempNumMisclassify];
 
 		// Step 1. Add to the array.
 		int tempCounter = 0;
 		for (int i = 0; i < known.length; i++) {
-			if (known[i] != (int) data.instance(i).classValue()) {
+			if (known[i] != tempLabels[i]) {
 				resultMisclassifies[tempCounter] = i;
 				tempCounter++;
 			} // Of if
@@ -506,6 +729,7 @@ public class ActiveLearning {
 	 ************************* 
 	 */
 	public int getNumMisclassified(int paraStatus) {
+		int[] tempLabels = featureStore.getLabels();
 		int resultNumMisclassified = 0;
 
 		// Step 1. Add to the array.
@@ -514,7 +738,7 @@ public class ActiveLearning {
 				continue;
 			} // of if
 
-			if (known[i] != (int) data.instance(i).classValue()) {
+			if (known[i] != tempLabels[i]) {
 				resultNumMisclassified++;
 			} // Of if
 		} // Of for i
@@ -534,6 +758,7 @@ public class ActiveLearning {
 	 ************************* 
 	 */
 	public int[] getMisclassified(int paraStatus) {
+		int[] tempLabels = featureStore.getLabels();
 		int tempNumMisclassify = getNumMisclassified(paraStatus);
 		int[] resultMisclassifies = new int[tempNumMisclassify];
 
@@ -544,7 +769,7 @@ public class ActiveLearning {
 				continue;
 			} // Of if
 
-			if (known[i] != (int) data.instance(i).classValue()) {
+			if (known[i] != tempLabels[i]) {
 				resultMisclassifies[tempCounter] = i;
 				tempCounter++;
 			} // Of if
@@ -590,52 +815,25 @@ public class ActiveLearning {
 	 ************************* 
 	 */
 	public void knnUnhandled(int paraK) {
-		// Step 1. How many instances have been queried?
-		int tempNumQueried = 0;
-		for (int i = 0; i < numInstances; i++) {
-			if (instanceStatusArray[i] == QUERIED) {
-				tempNumQueried++;
-			} // Of if
-		} // Of for i
-		
+		// Step 1. The queried instances are maintained by query().
+		DynamicNeighborIndex tempIndex = getQueriedIndex();
+
 		//Step 2. Should have enough queried labels.
-		if (tempNumQueried < paraK) {
+		if (tempIndex.getNumPoints() < paraK) {
 			System.out.println("Error occurred in ActiveLearning.knnUnhandled(int):\r\n"
 					+ "No enough queried instances as neighbors.");
 			System.exit(0);
 		}//Of if
 
-		// Step 3. Construct the queried array. This approach saves time.
-		int[] tempQueriedArray = new int[tempNumQueried];
-		int tempCounter = 0;
-		for (int i = 0; i < numInstances; i++) {
-			if (instanceStatusArray[i] == QUERIED) {
-				tempQueriedArray[tempCounter] = i;
-				tempCounter++;
-			} // Of if
-		} // Of for i
-
-		// Step 3. Find the nearest neighbor.
-		double tempMinDistance;
-		double tempDistance;
+		// Step 3. Find the nearest neighbor. The index breaks ties by the
+		// logical order as the scan did.
 		int tempClosest;
 		for (int i = 0; i < numInstances; i++) {
 			if (instanceStatusArray[i] != UNHANDLED) {
 				continue;
 			} // Of if
 
-			tempMinDistance = Double.MAX_VALUE;
-			tempClosest = -1;
-
-			for (int j = 0; j < tempNumQueried; j++) {
-				tempDistance = distanceMeasure.distance(i,
-						tempQueriedArray[j]);
-				if (tempMinDistance > tempDistance) {
-					tempMinDistance = tempDistance;
-					tempClosest = tempQueriedArray[j];
-				} // Of if
-			} // Of for j
-
+			tempClosest = tempIndex.nearest(i);
 			known[i] = known[tempClosest];
 			changeInstanceStatus(i, KNN_PREDICTED);
 		} // Of for i
@@ -651,39 +849,29 @@ public class ActiveLearning {
 	 ************************* 
 	 */
 	private int knn(int paraIndex, int paraK) {
-		int[] tempNearests = new int[paraK + 2];
-		double[] tempDistances = new double[paraK + 2];
-
 		// Step 1. Initialize
+		int[] tempNearests = new int[paraK];
 		Arrays.fill(tempNearests, -1);
-		Arrays.fill(tempDistances, Double.MAX_VALUE);
-		tempDistances[0] = -1;
+		TopKCollector tempCollector = new TopKCollector(paraK, false);
 
-		// Step 2. Find neighbors
-		DistanceMeasure tempMeasure = new DistanceMeasure(data,
-				DistanceMeasure.EUCLIDEAN);
+		// Step 2. Find neighbors, ties to smaller indices. Only the order
+		// matters, hence the comparison distances, e.g., squared.
 		double tempCurrentDistance;
 		for (int i = 0; i < numInstances; i++) {
 			if (known[i] != QUERIED) {
 				continue;
 			} // Of if
 
-			tempCurrentDistance = tempMeasure.distance(paraIndex, i);
-			for (int j = paraK;; j--) {
-				if (tempCurrentDistance < tempDistances[j]) {
-					tempDistances[j + 1] = tempDistances[j];
-					tempNearests[j + 1] = tempNearests[j];
-				} else {
-					tempDistances[j + 1] = tempCurrentDistance;
-					tempNearests[j + 1] = i;
-					break;
-				} // Of if
-			} // Of for j
+			tempCurrentDistance = distanceMeasure.comparisonDistance(paraIndex, i);
+			if (tempCurrentDistance < Double.MAX_VALUE) {
+				tempCollector.offer(tempCurrentDistance, i);
+			} // Of if
 		} // Of for i
+		tempCollector.drain(tempNearests, null);
 
 		// Step 3. Vote and return
 		int[] tempVotes = new int[numClasses];
-		for (int i = 1; i <= paraK; i++) {
+		for (int i = 0; i < paraK; i++) {
 			tempVotes[known[tempNearests[i]]]++;
 		} // Of for i
 		SimpleTools.consoleOutput("The votes are: "
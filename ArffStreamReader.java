@@ -0,0 +1,453 @@
+package pub.rj.paper.common;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+
+/**
+ * A single-pass ARFF reader. The @data section is tokenized directly into the
+ * primitive arrays of a FeatureStore without building weka.core.Instance
+ * objects, and the minimal/maximal values of each conditional attribute are
+ * computed on the fly, so normalization needs only one more pass over the
+ * array. Nominal values are emitted as their integer codes, i.e., their
+ * indices in the declaration. Missing values (?) become NaN and are ignored by
+ * the minimal/maximal values. The last attribute is the class. Sparse
+ * instances, string and date attributes are not supported, an IOException
+ * tells the caller to read such files with weka instead.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class ArffStreamReader {
+	/**
+	 * The initial capacity in instances.
+	 */
+	static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * The header with attribute information, no instances.
+	 */
+	Instances header;
+
+	/**
+	 * The number of instances.
+	 */
+	int numInstances;
+
+	/**
+	 * The number of conditional attributes.
+	 */
+	int numConditions;
+
+	/**
+	 * The feature values, row-major.
+	 */
+	double[] values;
+
+	/**
+	 * The labels.
+	 */
+	int[] labels;
+
+	/**
+	 * The minimal value of each conditional attribute.
+	 */
+	double[] minimums;
+
+	/**
+	 * The maximal value of each conditional attribute.
+	 */
+	double[] maximums;
+
+	/**
+	 * The value-to-code maps of nominal attributes, null for numeric ones.
+	 */
+	List<HashMap<String, Integer>> nominalCodes;
+
+	/**
+	 ********************
+	 * The constructor. Read the whole file in one pass.
+	 *
+	 * @param paraFilename
+	 *            The ARFF file.
+	 * @throws IOException
+	 *             If the file cannot be read or is not supported.
+	 ********************
+	 */
+	public ArffStreamReader(String paraFilename) throws IOException {
+		BufferedReader tempReader = new BufferedReader(new FileReader(paraFilename), 1 << 16);
+		try {
+			readHeader(tempReader);
+			readData(tempReader);
+		} finally {
+			tempReader.close();
+		} // Of try
+	}// Of the constructor
+
+	/**
+	 *************************
+	 * Read the header until the @data line.
+	 *
+	 * @param paraReader
+	 *            The reader.
+	 * @throws IOException
+	 *             If the header is not supported.
+	 *************************
+	 */
+	void readHeader(BufferedReader paraReader) throws IOException {
+		String tempRelationName = "";
+		ArrayList<Attribute> tempAttributes = new ArrayList<Attribute>();
+		ArrayList<HashMap<String, Integer>> tempCodes = new ArrayList<HashMap<String, Integer>>();
+
+		String tempLine;
+		while ((tempLine = paraReader.readLine()) != null) {
+			tempLine = tempLine.trim();
+			if (tempLine.length() == 0 || tempLine.charAt(0) == '%') {
+				continue;
+			} // Of if
+
+			String tempLower = tempLine.toLowerCase();
+			if (tempLower.startsWith("@relation")) {
+				tempRelationName = unquote(tempLine.substring(9).trim());
+			} else if (tempLower.startsWith("@attribute")) {
+				// The name, possibly quoted.
+				String tempRest = tempLine.substring(10).trim();
+				int tempNameEnd;
+				char tempFirst = tempRest.charAt(0);
+				if (tempFirst == '\'' || tempFirst == '"') {
+					tempNameEnd = tempRest.indexOf(tempFirst, 1) + 1;
+				} else {
+					tempNameEnd = 0;
+					while (tempNameEnd < tempRest.length() && !Character.isWhitespace(tempRest.charAt(tempNameEnd))
+							&& tempRest.charAt(tempNameEnd) != '{') {
+						tempNameEnd++;
+					} // Of while
+				} // Of if
+				String tempName = unquote(tempRest.substring(0, tempNameEnd));
+				String tempType = tempRest.substring(tempNameEnd).trim();
+
+				if (tempType.startsWith("{")) {
+					String[] tempValues = split(tempType.substring(1, tempType.lastIndexOf('}')));
+					HashMap<String, Integer> tempMap = new HashMap<String, Integer>();
+					for (int i = 0; i < tempValues.length; i++) {
+						tempMap.put(tempValues[i], i);
+					} // Of for i
+					tempAttributes.add(new Attribute(tempName, Arrays.asList(tempValues)));
+					tempCodes.add(tempMap);
+				} else {
+					String tempLowerType = tempType.toLowerCase();
+					if (!(tempLowerType.startsWith("numeric") || tempLowerType.startsWith("real")
+							|| tempLowerType.startsWith("integer"))) {
+						throw new IOException("Unsupported type of attribute " + tempName + ": " + tempType);
+					} // Of if
+					tempAttributes.add(new Attribute(tempName));
+					tempCodes.add(null);
+				} // Of if
+			} else if (tempLower.startsWith("@data")) {
+				break;
+			} // Of if
+		} // Of while
+
+		if (tempAttributes.size() < 2) {
+			throw new IOException("At least two attributes are required.");
+		} // Of if
+
+		numConditions = tempAttributes.size() - 1;
+		header = new Instances(tempRelationName, tempAttributes, 0);
+		header.setClassIndex(numConditions);
+		nominalCodes = tempCodes;
+	}// Of readHeader
+
+	/**
+	 *************************
+	 * Read the @data section.
+	 *
+	 * @param paraReader
+	 *            The reader.
+	 * @throws IOException
+	 *             If some line cannot be parsed.
+	 *************************
+	 */
+	void readData(BufferedReader paraReader) throws IOException {
+		int tempCapacity = INITIAL_CAPACITY;
+		values = new double[tempCapacity * numConditions];
+		labels = new int[tempCapacity];
+		minimums = new double[numConditions];
+		maximums = new double[numConditions];
+		Arrays.fill(minimums, Double.MAX_VALUE);
+		Arrays.fill(maximums, -Double.MAX_VALUE);
+
+		numInstances = 0;
+		String tempLine;
+		String[] tempTokens;
+		double tempValue;
+		int tempOffset = 0;
+		while ((tempLine = paraReader.readLine()) != null) {
+			tempLine = tempLine.trim();
+			if (tempLine.length() == 0 || tempLine.charAt(0) == '%') {
+				continue;
+			} // Of if
+			if (tempLine.charAt(0) == '{') {
+				throw new IOException("Sparse instances are not supported: " + tempLine);
+			} // Of if
+
+			tempTokens = split(tempLine);
+			if (tempTokens.length != numConditions + 1) {
+				throw new IOException("Expecting " + (numConditions + 1) + " values in line: " + tempLine);
+			} // Of if
+
+			if (numInstances == tempCapacity) {
+				tempCapacity *= 2;
+				values = Arrays.copyOf(values, tempCapacity * numConditions);
+				labels = Arrays.copyOf(labels, tempCapacity);
+			} // Of if
+
+			for (int i = 0; i < numConditions; i++) {
+				tempValue = parseValue(i, tempTokens[i]);
+				values[tempOffset + i] = tempValue;
+				if (tempValue < minimums[i]) {
+					minimums[i] = tempValue;
+				} // Of if
+				if (tempValue > maximums[i]) {
+					maximums[i] = tempValue;
+				} // Of if
+			} // Of for i
+			labels[numInstances] = (int) parseValue(numConditions, tempTokens[numConditions]);
+
+			numInstances++;
+			tempOffset += numConditions;
+		} // Of while
+
+		values = Arrays.copyOf(values, numInstances * numConditions);
+		labels = Arrays.copyOf(labels, numInstances);
+	}// Of readData
+
+	/**
+	 *************************
+	 * Parse a value of the given attribute.
+	 *
+	 * @param paraAttribute
+	 *            The attribute index.
+	 * @param paraToken
+	 *            The unquoted token.
+	 * @return The value, the code for nominal attributes, or NaN if missing.
+	 * @throws IOException
+	 *             If the value is not declared or not a number.
+	 *************************
+	 */
+	double parseValue(int paraAttribute, String paraToken) throws IOException {
+		if (paraToken.equals("?")) {
+			return Double.NaN;
+		} // Of if
+
+		if (nominalCodes.get(paraAttribute) == null) {
+			try {
+				return Double.parseDouble(paraToken);
+			} catch (NumberFormatException ee) {
+				throw new IOException("Not a number for attribute #" + paraAttribute + ": " + paraToken);
+			} // Of try
+		} // Of if
+
+		Integer tempCode = nominalCodes.get(paraAttribute).get(paraToken);
+		if (tempCode == null) {
+			throw new IOException("Undeclared value for attribute #" + paraAttribute + ": " + paraToken);
+		} // Of if
+		return tempCode;
+	}// Of parseValue
+
+	/**
+	 *************************
+	 * Split a comma separated line. Tokens are trimmed and unquoted, and commas
+	 * within quotes are kept.
+	 *
+	 * @param paraLine
+	 *            The line.
+	 * @return The tokens.
+	 *************************
+	 */
+	static String[] split(String paraLine) {
+		ArrayList<String> tempTokens = new ArrayList<String>();
+		int tempStart = 0;
+		char tempQuote = 0;
+		char tempChar;
+		for (int i = 0; i < paraLine.length(); i++) {
+			tempChar = paraLine.charAt(i);
+			if (tempQuote != 0) {
+				if (tempChar == '\\') {
+					i++;
+				} else if (tempChar == tempQuote) {
+					tempQuote = 0;
+				} // Of if
+			} else if (tempChar == '\'' || tempChar == '"') {
+				tempQuote = tempChar;
+			} else if (tempChar == ',') {
+				tempTokens.add(unquote(paraLine.substring(tempStart, i).trim()));
+				tempStart = i + 1;
+			} // Of if
+		} // Of for i
+		tempTokens.add(unquote(paraLine.substring(tempStart).trim()));
+
+		return tempTokens.toArray(new String[tempTokens.size()]);
+	}// Of split
+
+	/**
+	 *************************
+	 * Remove the surrounding quotes.
+	 *
+	 * @param paraToken
+	 *            The trimmed token.
+	 * @return The token without quotes.
+	 *************************
+	 */
+	static String unquote(String paraToken) {
+		int tempLength = paraToken.length();
+		if (tempLength >= 2) {
+			char tempFirst = paraToken.charAt(0);
+			if ((tempFirst == '\'' || tempFirst == '"') && paraToken.charAt(tempLength - 1) == tempFirst) {
+				return paraToken.substring(1, tempLength - 1);
+			} // Of if
+		} // Of if
+
+		return paraToken;
+	}// Of unquote
+
+	/**
+	 *************************
+	 * Normalize each conditional attribute to [0, 1] with the minimal/maximal
+	 * values computed while reading. It has the same effect as
+	 * SimpleTools.normalizeDecisionSystem. An attribute with only one value,
+	 * e.g., veil-type of mushroom, becomes 0 as it did there.
+	 *************************
+	 */
+	public void normalize() {
+		double tempRange;
+		int tempOffset = 0;
+		for (int i = 0; i < numInstances; i++) {
+			for (int j = 0; j < numConditions; j++) {
+				tempRange = maximums[j] - minimums[j];
+				if (tempRange > 0) {
+					values[tempOffset + j] = (values[tempOffset + j] - minimums[j]) / tempRange;
+				} else if (!Double.isNaN(values[tempOffset + j])) {
+					values[tempOffset + j] = 0;
+				} // Of if
+			} // Of for j
+			tempOffset += numConditions;
+		} // Of for i
+	}// Of normalize
+
+	/**
+	 *************************
+	 * Get the header.
+	 *
+	 * @return The header without instances, with the class index set.
+	 *************************
+	 */
+	public Instances getHeader() {
+		return header;
+	}// Of getHeader
+
+	/**
+	 *************************
+	 * Get the minimal values.
+	 *
+	 * @return The minimal value of each conditional attribute.
+	 *************************
+	 */
+	public double[] getMinimums() {
+		return minimums;
+	}// Of getMinimums
+
+	/**
+	 *************************
+	 * Get the maximal values.
+	 *
+	 * @return The maximal value of each conditional attribute.
+	 *************************
+	 */
+	public double[] getMaximums() {
+		return maximums;
+	}// Of getMaximums
+
+	/**
+	 *************************
+	 * Get the feature store. The arrays are shared.
+	 *
+	 * @return The feature store.
+	 *************************
+	 */
+	public FeatureStore getFeatureStore() {
+		return new FeatureStore(values, labels, numConditions, header.attribute(numConditions).numValues());
+	}// Of getFeatureStore
+
+	/**
+	 *************************
+	 * Build weka instances.
+	 *
+	 * @return The data with the class index set.
+	 *************************
+	 */
+	public Instances toInstances() {
+		return getFeatureStore().toInstances(header);
+	}// Of toInstances
+
+	/**
+	 *************************
+	 * Test this class. The normalized features are compared with those read
+	 * by weka and normalized by SimpleTools.normalizeDecisionSystem.
+	 *
+	 * @param args
+	 *            The parameters.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		String[] tempFilenames = { "src/pub/rj/paper/data/iris.arff", "src/pub/rj/paper/data/mushroom.arff",
+				"src/pub/rj/paper/data/kr-vs-kp_nominal.arff", "src/pub/rj/paper/data/vote.arff" };
+		if (args.length >= 1) {
+			tempFilenames = args;
+		} // Of if
+
+		for (int i = 0; i < tempFilenames.length; i++) {
+			try {
+				long tempStartTime = System.currentTimeMillis();
+				ArffStreamReader tempReader = new ArffStreamReader(tempFilenames[i]);
+				FeatureStore tempStore = tempReader.getFeatureStore();
+				System.out.println(tempFilenames[i] + ": " + tempStore + ", read in "
+						+ (System.currentTimeMillis() - tempStartTime) + "ms");
+				System.out.println("The minimums are: " + Arrays.toString(tempReader.getMinimums()));
+				System.out.println("The maximums are: " + Arrays.toString(tempReader.getMaximums()));
+				System.out.println("The first row is: " + Arrays.toString(tempStore.getRow(0)) + " with label "
+						+ tempStore.label(0));
+
+				tempReader.normalize();
+				tempStore = tempReader.getFeatureStore();
+				FileReader tempFileReader = new FileReader(tempFilenames[i]);
+				Instances tempData = new Instances(tempFileReader);
+				tempFileReader.close();
+				tempData.setClassIndex(tempData.numAttributes() - 1);
+				SimpleTools.normalizeDecisionSystem(tempData);
+				FeatureStore tempExpected = new FeatureStore(tempData);
+				boolean tempEqual = Arrays.equals(tempExpected.getValues(), tempStore.getValues())
+						&& Arrays.equals(tempExpected.getLabels(), tempStore.getLabels());
+				System.out.println("Normalized, identical to weka: " + tempEqual);
+			} catch (IOException ee) {
+				System.out.println("Error occurred in ArffStreamReader.main(): " + ee);
+			} // Of try
+		} // Of for i
+	}// Of main
+}// Of class ArffStreamReader
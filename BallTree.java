@@ -0,0 +1,326 @@
+package pub.rj.paper.common;
+
+import java.util.Arrays;
+
+/**
+ * A ball tree for high dimensional data, where KD-tree splits on single
+ * attributes prune little. Each node keeps a pivot instance and the radius
+ * covering its instances, so that by the triangle inequality the distance
+ * from a query to the node is at least d(query, pivot) - radius. Only the
+ * distance measure is used, hence any metric works.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class BallTree extends NeighborIndex {
+	/**
+	 * A node of the tree.
+	 */
+	static class Node {
+		/**
+		 * The first position in ranks.
+		 */
+		int start;
+
+		/**
+		 * The position after the last one in ranks.
+		 */
+		int end;
+
+		/**
+		 * The pivot instance.
+		 */
+		int pivot;
+
+		/**
+		 * The maximal distance from the pivot to the instances.
+		 */
+		double radius;
+
+		/**
+		 * The children, null for a leaf.
+		 */
+		Node left, right;
+	}// Of class Node
+
+	/**
+	 * The ranks of the instances, rearranged by the tree.
+	 */
+	int[] ranks;
+
+	/**
+	 * The root.
+	 */
+	Node root;
+
+	/**
+	 ********************
+	 * The constructor. Use NeighborIndex.create() to check the measure.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure, should be a metric.
+	 * @param paraPoints
+	 *            The instances, copied.
+	 * @param paraNumPoints
+	 *            The number of instances to use from the array.
+	 ********************
+	 */
+	public BallTree(DistanceMeasure paraDistanceMeasure, int[] paraPoints, int paraNumPoints) {
+		super(paraDistanceMeasure, paraPoints, paraNumPoints);
+		ranks = new int[numPoints];
+		for (int i = 0; i < numPoints; i++) {
+			ranks[i] = i;
+		} // Of for i
+
+		root = build(0, numPoints);
+	}// Of the constructor
+
+	/**
+	 *************************
+	 * Build a subtree. The two far apart instances A and B are found by two
+	 * scans, and each instance goes to the nearer one.
+	 *
+	 * @param paraStart
+	 *            The first position in ranks.
+	 * @param paraEnd
+	 *            The position after the last one.
+	 * @return The root of the subtree.
+	 *************************
+	 */
+	Node build(int paraStart, int paraEnd) {
+		Node resultNode = new Node();
+		resultNode.start = paraStart;
+		resultNode.end = paraEnd;
+		resultNode.pivot = points[ranks[paraStart]];
+		resultNode.radius = 0;
+		double tempDistance;
+		for (int i = paraStart + 1; i < paraEnd; i++) {
+			tempDistance = distanceMeasure.distance(resultNode.pivot, points[ranks[i]]);
+			resultNode.radius = Math.max(resultNode.radius, tempDistance);
+		} // Of for i
+
+		if (paraEnd - paraStart <= LEAF_SIZE || resultNode.radius == 0) {
+			return resultNode;
+		} // Of if
+
+		// Step 1. The far apart instances.
+		int tempFirst = farthest(resultNode.pivot, paraStart, paraEnd);
+		int tempSecond = farthest(tempFirst, paraStart, paraEnd);
+
+		// Step 2. Partition, instances of A before those of B.
+		int tempLeft = paraStart;
+		int tempRight = paraEnd - 1;
+		int tempTemp;
+		while (tempLeft <= tempRight) {
+			int tempInstance = points[ranks[tempLeft]];
+			if (distanceMeasure.distance(tempInstance, tempFirst) <= distanceMeasure.distance(tempInstance,
+					tempSecond)) {
+				tempLeft++;
+			} else {
+				tempTemp = ranks[tempLeft];
+				ranks[tempLeft] = ranks[tempRight];
+				ranks[tempRight] = tempTemp;
+				tempRight--;
+			} // Of if
+		} // Of while
+
+		// One side is empty, stop here.
+		if (tempLeft == paraStart || tempLeft == paraEnd) {
+			return resultNode;
+		} // Of if
+
+		resultNode.left = build(paraStart, tempLeft);
+		resultNode.right = build(tempLeft, paraEnd);
+
+		return resultNode;
+	}// Of build
+
+	/**
+	 *************************
+	 * Find the instance in a range farthest from the given one.
+	 *
+	 * @param paraInstance
+	 *            The given instance.
+	 * @param paraStart
+	 *            The first position in ranks.
+	 * @param paraEnd
+	 *            The position after the last one.
+	 * @return The farthest instance.
+	 *************************
+	 */
+	int farthest(int paraInstance, int paraStart, int paraEnd) {
+		int resultInstance = paraInstance;
+		double tempMaxDistance = -1;
+		double tempDistance;
+		for (int i = paraStart; i < paraEnd; i++) {
+			tempDistance = distanceMeasure.distance(paraInstance, points[ranks[i]]);
+			if (tempDistance > tempMaxDistance) {
+				tempMaxDistance = tempDistance;
+				resultInstance = points[ranks[i]];
+			} // Of if
+		} // Of for i
+
+		return resultInstance;
+	}// Of farthest
+
+	/**
+	 *************************
+	 * Find the k nearest instances.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraK
+	 *            The k value.
+	 * @param paraNeighbors
+	 *            The array to store the neighbors, nearest first.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int kNearest(int paraQuery, int paraK, int[] paraNeighbors) {
+		double[] tempComparisons = new double[paraK];
+		int[] tempRanks = new int[paraK];
+		int tempCount = search(root, bound(paraQuery, root), paraQuery, paraK, tempComparisons, tempRanks, 0);
+
+		return toNeighbors(tempRanks, tempCount, paraNeighbors);
+	}// Of kNearest
+
+	/**
+	 *************************
+	 * The lower bound of the distances from the query to the instances of a
+	 * node. The rounding errors of the two terms are proportional to their
+	 * magnitudes rather than to the difference, hence they are subtracted
+	 * explicitly.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraNode
+	 *            The node.
+	 * @return The lower bound.
+	 *************************
+	 */
+	double bound(int paraQuery, Node paraNode) {
+		double tempDistance = distanceMeasure.distance(paraQuery, paraNode.pivot);
+		return tempDistance - paraNode.radius - slack * (tempDistance + paraNode.radius);
+	}// Of bound
+
+	/**
+	 *************************
+	 * Search a subtree, the child with the smaller bound first.
+	 *
+	 * @param paraNode
+	 *            The root of the subtree.
+	 * @param paraBound
+	 *            The lower bound of the distances from the query to the node.
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraK
+	 *            The k value.
+	 * @param paraComparisons
+	 *            The comparison distances of the current list.
+	 * @param paraRanks
+	 *            The ranks of the current list.
+	 * @param paraCount
+	 *            The current length of the list.
+	 * @return The new length of the list.
+	 *************************
+	 */
+	int search(Node paraNode, double paraBound, int paraQuery, int paraK, double[] paraComparisons,
+			int[] paraRanks, int paraCount) {
+		if (canPrune(paraBound, paraComparisons, paraCount, paraK)) {
+			return paraCount;
+		} // Of if
+
+		if (paraNode.left == null) {
+			int tempRank;
+			for (int i = paraNode.start; i < paraNode.end; i++) {
+				tempRank = ranks[i];
+				paraCount = insert(distanceMeasure.comparisonDistance(paraQuery, points[tempRank]), tempRank,
+						paraComparisons, paraRanks, paraCount, paraK);
+			} // Of for i
+			return paraCount;
+		} // Of if
+
+		double tempLeftBound = bound(paraQuery, paraNode.left);
+		double tempRightBound = bound(paraQuery, paraNode.right);
+		if (tempLeftBound <= tempRightBound) {
+			paraCount = search(paraNode.left, tempLeftBound, paraQuery, paraK, paraComparisons, paraRanks,
+					paraCount);
+			paraCount = search(paraNode.right, tempRightBound, paraQuery, paraK, paraComparisons, paraRanks,
+					paraCount);
+		} else {
+			paraCount = search(paraNode.right, tempRightBound, paraQuery, paraK, paraComparisons, paraRanks,
+					paraCount);
+			paraCount = search(paraNode.left, tempLeftBound, paraQuery, paraK, paraComparisons, paraRanks,
+					paraCount);
+		} // Of if
+
+		return paraCount;
+	}// Of search
+
+	/**
+	 *************************
+	 * Find the positions of the instances within the radius.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraRadius
+	 *            The radius, inclusive.
+	 * @param paraRanks
+	 *            The array to store the positions in ascending order.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int rangeRanks(int paraQuery, double paraRadius, int[] paraRanks) {
+		int resultCount = searchRange(root, paraQuery, paraRadius, paraRanks, 0);
+		Arrays.sort(paraRanks, 0, resultCount);
+
+		return resultCount;
+	}// Of rangeRanks
+
+	/**
+	 *************************
+	 * Search a subtree for the instances within the radius.
+	 *
+	 * @param paraNode
+	 *            The root of the subtree.
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraRadius
+	 *            The radius.
+	 * @param paraRanks
+	 *            The positions found.
+	 * @param paraCount
+	 *            The number of positions found.
+	 * @return The new number of positions found.
+	 *************************
+	 */
+	int searchRange(Node paraNode, int paraQuery, double paraRadius, int[] paraRanks, int paraCount) {
+		if (canPrune(bound(paraQuery, paraNode), paraRadius)) {
+			return paraCount;
+		} // Of if
+
+		if (paraNode.left == null) {
+			for (int i = paraNode.start; i < paraNode.end; i++) {
+				if (distanceMeasure.distance(paraQuery, points[ranks[i]]) <= paraRadius) {
+					paraRanks[paraCount] = ranks[i];
+					paraCount++;
+				} // Of if
+			} // Of for i
+			return paraCount;
+		} // Of if
+
+		paraCount = searchRange(paraNode.left, paraQuery, paraRadius, paraRanks, paraCount);
+		paraCount = searchRange(paraNode.right, paraQuery, paraRadius, paraRanks, paraCount);
+
+		return paraCount;
+	}// Of searchRange
+}// Of class BallTree
@@ -0,0 +1,419 @@
+package pub.rj.paper.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+
+/**
+ * A compact binary dataset format. The file is memory-mapped and the
+ * constructor only parses the header. getFeatureStore() copies the feature
+ * and label blocks to the heap with bulk reads, and toInstances() builds weka
+ * instances from them, so a full load is still O(n * d) in time and memory. It
+ * saves the text parsing of ARFF, and the pages are shared through the OS
+ * cache across repeated runs. The layout is:<br>
+ * int magic, int version, int header length, header bytes (relation name,
+ * attribute metadata, class index, number of instances), zero padding to a
+ * multiple of 8 bytes, the feature block (numInstances * numConditions doubles,
+ * row-major, the class attribute skipped), and the label block (numInstances
+ * ints). All values are big-endian.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class BinaryDataset {
+	/**
+	 * The file extension of binary datasets.
+	 */
+	public static final String FILE_EXTENSION = ".uceb";
+
+	/**
+	 * The magic number, "UCEB" in ASCII.
+	 */
+	public static final int MAGIC = 0x55434542;
+
+	/**
+	 * The version of the format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Numeric attribute.
+	 */
+	static final byte NUMERIC = 0;
+
+	/**
+	 * Nominal attribute.
+	 */
+	static final byte NOMINAL = 1;
+
+	/**
+	 * The header with attribute information, no instances.
+	 */
+	Instances header;
+
+	/**
+	 * The number of instances.
+	 */
+	int numInstances;
+
+	/**
+	 * The number of conditional attributes.
+	 */
+	int numConditions;
+
+	/**
+	 * The class index.
+	 */
+	int classIndex;
+
+	/**
+	 * The mapped file.
+	 */
+	MappedByteBuffer buffer;
+
+	/**
+	 * The offset of the feature block in the file.
+	 */
+	int featureOffset;
+
+	/**
+	 * The offset of the label block in the file.
+	 */
+	int labelOffset;
+
+	/**
+	 ********************
+	 * The constructor. Map the file and read the header only.
+	 *
+	 * @param paraFilename
+	 *            The binary file.
+	 * @throws IOException
+	 *             If the file cannot be read or is not in this format.
+	 ********************
+	 */
+	public BinaryDataset(String paraFilename) throws IOException {
+		RandomAccessFile tempFile = new RandomAccessFile(paraFilename, "r");
+		FileChannel tempChannel = tempFile.getChannel();
+		if (tempChannel.size() > Integer.MAX_VALUE) {
+			tempFile.close();
+			throw new IOException("The file " + paraFilename + " is larger than 2GB.");
+		} // Of if
+		// The mapping remains valid after the channel is closed.
+		buffer = tempChannel.map(FileChannel.MapMode.READ_ONLY, 0, tempChannel.size());
+		tempFile.close();
+
+		// Step 1. The fixed part.
+		if (buffer.getInt() != MAGIC) {
+			throw new IOException(paraFilename + " is not a binary dataset.");
+		} // Of if
+		int tempVersion = buffer.getInt();
+		if (tempVersion != VERSION) {
+			throw new IOException("Unsupported version " + tempVersion + " of " + paraFilename);
+		} // Of if
+		byte[] tempHeaderBytes = new byte[buffer.getInt()];
+		buffer.get(tempHeaderBytes);
+
+		// Step 2. The attributes.
+		DataInputStream tempInput = new DataInputStream(new ByteArrayInputStream(tempHeaderBytes));
+		String tempRelationName = tempInput.readUTF();
+		int tempNumAttributes = tempInput.readInt();
+		classIndex = tempInput.readInt();
+		ArrayList<Attribute> tempAttributes = new ArrayList<Attribute>(tempNumAttributes);
+		for (int i = 0; i < tempNumAttributes; i++) {
+			String tempName = tempInput.readUTF();
+			if (tempInput.readByte() == NUMERIC) {
+				tempAttributes.add(new Attribute(tempName));
+			} else {
+				int tempNumValues = tempInput.readInt();
+				ArrayList<String> tempValues = new ArrayList<String>(tempNumValues);
+				for (int j = 0; j < tempNumValues; j++) {
+					tempValues.add(tempInput.readUTF());
+				} // Of for j
+				tempAttributes.add(new Attribute(tempName, tempValues));
+			} // Of if
+		} // Of for i
+		numInstances = tempInput.readInt();
+		numConditions = tempNumAttributes - 1;
+
+		header = new Instances(tempRelationName, tempAttributes, numInstances);
+		header.setClassIndex(classIndex);
+
+		// Step 3. The blocks.
+		featureOffset = align(12 + tempHeaderBytes.length);
+		labelOffset = featureOffset + numInstances * numConditions * 8;
+	}// Of the constructor
+
+	/**
+	 *************************
+	 * Round up to a multiple of 8.
+	 *
+	 * @param paraOffset
+	 *            The offset.
+	 * @return The aligned offset.
+	 *************************
+	 */
+	static int align(int paraOffset) {
+		return (paraOffset + 7) & ~7;
+	}// Of align
+
+	/**
+	 *************************
+	 * Get the header.
+	 *
+	 * @return The header without instances.
+	 *************************
+	 */
+	public Instances getHeader() {
+		return header;
+	}// Of getHeader
+
+	/**
+	 *************************
+	 * Get the number of instances.
+	 *
+	 * @return The number of instances.
+	 *************************
+	 */
+	public int getNumInstances() {
+		return numInstances;
+	}// Of getNumInstances
+
+	/**
+	 *************************
+	 * Copy the feature block and the label block to a feature store. Only the
+	 * conditional attributes are copied.
+	 *
+	 * @return The feature store.
+	 *************************
+	 */
+	public FeatureStore getFeatureStore() {
+		double[] tempValues = new double[numInstances * numConditions];
+		ByteBuffer tempBuffer = buffer.duplicate();
+		tempBuffer.position(featureOffset);
+		DoubleBuffer tempDoubles = tempBuffer.asDoubleBuffer();
+		tempDoubles.get(tempValues);
+
+		int[] tempLabels = new int[numInstances];
+		tempBuffer.position(labelOffset);
+		IntBuffer tempInts = tempBuffer.asIntBuffer();
+		tempInts.get(tempLabels);
+
+		return new FeatureStore(tempValues, tempLabels, numConditions,
+				header.attribute(classIndex).numValues());
+	}// Of getFeatureStore
+
+	/**
+	 *************************
+	 * Build weka instances from the blocks.
+	 *
+	 * @return The data with the class index set.
+	 *************************
+	 */
+	public Instances toInstances() {
+		return toInstances(getFeatureStore());
+	}// Of toInstances
+
+	/**
+	 *************************
+	 * Build weka instances from a feature store read from this file.
+	 *
+	 * @param paraStore
+	 *            The feature store.
+	 * @return The data with the class index set.
+	 *************************
+	 */
+	public Instances toInstances(FeatureStore paraStore) {
+		return paraStore.toInstances(header);
+	}// Of toInstances
+
+	/**
+	 *************************
+	 * Convert an ARFF file to the binary format. The last attribute is the
+	 * class.
+	 *
+	 * @param paraArffFilename
+	 *            The ARFF file.
+	 * @param paraBinaryFilename
+	 *            The binary file to write.
+	 * @throws IOException
+	 *             If the files cannot be read or written.
+	 *************************
+	 */
+	public static void convert(String paraArffFilename, String paraBinaryFilename) throws IOException {
+		FileReader fileReader = new FileReader(paraArffFilename);
+		Instances tempData = new Instances(fileReader);
+		fileReader.close();
+		tempData.setClassIndex(tempData.numAttributes() - 1);
+
+		write(tempData, paraBinaryFilename);
+	}// Of convert
+
+	/**
+	 *************************
+	 * Write the data to the binary format.
+	 *
+	 * @param paraData
+	 *            The data with the class index set.
+	 * @param paraBinaryFilename
+	 *            The binary file to write.
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 *************************
+	 */
+	public static void write(Instances paraData, String paraBinaryFilename) throws IOException {
+		int tempNumAttributes = paraData.numAttributes();
+		int tempNumInstances = paraData.numInstances();
+		int tempClassIndex = paraData.classIndex();
+
+		// Step 1. The header.
+		ByteArrayOutputStream tempHeaderBytes = new ByteArrayOutputStream();
+		DataOutputStream tempHeader = new DataOutputStream(tempHeaderBytes);
+		tempHeader.writeUTF(paraData.relationName());
+		tempHeader.writeInt(tempNumAttributes);
+		tempHeader.writeInt(tempClassIndex);
+		for (int i = 0; i < tempNumAttributes; i++) {
+			Attribute tempAttribute = paraData.attribute(i);
+			tempHeader.writeUTF(tempAttribute.name());
+			if (tempAttribute.isNominal()) {
+				tempHeader.writeByte(NOMINAL);
+				tempHeader.writeInt(tempAttribute.numValues());
+				for (int j = 0; j < tempAttribute.numValues(); j++) {
+					tempHeader.writeUTF(tempAttribute.value(j));
+				} // Of for j
+			} else {
+				tempHeader.writeByte(NUMERIC);
+			} // Of if
+		} // Of for i
+		tempHeader.writeInt(tempNumInstances);
+		tempHeader.close();
+
+		// Step 2. The blocks.
+		int tempHeaderLength = 12 + tempHeaderBytes.size();
+		int tempFeatureOffset = align(tempHeaderLength);
+		ByteBuffer tempBuffer = ByteBuffer.allocate(
+				tempFeatureOffset + tempNumInstances * (tempNumAttributes - 1) * 8 + tempNumInstances * 4);
+		tempBuffer.putInt(MAGIC);
+		tempBuffer.putInt(VERSION);
+		tempBuffer.putInt(tempHeaderBytes.size());
+		tempBuffer.put(tempHeaderBytes.toByteArray());
+		tempBuffer.position(tempFeatureOffset);
+		for (int i = 0; i < tempNumInstances; i++) {
+			for (int j = 0; j < tempNumAttributes; j++) {
+				if (j != tempClassIndex) {
+					tempBuffer.putDouble(paraData.instance(i).value(j));
+				} // Of if
+			} // Of for j
+		} // Of for i
+		for (int i = 0; i < tempNumInstances; i++) {
+			tempBuffer.putInt((int) paraData.instance(i).value(tempClassIndex));
+		} // Of for i
+
+		FileOutputStream tempOutput = new FileOutputStream(paraBinaryFilename);
+		tempOutput.write(tempBuffer.array());
+		tempOutput.close();
+	}// Of write
+
+	/**
+	 *************************
+	 * Is the file in the binary format? Judged by the extension.
+	 *
+	 * @param paraFilename
+	 *            The filename.
+	 * @return True if it ends with FILE_EXTENSION.
+	 *************************
+	 */
+	public static boolean isBinaryFile(String paraFilename) {
+		return paraFilename.endsWith(FILE_EXTENSION);
+	}// Of isBinaryFile
+
+	/**
+	 *************************
+	 * Read a dataset in either the binary format or ARFF.
+	 *
+	 * @param paraFilename
+	 *            The filename.
+	 * @return The data. The class index is set only for the binary format.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 *************************
+	 */
+	public static Instances readInstances(String paraFilename) throws IOException {
+		if (isBinaryFile(paraFilename)) {
+			return new BinaryDataset(paraFilename).toInstances();
+		} // Of if
+
+		FileReader fileReader = new FileReader(paraFilename);
+		Instances resultData = new Instances(fileReader);
+		fileReader.close();
+		return resultData;
+	}// Of readInstances
+
+	/**
+	 *************************
+	 * Convert an ARFF file given by the first parameter, and compare the data
+	 * read back with the original one.
+	 *
+	 * @param args
+	 *            The ARFF file and the binary file.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		String tempArffFilename = "src/pub/rj/paper/data/iris.arff";
+		if (args.length >= 1) {
+			tempArffFilename = args[0];
+		} // Of if
+		String tempBinaryFilename = tempArffFilename.substring(0, tempArffFilename.length() - 5)
+				+ FILE_EXTENSION;
+		if (args.length >= 2) {
+			tempBinaryFilename = args[1];
+		} // Of if
+
+		try {
+			long tempStartTime = System.currentTimeMillis();
+			convert(tempArffFilename, tempBinaryFilename);
+			System.out.println("Converted to " + tempBinaryFilename + " in "
+					+ (System.currentTimeMillis() - tempStartTime) + "ms");
+
+			tempStartTime = System.currentTimeMillis();
+			Instances tempOriginal = readInstances(tempArffFilename);
+			System.out.println("Read ARFF in " + (System.currentTimeMillis() - tempStartTime) + "ms");
+
+			tempStartTime = System.currentTimeMillis();
+			BinaryDataset tempDataset = new BinaryDataset(tempBinaryFilename);
+			FeatureStore tempStore = tempDataset.getFeatureStore();
+			System.out.println("Read binary in " + (System.currentTimeMillis() - tempStartTime) + "ms");
+
+			FeatureStore tempExpected = new FeatureStore(tempOriginal);
+			boolean tempEqual = Arrays.equals(tempExpected.getValues(), tempStore.getValues())
+					&& Arrays.equals(tempExpected.getLabels(), tempStore.getLabels());
+			System.out.println(tempStore + ", identical to the ARFF: " + tempEqual);
+		} catch (IOException ee) {
+			System.out.println("Error occurred in BinaryDataset.main(): " + ee);
+			System.exit(0);
+		} // Of try
+	}// Of main
+}// Of class BinaryDataset
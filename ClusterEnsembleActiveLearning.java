@@ -42,15 +42,41 @@ public class ClusterEnsembleActiveLearning extends ClusteringAlgorithmsBasedActi
 	 * @param paraQueryAmountStrategy       Query enough instances at a time, or one
 	 *                                      by one.
 	 * @param paraDisorderData              Disorder data or not.
+	 * @param paraSinglePrecision           Store the features and compute the
+	 *                                      distances in float or not.
 	 ********************
 	 */
 	public ClusterEnsembleActiveLearning(String paraFilename, int paraDistanceMeasure, boolean paraNormalizeData,
 			boolean paraDisorderData, double paraAdaptiveRatio, int paraSmallBlockThreshold,
-			int paraInstanceSelectionStrategy, int paraQueryAmountStrategy) {
+			int paraInstanceSelectionStrategy, int paraQueryAmountStrategy, boolean paraSinglePrecision) {
 		super(paraFilename, paraDistanceMeasure, paraNormalizeData, paraDisorderData, paraAdaptiveRatio,
-				paraSmallBlockThreshold, paraInstanceSelectionStrategy, paraQueryAmountStrategy);
+				paraSmallBlockThreshold, paraInstanceSelectionStrategy, paraQueryAmountStrategy,
+				paraSinglePrecision);
 	}// Of the constructor
 
+	/**
+	 ********************
+	 * The constructor in double precision.
+	 * 
+	 * @param paraFilename                  The given file.
+	 * @param paraDistanceMeasure           The given distance measure in integer.
+	 * @param paraNormalizeData             Normalize data or not.
+	 * @param paraAdaptiveRatio             The distance ratio for density
+	 *                                      computing.
+	 * @param paraSmallBlockThreshold       Small block threshold.
+	 * @param paraInstanceSelectionStrategy Critical instance selection strategy.
+	 * @param paraQueryAmountStrategy       Query enough instances at a time, or one
+	 *                                      by one.
+	 * @param paraDisorderData              Disorder data or not.
+	 ********************
+	 */
+	public ClusterEnsembleActiveLearning(String paraFilename, int paraDistanceMeasure, boolean paraNormalizeData,
+			boolean paraDisorderData, double paraAdaptiveRatio, int paraSmallBlockThreshold,
+			int paraInstanceSelectionStrategy, int paraQueryAmountStrategy) {
+		this(paraFilename, paraDistanceMeasure, paraNormalizeData, paraDisorderData, paraAdaptiveRatio,
+				paraSmallBlockThreshold, paraInstanceSelectionStrategy, paraQueryAmountStrategy, false);
+	}// Of the second constructor
+
 	/**
 	 ************************* 
 	 * Learn. The most important process. This method takes advantage of a queue for
@@ -0,0 +1,258 @@
+package pub.rj.paper.algorithm;
+
+import pub.rj.paper.cluster.SmaleDBScan;
+import pub.rj.paper.cluster.DensityPeaks;
+import pub.rj.paper.cluster.FCM;
+import pub.rj.paper.cluster.SmaleHierarchical;
+import pub.rj.paper.cluster.KMeans;
+import pub.rj.paper.cluster.RandomWalks;
+import pub.rj.paper.common.*;
+
+/**
+ * Clustering algorithms based active learning. A number of clustering
+ * algorithms will be employed.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: July 21, 2019. <br>
+ * Last modify time: July 21, 2019.
+ */
+
+public class ClusteringAlgorithmsBasedActiveLearning extends
+		ClusteringBasedActiveLearning {
+
+	/**
+	 * Available algorithms.
+	 */
+	boolean[] availableAlgorithms;
+
+	/**
+	 * Statistics on algorithm usage.
+	 */
+	int[] algorithmWinArray;
+
+	/**
+	 * The kNN graph over the whole data, shared by the algorithms. It depends
+	 * only on the data, the distance measure and the index, hence it is kept
+	 * across runs. Null until an algorithm using it is enabled.
+	 */
+	KnnGraph knnGraph;
+
+	/**
+	 * Build the kNN graph with the approximate HNSW index instead of the
+	 * exact one.
+	 */
+	boolean approximateNeighbors = false;
+
+	/**
+	 * The number of candidates kept while building the HNSW index.
+	 */
+	int efConstruction = Hnsw.DEFAULT_EF_CONSTRUCTION;
+
+	/**
+	 * The number of candidates kept while querying the HNSW index.
+	 */
+	int efSearch = Hnsw.DEFAULT_EF_SEARCH;
+
+	/**
+	 ********************
+	 * The constructor.
+	 * 
+	 * @param paraFilename
+	 *            The given file.
+	 * @param paraDistanceMeasure
+	 *            The given distance measure in integer.
+	 * @param paraNormalizeData
+	 *            Normalize data or not.
+	 * @param paraAdaptiveRatio
+	 *            The distance ratio for density computing.
+	 * @param paraSmallBlockThreshold
+	 *            Small block threshold.
+	 * @param paraInstanceSelectionStrategy
+	 *            The instance selection strategy.
+	 * @param paraDisorderData
+	 *            Disorder data or not.
+	 * @param paraQueryAmountStrategy
+	 *            The query amount strategy.
+	 * @param paraSinglePrecision
+	 *            Store the features and compute the distances in float or not.
+	 ********************
+	 */
+	public ClusteringAlgorithmsBasedActiveLearning(String paraFilename,
+			int paraDistanceMeasure, boolean paraNormalizeData,
+			boolean paraDisorderData, double paraAdaptiveRatio,
+			int paraSmallBlockThreshold, int paraInstanceSelectionStrategy,
+			int paraQueryAmountStrategy, boolean paraSinglePrecision) {
+		super(paraFilename, paraDistanceMeasure, paraNormalizeData,
+				paraDisorderData, paraAdaptiveRatio, paraSmallBlockThreshold,
+				paraInstanceSelectionStrategy, paraQueryAmountStrategy,
+				paraSinglePrecision);
+
+		// Prepare
+		// setDc(0.5);
+		availableAlgorithms = new boolean[NUM_ALGORITHMS];
+		algorithmWinArray = new int[NUM_ALGORITHMS];
+	}// Of the constructor
+
+	/**
+	 ********************
+	 * The constructor in double precision.
+	 * 
+	 * @param paraFilename
+	 *            The given file.
+	 * @param paraDistanceMeasure
+	 *            The given distance measure in integer.
+	 * @param paraNormalizeData
+	 *            Normalize data or not.
+	 * @param paraAdaptiveRatio
+	 *            The distance ratio for density computing.
+	 * @param paraSmallBlockThreshold
+	 *            Small block threshold.
+	 * @param paraInstanceSelectionStrategy
+	 *            The instance selection strategy.
+	 * @param paraDisorderData
+	 *            Disorder data or not.
+	 * @param paraQueryAmountStrategy
+	 *            The query amount strategy.
+	 ********************
+	 */
+	public ClusteringAlgorithmsBasedActiveLearning(String paraFilename,
+			int paraDistanceMeasure, boolean paraNormalizeData,
+			boolean paraDisorderData, double paraAdaptiveRatio,
+			int paraSmallBlockThreshold, int paraInstanceSelectionStrategy,
+			int paraQueryAmountStrategy) {
+		this(paraFilename, paraDistanceMeasure, paraNormalizeData,
+				paraDisorderData, paraAdaptiveRatio, paraSmallBlockThreshold,
+				paraInstanceSelectionStrategy, paraQueryAmountStrategy, false);
+	}// Of the second constructor
+
+	/**
+	 ********************
+	 * Reset for repeated running.
+	 ********************
+	 */
+	public void reset() {
+		super.reset();
+
+		SimpleTools
+				.processTrackingOutput("initializePool for the next running\r\n");
+		initializePool();
+	}// Of reset
+
+	/**
+	 ********************
+	 * Initialize the clustering algorithm pool.
+	 ********************
+	 */
+	public void initializePool() {
+		// The graph is computed once for the data set, and only if an
+		// algorithm uses it. DBSCAN and DP-cutoff use an exact graph only.
+		boolean tempUsesGraph = availableAlgorithms[RANDOM_WALK_CLUSTERING]
+				|| (!approximateNeighbors && (availableAlgorithms[DBSCAN_CLUSTERING]
+						|| availableAlgorithms[DP_CUTOFF_CLUSTERING]));
+		if (tempUsesGraph && (knnGraph == null || knnGraph.getDistanceMeasure() != distanceMeasure
+				|| knnGraph.isExact() == approximateNeighbors)) {
+			knnGraph = KnnGraph.create(distanceMeasure, numInstances, approximateNeighbors, efConstruction,
+					efSearch);
+			SimpleTools.processTrackingOutput("knnGraph initialized.\r\n");
+		}// Of if
+
+		// DP-Gaussian must be initialized for critical instance selection.
+		densityPeaksGaussian = new DensityPeaks(data, distanceMeasure, 0,
+				adaptiveRatio, DensityPeaks.GAUSSIAN_KERNEL);
+		densityPeaksGaussian.setKnnGraph(knnGraph);
+		SimpleTools
+				.processTrackingOutput("densityPeaksGaussian initialized.\r\n");
+
+		if (availableAlgorithms[KMEANS_CLUSTERING]) {
+			kMeans = new KMeans(data, distanceMeasure);
+			SimpleTools.processTrackingOutput("kMeans initialized.\r\n");
+		}// Of if
+
+		if (availableAlgorithms[HIERARCHICAL_CLUSTERING]) {
+			hierarchical = new SmaleHierarchical(data, distanceMeasure);
+			SimpleTools.processTrackingOutput("hierarchical initialized.\r\n");
+		}// Of if
+
+		if (availableAlgorithms[DBSCAN_CLUSTERING]) {
+			dbScan = new SmaleDBScan(data, distanceMeasure, adaptiveRatio,
+					DensityPeaks.CUTOFF_KERNEL);
+			dbScan.setKnnGraph(knnGraph);
+			SimpleTools.processTrackingOutput("dbScan initialized.\r\n");
+		}// Of if
+
+		if (availableAlgorithms[FCM_CLUSTERING]) {
+			fcm = new FCM(data, distanceMeasure);
+			SimpleTools.processTrackingOutput("fcm initialized.\r\n");
+		}// Of if
+
+		if (availableAlgorithms[RANDOM_WALK_CLUSTERING]) {
+			randomWalks = new RandomWalks(data, distanceMeasure);
+			randomWalks.setKnnGraph(knnGraph);
+			SimpleTools.processTrackingOutput("randomWalks initialized.\r\n");
+		}// Of if
+
+		if (availableAlgorithms[DP_CUTOFF_CLUSTERING]) {
+			densityPeaksCutoff = new DensityPeaks(data, distanceMeasure, 0,
+					adaptiveRatio, DensityPeaks.CUTOFF_KERNEL);
+			densityPeaksCutoff.setKnnGraph(knnGraph);
+			SimpleTools
+					.processTrackingOutput("densityPeaksCutoff initialized.\r\n");
+		}// Of if
+
+		SimpleTools
+				.processTrackingOutput("ClusteringAlgorithmsBasedActiveLearning.initializePool() done.\r\n");
+	}// Of initializePool
+
+	/**
+	 ************************* 
+	 * Set available algorithms.
+	 * 
+	 * @param paraAvailableAlgorithms
+	 *            The available algorithms.
+	 ************************* 
+	 */
+	public void setAvailableAlgorithms(boolean[] paraAvailableAlgorithms) {
+		availableAlgorithms = paraAvailableAlgorithms;
+	}// Of setAvailableAlgorithms
+
+	/**
+	 ************************* 
+	 * Use the approximate HNSW index for the kNN graph of random walks. The
+	 * graph is rebuilt by the next initializePool(). DBSCAN and DP-cutoff
+	 * scan without the graph then.
+	 * 
+	 * @param paraApproximate
+	 *            Use the approximate index or not.
+	 * @param paraEfConstruction
+	 *            The number of candidates kept while building.
+	 * @param paraEfSearch
+	 *            The number of candidates kept while querying.
+	 ************************* 
+	 */
+	public void setApproximateNeighbors(boolean paraApproximate, int paraEfConstruction,
+			int paraEfSearch) {
+		approximateNeighbors = paraApproximate;
+		efConstruction = paraEfConstruction;
+		efSearch = paraEfSearch;
+		knnGraph = null;
+	}// Of setApproximateNeighbors
+
+	/**
+	 ************************* 
+	 * Get the algorithm win array.
+	 * 
+	 * @return The algorithm win array.
+	 ************************* 
+	 */
+	public int[] getAlgorithmWinArray() {
+		return algorithmWinArray;
+	}// Of getAlgorithmWinArray
+
+}// Of class ClusteringAlgorithmsBasedActiveLearning
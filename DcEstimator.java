@@ -0,0 +1,326 @@
+package pub.rj.paper.common;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Estimate the statistics of pair distances to set dc: the diameter, the
+ * average distance, and any percentile. The pairs of a block are drawn by a
+ * sampler seeded afresh for each block, so the same block always gets the
+ * same statistics. The distances are streamed into a running maximum, a
+ * running mean and a QuantileSketch, hence the memory does not depend on the
+ * block size, and one estimator serves all sub-blocks in turn. Asking again
+ * for the block just estimated, e.g., with another ratio, does not resample.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class DcEstimator {
+	/**
+	 * The default seed of the sampler.
+	 */
+	public static final long DEFAULT_SEED = 0;
+
+	/**
+	 * The default maximal number of sampled pairs for one block. It bounds
+	 * the time on large blocks.
+	 */
+	public static final int DEFAULT_MAXIMAL_PAIRS = 1 << 18;
+
+	/**
+	 * The distance measure.
+	 */
+	DistanceMeasure distanceMeasure;
+
+	/**
+	 * The seed of the sampler.
+	 */
+	long seed;
+
+	/**
+	 * The maximal number of sampled pairs for one block.
+	 */
+	int maximalPairs;
+
+	/**
+	 * The sketch of the sampled distances.
+	 */
+	QuantileSketch sketch;
+
+	/**
+	 * The largest sampled distance.
+	 */
+	double diameter;
+
+	/**
+	 * The average sampled distance.
+	 */
+	double averageDistance;
+
+	/**
+	 * The number of pairs with a finite distance.
+	 */
+	int numPairs;
+
+	/**
+	 * The number of pairs skipped for an infinite or NaN distance.
+	 */
+	int numSkipped;
+
+	/**
+	 * The block of the current statistics.
+	 */
+	int[] lastBlock;
+
+	/**
+	 * The hash code of the block when it was estimated, to notice changes in
+	 * place.
+	 */
+	int lastHashCode;
+
+	/**
+	 * The number of pairs asked for the current statistics.
+	 */
+	int lastRequestedPairs;
+
+	/**
+	 ********************
+	 * The constructor.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraSeed
+	 *            The seed of the sampler.
+	 * @param paraMaximalPairs
+	 *            The maximal number of sampled pairs for one block.
+	 * @param paraNumCells
+	 *            The number of cells of the sketch.
+	 ********************
+	 */
+	public DcEstimator(DistanceMeasure paraDistanceMeasure, long paraSeed, int paraMaximalPairs,
+			int paraNumCells) {
+		distanceMeasure = paraDistanceMeasure;
+		seed = paraSeed;
+		maximalPairs = paraMaximalPairs;
+		sketch = new QuantileSketch(paraNumCells);
+		lastBlock = null;
+	}// Of the first constructor
+
+	/**
+	 ********************
+	 * The constructor with the default settings.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 ********************
+	 */
+	public DcEstimator(DistanceMeasure paraDistanceMeasure) {
+		this(paraDistanceMeasure, DEFAULT_SEED, DEFAULT_MAXIMAL_PAIRS, QuantileSketch.DEFAULT_NUM_CELLS);
+	}// Of the second constructor
+
+	/**
+	 ********************
+	 * Sample the pairs of a block, unless it is the block just estimated. The
+	 * two ends of a pair are drawn independently, and pairs of one instance
+	 * with itself are redrawn.
+	 *
+	 * @param paraBlock
+	 *            The block.
+	 * @param paraPairs
+	 *            The number of pairs, capped by the maximal number.
+	 ********************
+	 */
+	public void estimate(int[] paraBlock, int paraPairs) {
+		if (paraBlock == lastBlock && paraPairs == lastRequestedPairs
+				&& Arrays.hashCode(paraBlock) == lastHashCode) {
+			return;
+		} // Of if
+
+		lastBlock = paraBlock;
+		lastHashCode = Arrays.hashCode(paraBlock);
+		lastRequestedPairs = paraPairs;
+
+		sketch.reset();
+		diameter = 0;
+		averageDistance = 0;
+		numPairs = 0;
+		numSkipped = 0;
+
+		int tempLength = paraBlock.length;
+		if (tempLength < 2) {
+			return;
+		} // Of if
+
+		Random tempRandom = new Random(seed);
+		int tempPairs = Math.min(paraPairs, maximalPairs);
+		int tempFirst, tempSecond;
+		double tempDistance;
+		for (int i = 0; i < tempPairs; i++) {
+			tempFirst = tempRandom.nextInt(tempLength);
+			do {
+				tempSecond = tempRandom.nextInt(tempLength);
+			} while (tempSecond == tempFirst);
+
+			tempDistance = distanceMeasure.distance(paraBlock[tempFirst], paraBlock[tempSecond]);
+			if (Double.isNaN(tempDistance) || Double.isInfinite(tempDistance)) {
+				numSkipped++;
+				continue;
+			} // Of if
+
+			numPairs++;
+			// The running mean cannot overflow.
+			averageDistance += (tempDistance - averageDistance) / numPairs;
+			if (diameter < tempDistance) {
+				diameter = tempDistance;
+			} // Of if
+			sketch.add(tempDistance);
+		} // Of for i
+	}// Of estimate
+
+	/**
+	 ********************
+	 * Getter.
+	 *
+	 * @return The largest sampled distance, 0 without pairs.
+	 ********************
+	 */
+	public double getDiameter() {
+		return diameter;
+	}// Of getDiameter
+
+	/**
+	 ********************
+	 * Getter.
+	 *
+	 * @return The average sampled distance, 0 without pairs.
+	 ********************
+	 */
+	public double getAverageDistance() {
+		return averageDistance;
+	}// Of getAverageDistance
+
+	/**
+	 ********************
+	 * Estimate a percentile of the pair distances.
+	 *
+	 * @param paraFraction
+	 *            The fraction in [0, 1], e.g., 0.02 for the 2nd percentile.
+	 * @return The percentile, 0 without pairs.
+	 ********************
+	 */
+	public double getQuantile(double paraFraction) {
+		if (numPairs == 0) {
+			return 0;
+		} // Of if
+		return sketch.quantile(paraFraction);
+	}// Of getQuantile
+
+	/**
+	 ********************
+	 * Getter.
+	 *
+	 * @return The number of pairs with a finite distance.
+	 ********************
+	 */
+	public int getNumPairs() {
+		return numPairs;
+	}// Of getNumPairs
+
+	/**
+	 ********************
+	 * Getter.
+	 *
+	 * @return The number of pairs skipped for an infinite or NaN distance.
+	 ********************
+	 */
+	public int getNumSkipped() {
+		return numSkipped;
+	}// Of getNumSkipped
+
+	/**
+	 ********************
+	 * Show me.
+	 ********************
+	 */
+	public String toString() {
+		return "DcEstimator over " + numPairs + " pairs (" + numSkipped + " skipped): diameter " + diameter
+				+ ", average " + averageDistance + ", median " + getQuantile(0.5);
+	}// Of toString
+
+	/**
+	 *************************
+	 * Compare the estimates with the exact statistics of all pairs on random
+	 * clustered data, for the whole data and a sub-block, and check that they
+	 * do not change from one estimator to another.
+	 *
+	 * @param args
+	 *            The parameters.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		Random tempRandom = new Random(1);
+		int tempNumInstances = 3000;
+		int tempDimension = 2;
+		double[] tempValues = new double[tempNumInstances * tempDimension];
+		for (int i = 0; i < tempNumInstances; i++) {
+			// Three blobs.
+			for (int j = 0; j < tempDimension; j++) {
+				tempValues[i * tempDimension + j] = (i % 3) * 4 + tempRandom.nextGaussian();
+			} // Of for j
+		} // Of for i
+		FeatureStore tempStore = new FeatureStore(tempValues, new int[tempNumInstances], tempDimension, 3);
+		DistanceMeasure tempDistanceMeasure = new DistanceMeasure(null, tempStore, DistanceMeasure.EUCLIDEAN);
+
+		int[] tempWholeBlock = new int[tempNumInstances];
+		for (int i = 0; i < tempNumInstances; i++) {
+			tempWholeBlock[i] = i;
+		} // Of for i
+		int[] tempSubBlock = new int[tempNumInstances / 3];
+		for (int i = 0; i < tempSubBlock.length; i++) {
+			tempSubBlock[i] = i * 3;
+		} // Of for i
+		int[][] tempBlocks = { tempWholeBlock, tempSubBlock };
+
+		double[] tempFractions = { 0.01, 0.02, 0.05, 0.5 };
+		DcEstimator tempEstimator = new DcEstimator(tempDistanceMeasure);
+		DcEstimator tempAnotherEstimator = new DcEstimator(tempDistanceMeasure);
+		for (int[] tempBlock : tempBlocks) {
+			tempEstimator.estimate(tempBlock, 10 * tempBlock.length);
+			tempAnotherEstimator.estimate(tempBlock, 10 * tempBlock.length);
+			boolean tempSame = tempEstimator.getDiameter() == tempAnotherEstimator.getDiameter()
+					&& tempEstimator.getAverageDistance() == tempAnotherEstimator.getAverageDistance()
+					&& tempEstimator.getQuantile(0.02) == tempAnotherEstimator.getQuantile(0.02);
+
+			// The exact statistics of all pairs.
+			int tempLength = tempBlock.length;
+			double[] tempDistances = new double[tempLength * (tempLength - 1) / 2];
+			int tempCount = 0;
+			double tempTotal = 0;
+			for (int i = 0; i < tempLength; i++) {
+				for (int j = i + 1; j < tempLength; j++) {
+					tempDistances[tempCount] = tempDistanceMeasure.distance(tempBlock[i], tempBlock[j]);
+					tempTotal += tempDistances[tempCount];
+					tempCount++;
+				} // Of for j
+			} // Of for i
+			Arrays.sort(tempDistances);
+
+			System.out.println(tempEstimator + ", the same for another estimator: " + tempSame);
+			System.out.println("Exact diameter " + tempDistances[tempCount - 1] + ", average "
+					+ tempTotal / tempCount);
+			for (double tempFraction : tempFractions) {
+				System.out.println("Percentile " + tempFraction + ": " + tempEstimator.getQuantile(tempFraction)
+						+ ", exact " + tempDistances[(int) (tempFraction * (tempCount - 1))]);
+			} // Of for tempFraction
+		} // Of for tempBlock
+	}// Of main
+}// Of class DcEstimator
@@ -0,0 +1,1238 @@
+package pub.rj.paper.cluster;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import pub.rj.paper.common.Common;
+import pub.rj.paper.common.DcEstimator;
+import pub.rj.paper.common.DistanceKernels;
+import pub.rj.paper.common.DistanceMeasure;
+import pub.rj.paper.common.GridIndex;
+import pub.rj.paper.common.NeighborIndex;
+import pub.rj.paper.common.SimpleTools;
+import pub.rj.paper.exception.UnableToClusterInKException;
+import weka.core.Instances;
+
+/**
+ * The super class of any density-based clustering algorithms. It help setting
+ * the radius dc.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: July 10, 2019. <br>
+ * Last modify time: July 21, 2019.
+ */
+
+public abstract class DensityClustering extends Clustering {
+	/**
+	 * The distance threshold for density computation. For the density peak and
+	 * DBScan algorithms.
+	 */
+	double dc;
+
+	/**
+	 * The diameter of the current block.
+	 */
+	double diameter;
+
+	/**
+	 * The average distance of the current block.
+	 */
+	double averageDistance;
+
+	/**
+	 * Compute the dc using the diameter.
+	 */
+	public static final int DIAMETER_FOR_DC = 0;
+
+	/**
+	 * Compute the dc using the average distance.
+	 */
+	public static final int AVERAGE_FOR_DC = 1;
+
+	/**
+	 * Compute the dc as a percentile of the pair distances, with the dc ratio
+	 * as the fraction, e.g., 0.02 for the 2nd percentile.
+	 */
+	public static final int PERCENTILE_FOR_DC = 2;
+
+	/**
+	 * The scheme for computing dc. DIAMETER_FOR_DC, AVERAGE_FOR_DC or
+	 * PERCENTILE_FOR_DC.
+	 */
+	int dcScheme;
+
+	/**
+	 * The estimator of the pair distance statistics. With null the pairs are
+	 * drawn through Common.random as before, which is not supported by
+	 * PERCENTILE_FOR_DC.
+	 */
+	DcEstimator dcEstimator;
+
+	/**
+	 * The dc ratio.
+	 */
+	double dcRatio;
+
+	/**
+	 * The number of pairs for statistics. int numPairs;
+	 */
+
+	/**
+	 * Default adaptive dc ratio.
+	 */
+	public static final double DEFAULT_DC_RATIO = 0.1;
+
+	/**
+	 * To speed up the computation of density.
+	 */
+	public static final int SPEED_UP_THRESHOLD = 1000;
+
+	/**
+	 * The max distance which cannot be exceeded..
+	 */
+	public static final double MAXIMAL_DISTANCE = 1e10;
+
+	/**
+	 * The density of each instance. For the density peak algorithm.
+	 */
+	double[] densities;
+
+	/**
+	 * The density of each instance in the single precision mode, i.e., when the
+	 * feature store is in float. Exactly one of densities and floatDensities is
+	 * not null.
+	 */
+	float[] floatDensities;
+
+	/**
+	 * Changed whenever a density is set, so that the structures built on the
+	 * densities know they are stale.
+	 */
+	int densityVersion;
+
+	/**
+	 * The grid over the whole data for cutoff densities. It is shared by the
+	 * sub-blocks of one learning process, and rebuilt only when dc changes.
+	 */
+	GridIndex cutoffGrid;
+
+	/**
+	 * The dc of the cutoff grid.
+	 */
+	double cutoffGridDc;
+
+	/**
+	 * The marks of the instances in the current block, indexed by instance.
+	 */
+	int[] blockMarks;
+
+	/**
+	 * The mark of the current block.
+	 */
+	int blockMark;
+
+	/**
+	 * Use cutoff kenrel to compute the density.
+	 */
+	public static final int CUTOFF_KERNEL = 0;
+
+	/**
+	 * Use Gaussian kernel to compute the density.
+	 */
+	public static final int GAUSSIAN_KERNEL = 1;
+
+	/**
+	 * The kernel.
+	 */
+	int kernel = 1;
+
+	/**
+	 * The truncation radius of the Gaussian kernel as a multiple of dc. Only
+	 * the neighbors within it are summed, hence the density of each instance
+	 * is under-estimated by less than (m - k) exp(-t^2), where m is the size
+	 * of the block, k is the number of neighbors, and t is this multiple. The
+	 * relative error is below (m - 1) exp(-t^2) since the density is at least
+	 * 1. Non-positive for the exact kernel.
+	 */
+	double gaussianTruncation = 0;
+
+	/**
+	 * The default truncation, 3 dc. The contribution of an excluded neighbor
+	 * is below exp(-9) = 1.23e-4.
+	 */
+	public static final double DEFAULT_GAUSSIAN_TRUNCATION = 3;
+
+	/**
+	 * The maximal error bound of the truncated densities since they are
+	 * cleared.
+	 */
+	double truncationErrorBound;
+
+	/**
+	 * The number of queries scanned to decide whether the truncated Gaussian
+	 * kernel uses an index.
+	 */
+	public static final int TRUNCATION_SAMPLE_SIZE = 32;
+
+	/**
+	 * Use an index for the truncated Gaussian kernel if the sample queries
+	 * find less than this fraction of the block within the radius.
+	 */
+	public static final double INDEX_NEIGHBOR_FRACTION = 0.1;
+
+	/**
+	 * The number of threads of new objects for density computation.
+	 */
+	static int defaultParallelism = 1;
+
+	/**
+	 * The number of threads for density computation. 1 for the sequential
+	 * loops.
+	 */
+	int parallelism = defaultParallelism;
+
+	/**
+	 * The pool of the parallel mode, shared by all objects so that the worker
+	 * threads are not created again for each one. Null if not created yet.
+	 */
+	static ForkJoinPool sharedPool;
+
+	/**
+	 * The maximal number of row ranges of the parallel mode. The ranges, and
+	 * hence the densities, do not depend on the number of threads.
+	 */
+	public static final int MAXIMAL_DENSITY_TASKS = 64;
+
+	/**
+	 * The minimal number of rows per range of the parallel mode.
+	 */
+	public static final int MINIMAL_TASK_ROWS = 64;
+
+	/**
+	 * Smaller blocks for speed up. It is produced by the kMeans algorithm now.
+	 */
+	int[][] smallerBlocks;
+
+	/**
+	 ********************
+	 * The constructor.
+	 * 
+	 * @param paraFilename
+	 *            The data set filename.
+	 * @param paraDistanceMeasure
+	 *            The distance measure in integer.
+	 * @param paraDcScheme
+	 *            The dc scheme. DIAMETER_FOR_DC, AVERAGE_FOR_DC or PERCENTILE_FOR_DC.
+	 * @param paraDcRatio
+	 *            The ratio for radius computation.
+	 * @param paraKernel
+	 *            The kernel, cutoff or Gaussian.
+	 ********************
+	 */
+	public DensityClustering(String paraFilename, int paraDistanceMeasure, int paraDcScheme, double paraDcRatio,
+			int paraKernel) {
+		super(paraFilename, paraDistanceMeasure);
+
+		dcScheme = paraDcScheme;
+		dcRatio = paraDcRatio;
+		kernel = paraKernel;
+
+		initialize();
+	}// Of the first constructor
+
+	/**
+	 ********************
+	 * The constructor.
+	 * 
+	 * @param paraData
+	 *            The data set.
+	 * @param paraDistanceMeasure
+	 *            The distance measure as an object.
+	 * @param paraDcScheme
+	 *            The dc scheme. DIAMETER_FOR_DC, AVERAGE_FOR_DC or PERCENTILE_FOR_DC.
+	 * @param paraDcRatio
+	 *            The ratio for radius computation.
+	 * @param paraKernel
+	 *            The kernel, cutoff or Gaussian.
+	 ********************
+	 */
+	public DensityClustering(Instances paraData, DistanceMeasure paraDistanceMeasure, int paraDcScheme,
+			double paraDcRatio, int paraKernel) {
+		super(paraData, paraDistanceMeasure);
+
+		dcScheme = paraDcScheme;
+		dcRatio = paraDcRatio;
+		kernel = paraKernel;
+
+		initialize();
+	}// Of the second constructor
+
+	/**
+	 ********************
+	 * Initialize.
+	 ********************
+	 */
+	private void initialize() {
+		dcEstimator = new DcEstimator(distanceMeasure);
+		setAdaptiveDc(dcRatio);
+		densities = null;
+		floatDensities = null;
+		if (featureStore.isSinglePrecision()) {
+			floatDensities = new float[numInstances];
+		} else {
+			densities = new double[numInstances];
+		} // Of if
+
+		smallerBlocks = null;
+		computeDensityEfficiently();
+		SimpleTools.variableTrackingOutput("The densities are: " + getDensity(0) + "...\r\n");
+	}// Of initialize
+
+	/**
+	 ************************* 
+	 * Set dc adaptively according to the dataset.
+	 * 
+	 * @param paraRatio
+	 *            The ratio of the average distance.
+	 ************************* 
+	 */
+	public void setAdaptiveDc(double paraRatio) {
+		setAdaptiveDc(wholeBlock, paraRatio);
+	}// Of setAdaptiveDc
+
+	/**
+	 ************************* 
+	 * Set the estimator of the pair distance statistics. It is used from the
+	 * next setAdaptiveDc() on.
+	 * 
+	 * @param paraDcEstimator
+	 *            The estimator. Null for the unseeded sampling through
+	 *            Common.random.
+	 ************************* 
+	 */
+	public void setDcEstimator(DcEstimator paraDcEstimator) {
+		dcEstimator = paraDcEstimator;
+	}// Of setDcEstimator
+
+	/**
+	 ************************* 
+	 * Set dc adaptively according to the dataset. The statistics of the
+	 * block come from the estimator, so the same block always gets the same
+	 * dc, and another ratio for the same block does not resample.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraRatio
+	 *            The ratio of the diameter or the average distance, or the
+	 *            fraction of the percentile.
+	 ************************* 
+	 */
+	public void setAdaptiveDc(int[] paraBlock, double paraRatio) {
+		if (dcEstimator == null) {
+			setAdaptiveDcByRandomPairs(paraBlock, paraRatio);
+			return;
+		} // Of if
+
+		dcRatio = paraRatio;
+		dcEstimator.estimate(paraBlock, TIMES_FOR_FARTHEST_PAIR * paraBlock.length);
+		diameter = dcEstimator.getDiameter();
+		averageDistance = dcEstimator.getAverageDistance();
+
+		dc = -1;
+		if (dcScheme == DIAMETER_FOR_DC) {
+			dc = diameter * dcRatio;
+		} else if (dcScheme == AVERAGE_FOR_DC) {
+			dc = averageDistance * dcRatio;
+		} else if (dcScheme == PERCENTILE_FOR_DC) {
+			dc = dcEstimator.getQuantile(dcRatio);
+		} else {
+			System.out.println("Fatal error in Clustering.setAdaptiveDc(int[], int, double):"
+					+ "\r\nUnsupported dcScheme: " + dcScheme);
+			System.exit(0);
+		} // Of if
+
+		SimpleTools.consoleOutput(dcEstimator + ", paraRatio = " + paraRatio + ", dc = " + dc);
+	}// Of setAdaptiveDc
+
+	/**
+	 ************************* 
+	 * Set dc with pairs drawn through Common.random. It aborts if the total
+	 * distance overflows.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraRatio
+	 *            The ratio of the average distance.
+	 ************************* 
+	 */
+	private void setAdaptiveDcByRandomPairs(int[] paraBlock, double paraRatio) {
+		dcRatio = paraRatio;
+		double tempTotal = 0;
+		int tempFirst, tempSecond;
+		int tempLength = paraBlock.length;
+		int tempPairs = TIMES_FOR_FARTHEST_PAIR * tempLength;
+		diameter = -1;
+		double tempDistance;
+
+		for (int i = 0; i < tempPairs; i++) {
+			tempFirst = (int) (Common.random.nextDouble() * tempLength);
+			tempSecond = (int) (Common.random.nextDouble() * tempLength);
+
+			tempDistance = distanceMeasure.distance(paraBlock[tempFirst], paraBlock[tempSecond]);
+
+			tempTotal += tempDistance;
+			if (diameter < tempDistance) {
+				diameter = tempDistance;
+			} // Of if
+
+			if (tempTotal > MAXIMAL_DISTANCE) {
+				System.out.println("Error occurred in DensityClustering.setAdaptiveDc()");
+				System.out.println("The distance between " + data.instance(tempFirst) + " and "
+						+ data.instance(tempSecond) + " is infinity" + "(" + tempTotal + ")");
+				System.exit(0);
+			} // Of if
+		} // Of for i
+
+		averageDistance = tempTotal / tempPairs;
+
+		dc = -1;
+		if (dcScheme == DIAMETER_FOR_DC) {
+			dc = diameter * dcRatio;
+		} else if (dcScheme == AVERAGE_FOR_DC) {
+			dc = averageDistance * dcRatio;
+		} else {
+			System.out.println("Fatal error in Clustering.setAdaptiveDc(int[], int, double):"
+					+ "\r\nUnsupported dcScheme: " + dcScheme);
+			System.exit(0);
+		} // Of if
+
+		SimpleTools.consoleOutput("tempTotal = " + tempTotal + ", tempPairs = " + tempPairs + ", paraRatio = "
+				+ paraRatio + ", dc = " + dc);
+	}// Of setAdaptiveDcByRandomPairs
+
+	/**
+	 ************************* 
+	 * Set dc.
+	 * 
+	 * @param paraDc
+	 *            The given dc.
+	 ************************* 
+	 */
+	public void setDc(double paraDc) {
+		dc = paraDc;
+	}// Of setDc
+
+	/**
+	 ************************* 
+	 * Set the truncation of the Gaussian kernel. The densities are computed
+	 * again on the current blocks.
+	 * 
+	 * @param paraMultiple
+	 *            The truncation radius as a multiple of dc, e.g.,
+	 *            DEFAULT_GAUSSIAN_TRUNCATION. Non-positive for the exact
+	 *            kernel.
+	 ************************* 
+	 */
+	public void setGaussianTruncation(double paraMultiple) {
+		gaussianTruncation = paraMultiple;
+		if (kernel == GAUSSIAN_KERNEL) {
+			recomputeDensities();
+		} // Of if
+	}// Of setGaussianTruncation
+
+	/**
+	 ************************* 
+	 * Compute the densities again on the current blocks. Different from
+	 * computeDensityEfficiently(), the smaller blocks are kept.
+	 ************************* 
+	 */
+	void recomputeDensities() {
+		clearDensities();
+		if (smallerBlocks == null) {
+			computeDensities(wholeBlock);
+		} else {
+			for (int i = 0; i < smallerBlocks.length; i++) {
+				computeDensities(smallerBlocks[i]);
+			} // Of for i
+		} // Of if
+	}// Of recomputeDensities
+
+	/**
+	 ************************* 
+	 * Get the error bound of the truncated Gaussian densities.
+	 * 
+	 * @return The maximal absolute error of the densities computed since they
+	 *         are cleared. 0 for the exact kernel.
+	 ************************* 
+	 */
+	public double getTruncationErrorBound() {
+		return truncationErrorBound;
+	}// Of getTruncationErrorBound
+
+	/**
+	 ************************* 
+	 * Set the number of threads for density computation of the objects
+	 * created afterwards. The densities are computed in the constructor,
+	 * hence it should be set before.
+	 * 
+	 * @param paraParallelism
+	 *            The number of threads. 1 for the sequential loops.
+	 ************************* 
+	 */
+	public static void setDefaultParallelism(int paraParallelism) {
+		defaultParallelism = paraParallelism;
+	}// Of setDefaultParallelism
+
+	/**
+	 ************************* 
+	 * Set the number of threads for density computation.
+	 * 
+	 * @param paraParallelism
+	 *            The number of threads. 1 for the sequential loops.
+	 ************************* 
+	 */
+	public void setParallelism(int paraParallelism) {
+		parallelism = paraParallelism;
+	}// Of setParallelism
+
+	/**
+	 ************************* 
+	 * Get the shared pool with the given number of threads. A pool of another
+	 * size is shut down, its running tasks still complete.
+	 * 
+	 * @param paraParallelism
+	 *            The number of threads.
+	 * @return The pool.
+	 ************************* 
+	 */
+	static synchronized ForkJoinPool getPool(int paraParallelism) {
+		if (sharedPool != null && sharedPool.getParallelism() != paraParallelism) {
+			sharedPool.shutdown();
+			sharedPool = null;
+		} // Of if
+
+		if (sharedPool == null) {
+			sharedPool = new ForkJoinPool(paraParallelism);
+		} // Of if
+
+		return sharedPool;
+	}// Of getPool
+
+	/**
+	 ********************
+	 * Get the density of the specified instance.
+	 * 
+	 * @param paraIndex
+	 *            The index of the instance.
+	 * @return The density.
+	 ********************
+	 */
+	public double getDensity(int paraIndex) {
+		if (floatDensities != null) {
+			return floatDensities[paraIndex];
+		} // Of if
+		return densities[paraIndex];
+	}// Of getDensity
+
+	/**
+	 ********************
+	 * Set the density of the specified instance.
+	 * 
+	 * @param paraIndex
+	 *            The index of the instance.
+	 * @param paraDensity
+	 *            The density.
+	 ********************
+	 */
+	void setDensity(int paraIndex, double paraDensity) {
+		densityVersion++;
+		if (floatDensities != null) {
+			floatDensities[paraIndex] = (float) paraDensity;
+		} else {
+			densities[paraIndex] = paraDensity;
+		} // Of if
+	}// Of setDensity
+
+	/**
+	 ********************
+	 * Reset all densities to 0.
+	 ********************
+	 */
+	void clearDensities() {
+		densityVersion++;
+		truncationErrorBound = 0;
+		if (floatDensities != null) {
+			Arrays.fill(floatDensities, 0);
+		} else {
+			Arrays.fill(densities, 0);
+		} // Of if
+	}// Of clearDensities
+
+	/**
+	 ********************
+	 * The densities as a string.
+	 * 
+	 * @return The densities.
+	 ********************
+	 */
+	String densitiesToString() {
+		if (floatDensities != null) {
+			return Arrays.toString(floatDensities);
+		} // Of if
+		return Arrays.toString(densities);
+	}// Of densitiesToString
+
+	/**
+	 ************************* 
+	 * Test the method.
+	 ************************* 
+	 */
+	public void testComputeDensity() {
+		computeDensityEfficiently();
+		SimpleTools.consoleOutput("dc = " + dc);
+		SimpleTools.consoleOutput("The density array is: " + densitiesToString());
+	}// Of testComputeDensity
+
+	/**
+	 ************************* 
+	 * Compare the truncated Gaussian densities of the whole data with the
+	 * exact ones. The densities are restored afterwards.
+	 ************************* 
+	 */
+	public void testGaussianTruncation() {
+		int tempKernel = kernel;
+		double tempTruncation = gaussianTruncation;
+		kernel = GAUSSIAN_KERNEL;
+
+		gaussianTruncation = 0;
+		clearDensities();
+		long tempStartTime = System.currentTimeMillis();
+		computeDensities(wholeBlock);
+		long tempExactTime = System.currentTimeMillis() - tempStartTime;
+		double[] tempExact = new double[numInstances];
+		for (int i = 0; i < numInstances; i++) {
+			tempExact[i] = getDensity(i);
+		} // Of for i
+		System.out.println("Exact Gaussian densities of " + numInstances + " instances: " + tempExactTime + " ms.");
+
+		double[] tempMultiples = { 2, DEFAULT_GAUSSIAN_TRUNCATION, 4 };
+		double tempError;
+		for (int i = 0; i < tempMultiples.length; i++) {
+			gaussianTruncation = tempMultiples[i];
+			clearDensities();
+			tempStartTime = System.currentTimeMillis();
+			computeDensities(wholeBlock);
+			long tempTime = System.currentTimeMillis() - tempStartTime;
+
+			tempError = 0;
+			for (int j = 0; j < numInstances; j++) {
+				tempError = Math.max(tempError, tempExact[j] - getDensity(j));
+			} // Of for j
+			System.out.println("Truncated at " + tempMultiples[i] + " dc: " + tempTime + " ms, maximal error "
+					+ tempError + ", bound " + truncationErrorBound);
+		} // Of for i
+
+		kernel = tempKernel;
+		gaussianTruncation = tempTruncation;
+		recomputeDensities();
+	}// Of testGaussianTruncation
+
+	/**
+	 ************************* 
+	 * Compare the parallel densities of the whole data with the sequential
+	 * ones for both kernels. The densities are restored afterwards.
+	 * 
+	 * @param paraParallelism
+	 *            The number of threads.
+	 ************************* 
+	 */
+	public void testParallelDensities(int paraParallelism) {
+		int tempKernel = kernel;
+		int tempParallelism = parallelism;
+		double tempTruncation = gaussianTruncation;
+		gaussianTruncation = 0;
+
+		int[] tempKernels = { CUTOFF_KERNEL, GAUSSIAN_KERNEL };
+		double[] tempSequential = new double[numInstances];
+		for (int i = 0; i < tempKernels.length; i++) {
+			kernel = tempKernels[i];
+
+			setParallelism(1);
+			clearDensities();
+			long tempStartTime = System.currentTimeMillis();
+			computeDensities(wholeBlock);
+			long tempSequentialTime = System.currentTimeMillis() - tempStartTime;
+			for (int j = 0; j < numInstances; j++) {
+				tempSequential[j] = getDensity(j);
+			} // Of for j
+
+			setParallelism(paraParallelism);
+			clearDensities();
+			tempStartTime = System.currentTimeMillis();
+			computeDensities(wholeBlock);
+			long tempParallelTime = System.currentTimeMillis() - tempStartTime;
+
+			double tempDifference = 0;
+			for (int j = 0; j < numInstances; j++) {
+				tempDifference = Math.max(tempDifference,
+						Math.abs(getDensity(j) - tempSequential[j]) / Math.max(tempSequential[j], 1));
+			} // Of for j
+			System.out.println("Kernel " + kernel + ", " + numInstances + " instances, sequential "
+					+ tempSequentialTime + " ms, " + paraParallelism + " threads " + tempParallelTime
+					+ " ms, maximal relative difference " + tempDifference);
+		} // Of for i
+
+		kernel = tempKernel;
+		setParallelism(tempParallelism);
+		gaussianTruncation = tempTruncation;
+		recomputeDensities();
+	}// Of testParallelDensities
+
+	/**
+	 ************************* 
+	 * Compare the dc of each scheme from two estimators and from the random
+	 * pairs, for the whole data and the first half. The dc is restored
+	 * afterwards.
+	 ************************* 
+	 */
+	public void testDcSchemes() {
+		int tempScheme = dcScheme;
+		double tempRatio = dcRatio;
+		double tempDc = dc;
+		double tempDiameter = diameter;
+		double tempAverageDistance = averageDistance;
+		DcEstimator tempEstimator = dcEstimator;
+
+		int[] tempHalfBlock = Arrays.copyOf(wholeBlock, numInstances / 2);
+		int[][] tempBlocks = { wholeBlock, tempHalfBlock };
+		int[] tempSchemes = { DIAMETER_FOR_DC, AVERAGE_FOR_DC, PERCENTILE_FOR_DC };
+		double[] tempRatios = { 0.1, 0.2, 0.02 };
+		double tempFirstDc, tempSecondDc;
+		for (int[] tempBlock : tempBlocks) {
+			for (int i = 0; i < tempSchemes.length; i++) {
+				dcScheme = tempSchemes[i];
+				setDcEstimator(new DcEstimator(distanceMeasure));
+				setAdaptiveDc(tempBlock, tempRatios[i]);
+				tempFirstDc = dc;
+				setDcEstimator(new DcEstimator(distanceMeasure));
+				setAdaptiveDc(tempBlock, tempRatios[i]);
+				tempSecondDc = dc;
+
+				String tempMessage = "Scheme " + dcScheme + ", ratio " + tempRatios[i] + ", " + tempBlock.length
+						+ " instances: dc " + tempFirstDc + ", the same for another estimator: "
+						+ (tempFirstDc == tempSecondDc);
+				if (dcScheme != PERCENTILE_FOR_DC) {
+					setDcEstimator(null);
+					setAdaptiveDc(tempBlock, tempRatios[i]);
+					tempMessage += ", random pairs " + dc;
+				} // Of if
+				System.out.println(tempMessage);
+			} // Of for i
+		} // Of for tempBlock
+
+		dcScheme = tempScheme;
+		dcRatio = tempRatio;
+		dc = tempDc;
+		diameter = tempDiameter;
+		averageDistance = tempAverageDistance;
+		dcEstimator = tempEstimator;
+	}// Of testDcSchemes
+
+	/**
+	 ****************** 
+	 * Compute the densities of instances in the given block.
+	 * @param paraBlock The given block.
+	 ****************** 
+	 */
+	public void computeDensities(int[] paraBlock) {
+		switch (kernel) {
+		case CUTOFF_KERNEL:
+			SimpleTools.processTrackingOutput("CUTOFF_KERNEL ");
+			computeDensitiesCutoff(paraBlock);
+			break;
+		case GAUSSIAN_KERNEL:
+			SimpleTools.processTrackingOutput("GAUSSIAN_KERNEL ");
+			computeDensitiesGaussian(paraBlock);
+			break;
+		default:
+			System.out.println("Unsupported kernel: " + kernel);
+			System.exit(0);
+		}// Of switch
+	}// Of computeDensities
+
+	/**
+	 ****************** 
+	 * Compute the densities using cutoff.
+	 ****************** 
+	 */
+	public void computeDensitiesCutoff() {
+		computeDensitiesCutoff(wholeBlock);
+	}// Of computeDensitiesCutoff
+
+	/**
+	 ****************** 
+	 * Compute the densities using cutoff.
+	 * 
+	 * @param paraBlock
+	 *            The given block for density computation. The density of each
+	 *            instance in the block is computed, and only other instances in
+	 *            the same block is considered.
+	 ****************** 
+	 */
+	public void computeDensitiesCutoff(int[] paraBlock) {
+		// SimpleTools.processTrackingOutput(
+		// "Compute densities using cutoff for a block with " + paraBlock.length
+		// + " instances.\r\n");
+
+		// Low dimensional data, count the instances of the block in the grid.
+		if (GridIndex.isApplicable(distanceMeasure, dc)) {
+			if (cutoffGrid == null || cutoffGridDc != dc) {
+				cutoffGrid = new GridIndex(distanceMeasure, wholeBlock, wholeBlock.length, dc);
+				cutoffGridDc = dc;
+				blockMarks = new int[numInstances];
+				blockMark = 0;
+			} // Of if
+
+			blockMark++;
+			for (int i = 0; i < paraBlock.length; i++) {
+				blockMarks[paraBlock[i]] = blockMark;
+			} // Of for i
+
+			int tempCount;
+			for (int i = 0; i < paraBlock.length; i++) {
+				tempCount = cutoffGrid.countWithin(paraBlock[i], dc, blockMarks, blockMark);
+				setDensity(paraBlock[i], getDensity(paraBlock[i]) + tempCount);
+			} // Of for i
+
+			SimpleTools.variableTrackingOutput("The densities are " + densitiesToString());
+			return;
+		} // Of if
+
+		if (isParallel(paraBlock.length)) {
+			computeDensitiesParallel(paraBlock);
+			return;
+		} // Of if
+
+		// The count within dc is a range query.
+		NeighborIndex tempIndex = NeighborIndex.create(distanceMeasure, paraBlock, paraBlock.length);
+		int[] tempNeighbors = new int[paraBlock.length];
+		int tempCount;
+		// Compute the densities.
+		for (int i = 0; i < paraBlock.length; i++) {
+			tempCount = tempIndex.rangeRanks(paraBlock[i], dc, tempNeighbors);
+			setDensity(paraBlock[i], getDensity(paraBlock[i]) + tempCount);
+		} // Of for i
+
+		SimpleTools.variableTrackingOutput("The densities are " + densitiesToString());
+	}// Of computeDensitiesCutoff
+
+	/**
+	 ****************** 
+	 * Compute the densities using Gaussian kernel.
+	 * @param paraBlock The given block.
+	 ****************** 
+	 */
+	public void computeDensitiesGaussian(int[] paraBlock) {
+		// SimpleTools
+		// .processTrackingOutput("computeDensitiesGaussian for a block with " +
+		// paraBlock.length + " instances.\r\n");
+
+		if (gaussianTruncation > 0) {
+			computeDensitiesTruncatedGaussian(paraBlock);
+			return;
+		} // Of if
+
+		if (isParallel(paraBlock.length)) {
+			computeDensitiesParallel(paraBlock);
+			return;
+		} // Of if
+
+		// A tile of queries shares one pass over the block rows.
+		int tempLength = paraBlock.length;
+		int tempTile = Math.min(DistanceKernels.QUERY_TILE, tempLength);
+		double[] tempDistances = new double[tempTile * tempLength];
+		double tempDistance;
+		double tempDensity;
+		int tempNumQueries, tempOffset;
+
+		// Compute the densities.
+		for (int i = 0; i < tempLength; i += tempTile) {
+			tempNumQueries = Math.min(tempTile, tempLength - i);
+			distanceMeasure.distances(paraBlock, i, tempNumQueries, paraBlock, tempLength, tempDistances);
+			for (int q = 0; q < tempNumQueries; q++) {
+				tempDensity = 0;
+				tempOffset = q * tempLength;
+				for (int j = 0; j < tempLength; j++) {
+					tempDistance = tempDistances[tempOffset + j];
+					tempDensity += Math.exp(-tempDistance * tempDistance / dc / dc);
+				} // Of for j
+				setDensity(paraBlock[i + q], tempDensity);
+			} // Of for q
+		} // Of for i
+
+		SimpleTools.variableTrackingOutput("The densities are " + densitiesToString() + "\r\n");
+	}// Of computeDensitiesGaussian
+
+	/**
+	 ****************** 
+	 * Compute the densities using Gaussian kernel truncated at
+	 * gaussianTruncation * dc. The neighbors are summed in the order of the
+	 * block as the exact kernel does. A few evenly spread queries are scanned
+	 * first. If they find only a small fraction of the block within the
+	 * radius, the others use a radius query index, otherwise they are scanned
+	 * too while skipping the exponentials beyond the radius.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 ****************** 
+	 */
+	public void computeDensitiesTruncatedGaussian(int[] paraBlock) {
+		double tempRadius = gaussianTruncation * dc;
+		double tempExcluded = Math.exp(-gaussianTruncation * gaussianTruncation);
+		double[] tempDistances = new double[paraBlock.length];
+		int[] tempNeighbors = new int[paraBlock.length];
+		boolean[] tempComputed = new boolean[paraBlock.length];
+		int tempCount;
+		double tempDistance;
+		double tempDensity;
+
+		// Step 1. Scan the sample queries.
+		int tempSampleSize = Math.min(TRUNCATION_SAMPLE_SIZE, paraBlock.length);
+		long tempSampleNeighbors = 0;
+		int tempPosition;
+		for (int i = 0; i < tempSampleSize; i++) {
+			tempPosition = (int) ((long) i * paraBlock.length / tempSampleSize);
+			tempComputed[tempPosition] = true;
+			distanceMeasure.distances(paraBlock[tempPosition], paraBlock, tempDistances);
+			tempCount = 0;
+			tempDensity = 0;
+			for (int j = 0; j < paraBlock.length; j++) {
+				tempDistance = tempDistances[j];
+				if (tempDistance <= tempRadius) {
+					tempDensity += Math.exp(-tempDistance * tempDistance / dc / dc);
+					tempCount++;
+				} // Of if
+			} // Of for j
+			setDensity(paraBlock[tempPosition], tempDensity);
+			tempSampleNeighbors += tempCount;
+			truncationErrorBound = Math.max(truncationErrorBound, (paraBlock.length - tempCount) * tempExcluded);
+		} // Of for i
+
+		// Step 2. The index pays only for a selective radius.
+		NeighborIndex tempIndex = null;
+		if (tempSampleNeighbors < INDEX_NEIGHBOR_FRACTION * tempSampleSize * paraBlock.length) {
+			tempIndex = GridIndex.create(distanceMeasure, paraBlock, paraBlock.length, tempRadius);
+		} // Of if
+
+		// Step 3. The other queries.
+		for (int i = 0; i < paraBlock.length; i++) {
+			if (tempComputed[i]) {
+				continue;
+			} // Of if
+
+			tempDensity = 0;
+			if (tempIndex != null) {
+				tempCount = tempIndex.rangeRanks(paraBlock[i], tempRadius, tempNeighbors);
+				for (int j = 0; j < tempCount; j++) {
+					tempDistance = distanceMeasure.distance(paraBlock[i], paraBlock[tempNeighbors[j]]);
+					tempDensity += Math.exp(-tempDistance * tempDistance / dc / dc);
+				} // Of for j
+			} else {
+				distanceMeasure.distances(paraBlock[i], paraBlock, tempDistances);
+				tempCount = 0;
+				for (int j = 0; j < paraBlock.length; j++) {
+					tempDistance = tempDistances[j];
+					if (tempDistance <= tempRadius) {
+						tempDensity += Math.exp(-tempDistance * tempDistance / dc / dc);
+						tempCount++;
+					} // Of if
+				} // Of for j
+			} // Of if
+			setDensity(paraBlock[i], tempDensity);
+			truncationErrorBound = Math.max(truncationErrorBound, (paraBlock.length - tempCount) * tempExcluded);
+		} // Of for i
+
+		SimpleTools.variableTrackingOutput("The densities are " + densitiesToString() + "\r\n");
+	}// Of computeDensitiesTruncatedGaussian
+
+	/**
+	 ****************** 
+	 * Is the parallel mode used for a block? The tiled distance cache is not
+	 * thread safe.
+	 * 
+	 * @param paraLength
+	 *            The length of the block.
+	 * @return True if more than one thread is set, and the block is long
+	 *         enough.
+	 ****************** 
+	 */
+	boolean isParallel(int paraLength) {
+		return parallelism > 1 && paraLength >= 2 * MINIMAL_TASK_ROWS && distanceMeasure.getTiledCache() == null;
+	}// Of isParallel
+
+	/**
+	 ****************** 
+	 * Compute the densities of the block with the kernel in parallel. Each
+	 * pair is computed once since the measures are symmetric. Row i pairs with
+	 * the rows before it, hence the ranges are balanced by the triangle area.
+	 * Each range accumulates into its own buffer, and the buffers are merged
+	 * in the order of the ranges. This way the densities do not depend on the
+	 * number of threads or the scheduling. The cutoff densities are the same
+	 * as the sequential ones. The Gaussian densities are summed in another
+	 * order, hence they may differ in the last bits.
+	 * <p>
+	 * The distance cache is filled lazily and is not thread safe, so the
+	 * triangle of the block is filled here first and the tasks only read it.
+	 * The tasks count their own attribute visits, and Common.runtimes is set
+	 * from them after the join.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 ****************** 
+	 */
+	void computeDensitiesParallel(int[] paraBlock) {
+		int tempNumTasks = Math.min(MAXIMAL_DENSITY_TASKS, paraBlock.length / MINIMAL_TASK_ROWS);
+		int[] tempBounds = new int[tempNumTasks + 1];
+		for (int i = 1; i < tempNumTasks; i++) {
+			tempBounds[i] = (int) (paraBlock.length * Math.sqrt((double) i / tempNumTasks));
+		} // Of for i
+		tempBounds[tempNumTasks] = paraBlock.length;
+
+		// Only the positions up to the end of a range are touched.
+		double[][] tempBuffers = new double[tempNumTasks][];
+		for (int i = 0; i < tempNumTasks; i++) {
+			tempBuffers[i] = new double[tempBounds[i + 1]];
+		} // Of for i
+
+		if (distanceMeasure.getCache() != null) {
+			double[] tempDistances = new double[paraBlock.length];
+			for (int i = 1; i < paraBlock.length; i++) {
+				distanceMeasure.distances(paraBlock[i], paraBlock, i, tempDistances);
+			} // Of for i
+		} // Of if
+
+		long tempStartRuntimes = Common.runtimes;
+		DensityTask tempTask = new DensityTask(paraBlock, tempBounds, tempBuffers, 0, tempNumTasks);
+		getPool(parallelism).invoke(tempTask);
+		Common.runtimes = tempStartRuntimes + tempTask.visits;
+
+		double tempDensity;
+		for (int i = 0; i < paraBlock.length; i++) {
+			tempDensity = 0;
+			for (int j = 0; j < tempNumTasks; j++) {
+				if (i < tempBuffers[j].length) {
+					tempDensity += tempBuffers[j][i];
+				} // Of if
+			} // Of for j
+
+			if (kernel == CUTOFF_KERNEL) {
+				setDensity(paraBlock[i], getDensity(paraBlock[i]) + tempDensity);
+			} else {
+				setDensity(paraBlock[i], tempDensity);
+			} // Of if
+		} // Of for i
+
+		SimpleTools.variableTrackingOutput("The densities are " + densitiesToString() + "\r\n");
+	}// Of computeDensitiesParallel
+
+	/**
+	 * The densities of a few row ranges. It is split in halves until one range
+	 * is left.
+	 */
+	class DensityTask extends RecursiveAction {
+		/**
+		 * For serialization.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The block.
+		 */
+		int[] block;
+
+		/**
+		 * The bounds of the row ranges.
+		 */
+		int[] bounds;
+
+		/**
+		 * The buffer of each range.
+		 */
+		double[][] buffers;
+
+		/**
+		 * The first range.
+		 */
+		int firstTask;
+
+		/**
+		 * The range after the last one.
+		 */
+		int lastTask;
+
+		/**
+		 * The attribute visits of the distances computed by the ranges.
+		 */
+		long visits;
+
+		/**
+		 ********************
+		 * The constructor.
+		 * 
+		 * @param paraBlock
+		 *            The block.
+		 * @param paraBounds
+		 *            The bounds of the row ranges.
+		 * @param paraBuffers
+		 *            The buffer of each range.
+		 * @param paraFirstTask
+		 *            The first range.
+		 * @param paraLastTask
+		 *            The range after the last one.
+		 ********************
+		 */
+		DensityTask(int[] paraBlock, int[] paraBounds, double[][] paraBuffers, int paraFirstTask,
+				int paraLastTask) {
+			block = paraBlock;
+			bounds = paraBounds;
+			buffers = paraBuffers;
+			firstTask = paraFirstTask;
+			lastTask = paraLastTask;
+		}// Of the constructor
+
+		/**
+		 ********************
+		 * Split, or compute the pairs of one range.
+		 ********************
+		 */
+		protected void compute() {
+			if (lastTask - firstTask > 1) {
+				int tempMiddle = (firstTask + lastTask) / 2;
+				DensityTask tempFirstHalf = new DensityTask(block, bounds, buffers, firstTask, tempMiddle);
+				DensityTask tempSecondHalf = new DensityTask(block, bounds, buffers, tempMiddle, lastTask);
+				invokeAll(tempFirstHalf, tempSecondHalf);
+				visits = tempFirstHalf.visits + tempSecondHalf.visits;
+				return;
+			} // Of if
+
+			// The instances themselves, and the pairs unless they are cached.
+			long tempNumDistances = bounds[firstTask + 1] - bounds[firstTask];
+			if (distanceMeasure.getCache() == null) {
+				tempNumDistances += ((long) bounds[firstTask + 1] * (bounds[firstTask + 1] - 1)
+						- (long) bounds[firstTask] * (bounds[firstTask] - 1)) / 2;
+			} // Of if
+			visits = distanceMeasure.getFunction().visits(tempNumDistances);
+
+			double[] tempBuffer = buffers[firstTask];
+			double[] tempDistances = new double[bounds[firstTask + 1]];
+			double tempDistance;
+			double tempValue;
+			for (int i = bounds[firstTask]; i < bounds[firstTask + 1]; i++) {
+				// The instance itself.
+				tempDistance = distanceMeasure.distance(block[i], block[i]);
+				tempBuffer[i] += kernelValue(tempDistance);
+
+				distanceMeasure.distances(block[i], block, i, tempDistances);
+				for (int j = 0; j < i; j++) {
+					tempValue = kernelValue(tempDistances[j]);
+					tempBuffer[i] += tempValue;
+					tempBuffer[j] += tempValue;
+				} // Of for j
+			} // Of for i
+		}// Of compute
+	}// Of class DensityTask
+
+	/**
+	 ****************** 
+	 * The contribution of a neighbor to the density.
+	 * 
+	 * @param paraDistance
+	 *            The distance to the neighbor.
+	 * @return 0 or 1 for the cutoff kernel, the exact Gaussian kernel
+	 *         otherwise.
+	 ****************** 
+	 */
+	double kernelValue(double paraDistance) {
+		if (kernel == CUTOFF_KERNEL) {
+			return paraDistance <= dc ? 1 : 0;
+		} // Of if
+		return Math.exp(-paraDistance * paraDistance / dc / dc);
+	}// Of kernelValue
+
+	/**
+	 ****************** 
+	 * Compute the densities.
+	 * 
+	 * @param paraK
+	 *            The number of blocks.
+	 ****************** 
+	 */
+	public void computeSmallerBlocks(int paraK) {
+		KMeans tempKMeans = new KMeans(data, distanceMeasure);
+		// Try at most 5 times.
+		boolean tempSuccess = false;
+		for (int i = 0; i < 5; i++) {
+			try {
+				smallerBlocks = tempKMeans.clusterInK(paraK);
+				tempSuccess = true;
+			} catch (UnableToClusterInKException ee) {
+				System.out.println("Error occurred in DensityClustering.computeDensityEfficiently().\r\n" + ee);
+			} // Of try
+
+			if (tempSuccess) {
+				break;
+			} // Of if
+		} // Of for
+
+		if (!tempSuccess) {
+			System.out.println("Failed after trying 5 times.");
+			System.exit(0);
+		} // Of if
+	}// Of computeSmallerBlocks
+
+	/**
+	 ************************* 
+	 * Compute the density of each instance efficiently. It is implemented by
+	 * first clustering using kMeans, where k = sqrt{n}
+	 ************************* 
+	 */
+	public void computeDensityEfficiently() {
+		clearDensities();
+		// Unnecessary to speed up.
+		if (numInstances <= SPEED_UP_THRESHOLD) {
+			SimpleTools.processTrackingOutput("" + numInstances + " instances, small data, no need to speed up.\r\n");
+			computeDensities(wholeBlock);
+			return;
+		} // Of if
+
+		int tempK = 2;
+		if (numInstances <= SPEED_UP_THRESHOLD * 100) {
+			// Big.
+			tempK = (int) (numInstances / SPEED_UP_THRESHOLD) + 1;
+		} else {
+			// Very big.
+			tempK = 100; // (int) Math.sqrt(numInstances);
+		} // Of if
+		SimpleTools.processTrackingOutput("Bigger data, speed up with " + tempK + " blocks in DensityClustering.\r\n");
+
+		// int tempK = (int)Math.sqrt(numInstances);
+
+		computeSmallerBlocks(tempK);
+		for (int i = 0; i < tempK; i++) {
+			computeDensities(smallerBlocks[i]);
+			SimpleTools.processTrackingOutput("" + i + ": " + smallerBlocks[i].length + " instances.\r\n");
+		} // Of for i
+
+		SimpleTools.processTrackingOutput("DensityClustering.computeDensityEfficiently() finished.\r\n");
+		SimpleTools.processTrackingOutput(
+				"densities = [" + getDensity(0) + ", ..., " + getDensity(numInstances - 1) + "]\r\n");
+	}// Of computeDensityEfficiently
+}// Of DensityClustering
@@ -0,0 +1,1488 @@
+package pub.rj.paper.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import pub.rj.paper.common.*;
+import pub.rj.paper.exception.*;
+import weka.core.Instances;
+
+/**
+ * The density peaks clustering algorithms.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: The simple version finished. Kernels may be added in the future<br>
+ * Written time: April 10, 2019. <br>
+ * Last modify time: July 21, 2019.
+ */
+
+public class DensityPeaks extends DensityClustering {
+	/**
+	 * Default max distance.
+	 */
+	public static final double MAX_DISTANCE_ROOT = 10000;
+
+	/**
+	 * The virtual maximal distance for the root.
+	 */
+	double maxDistance;
+
+	/**
+	 * The master of each instance.
+	 */
+	private int[] masters;
+
+	/**
+	 * The distance to master.
+	 */
+	double[] distancesToMaster;
+
+	/**
+	 * Find the masters by scanning the denser instances.
+	 */
+	public static final int SCAN_MASTERS = 0;
+
+	/**
+	 * Find the masters by querying an index over the denser instances.
+	 */
+	public static final int INDEXED_MASTERS = 1;
+
+	/**
+	 * The mode of finding masters, SCAN_MASTERS or INDEXED_MASTERS. The
+	 * results are the same.
+	 */
+	int masterMode = INDEXED_MASTERS;
+
+	/**
+	 * The positions of the instances in the current block, indexed by
+	 * instance. They break ties in the index.
+	 */
+	int[] blockPositions;
+
+	/**
+	 * Reuse the masters of the enclosing blocks? The results are the same.
+	 */
+	boolean masterCacheEnabled = true;
+
+	/**
+	 * The blocks whose masters are kept, from the outermost to the latest. In
+	 * the learnBlock recursion each one is a subset of the previous one.
+	 */
+	ArrayList<int[]> cachedBlocks;
+
+	/**
+	 * The masters of the cached blocks as instances, -1 for none within the
+	 * diameter. They are taken before the root is fixed.
+	 */
+	ArrayList<int[]> cachedMasters;
+
+	/**
+	 * The distances to master of the cached blocks.
+	 */
+	ArrayList<double[]> cachedDistances;
+
+	/**
+	 * The total length of the cached blocks.
+	 */
+	int cachedLength;
+
+	/**
+	 * The diameter of the cached masters.
+	 */
+	double cachedDiameter;
+
+	/**
+	 * The density version of the cached masters.
+	 */
+	int cachedDensityVersion;
+
+	/**
+	 * The marks of the instances for the subset test, indexed by instance.
+	 */
+	int[] cacheMarks;
+
+	/**
+	 * The current mark.
+	 */
+	int cacheMark;
+
+	/**
+	 * The cached blocks are no longer than this times the number of
+	 * instances. The outermost ones are dropped first.
+	 */
+	public static final int CACHE_LENGTH_RATIO = 4;
+
+	/**
+	 * If more than this fraction of a block lost its masters to the sibling,
+	 * its masters are computed from scratch.
+	 */
+	public static final double MAXIMAL_REPAIR_FRACTION = 0.1;
+
+	/**
+	 * The collector of the critical instances, reused across blocks.
+	 */
+	TopKCollector criticalCollector;
+
+	/**
+	 ********************
+	 * The constructor for independent running.
+	 * 
+	 * @param paraFilename
+	 *            The data set filename.
+	 * @param paraDistanceMeasure
+	 *            The distance measure as an object.
+	 * @param paraDcScheme
+	 *            The dc scheme. DIAMETER_FOR_DC, AVERAGE_FOR_DC or PERCENTILE_FOR_DC.
+	 * @param paraDcRatio
+	 *            The ratio for radius computation.
+	 * @param paraKernel
+	 *            The kernel, cutoff or Gaussian.
+	 ********************
+	 */
+	public DensityPeaks(String paraFilename, int paraDistanceMeasure, int paraDcScheme, double paraDcRatio,
+			int paraKernel) {
+		super(paraFilename, paraDistanceMeasure, paraDcScheme, paraDcRatio, paraKernel);
+		initialize();
+	}// Of the first constructor
+
+	/**
+	 ********************
+	 * The constructor.
+	 * 
+	 * @param paraData
+	 *            The data set.
+	 * @param paraDistanceMeasure
+	 *            The distance measure as an object.
+	 * @param paraDcScheme
+	 *            The dc scheme. DIAMETER_FOR_DC, AVERAGE_FOR_DC or PERCENTILE_FOR_DC.
+	 * @param paraDcRatio
+	 *            The ratio for radius computation.
+	 * @param paraKernel
+	 *            The kernel, cutoff or Gaussian.
+	 ********************
+	 */
+	public DensityPeaks(Instances paraData, DistanceMeasure paraDistanceMeasure, int paraDcScheme, double paraDcRatio,
+			int paraKernel) {
+		super(paraData, paraDistanceMeasure, paraDcScheme, paraDcRatio, paraKernel);
+		initialize();
+	}// Of the constructor
+
+	/**
+	 ********************
+	 * Initialize.
+	 ********************
+	 */
+	private void initialize() {
+		maxDistance = MAX_DISTANCE_ROOT;
+		balanceTwoBlocks = true;
+
+		SimpleTools.processTrackingOutput("Computing masters ... ");
+		computeMastersEfficiently();
+		SimpleTools.processTrackingOutput("done.\r\n");
+		SimpleTools.variableTrackingOutput("The masters are: " + Arrays.toString(masters));
+		// computePriority();
+	}// Of initialize
+
+	/**
+	 ************************* 
+	 * Cluster the given block in k using density peaks. New roots are selected
+	 * according to the representative.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @return Two blocks
+	 ************************* 
+	 */
+	public int[][] clusterInK(int[] paraBlock, int paraK) {
+		// The density of each instance is computed and stored already.
+
+		// Step 1. Compute the master tree.
+		int tempRoot = computeMasters(paraBlock);
+
+		// Step 3. Compute new (paraK - 1) roots for clustering
+		// The indices 1 to paraK - 1 are useful
+		int[] tempNewRoots = new int[paraK + 1];
+		tempNewRoots[0] = tempRoot;
+		double[] tempMultiplixes = new double[paraK + 1];
+		Arrays.fill(tempMultiplixes, -1);
+		tempMultiplixes[0] = Double.MAX_VALUE;
+
+		double tempMultiplex;
+		for (int i = 0; i < paraBlock.length; i++) {
+			// Do not compare with the root.
+			if (masters[i] == -1) {
+				continue;
+			} // Of if
+
+			// Attention: Outliers have density 1.
+			tempMultiplex = (getDensity(paraBlock[i]) - 0.99) * distancesToMaster[i];
+			for (int j = paraK - 1;; j--) {
+				if (tempMultiplixes[j] < tempMultiplex) {
+					// Move forward the tail
+					tempMultiplixes[j + 1] = tempMultiplixes[j];
+					tempNewRoots[j + 1] = tempNewRoots[j];
+				} else {
+					// Insert here.
+					tempMultiplixes[j + 1] = tempMultiplex;
+					tempNewRoots[j + 1] = i;
+					break;
+				} // Of if
+			} // Of for j
+		} // Of for i
+
+		// System.out.println("The roots are: " +
+		// Arrays.toString(tempNewRoots));
+
+		// Step 4. Now cluster in k.
+		int[] tempClusterIndices = new int[paraBlock.length];
+		Arrays.fill(tempClusterIndices, -1);
+		// The roots
+		for (int i = 0; i < paraK; i++) {
+			tempClusterIndices[tempNewRoots[i]] = i;
+		} // of
+
+		for (int i = 0; i < tempClusterIndices.length; i++) {
+			if (tempClusterIndices[i] != -1) {
+				continue;
+			} // Of if
+
+			tempClusterIndices[i] = coincideWithMaster(masters[i], masters, tempClusterIndices);
+		} // Of for i
+
+		// Step 5. Obtain the blocks.
+		int[] tempBlockSizes = new int[paraK];
+		// int tempFirstBlockSize = 0;
+		for (int i = 0; i < paraBlock.length; i++) {
+			tempBlockSizes[tempClusterIndices[i]]++;
+		} // Of for i
+		clusters = new int[paraK][];
+		for (int i = 0; i < clusters.length; i++) {
+			clusters[i] = new int[tempBlockSizes[i]];
+		} // Of for i
+
+		int[] tempBlockIndices = new int[paraK];
+		int tempBlockIndex;
+		for (int i = 0; i < paraBlock.length; i++) {
+			// System.out.println("i = " + i
+			// + ", tempClusterIndices[i] = " + tempClusterIndices[i]
+			// + ", tempBlockIndices[tempClusterIndices[i]] = " +
+			// tempBlockIndices[tempClusterIndices[i]]);
+			tempBlockIndex = tempClusterIndices[i];
+			clusters[tempClusterIndices[i]][tempBlockIndices[tempBlockIndex]] = paraBlock[i];
+			tempBlockIndices[tempClusterIndices[i]]++;
+		} // Of for i
+
+		return clusters;
+	}// Of clusterInK
+
+	/**
+	 ************************* 
+	 * Cluster the given block in two using density peaks. May change later to
+	 * obtain balanced clusters.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraQueriedArray
+	 *            The queried instance within the block. The indices should be a
+	 *            subset of [0 .. paraBlock.length - 1].
+	 * @return Two blocks
+	 ************************* 
+	 */
+	public int[][] clusterInTwo(int[] paraBlock, int[] paraQueriedArray) throws UnableToClusterInKException {
+		SimpleTools.processTrackingOutput(
+				"DensityPeaks.clusterInTwo(int[], int[]), " + paraQueriedArray.length + " queried\r\n");
+		// Step 1. Check whether or not there are different labels.
+		boolean tempHasDifferentLabels = false;
+		int tempFirstLabel = (int) data.instance(paraBlock[paraQueriedArray[0]]).classValue();
+		int tempCurrentLabel;
+		for (int i = 1; i < paraQueriedArray.length; i++) {
+			tempCurrentLabel = (int) data.instance(paraBlock[paraQueriedArray[i]]).classValue();
+			if (tempCurrentLabel != tempFirstLabel) {
+				tempHasDifferentLabels = true;
+				break;
+			} // Of if
+		} // Of for i
+
+		if (!tempHasDifferentLabels) {
+			throw new UnableToClusterInKException(
+					"Exception occurred in DensityPeaks.clusterInTwo(int[], int[]). " + " No different labels.");
+		} // Of if
+
+		// The density of each instance is computed and stored already.
+		// Step 2. Compute the master tree.
+		int tempRoot = computeMasters(paraBlock);
+		
+		// Step 3. The root and respective label.
+		int[] tempNewRoots = new int[2];
+		tempNewRoots[0] = tempRoot;
+		tempNewRoots[1] = -1;
+		int tempRootLabel = -1;
+		// Is the root queried?
+		boolean tempRootQueried = false;
+		for (int i = 0; i < paraQueriedArray.length; i++) {
+			if (tempRoot == paraQueriedArray[i]) {
+				tempRootQueried = true;
+				tempRootLabel = (int) data.instance(paraBlock[tempRoot]).classValue();
+				break;
+			} // Of if
+		} // Of for i
+
+		if (!tempRootQueried) {
+			// Find its nearest neighbor for the pseudo-label.
+			int tempNearestToRootLabeled = -1;
+			double tempMinimalDistance = Double.MAX_VALUE;
+			double tempDistance;
+			for (int i = 0; i < paraQueriedArray.length; i++) {
+				tempDistance = distanceMeasure.distance(paraBlock[tempRoot], paraBlock[paraQueriedArray[i]]);
+				if (tempMinimalDistance > tempDistance) {
+					tempMinimalDistance = tempDistance;
+					tempNearestToRootLabeled = paraQueriedArray[i];
+				} // Of if
+			} // Of for i
+			tempRootLabel = (int) data.instance(paraBlock[tempNearestToRootLabeled]).classValue();
+		} // Of if
+
+		// Step 4. Compute candidate new roots with different label and highest representative.
+		int tempNumCandidates = 5;
+		int[] tempCandidateRoots = new int[tempNumCandidates + 2];
+		Arrays.fill(tempCandidateRoots, -1);
+		double[] tempRepresentativeArray = new double[tempNumCandidates + 2];
+		tempRepresentativeArray[0] = Double.MAX_VALUE;
+		
+		double tempMultiplex;
+		for (int i = 0; i < paraQueriedArray.length; i++) {
+			if ((int) data.instance(paraBlock[paraQueriedArray[i]]).classValue() == tempRootLabel) {
+				continue;
+			} // Of if
+
+			tempMultiplex = (getDensity(paraBlock[paraQueriedArray[i]]) - 0.99) * distancesToMaster[paraQueriedArray[i]];
+			for (int j = tempNumCandidates; ; j--) {
+				if (tempRepresentativeArray[j] < tempMultiplex) {
+					tempRepresentativeArray[j + 1] = tempRepresentativeArray[j];
+					tempCandidateRoots[j + 1] = tempCandidateRoots[j];
+				} else {
+					tempRepresentativeArray[j + 1] = tempMultiplex;
+					tempCandidateRoots[j + 1] = paraQueriedArray[i];
+					break;
+				} // Of if
+			}//Of for j
+		} // Of for i
+		
+		//Step 5. Try at most tempNumCandidates times to obtain balanced blocks.
+		double tempBestBalanceFactor = -1;
+		for (int i = 0; i < tempNumCandidates; i ++) {
+			//Step 5.1 Set the second root.
+			tempNewRoots[1] = tempCandidateRoots[i + 1];
+			if (tempNewRoots[1] < 0) {
+				break;
+			}//Of if
+			
+			// Step 5.2 Now cluster in 2.
+			int[] tempClusterIndices = new int[paraBlock.length];
+			Arrays.fill(tempClusterIndices, -1);
+
+			// The roots
+			for (int j = 0; j < 2; j++) {
+				tempClusterIndices[tempNewRoots[j]] = j;
+			} // Of for i
+
+			for (int j = 0; j < tempClusterIndices.length; j++) {
+				if (tempClusterIndices[j] != -1) {
+					continue;
+				} // Of if
+
+				tempClusterIndices[j] = coincideWithMaster(masters[j], masters, tempClusterIndices);
+			} // Of for i
+
+			int tempSecondLabel = (int) data.instance(paraBlock[tempNewRoots[1]]).classValue();
+			if (tempSecondLabel == tempRootLabel) {
+				System.out.println("The roots have the same label.");
+				System.exit(0);
+			} // Of if
+
+			int[][] tempClusters = null;
+			
+			// Step 5.2 Obtain the blocks.
+			try {
+				tempClusters = blockInformationToBlocks(paraBlock, tempClusterIndices, 2);
+			} catch (LessBlocksThanRequiredException ee) {
+				System.out.println("Internal error occurred in DensityPeaks.clusterInTwo().\r\n" + ee);
+				System.exit(0);
+			} // Of try
+			
+			if (!balanceTwoBlocks) {
+				//Balancing not required.
+				clusters = tempClusters;
+				break;
+			}//Of if
+			
+			// Step 5.3 Are blocks balance?
+			double tempBalanceFactor = getBalanceFactor(tempClusters);
+			SimpleTools.processTrackingOutput("DensityPeaks.clusterInTwo() balancing " + i
+					+ " with factor " + tempBalanceFactor + " ...\r\n");
+			if (tempBestBalanceFactor < tempBalanceFactor) {
+				tempBestBalanceFactor = tempBalanceFactor;
+				clusters = tempClusters;
+			}//Of if
+
+			if (tempBalanceFactor > FINE_BALANCE_THRESHOLD) {
+				break;
+			}//Of if
+		}//Of for iteration
+
+		return clusters;
+	}// Of clusterInTwo
+
+	/**
+	 ************************* 
+	 * The block of a node should be same as its master
+	 * @param paraIndex The index of the given node.
+	 * @param paraMasters The master array indicating the master of each instance.
+	 * @param paraClusterIndices Cluster indices of all instances.
+	 * @return The cluster index of the current node.
+	 ************************* 
+	 */
+	public int coincideWithMaster(int paraIndex, int[] paraMasters, int[] paraClusterIndices) {
+		if (paraClusterIndices[paraIndex] == -1) {
+			int tempMaster = paraMasters[paraIndex];
+			paraClusterIndices[paraIndex] = coincideWithMaster(tempMaster, paraMasters, paraClusterIndices);
+		} // Of if
+
+		return paraClusterIndices[paraIndex];
+	}// Of coincideWithMaster
+
+	/**
+	 ****************** 
+	 * Find top-k critical instances.
+	 * 
+	 * @param paraK The required number of critical instances..
+	 * @return The array of critical instances.
+	 ****************** 
+	 */
+	int[] computeCriticalInstances(int paraK) {
+		return computeCriticalInstances(wholeBlock, paraK);
+	}// Of computeCriticalInstances
+
+	/**
+	 ****************** 
+	 * Find top-k critical instances. The values are the indices in the original
+	 * dataset.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraK
+	 *            The required number of critical instances.
+	 * @return The array of critical instances.
+	 ****************** 
+	 */
+	public int[] computeCriticalInstances(int[] paraBlock, int paraK) {
+		//No more than the size of the block.
+		if (paraK > paraBlock.length) {
+			paraK = paraBlock.length;
+		}//Of if
+		
+		// Initialize, recompute the master tree.
+		// The aim is to recompute distancesToMaster[].
+		computeMasters(paraBlock);
+
+		SimpleTools.variableTrackingOutput("The given block is " + Arrays.toString(paraBlock));
+		int tempNumInstances = paraBlock.length;
+		if (criticalCollector == null) {
+			criticalCollector = new TopKCollector(paraK, true);
+		} else {
+			criticalCollector.reset(paraK);
+		} // Of if
+
+		// The largest priorities, ties to the earlier positions in the block.
+		for (int i = 0; i < tempNumInstances; i++) {
+			criticalCollector.offer(getDensity(paraBlock[i]) * distancesToMaster[i], i);
+		} // Of for i
+
+		int[] resultIndices = new int[paraK];
+		double[] tempTopPriorities = new double[paraK];
+		int tempNumFound = criticalCollector.drain(resultIndices, tempTopPriorities);
+		for (int i = 0; i < tempNumFound; i++) {
+			resultIndices[i] = paraBlock[resultIndices[i]];
+		} // Of for i
+		// NaN priorities are never selected.
+		for (int i = tempNumFound; i < paraK; i++) {
+			resultIndices[i] = -1;
+		} // Of for i
+		SimpleTools.variableTrackingOutput("The top priorities are: " + Arrays.toString(tempTopPriorities));
+		SimpleTools.variableTrackingOutput("The top indices are: " + Arrays.toString(resultIndices));
+
+		return resultIndices;
+	}// Of computeCriticalInstances
+
+	/**
+	 ****************** 
+	 * Compute the masters efficiently.
+	 ****************** 
+	 */
+	public void computeMastersEfficiently() {
+		// Step 1. Check whether smaller blocks exist.
+		if (smallerBlocks == null) {
+			SimpleTools
+					.processTrackingOutput("Smaller blocks not generated, compute masters slowly in DensityPeaks.\r\n");
+			computeMasters(wholeBlock);
+			return;
+		} // Of if
+
+		// Step 2. Initialize.
+		masters = new int[numInstances];
+		Arrays.fill(masters, -1);
+		distancesToMaster = new double[numInstances];
+		Arrays.fill(distancesToMaster, diameter);
+
+		// Step 3. Compute masters of each instance in each block.
+		if (masterMode == INDEXED_MASTERS) {
+			computeSmallerBlockMastersIndexed();
+		} else {
+			computeSmallerBlockMasters();
+		} // Of if
+
+		// Step 4. Only reserve one root.
+		// The final root.
+		int tempRoot = 0;
+		for (int i = 0; i < numInstances; i++) {
+			if (masters[i] == -1) {
+				tempRoot = i;
+				break;
+			} // Of if
+		} // Of for i
+
+		// Others are not root.
+		for (int i = tempRoot + 1; i < numInstances; i++) {
+			if (masters[i] == -1) {
+				masters[i] = tempRoot;
+				distancesToMaster[i] = distanceMeasure.distance(i, tempRoot);
+			} // Of if
+		} // Of for i
+
+		SimpleTools.variableTrackingOutput("The masters are: " + Arrays.toString(masters));
+		SimpleTools.variableTrackingOutput("The distances to master are: " + Arrays.toString(distancesToMaster));
+
+		SimpleTools.processTrackingOutput("computeMastersEfficiently() finished.\r\n");
+	}// Of computeMastersEfficiently
+
+	/**
+	 ****************** 
+	 * Compute the masters of the instances in the smaller blocks by scanning.
+	 * The master is searched in the same block first, and in the whole data
+	 * set for the densest instances of the block.
+	 ****************** 
+	 */
+	void computeSmallerBlockMasters() {
+		boolean tempHasInnerBlockMaster;
+		double tempDistance;
+		for (int i = 0; i < smallerBlocks.length; i++) {
+			SimpleTools.processTrackingOutput("block #" + i + ", ");
+			for (int j = 0; j < smallerBlocks[i].length; j++) {
+				// Step 3.1.1 Try to find a master in the same block.
+				tempHasInnerBlockMaster = false;
+				for (int k = 0; k < smallerBlocks[i].length; k++) {
+					if (getDensity(smallerBlocks[i][k]) > getDensity(smallerBlocks[i][j])) {
+						tempHasInnerBlockMaster = true;
+						tempDistance = distanceMeasure.distance(smallerBlocks[i][j], smallerBlocks[i][k]);
+						if (distancesToMaster[smallerBlocks[i][j]] > tempDistance) {
+							distancesToMaster[smallerBlocks[i][j]] = tempDistance;
+							masters[smallerBlocks[i][j]] = smallerBlocks[i][k];
+						} // Of if
+					} // Of if
+				} // Of for k
+
+				if (tempHasInnerBlockMaster) {
+					continue;
+				} // Of if
+
+				// SimpleTools.processTrackingOutput("#" + smallerBlocks[i][j] +
+				// " is maximal with "
+				// + getDensity(smallerBlocks[i][j]) + " \r\n");
+				// Step 3.1.2 Find the master in the whole dataset
+				for (int k = 0; k < numInstances; k++) {
+					if (getDensity(k) > getDensity(smallerBlocks[i][j])) {
+						tempDistance = distanceMeasure.distance(smallerBlocks[i][j], k);
+						if (distancesToMaster[smallerBlocks[i][j]] > tempDistance) {
+							distancesToMaster[smallerBlocks[i][j]] = tempDistance;
+							masters[smallerBlocks[i][j]] = k;
+						} // Of if
+					} // Of if
+				} // Of for k
+			} // Of for j
+		} // Of for i
+
+		SimpleTools.processTrackingOutput("\r\n");
+	}// Of computeSmallerBlockMasters
+
+	/**
+	 ****************** 
+	 * Compute the masters of the instances in the smaller blocks with indices,
+	 * the same as computeSmallerBlockMasters(). The instances are inserted in
+	 * the descending order of density, and those of the same density only
+	 * after all of them are queried. Hence an index holds exactly the denser
+	 * instances while being queried.
+	 ****************** 
+	 */
+	void computeSmallerBlockMastersIndexed() {
+		int[] tempNeighbors = new int[numInstances];
+		if (blockPositions == null) {
+			blockPositions = new int[numInstances];
+		} // Of if
+
+		// Step 1. In the same block.
+		boolean[] tempIsMaximal = new boolean[numInstances];
+		int[] tempOrder;
+		int tempEnd, tempInstance;
+		DynamicNeighborIndex tempIndex;
+		for (int i = 0; i < smallerBlocks.length; i++) {
+			SimpleTools.processTrackingOutput("block #" + i + ", ");
+			for (int j = 0; j < smallerBlocks[i].length; j++) {
+				blockPositions[smallerBlocks[i][j]] = j;
+			} // Of for j
+
+			tempIndex = new DynamicNeighborIndex(distanceMeasure, blockPositions);
+			tempOrder = descendingDensityOrder(smallerBlocks[i]);
+			for (int j = 0; j < tempOrder.length; j = tempEnd) {
+				tempEnd = densityGroupEnd(smallerBlocks[i], tempOrder, j);
+				for (int k = j; k < tempEnd; k++) {
+					tempInstance = smallerBlocks[i][tempOrder[k]];
+					if (tempIndex.getNumPoints() == 0) {
+						tempIsMaximal[tempInstance] = true;
+						continue;
+					} // Of if
+					setNearestDenser(tempIndex, tempInstance, blockPositions, tempNeighbors);
+				} // Of for k
+
+				for (int k = j; k < tempEnd; k++) {
+					tempIndex.insert(smallerBlocks[i][tempOrder[k]]);
+				} // Of for k
+			} // Of for j
+		} // Of for i
+		SimpleTools.processTrackingOutput("\r\n");
+
+		// Step 2. The densest instances of the blocks in the whole data set.
+		// The instance indices break ties.
+		tempIndex = new DynamicNeighborIndex(distanceMeasure, wholeBlock);
+		tempOrder = descendingDensityOrder(wholeBlock);
+		for (int j = 0; j < tempOrder.length; j = tempEnd) {
+			tempEnd = densityGroupEnd(wholeBlock, tempOrder, j);
+			for (int k = j; k < tempEnd; k++) {
+				tempInstance = tempOrder[k];
+				if (tempIsMaximal[tempInstance] && tempIndex.getNumPoints() > 0) {
+					setNearestDenser(tempIndex, tempInstance, wholeBlock, tempNeighbors);
+				} // Of if
+			} // Of for k
+
+			for (int k = j; k < tempEnd; k++) {
+				tempIndex.insert(tempOrder[k]);
+			} // Of for k
+		} // Of for j
+	}// Of computeSmallerBlockMastersIndexed
+
+	/**
+	 ****************** 
+	 * Set the master of an instance to the nearest one in the index, if it is
+	 * nearer than the current distance to master. As in the scan, the
+	 * distance decides, and ties go to the smallest key. The index orders by
+	 * the comparison distance, so the candidates at the distance of its
+	 * nearest one are checked with a range query.
+	 * 
+	 * @param paraIndex
+	 *            The index over the denser instances.
+	 * @param paraInstance
+	 *            The instance.
+	 * @param paraKeys
+	 *            The keys of the index.
+	 * @param paraNeighbors
+	 *            The buffer for the range query.
+	 ****************** 
+	 */
+	void setNearestDenser(DynamicNeighborIndex paraIndex, int paraInstance, int[] paraKeys, int[] paraNeighbors) {
+		int tempNearest = paraIndex.nearest(paraInstance);
+		double tempMinDistance = distanceMeasure.distance(paraInstance, tempNearest);
+		if (distancesToMaster[paraInstance] <= tempMinDistance) {
+			return;
+		} // Of if
+
+		int tempCount = paraIndex.range(paraInstance, tempMinDistance, paraNeighbors);
+		double tempDistance;
+		for (int i = 0; i < tempCount; i++) {
+			tempDistance = distanceMeasure.distance(paraInstance, paraNeighbors[i]);
+			if (tempDistance < tempMinDistance
+					|| (tempDistance == tempMinDistance && paraKeys[paraNeighbors[i]] < paraKeys[tempNearest])) {
+				tempMinDistance = tempDistance;
+				tempNearest = paraNeighbors[i];
+			} // Of if
+		} // Of for i
+
+		masters[paraInstance] = tempNearest;
+		distancesToMaster[paraInstance] = tempMinDistance;
+	}// Of setNearestDenser
+
+	/**
+	 ****************** 
+	 * The positions of a block in the descending order of density. The sort is
+	 * stable.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @return The positions.
+	 ****************** 
+	 */
+	int[] descendingDensityOrder(int[] paraBlock) {
+		int tempLength = paraBlock.length;
+		int[] resultOrder = new int[tempLength];
+		double[] tempDensities = new double[tempLength];
+		for (int i = 0; i < tempLength; i++) {
+			resultOrder[i] = i;
+			tempDensities[i] = getDensity(paraBlock[i]);
+		} // Of for i
+
+		// Bottom-up merge sort.
+		int[] tempBuffer = new int[tempLength];
+		int[] tempSwap;
+		int tempMiddle, tempEnd, tempLeft, tempRight;
+		for (int tempWidth = 1; tempWidth < tempLength; tempWidth *= 2) {
+			for (int i = 0; i < tempLength; i += 2 * tempWidth) {
+				tempMiddle = Math.min(i + tempWidth, tempLength);
+				tempEnd = Math.min(i + 2 * tempWidth, tempLength);
+				tempLeft = i;
+				tempRight = tempMiddle;
+				for (int j = i; j < tempEnd; j++) {
+					if (tempRight == tempEnd || (tempLeft < tempMiddle
+							&& tempDensities[resultOrder[tempLeft]] >= tempDensities[resultOrder[tempRight]])) {
+						tempBuffer[j] = resultOrder[tempLeft];
+						tempLeft++;
+					} else {
+						tempBuffer[j] = resultOrder[tempRight];
+						tempRight++;
+					} // Of if
+				} // Of for j
+			} // Of for i
+			tempSwap = resultOrder;
+			resultOrder = tempBuffer;
+			tempBuffer = tempSwap;
+		} // Of for tempWidth
+
+		return resultOrder;
+	}// Of descendingDensityOrder
+
+	/**
+	 ****************** 
+	 * The end of the group of the same density in the descending order.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraOrder
+	 *            The positions in the descending order of density.
+	 * @param paraStart
+	 *            The start of the group.
+	 * @return The position after the group.
+	 ****************** 
+	 */
+	int densityGroupEnd(int[] paraBlock, int[] paraOrder, int paraStart) {
+		double tempDensity = getDensity(paraBlock[paraOrder[paraStart]]);
+		int resultEnd = paraStart + 1;
+		while (resultEnd < paraOrder.length && getDensity(paraBlock[paraOrder[resultEnd]]) == tempDensity) {
+			resultEnd++;
+		} // Of while
+
+		return resultEnd;
+	}// Of densityGroupEnd
+
+	/**
+	 ****************** 
+	 * Set the mode of finding masters.
+	 * 
+	 * @param paraMode
+	 *            SCAN_MASTERS or INDEXED_MASTERS.
+	 ****************** 
+	 */
+	public void setMasterMode(int paraMode) {
+		masterMode = paraMode;
+	}// Of setMasterMode
+
+	/**
+	 ****************** 
+	 * Enable or disable the reuse of the masters of the enclosing blocks.
+	 * 
+	 * @param paraEnabled
+	 *            True to reuse.
+	 ****************** 
+	 */
+	public void setMasterCache(boolean paraEnabled) {
+		masterCacheEnabled = paraEnabled;
+		cachedBlocks = null;
+	}// Of setMasterCache
+
+	/**
+	 ****************** 
+	 * Compute the masters. At the same time, compute the distance to master.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @return The root of the master tree, indicated by the index within the
+	 *         block.
+	 ****************** 
+	 */
+	public int computeMasters(int[] paraBlock) {
+		// Step 1. Initialize.
+		int tempNumInstances = paraBlock.length;
+		masters = new int[tempNumInstances];
+		distancesToMaster = new double[tempNumInstances];
+
+		// Step 2. Compute masters of each instance. Those farther than the
+		// diameter are not masters.
+		double tempDiameter = distanceMeasure.distanceToComparison(diameter);
+		// The graph of the block answers most instances without scanning.
+		KnnGraph tempGraph = null;
+		if (knnGraph != null && knnGraph.isExact()) {
+			tempGraph = knnGraph.induce(paraBlock);
+		} // Of if
+
+		if (!computeMastersFromCache(paraBlock, tempGraph, tempDiameter)) {
+			if (masterMode == INDEXED_MASTERS) {
+				computeMastersIndexed(paraBlock, tempGraph, tempDiameter);
+			} else {
+				computeMastersByScan(paraBlock, tempGraph, tempDiameter);
+			} // Of if
+		} // Of if
+		cacheMasters(paraBlock);
+
+		// Step 3. Only reserve one root.
+		// The final root.
+		int resultRoot = 0;
+		for (int i = 0; i < tempNumInstances; i++) {
+			if (masters[i] == -1) {
+				resultRoot = i;
+				break;
+			} // Of if
+		} // Of for i
+
+		// Others are not root.
+		for (int i = resultRoot + 1; i < tempNumInstances; i++) {
+			if (masters[i] == -1) {
+				SimpleTools.variableTrackingOutput("Fixing " + i + " with density " + getDensity(i));
+				masters[i] = resultRoot;
+				distancesToMaster[i] = distanceMeasure.distance(i, resultRoot);
+			} // Of if
+		} // Of for i
+
+		SimpleTools.variableTrackingOutput("The masters are: " + Arrays.toString(masters));
+		SimpleTools.variableTrackingOutput("The distances to master are: " + Arrays.toString(distancesToMaster));
+
+		return resultRoot;
+	}// Of computeMasters
+
+	/**
+	 ****************** 
+	 * Compute the masters of a block by scanning the denser instances for
+	 * each instance.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraGraph
+	 *            The graph of the block, null if not available.
+	 * @param paraDiameter
+	 *            The comparison distance of the diameter.
+	 ****************** 
+	 */
+	void computeMastersByScan(int[] paraBlock, KnnGraph paraGraph, double paraDiameter) {
+		// The denser instances (indices within the block) and their comparison
+		// distances. The distance to the master is computed at last.
+		int tempNumInstances = paraBlock.length;
+		int[] tempDenserIndices = new int[tempNumInstances];
+		int[] tempDenserInstances = new int[tempNumInstances];
+		double[] tempDistances = new double[tempNumInstances];
+		for (int i = 0; i < tempNumInstances; i++) {
+			scanMaster(paraBlock, i, paraGraph, paraDiameter, tempDenserIndices, tempDenserInstances,
+					tempDistances);
+		} // Of for i
+	}// Of computeMastersByScan
+
+	/**
+	 ****************** 
+	 * Compute the master of one instance by scanning the denser instances of
+	 * the block, after trying the graph.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraPosition
+	 *            The position of the instance in the block.
+	 * @param paraGraph
+	 *            The graph of the block, null if not available.
+	 * @param paraDiameter
+	 *            The comparison distance of the diameter.
+	 * @param paraDenserIndices
+	 *            The buffer for the positions of the denser instances.
+	 * @param paraDenserInstances
+	 *            The buffer for the denser instances.
+	 * @param paraDistances
+	 *            The buffer for their comparison distances.
+	 ****************** 
+	 */
+	void scanMaster(int[] paraBlock, int paraPosition, KnnGraph paraGraph, double paraDiameter,
+			int[] paraDenserIndices, int[] paraDenserInstances, double[] paraDistances) {
+		int i = paraPosition;
+		masters[i] = -1;
+		distancesToMaster[i] = diameter;
+		if (paraGraph != null) {
+			masters[i] = denserNeighbor(paraGraph, paraBlock, i, paraDiameter);
+			if (masters[i] != -1) {
+				distancesToMaster[i] = distanceMeasure.distance(paraBlock[i], paraBlock[masters[i]]);
+				return;
+			} // Of if
+		} // Of if
+
+		double tempMinDistance = paraDiameter;
+		double tempDensity = getDensity(paraBlock[i]);
+		int tempNumDenser = 0;
+		for (int j = 0; j < paraBlock.length; j++) {
+			if (getDensity(paraBlock[j]) > tempDensity) {
+				paraDenserIndices[tempNumDenser] = j;
+				paraDenserInstances[tempNumDenser] = paraBlock[j];
+				tempNumDenser++;
+			} // Of if
+		} // Of for j
+
+		distanceMeasure.comparisonDistances(paraBlock[i], paraDenserInstances, tempNumDenser, paraDistances);
+		for (int j = 0; j < tempNumDenser; j++) {
+			if (tempMinDistance > paraDistances[j]) {
+				tempMinDistance = paraDistances[j];
+				masters[i] = paraDenserIndices[j];// **************
+			} // Of if
+		} // Of for j
+		if (masters[i] != -1) {
+			distancesToMaster[i] = distanceMeasure.distance(paraBlock[i], paraBlock[masters[i]]);
+		} // Of if
+	}// Of scanMaster
+
+	/**
+	 ****************** 
+	 * Compute the masters of a block from the latest cached block containing
+	 * it. The master of an instance is its nearest denser instance within
+	 * the diameter, the first one in case of ties. If the master in the
+	 * enclosing block is also in this block, it is still the master here, as
+	 * long as the order of the instances is kept. If there is no master in
+	 * the enclosing block, there is none here either. Only the instances
+	 * whose masters fell into the sibling are repaired by scanning this
+	 * block. The finished branches are dropped from the cache on the way.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraGraph
+	 *            The graph of the block, null if not available.
+	 * @param paraDiameter
+	 *            The comparison distance of the diameter.
+	 * @return False if no cached block helps, and the masters are not
+	 *         computed.
+	 ****************** 
+	 */
+	boolean computeMastersFromCache(int[] paraBlock, KnnGraph paraGraph, double paraDiameter) {
+		if (!masterCacheEnabled || cachedBlocks == null) {
+			return false;
+		} // Of if
+		if (cachedDiameter != diameter || cachedDensityVersion != densityVersion) {
+			cachedBlocks = null;
+			return false;
+		} // Of if
+
+		// Step 1. Find the latest cached block containing this one in order.
+		int tempNumInstances = paraBlock.length;
+		int[] tempParentPositions = new int[tempNumInstances];
+		int[] tempParentBlock = null;
+		while (!cachedBlocks.isEmpty()) {
+			tempParentBlock = cachedBlocks.get(cachedBlocks.size() - 1);
+			if (isOrderedSubset(paraBlock, tempParentBlock, tempParentPositions)) {
+				break;
+			} // Of if
+			tempParentBlock = null;
+			popCachedBlock();
+		} // Of while
+		if (tempParentBlock == null) {
+			return false;
+		} // Of if
+		int[] tempParentMasters = cachedMasters.get(cachedMasters.size() - 1);
+		double[] tempParentDistances = cachedDistances.get(cachedDistances.size() - 1);
+
+		// Step 2. Count the instances to repair.
+		cacheMark++;
+		for (int i = 0; i < tempNumInstances; i++) {
+			cacheMarks[paraBlock[i]] = cacheMark;
+			blockPositions[paraBlock[i]] = i;
+		} // Of for i
+
+		int tempNumRepairs = 0;
+		int tempMaster;
+		for (int i = 0; i < tempNumInstances; i++) {
+			tempMaster = tempParentMasters[tempParentPositions[i]];
+			if (tempMaster != -1 && cacheMarks[tempMaster] != cacheMark) {
+				tempNumRepairs++;
+			} // Of if
+		} // Of for i
+		if (tempNumRepairs > MAXIMAL_REPAIR_FRACTION * tempNumInstances) {
+			return false;
+		} // Of if
+
+		// Step 3. Keep or repair.
+		int[] tempDenserIndices = new int[tempNumInstances];
+		int[] tempDenserInstances = new int[tempNumInstances];
+		double[] tempDistances = new double[tempNumInstances];
+		for (int i = 0; i < tempNumInstances; i++) {
+			tempMaster = tempParentMasters[tempParentPositions[i]];
+			if (tempMaster == -1) {
+				masters[i] = -1;
+				distancesToMaster[i] = diameter;
+			} else if (cacheMarks[tempMaster] == cacheMark) {
+				masters[i] = blockPositions[tempMaster];
+				distancesToMaster[i] = tempParentDistances[tempParentPositions[i]];
+			} else {
+				scanMaster(paraBlock, i, paraGraph, paraDiameter, tempDenserIndices, tempDenserInstances,
+						tempDistances);
+			} // Of if
+		} // Of for i
+
+		return true;
+	}// Of computeMastersFromCache
+
+	/**
+	 ****************** 
+	 * Is a block a subset of another one in the same order?
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraParentBlock
+	 *            The enclosing block.
+	 * @param paraPositions
+	 *            The array to store the position of each instance in the
+	 *            enclosing block.
+	 * @return True if the positions are defined and ascending.
+	 ****************** 
+	 */
+	boolean isOrderedSubset(int[] paraBlock, int[] paraParentBlock, int[] paraPositions) {
+		if (paraBlock.length > paraParentBlock.length) {
+			return false;
+		} // Of if
+
+		cacheMark++;
+		for (int i = 0; i < paraParentBlock.length; i++) {
+			cacheMarks[paraParentBlock[i]] = cacheMark;
+			blockPositions[paraParentBlock[i]] = i;
+		} // Of for i
+
+		for (int i = 0; i < paraBlock.length; i++) {
+			if (cacheMarks[paraBlock[i]] != cacheMark) {
+				return false;
+			} // Of if
+			paraPositions[i] = blockPositions[paraBlock[i]];
+			if (i > 0 && paraPositions[i] <= paraPositions[i - 1]) {
+				return false;
+			} // Of if
+		} // Of for i
+
+		return true;
+	}// Of isOrderedSubset
+
+	/**
+	 ****************** 
+	 * Cache the masters of a block, before the root is fixed. A block equal
+	 * to the latest one is not cached again.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 ****************** 
+	 */
+	void cacheMasters(int[] paraBlock) {
+		if (!masterCacheEnabled) {
+			return;
+		} // Of if
+
+		if (cachedBlocks == null) {
+			cachedBlocks = new ArrayList<int[]>();
+			cachedMasters = new ArrayList<int[]>();
+			cachedDistances = new ArrayList<double[]>();
+			cachedLength = 0;
+			cachedDiameter = diameter;
+			cachedDensityVersion = densityVersion;
+			if (cacheMarks == null) {
+				cacheMarks = new int[numInstances];
+				blockPositions = new int[numInstances];
+			} // Of if
+		} // Of if
+
+		if (!cachedBlocks.isEmpty()) {
+			int[] tempLatest = cachedBlocks.get(cachedBlocks.size() - 1);
+			if (tempLatest.length == paraBlock.length && Arrays.equals(tempLatest, paraBlock)) {
+				return;
+			} // Of if
+		} // Of if
+
+		int[] tempMasters = new int[paraBlock.length];
+		for (int i = 0; i < paraBlock.length; i++) {
+			tempMasters[i] = masters[i] == -1 ? -1 : paraBlock[masters[i]];
+		} // Of for i
+		cachedBlocks.add(Arrays.copyOf(paraBlock, paraBlock.length));
+		cachedMasters.add(tempMasters);
+		cachedDistances.add(Arrays.copyOf(distancesToMaster, paraBlock.length));
+		cachedLength += paraBlock.length;
+
+		// Drop the outermost blocks for memory.
+		while (cachedBlocks.size() > 1 && cachedLength > CACHE_LENGTH_RATIO * numInstances) {
+			cachedLength -= cachedBlocks.get(0).length;
+			cachedBlocks.remove(0);
+			cachedMasters.remove(0);
+			cachedDistances.remove(0);
+		} // Of while
+	}// Of cacheMasters
+
+	/**
+	 ****************** 
+	 * Drop the latest cached block.
+	 ****************** 
+	 */
+	void popCachedBlock() {
+		int tempLast = cachedBlocks.size() - 1;
+		cachedLength -= cachedBlocks.get(tempLast).length;
+		cachedBlocks.remove(tempLast);
+		cachedMasters.remove(tempLast);
+		cachedDistances.remove(tempLast);
+	}// Of popCachedBlock
+
+	/**
+	 ****************** 
+	 * Compute the masters of a block with an index, in O(n log^2 n) time for
+	 * low dimensional data. The result is the same as computeMastersByScan():
+	 * the instances are inserted into the index in the descending order of
+	 * density, and a group of the same density only after all its members are
+	 * queried, so the index holds exactly the denser instances of the one
+	 * queried. The index returns the minimal comparison distance with ties to
+	 * the smallest key, which is the position in the block, i.e., the first
+	 * strict minimum found by the scan.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraGraph
+	 *            The graph of the block, null if not available.
+	 * @param paraDiameter
+	 *            The comparison distance of the diameter.
+	 ****************** 
+	 */
+	void computeMastersIndexed(int[] paraBlock, KnnGraph paraGraph, double paraDiameter) {
+		int tempNumInstances = paraBlock.length;
+		if (blockPositions == null) {
+			blockPositions = new int[numInstances];
+		} // Of if
+		for (int i = 0; i < tempNumInstances; i++) {
+			blockPositions[paraBlock[i]] = i;
+			masters[i] = -1;
+			distancesToMaster[i] = diameter;
+		} // Of for i
+
+		DynamicNeighborIndex tempIndex = new DynamicNeighborIndex(distanceMeasure, blockPositions);
+		int[] tempOrder = descendingDensityOrder(paraBlock);
+		int tempEnd, tempPosition, tempNearest;
+		for (int i = 0; i < tempNumInstances; i = tempEnd) {
+			tempEnd = densityGroupEnd(paraBlock, tempOrder, i);
+
+			// Step 1. Query the group. The densest group has no master.
+			for (int j = i; j < tempEnd && tempIndex.getNumPoints() > 0; j++) {
+				tempPosition = tempOrder[j];
+				if (paraGraph != null) {
+					masters[tempPosition] = denserNeighbor(paraGraph, paraBlock, tempPosition, paraDiameter);
+					if (masters[tempPosition] != -1) {
+						distancesToMaster[tempPosition] = distanceMeasure.distance(paraBlock[tempPosition],
+								paraBlock[masters[tempPosition]]);
+						continue;
+					} // Of if
+				} // Of if
+
+				tempNearest = tempIndex.nearest(paraBlock[tempPosition]);
+				if (distanceMeasure.comparisonDistance(paraBlock[tempPosition], tempNearest) < paraDiameter) {
+					masters[tempPosition] = blockPositions[tempNearest];
+					distancesToMaster[tempPosition] = distanceMeasure.distance(paraBlock[tempPosition], tempNearest);
+				} // Of if
+			} // Of for j
+
+			// Step 2. Insert the group.
+			for (int j = i; j < tempEnd; j++) {
+				tempIndex.insert(paraBlock[tempOrder[j]]);
+			} // Of for j
+		} // Of for i
+	}// Of computeMastersIndexed
+
+	/**
+	 ****************** 
+	 * Find the master of an instance by walking its list in the graph of the
+	 * block. The master is the nearest denser instance, the first one in the
+	 * block in case of ties, as in computeMasters(int[]). It is taken only if
+	 * the list covers all instances as near as it.
+	 * 
+	 * @param paraGraph
+	 *            The graph of the block.
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraPosition
+	 *            The position of the instance in the block.
+	 * @param paraDiameter
+	 *            The comparison distance of the diameter. Farther instances are
+	 *            not masters.
+	 * @return The position of the master, -1 if the list cannot tell.
+	 ****************** 
+	 */
+	int denserNeighbor(KnnGraph paraGraph, int[] paraBlock, int paraPosition, double paraDiameter) {
+		double tempDensity = getDensity(paraBlock[paraPosition]);
+		int resultPosition = -1;
+		double tempMinComparison = paraDiameter;
+		double tempComparison;
+		int tempNeighbor;
+		for (int j = 0; j < paraGraph.getNumNeighbors(paraPosition); j++) {
+			tempComparison = paraGraph.getComparison(paraPosition, j);
+			if (tempComparison > tempMinComparison) {
+				break;
+			} // Of if
+
+			tempNeighbor = paraGraph.getNeighbor(paraPosition, j);
+			if (getDensity(paraBlock[tempNeighbor]) <= tempDensity) {
+				continue;
+			} // Of if
+
+			if (tempComparison < tempMinComparison
+					|| (resultPosition != -1 && tempNeighbor < resultPosition)) {
+				tempMinComparison = tempComparison;
+				resultPosition = tempNeighbor;
+			} // Of if
+		} // Of for j
+
+		if (resultPosition == -1 || !paraGraph.covers(paraPosition, tempMinComparison)) {
+			return -1;
+		} // Of if
+
+		return resultPosition;
+	}// Of denserNeighbor
+
+	/**
+	 ************************* 
+	 * Test the method.
+	 ************************* 
+	 */
+	public void testComputeDensityEfficiently() {
+		System.out.println("testComputeDensityEfficiently, dc = " + dc);
+
+		computeDensityEfficiently();
+		System.out.println("If compute them efficiently, the densities are:\r\n" + densitiesToString());
+	}// Of testComputeDensityEfficiently
+
+	/**
+	 ************************* 
+	 * Test the method.
+	 ************************* 
+	 */
+	public void testClusterInTwo() {
+		// int[] tempBlock = { 1, 3, 49, 56, 88, 89, 99, 121, 123, 133 };
+		int[] tempBlock = wholeBlock;
+		int[] tempQueried = { 7, 60, 120 };
+		int[][] tempPartition = null;
+
+		try {
+			tempPartition = clusterInTwo(tempBlock, tempQueried);
+		} catch (UnableToClusterInKException ee) {
+			System.out.println(ee);
+		} // Of try
+
+		SimpleTools.consoleOutput("With density peaks, the partition is: " + Arrays.deepToString(tempPartition));
+	}// Of testClusterInTwo
+
+	/**
+	 ************************* 
+	 * Test that the indexed masters are the same as the scanned ones on the
+	 * bundled data sets, for the whole data, a random half, and the smaller
+	 * blocks of computeMastersEfficiently().
+	 ************************* 
+	 */
+	public static void testMasterModes() {
+		String[] tempFilenames = { "src/pub/rj/paper/data/iris.arff", "src/pub/rj/paper/data/R15.arff",
+				"src/pub/rj/paper/data/flame.arff", "src/pub/rj/paper/data/jain.arff",
+				"src/pub/rj/paper/data/banana.arff", "src/pub/rj/paper/data/credit6000.arff" };
+		int[] tempKernels = { CUTOFF_KERNEL, GAUSSIAN_KERNEL };
+		for (int i = 0; i < tempFilenames.length; i++) {
+			for (int tempKernel : tempKernels) {
+				DensityPeaks tempPeaks = new DensityPeaks(tempFilenames[i], DistanceMeasure.EUCLIDEAN,
+						DIAMETER_FOR_DC, 0.1, tempKernel);
+				tempPeaks.setMasterCache(false);
+				int[] tempHalf = Arrays.copyOf(SimpleTools.getRandomOrder(tempPeaks.numInstances),
+						tempPeaks.numInstances / 2);
+				int[][] tempBlocks = { tempPeaks.wholeBlock, tempHalf, null };
+
+				int tempWrong = 0;
+				long tempScanTime = 0;
+				long tempIndexTime = 0;
+				for (int j = 0; j < tempBlocks.length; j++) {
+					int[][] tempMasters = new int[2][];
+					double[][] tempDistances = new double[2][];
+					int[] tempRoots = new int[2];
+					int[] tempModes = { SCAN_MASTERS, INDEXED_MASTERS };
+					for (int k = 0; k < tempModes.length; k++) {
+						tempPeaks.setMasterMode(tempModes[k]);
+						long tempStartTime = System.nanoTime();
+						if (tempBlocks[j] == null) {
+							tempPeaks.computeMastersEfficiently();
+						} else {
+							tempRoots[k] = tempPeaks.computeMasters(tempBlocks[j]);
+						} // Of if
+						if (k == 0) {
+							tempScanTime += System.nanoTime() - tempStartTime;
+						} else {
+							tempIndexTime += System.nanoTime() - tempStartTime;
+						} // Of if
+						tempMasters[k] = tempPeaks.masters;
+						tempDistances[k] = tempPeaks.distancesToMaster;
+					} // Of for k
+
+					if (tempRoots[0] != tempRoots[1] || !Arrays.equals(tempMasters[0], tempMasters[1])
+							|| !Arrays.equals(tempDistances[0], tempDistances[1])) {
+						tempWrong++;
+					} // Of if
+				} // Of for j
+
+				System.out.println(tempFilenames[i] + " with kernel " + tempKernel + ": " + tempWrong
+						+ " of 3 master trees differ, scan " + tempScanTime / 1000000 + " ms, index "
+						+ tempIndexTime / 1000000 + " ms.");
+			} // Of for tempKernel
+		} // Of for i
+	}// Of testMasterModes
+
+	/**
+	 ************************* 
+	 * Test that the cached masters are the same as the computed ones along
+	 * recursions of splits, by density peaks and at random.
+	 ************************* 
+	 */
+	public static void testMasterCache() {
+		String[] tempFilenames = { "src/pub/rj/paper/data/iris.arff", "src/pub/rj/paper/data/R15.arff",
+				"src/pub/rj/paper/data/flame.arff", "src/pub/rj/paper/data/jain.arff",
+				"src/pub/rj/paper/data/banana.arff", "src/pub/rj/paper/data/credit6000.arff" };
+		int[] tempKernels = { CUTOFF_KERNEL, GAUSSIAN_KERNEL };
+		for (int i = 0; i < tempFilenames.length; i++) {
+			for (int tempKernel : tempKernels) {
+				DensityPeaks tempPeaks = new DensityPeaks(tempFilenames[i], DistanceMeasure.EUCLIDEAN,
+						DIAMETER_FOR_DC, 0.1, tempKernel);
+				for (int j = 0; j < 2; j++) {
+					// Blocks, wrong ones, cached time, computed time.
+					long[] tempStatistics = new long[4];
+					tempPeaks.setMasterCache(true);
+					tempPeaks.checkMasterCache(tempPeaks.wholeBlock, j == 1, tempStatistics);
+					System.out.println(tempFilenames[i] + " with kernel " + tempKernel
+							+ (j == 1 ? ", random splits: " : ", density peaks splits: ") + tempStatistics[1]
+							+ " of " + tempStatistics[0] + " master trees differ, cached " + tempStatistics[2] / 1000000
+							+ " ms, computed " + tempStatistics[3] / 1000000 + " ms.");
+				} // Of for j
+			} // Of for tempKernel
+		} // Of for i
+	}// Of testMasterCache
+
+	/**
+	 ************************* 
+	 * Compare the cached masters of a block with the computed ones, and
+	 * recurse into its two parts.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraRandomSplit
+	 *            Split at random instead of by density peaks.
+	 * @param paraStatistics
+	 *            The number of blocks, of wrong ones, the cached time, and the
+	 *            computed time.
+	 ************************* 
+	 */
+	void checkMasterCache(int[] paraBlock, boolean paraRandomSplit, long[] paraStatistics) {
+		long tempStartTime = System.nanoTime();
+		int tempCachedRoot = computeMasters(paraBlock);
+		paraStatistics[2] += System.nanoTime() - tempStartTime;
+		int[] tempCachedMasters = masters;
+		double[] tempCachedDistances = distancesToMaster;
+
+		masterCacheEnabled = false;
+		tempStartTime = System.nanoTime();
+		int tempRoot = computeMasters(paraBlock);
+		paraStatistics[3] += System.nanoTime() - tempStartTime;
+		masterCacheEnabled = true;
+
+		paraStatistics[0]++;
+		if (tempCachedRoot != tempRoot || !Arrays.equals(tempCachedMasters, masters)
+				|| !Arrays.equals(tempCachedDistances, distancesToMaster)) {
+			paraStatistics[1]++;
+		} // Of if
+
+		if (paraBlock.length < 20) {
+			return;
+		} // Of if
+
+		int[][] tempParts;
+		if (paraRandomSplit) {
+			boolean[] tempFirst = new boolean[paraBlock.length];
+			int tempFirstLength = 0;
+			for (int i = 0; i < paraBlock.length; i++) {
+				tempFirst[i] = Common.random.nextBoolean();
+				if (tempFirst[i]) {
+					tempFirstLength++;
+				} // Of if
+			} // Of for i
+			tempParts = new int[][] { new int[tempFirstLength], new int[paraBlock.length - tempFirstLength] };
+			int[] tempCounters = new int[2];
+			for (int i = 0; i < paraBlock.length; i++) {
+				int tempPart = tempFirst[i] ? 0 : 1;
+				tempParts[tempPart][tempCounters[tempPart]] = paraBlock[i];
+				tempCounters[tempPart]++;
+			} // Of for i
+		} else {
+			tempParts = clusterInK(paraBlock, 2);
+		} // Of if
+
+		for (int i = 0; i < tempParts.length; i++) {
+			if (tempParts[i].length > 0 && tempParts[i].length < paraBlock.length) {
+				checkMasterCache(tempParts[i], paraRandomSplit, paraStatistics);
+			} // Of if
+		} // Of for i
+	}// Of checkMasterCache
+
+	/**
+	 ************************* 
+	 * The main entrance.
+	 * 
+	 * @author Fan Min
+	 * @param args The parameters.
+	 ************************* 
+	 */
+	public static void main(String[] args) {
+		SimpleTools.consoleOutput("Hello, densityPeaks.");
+		String tempFilename = "src/data/iris.arff";
+		// String tempFilename = "src/data/spiral_disorder.arff";
+
+		if (args.length >= 1) {
+			tempFilename = args[0];
+			SimpleTools.consoleOutput("The filename is: " + tempFilename);
+		} // Of if
+
+		DensityPeaks densityPeaks = new DensityPeaks(tempFilename, DistanceMeasure.EUCLIDEAN, DIAMETER_FOR_DC, 0.1, 1);
+
+		densityPeaks.testClusterInTwo();
+		// densityPeaks.testClusterInK(2);
+
+		double tempAccuracy = densityPeaks.computeAccuracy();
+		System.out.println("The accuracy is: " + tempAccuracy);
+
+		// densityPeaks.testComputeDensityEfficiently();
+
+		densityPeaks.testGaussianTruncation();
+		densityPeaks.testParallelDensities(Math.max(2, Runtime.getRuntime().availableProcessors()));
+		densityPeaks.testDcSchemes();
+		testMasterModes();
+		testMasterCache();
+	}// Of main
+}// Of class DensityPeaks
@@ -0,0 +1,226 @@
+package pub.rj.paper.common;
+
+import java.util.Arrays;
+
+/**
+ * A condensed upper-triangular cache of pairwise distances. The distance
+ * between i and j (i < j) is stored at i * (2n - i - 1) / 2 + (j - i - 1), so
+ * that n(n - 1) / 2 values are enough. Values are filled lazily, NaN stands for
+ * not computed yet. Doubles are used by default, and floats in the single
+ * precision mode.
+ * <p>
+ * It is not thread safe. The values are checked and set without
+ * synchronization, and a miss adds to Common.runtimes.
+ * Threads may share the cache only for reading the pairs filled before they
+ * start, e.g., DensityClustering fills the triangle of a block before
+ * forking its density tasks.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class DistanceCache {
+	/**
+	 * The cache may take at most this ratio of the available heap.
+	 */
+	public static final double MEMORY_RATIO = 0.5;
+
+	/**
+	 * The maximal array length supported by the JVM.
+	 */
+	public static final long MAXIMAL_LENGTH = Integer.MAX_VALUE - 8;
+
+	/**
+	 * The number of instances.
+	 */
+	int numInstances;
+
+	/**
+	 * The distances in double precision.
+	 */
+	double[] distances;
+
+	/**
+	 * The distances in single precision. Exactly one of distances and
+	 * floatDistances is not null.
+	 */
+	float[] floatDistances;
+
+	/**
+	 ********************
+	 * The constructor. Use tryCreate() unless the size is known to be fine.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @param paraSinglePrecision
+	 *            Store in float or not.
+	 ********************
+	 */
+	public DistanceCache(int paraNumInstances, boolean paraSinglePrecision) {
+		numInstances = paraNumInstances;
+		int tempLength = (int) getNumPairs(paraNumInstances);
+		if (paraSinglePrecision) {
+			floatDistances = new float[tempLength];
+			Arrays.fill(floatDistances, Float.NaN);
+		} else {
+			distances = new double[tempLength];
+			Arrays.fill(distances, Double.NaN);
+		} // Of if
+	}// Of the constructor
+
+	/**
+	 *************************
+	 * Create a cache if it fits in the heap.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @param paraSinglePrecision
+	 *            Store in float or not.
+	 * @return The cache, or null if n is too large.
+	 *************************
+	 */
+	public static DistanceCache tryCreate(int paraNumInstances, boolean paraSinglePrecision) {
+		long tempNumPairs = getNumPairs(paraNumInstances);
+		if (tempNumPairs > MAXIMAL_LENGTH) {
+			return null;
+		} // Of if
+
+		long tempBytes = tempNumPairs * (paraSinglePrecision ? 4 : 8);
+		Runtime tempRuntime = Runtime.getRuntime();
+		long tempAvailable = tempRuntime.maxMemory() - (tempRuntime.totalMemory() - tempRuntime.freeMemory());
+		if (tempBytes > tempAvailable * MEMORY_RATIO) {
+			return null;
+		} // Of if
+
+		try {
+			return new DistanceCache(paraNumInstances, paraSinglePrecision);
+		} catch (OutOfMemoryError ee) {
+			return null;
+		} // Of try
+	}// Of tryCreate
+
+	/**
+	 *************************
+	 * The number of pairs.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @return n(n - 1) / 2.
+	 *************************
+	 */
+	public static long getNumPairs(int paraNumInstances) {
+		return (long) paraNumInstances * (paraNumInstances - 1) / 2;
+	}// Of getNumPairs
+
+	/**
+	 *************************
+	 * The position of a pair in the condensed array.
+	 *
+	 * @param paraFirstIndex
+	 *            The first instance index.
+	 * @param paraSecondIndex
+	 *            The second instance index, different from the first one.
+	 * @return The position.
+	 *************************
+	 */
+	public int position(int paraFirstIndex, int paraSecondIndex) {
+		long tempSmaller = paraFirstIndex;
+		long tempLarger = paraSecondIndex;
+		if (tempSmaller > tempLarger) {
+			tempSmaller = paraSecondIndex;
+			tempLarger = paraFirstIndex;
+		} // Of if
+
+		return (int) (tempSmaller * (2L * numInstances - tempSmaller - 1) / 2 + (tempLarger - tempSmaller - 1));
+	}// Of position
+
+	/**
+	 *************************
+	 * Get the cached value.
+	 *
+	 * @param paraPosition
+	 *            The position given by position().
+	 * @return The distance, or NaN if not computed yet.
+	 *************************
+	 */
+	public double get(int paraPosition) {
+		if (floatDistances != null) {
+			return floatDistances[paraPosition];
+		} // Of if
+		return distances[paraPosition];
+	}// Of get
+
+	/**
+	 *************************
+	 * Store a value.
+	 *
+	 * @param paraPosition
+	 *            The position given by position().
+	 * @param paraDistance
+	 *            The distance.
+	 *************************
+	 */
+	public void set(int paraPosition, double paraDistance) {
+		if (floatDistances != null) {
+			floatDistances[paraPosition] = (float) paraDistance;
+		} else {
+			distances[paraPosition] = paraDistance;
+		} // Of if
+	}// Of set
+
+	/**
+	 *************************
+	 * Get the number of instances.
+	 *
+	 * @return The number of instances.
+	 *************************
+	 */
+	public int getNumInstances() {
+		return numInstances;
+	}// Of getNumInstances
+
+	/**
+	 *************************
+	 * Display some information.
+	 *
+	 * @return The information.
+	 *************************
+	 */
+	public String toString() {
+		return "DistanceCache for " + numInstances + " instances in "
+				+ (floatDistances != null ? "float" : "double");
+	}// Of toString
+
+	/**
+	 *************************
+	 * Test this class.
+	 *
+	 * @param args
+	 *            The parameters.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		int tempNumInstances = 5;
+		DistanceCache tempCache = new DistanceCache(tempNumInstances, false);
+		int tempExpected = 0;
+		for (int i = 0; i < tempNumInstances; i++) {
+			for (int j = i + 1; j < tempNumInstances; j++) {
+				if (tempCache.position(i, j) != tempExpected || tempCache.position(j, i) != tempExpected) {
+					System.out.println("Wrong position for (" + i + ", " + j + ")");
+				} // Of if
+				tempExpected++;
+			} // Of for j
+		} // Of for i
+		System.out.println(tempCache + ", " + tempExpected + " positions checked.");
+
+		System.out.println("A cache for 100000 instances: " + tryCreate(100000, false));
+	}// Of main
+}// Of class DistanceCache
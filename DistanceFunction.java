@@ -0,0 +1,863 @@
+package pub.rj.paper.common;
+
+/**
+ * A distance function over the rows of a feature store. DistanceMeasure
+ * chooses one implementation at construction, and all implementations are
+ * final, so that each call site sees only one class and the JIT can inline
+ * it. In the single precision mode the distances are computed in float.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public interface DistanceFunction {
+	/**
+	 *************************
+	 * The distance between two instances.
+	 *
+	 * @param paraFirstIndex
+	 *            The first instance index.
+	 * @param paraSecondIndex
+	 *            The second instance index.
+	 * @return The distance.
+	 *************************
+	 */
+	double distance(int paraFirstIndex, int paraSecondIndex);
+
+	/**
+	 *************************
+	 * The distance between an instance and a vector.
+	 *
+	 * @param paraIndex
+	 *            The instance index.
+	 * @param paraVector
+	 *            The vector.
+	 * @return The distance.
+	 *************************
+	 */
+	double distance(int paraIndex, double[] paraVector);
+
+	/**
+	 *************************
+	 * The distance between two vectors.
+	 *
+	 * @param paraFirstVector
+	 *            The first vector.
+	 * @param paraSecondVector
+	 *            The second vector.
+	 * @return The distance.
+	 *************************
+	 */
+	double distance(double[] paraFirstVector, double[] paraSecondVector);
+
+	/**
+	 *************************
+	 * The distances between an instance and the first instances of a block.
+	 *
+	 * @param paraQuery
+	 *            The query instance index.
+	 * @param paraBlock
+	 *            The block.
+	 * @param paraLength
+	 *            The number of instances of the block to consider.
+	 * @param paraDistances
+	 *            The array to store the distances.
+	 *************************
+	 */
+	void distances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances);
+
+	/**
+	 *************************
+	 * The distances between a vector and each instance of a block.
+	 *
+	 * @param paraVector
+	 *            The vector.
+	 * @param paraBlock
+	 *            The block.
+	 * @param paraDistances
+	 *            The array to store the distances.
+	 *************************
+	 */
+	void distances(double[] paraVector, int[] paraBlock, double[] paraDistances);
+
+	/**
+	 *************************
+	 * The distances between some instances and the first instances of a
+	 * block. The values are the same as distances(int, int[], int, double[])
+	 * for each query. This default handles one query at a time, the measures
+	 * with a blocked kernel pass the block rows once per group of queries.
+	 *
+	 * @param paraQueries
+	 *            The array of the query instance indices.
+	 * @param paraQueryFrom
+	 *            The position of the first query in the array.
+	 * @param paraNumQueries
+	 *            The number of queries.
+	 * @param paraBlock
+	 *            The block.
+	 * @param paraLength
+	 *            The number of instances of the block to consider.
+	 * @param paraDistances
+	 *            The array to store the distances, the q-th query at q *
+	 *            paraLength.
+	 *************************
+	 */
+	default void distances(int[] paraQueries, int paraQueryFrom, int paraNumQueries, int[] paraBlock,
+			int paraLength, double[] paraDistances) {
+		double[] tempRow = new double[paraLength];
+		for (int q = 0; q < paraNumQueries; q++) {
+			distances(paraQueries[paraQueryFrom + q], paraBlock, paraLength, tempRow);
+			System.arraycopy(tempRow, 0, paraDistances, q * paraLength, paraLength);
+		} // Of for q
+	}// Of distances
+
+	/**
+	 *************************
+	 * A comparison distance between two instances. It orders pairs the same as
+	 * the distance, but may be cheaper, e.g., without the square root. Use it
+	 * for nearest/farthest searches only.
+	 *
+	 * @param paraFirstIndex
+	 *            The first instance index.
+	 * @param paraSecondIndex
+	 *            The second instance index.
+	 * @return The comparison distance.
+	 *************************
+	 */
+	double comparisonDistance(int paraFirstIndex, int paraSecondIndex);
+
+	/**
+	 *************************
+	 * A comparison distance between an instance and a vector.
+	 *
+	 * @param paraIndex
+	 *            The instance index.
+	 * @param paraVector
+	 *            The vector.
+	 * @return The comparison distance.
+	 *************************
+	 */
+	double comparisonDistance(int paraIndex, double[] paraVector);
+
+	/**
+	 *************************
+	 * The comparison distances between an instance and the first instances of
+	 * a block.
+	 *
+	 * @param paraQuery
+	 *            The query instance index.
+	 * @param paraBlock
+	 *            The block.
+	 * @param paraLength
+	 *            The number of instances of the block to consider.
+	 * @param paraDistances
+	 *            The array to store the comparison distances.
+	 *************************
+	 */
+	void comparisonDistances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances);
+
+	/**
+	 *************************
+	 * Prepare a vector, e.g., a cluster center, that is compared with many
+	 * instances. The Mahalanobis distance whitens it here once instead of in
+	 * every call, the others keep it as it is.
+	 *
+	 * @param paraVector
+	 *            The vector.
+	 * @return The prepared vector, only for preparedComparisonDistance().
+	 *************************
+	 */
+	default double[] prepareQuery(double[] paraVector) {
+		return paraVector;
+	}// Of prepareQuery
+
+	/**
+	 *************************
+	 * The comparison distance between an instance and a prepared vector. The
+	 * value is the same as comparisonDistance(int, double[]) on the original
+	 * vector.
+	 *
+	 * @param paraIndex
+	 *            The instance index.
+	 * @param paraPreparedVector
+	 *            The vector returned by prepareQuery().
+	 * @return The comparison distance.
+	 *************************
+	 */
+	default double preparedComparisonDistance(int paraIndex, double[] paraPreparedVector) {
+		return comparisonDistance(paraIndex, paraPreparedVector);
+	}// Of preparedComparisonDistance
+
+	/**
+	 *************************
+	 * The attribute visits added to Common.runtimes by the given number of
+	 * distances between instances. A parallel loop sums them per task and
+	 * sets the counter after the join, since the workers update it without
+	 * synchronization. Only the Euclidean distances count.
+	 *
+	 * @param paraNumDistances
+	 *            The number of distances.
+	 * @return The visits.
+	 *************************
+	 */
+	default long visits(long paraNumDistances) {
+		return 0;
+	}// Of visits
+
+	/**
+	 *************************
+	 * The distance between two instances summed attribute by attribute, the
+	 * way the original instance-based code did. The kernels sum in another
+	 * order, so the last bits may differ. It is only for breaking near ties
+	 * as before, e.g., at the k-th neighbor. The measures without such code
+	 * return distance().
+	 *
+	 * @param paraFirstIndex
+	 *            The first instance index.
+	 * @param paraSecondIndex
+	 *            The second instance index.
+	 * @return The distance.
+	 *************************
+	 */
+	default double referenceDistance(int paraFirstIndex, int paraSecondIndex) {
+		return distance(paraFirstIndex, paraSecondIndex);
+	}// Of referenceDistance
+
+	/**
+	 *************************
+	 * Convert a distance to the comparison distance, e.g., for a threshold.
+	 *
+	 * @param paraDistance
+	 *            The distance.
+	 * @return The comparison distance.
+	 *************************
+	 */
+	double toComparison(double paraDistance);
+
+	/**
+	 * The Euclidean distance.
+	 */
+	final class Euclidean implements DistanceFunction {
+		/**
+		 * The row-major features in double, null in the single precision mode.
+		 */
+		final double[] features;
+
+		/**
+		 * The row-major features in float, null in the double precision mode.
+		 */
+		final float[] floatFeatures;
+
+		/**
+		 * The number of conditional attributes.
+		 */
+		final int numConditions;
+
+		/**
+		 ********************
+		 * The constructor.
+		 *
+		 * @param paraFeatureStore
+		 *            The feature store, shared, not copied.
+		 ********************
+		 */
+		public Euclidean(FeatureStore paraFeatureStore) {
+			features = paraFeatureStore.getValues();
+			floatFeatures = paraFeatureStore.getFloatValues();
+			numConditions = paraFeatureStore.getNumConditions();
+		}// Of the constructor
+
+		public double distance(int paraFirstIndex, int paraSecondIndex) {
+			Common.runtimes += numConditions;
+			if (floatFeatures != null) {
+				return Math.sqrt(DistanceKernels.squaredEuclidean(floatFeatures, paraFirstIndex * numConditions,
+						floatFeatures, paraSecondIndex * numConditions, numConditions));
+			} // Of if
+			return Math.sqrt(DistanceKernels.squaredEuclidean(features, paraFirstIndex * numConditions, features,
+					paraSecondIndex * numConditions, numConditions));
+		}// Of distance
+
+		public double referenceDistance(int paraFirstIndex, int paraSecondIndex) {
+			if (features == null) {
+				return distance(paraFirstIndex, paraSecondIndex);
+			} // Of if
+
+			double tempDifference;
+			double tempDistance = 0;
+			for (int i = 0; i < numConditions; i++) {
+				tempDifference = features[paraFirstIndex * numConditions + i]
+						- features[paraSecondIndex * numConditions + i];
+				tempDistance += tempDifference * tempDifference;
+			} // Of for i
+
+			return Math.sqrt(tempDistance);
+		}// Of referenceDistance
+
+		public double distance(int paraIndex, double[] paraVector) {
+			Common.runtimes += numConditions;
+			if (floatFeatures != null) {
+				return Math.sqrt(DistanceKernels.squaredEuclidean(floatFeatures, paraIndex * numConditions,
+						paraVector, numConditions));
+			} // Of if
+			return Math.sqrt(
+					DistanceKernels.squaredEuclidean(features, paraIndex * numConditions, paraVector, 0, numConditions));
+		}// Of distance
+
+		public double distance(double[] paraFirstVector, double[] paraSecondVector) {
+			Common.runtimes += paraFirstVector.length;
+			return Math.sqrt(
+					DistanceKernels.squaredEuclidean(paraFirstVector, 0, paraSecondVector, 0, paraFirstVector.length));
+		}// Of distance
+
+		public void distances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+			Common.runtimes += (long) paraLength * numConditions;
+			int tempQueryOffset = paraQuery * numConditions;
+			if (floatFeatures != null) {
+				for (int i = 0; i < paraLength; i++) {
+					paraDistances[i] = Math.sqrt(DistanceKernels.squaredEuclidean(floatFeatures, tempQueryOffset,
+							floatFeatures, paraBlock[i] * numConditions, numConditions));
+				} // Of for i
+				return;
+			} // Of if
+
+			for (int i = 0; i < paraLength; i++) {
+				paraDistances[i] = Math.sqrt(DistanceKernels.squaredEuclidean(features, tempQueryOffset, features,
+						paraBlock[i] * numConditions, numConditions));
+			} // Of for i
+		}// Of distances
+
+		public void distances(double[] paraVector, int[] paraBlock, double[] paraDistances) {
+			Common.runtimes += (long) paraBlock.length * numConditions;
+			if (floatFeatures != null) {
+				for (int i = 0; i < paraBlock.length; i++) {
+					paraDistances[i] = Math.sqrt(DistanceKernels.squaredEuclidean(floatFeatures,
+							paraBlock[i] * numConditions, paraVector, numConditions));
+				} // Of for i
+				return;
+			} // Of if
+
+			for (int i = 0; i < paraBlock.length; i++) {
+				paraDistances[i] = Math.sqrt(DistanceKernels.squaredEuclidean(features, paraBlock[i] * numConditions,
+						paraVector, 0, numConditions));
+			} // Of for i
+		}// Of distances
+
+		public void distances(int[] paraQueries, int paraQueryFrom, int paraNumQueries, int[] paraBlock,
+				int paraLength, double[] paraDistances) {
+			if (floatFeatures != null) {
+				DistanceFunction.super.distances(paraQueries, paraQueryFrom, paraNumQueries, paraBlock, paraLength,
+						paraDistances);
+				return;
+			} // Of if
+
+			Common.runtimes += (long) paraNumQueries * paraLength * numConditions;
+			DistanceKernels.squaredEuclideanBlock(features, numConditions, paraQueries, paraQueryFrom, paraNumQueries,
+					paraBlock, paraLength, paraDistances);
+			for (int i = paraNumQueries * paraLength - 1; i >= 0; i--) {
+				paraDistances[i] = Math.sqrt(paraDistances[i]);
+			} // Of for i
+		}// Of distances
+
+		public double comparisonDistance(int paraFirstIndex, int paraSecondIndex) {
+			Common.runtimes += numConditions;
+			if (floatFeatures != null) {
+				return DistanceKernels.squaredEuclidean(floatFeatures, paraFirstIndex * numConditions, floatFeatures,
+						paraSecondIndex * numConditions, numConditions);
+			} // Of if
+			return DistanceKernels.squaredEuclidean(features, paraFirstIndex * numConditions, features,
+					paraSecondIndex * numConditions, numConditions);
+		}// Of comparisonDistance
+
+		public double comparisonDistance(int paraIndex, double[] paraVector) {
+			Common.runtimes += numConditions;
+			if (floatFeatures != null) {
+				return DistanceKernels.squaredEuclidean(floatFeatures, paraIndex * numConditions, paraVector,
+						numConditions);
+			} // Of if
+			return DistanceKernels.squaredEuclidean(features, paraIndex * numConditions, paraVector, 0, numConditions);
+		}// Of comparisonDistance
+
+		public void comparisonDistances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+			Common.runtimes += (long) paraLength * numConditions;
+			int tempQueryOffset = paraQuery * numConditions;
+			if (floatFeatures != null) {
+				for (int i = 0; i < paraLength; i++) {
+					paraDistances[i] = DistanceKernels.squaredEuclidean(floatFeatures, tempQueryOffset, floatFeatures,
+							paraBlock[i] * numConditions, numConditions);
+				} // Of for i
+				return;
+			} // Of if
+
+			for (int i = 0; i < paraLength; i++) {
+				paraDistances[i] = DistanceKernels.squaredEuclidean(features, tempQueryOffset, features,
+						paraBlock[i] * numConditions, numConditions);
+			} // Of for i
+		}// Of comparisonDistances
+
+		public double toComparison(double paraDistance) {
+			return paraDistance * paraDistance;
+		}// Of toComparison
+
+		public long visits(long paraNumDistances) {
+			return paraNumDistances * numConditions;
+		}// Of visits
+	}// Of class Euclidean
+
+	/**
+	 * The squared Euclidean distance. It is not a metric, but it orders
+	 * neighbors the same as the Euclidean distance without the square root.
+	 */
+	final class SquaredEuclidean implements DistanceFunction {
+		/**
+		 * The row-major features in double, null in the single precision mode.
+		 */
+		final double[] features;
+
+		/**
+		 * The row-major features in float, null in the double precision mode.
+		 */
+		final float[] floatFeatures;
+
+		/**
+		 * The number of conditional attributes.
+		 */
+		final int numConditions;
+
+		/**
+		 ********************
+		 * The constructor.
+		 *
+		 * @param paraFeatureStore
+		 *            The feature store, shared, not copied.
+		 ********************
+		 */
+		public SquaredEuclidean(FeatureStore paraFeatureStore) {
+			features = paraFeatureStore.getValues();
+			floatFeatures = paraFeatureStore.getFloatValues();
+			numConditions = paraFeatureStore.getNumConditions();
+		}// Of the constructor
+
+		public double distance(int paraFirstIndex, int paraSecondIndex) {
+			Common.runtimes += numConditions;
+			if (floatFeatures != null) {
+				return DistanceKernels.squaredEuclidean(floatFeatures, paraFirstIndex * numConditions, floatFeatures,
+						paraSecondIndex * numConditions, numConditions);
+			} // Of if
+			return DistanceKernels.squaredEuclidean(features, paraFirstIndex * numConditions, features,
+					paraSecondIndex * numConditions, numConditions);
+		}// Of distance
+
+		public double distance(int paraIndex, double[] paraVector) {
+			Common.runtimes += numConditions;
+			if (floatFeatures != null) {
+				return DistanceKernels.squaredEuclidean(floatFeatures, paraIndex * numConditions, paraVector,
+						numConditions);
+			} // Of if
+			return DistanceKernels.squaredEuclidean(features, paraIndex * numConditions, paraVector, 0, numConditions);
+		}// Of distance
+
+		public double distance(double[] paraFirstVector, double[] paraSecondVector) {
+			Common.runtimes += paraFirstVector.length;
+			return DistanceKernels.squaredEuclidean(paraFirstVector, 0, paraSecondVector, 0, paraFirstVector.length);
+		}// Of distance
+
+		public void distances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+			Common.runtimes += (long) paraLength * numConditions;
+			int tempQueryOffset = paraQuery * numConditions;
+			if (floatFeatures != null) {
+				for (int i = 0; i < paraLength; i++) {
+					paraDistances[i] = DistanceKernels.squaredEuclidean(floatFeatures, tempQueryOffset, floatFeatures,
+							paraBlock[i] * numConditions, numConditions);
+				} // Of for i
+				return;
+			} // Of if
+
+			for (int i = 0; i < paraLength; i++) {
+				paraDistances[i] = DistanceKernels.squaredEuclidean(features, tempQueryOffset, features,
+						paraBlock[i] * numConditions, numConditions);
+			} // Of for i
+		}// Of distances
+
+		public void distances(double[] paraVector, int[] paraBlock, double[] paraDistances) {
+			Common.runtimes += (long) paraBlock.length * numConditions;
+			if (floatFeatures != null) {
+				for (int i = 0; i < paraBlock.length; i++) {
+					paraDistances[i] = DistanceKernels.squaredEuclidean(floatFeatures, paraBlock[i] * numConditions,
+							paraVector, numConditions);
+				} // Of for i
+				return;
+			} // Of if
+
+			for (int i = 0; i < paraBlock.length; i++) {
+				paraDistances[i] = DistanceKernels.squaredEuclidean(features, paraBlock[i] * numConditions,
+						paraVector, 0, numConditions);
+			} // Of for i
+		}// Of distances
+
+		public void distances(int[] paraQueries, int paraQueryFrom, int paraNumQueries, int[] paraBlock,
+				int paraLength, double[] paraDistances) {
+			if (floatFeatures != null) {
+				DistanceFunction.super.distances(paraQueries, paraQueryFrom, paraNumQueries, paraBlock, paraLength,
+						paraDistances);
+				return;
+			} // Of if
+
+			Common.runtimes += (long) paraNumQueries * paraLength * numConditions;
+			DistanceKernels.squaredEuclideanBlock(features, numConditions, paraQueries, paraQueryFrom, paraNumQueries,
+					paraBlock, paraLength, paraDistances);
+		}// Of distances
+
+		public double comparisonDistance(int paraFirstIndex, int paraSecondIndex) {
+			return distance(paraFirstIndex, paraSecondIndex);
+		}// Of comparisonDistance
+
+		public double comparisonDistance(int paraIndex, double[] paraVector) {
+			return distance(paraIndex, paraVector);
+		}// Of comparisonDistance
+
+		public void comparisonDistances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+			distances(paraQuery, paraBlock, paraLength, paraDistances);
+		}// Of comparisonDistances
+
+		public double toComparison(double paraDistance) {
+			return paraDistance;
+		}// Of toComparison
+
+		public long visits(long paraNumDistances) {
+			return paraNumDistances * numConditions;
+		}// Of visits
+	}// Of class SquaredEuclidean
+
+	/**
+	 * The Manhattan distance.
+	 */
+	final class Manhattan implements DistanceFunction {
+		/**
+		 * The row-major features in double, null in the single precision mode.
+		 */
+		final double[] features;
+
+		/**
+		 * The row-major features in float, null in the double precision mode.
+		 */
+		final float[] floatFeatures;
+
+		/**
+		 * The number of conditional attributes.
+		 */
+		final int numConditions;
+
+		/**
+		 ********************
+		 * The constructor.
+		 *
+		 * @param paraFeatureStore
+		 *            The feature store, shared, not copied.
+		 ********************
+		 */
+		public Manhattan(FeatureStore paraFeatureStore) {
+			features = paraFeatureStore.getValues();
+			floatFeatures = paraFeatureStore.getFloatValues();
+			numConditions = paraFeatureStore.getNumConditions();
+		}// Of the constructor
+
+		public double distance(int paraFirstIndex, int paraSecondIndex) {
+			if (floatFeatures != null) {
+				return DistanceKernels.manhattan(floatFeatures, paraFirstIndex * numConditions, floatFeatures,
+						paraSecondIndex * numConditions, numConditions);
+			} // Of if
+			return DistanceKernels.manhattan(features, paraFirstIndex * numConditions, features,
+					paraSecondIndex * numConditions, numConditions);
+		}// Of distance
+
+		public double referenceDistance(int paraFirstIndex, int paraSecondIndex) {
+			if (features == null) {
+				return distance(paraFirstIndex, paraSecondIndex);
+			} // Of if
+
+			double tempDistance = 0;
+			for (int i = 0; i < numConditions; i++) {
+				tempDistance += Math.abs(
+						features[paraFirstIndex * numConditions + i] - features[paraSecondIndex * numConditions + i]);
+			} // Of for i
+
+			return tempDistance;
+		}// Of referenceDistance
+
+		public double distance(int paraIndex, double[] paraVector) {
+			if (floatFeatures != null) {
+				return DistanceKernels.manhattan(floatFeatures, paraIndex * numConditions, paraVector, numConditions);
+			} // Of if
+			return DistanceKernels.manhattan(features, paraIndex * numConditions, paraVector, 0, numConditions);
+		}// Of distance
+
+		public double distance(double[] paraFirstVector, double[] paraSecondVector) {
+			return DistanceKernels.manhattan(paraFirstVector, 0, paraSecondVector, 0, paraFirstVector.length);
+		}// Of distance
+
+		public void distances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+			int tempQueryOffset = paraQuery * numConditions;
+			if (floatFeatures != null) {
+				for (int i = 0; i < paraLength; i++) {
+					paraDistances[i] = DistanceKernels.manhattan(floatFeatures, tempQueryOffset, floatFeatures,
+							paraBlock[i] * numConditions, numConditions);
+				} // Of for i
+				return;
+			} // Of if
+
+			for (int i = 0; i < paraLength; i++) {
+				paraDistances[i] = DistanceKernels.manhattan(features, tempQueryOffset, features,
+						paraBlock[i] * numConditions, numConditions);
+			} // Of for i
+		}// Of distances
+
+		public void distances(double[] paraVector, int[] paraBlock, double[] paraDistances) {
+			if (floatFeatures != null) {
+				for (int i = 0; i < paraBlock.length; i++) {
+					paraDistances[i] = DistanceKernels.manhattan(floatFeatures, paraBlock[i] * numConditions,
+							paraVector, numConditions);
+				} // Of for i
+				return;
+			} // Of if
+
+			for (int i = 0; i < paraBlock.length; i++) {
+				paraDistances[i] = DistanceKernels.manhattan(features, paraBlock[i] * numConditions, paraVector, 0,
+						numConditions);
+			} // Of for i
+		}// Of distances
+
+		public void distances(int[] paraQueries, int paraQueryFrom, int paraNumQueries, int[] paraBlock,
+				int paraLength, double[] paraDistances) {
+			if (floatFeatures != null) {
+				DistanceFunction.super.distances(paraQueries, paraQueryFrom, paraNumQueries, paraBlock, paraLength,
+						paraDistances);
+				return;
+			} // Of if
+
+			DistanceKernels.manhattanBlock(features, numConditions, paraQueries, paraQueryFrom, paraNumQueries,
+					paraBlock, paraLength, paraDistances);
+		}// Of distances
+
+		public double comparisonDistance(int paraFirstIndex, int paraSecondIndex) {
+			return distance(paraFirstIndex, paraSecondIndex);
+		}// Of comparisonDistance
+
+		public double comparisonDistance(int paraIndex, double[] paraVector) {
+			return distance(paraIndex, paraVector);
+		}// Of comparisonDistance
+
+		public void comparisonDistances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+			distances(paraQuery, paraBlock, paraLength, paraDistances);
+		}// Of comparisonDistances
+
+		public double toComparison(double paraDistance) {
+			return paraDistance;
+		}// Of toComparison
+	}// Of class Manhattan
+
+	/**
+	 * The cosine measure. As before, it is the cosine itself rather than one
+	 * minus it.
+	 */
+	final class Cosine implements DistanceFunction {
+		/**
+		 * The row-major features in double, null in the single precision mode.
+		 */
+		final double[] features;
+
+		/**
+		 * The row-major features in float, null in the double precision mode.
+		 */
+		final float[] floatFeatures;
+
+		/**
+		 * The number of conditional attributes.
+		 */
+		final int numConditions;
+
+		/**
+		 ********************
+		 * The constructor.
+		 *
+		 * @param paraFeatureStore
+		 *            The feature store, shared, not copied.
+		 ********************
+		 */
+		public Cosine(FeatureStore paraFeatureStore) {
+			features = paraFeatureStore.getValues();
+			floatFeatures = paraFeatureStore.getFloatValues();
+			numConditions = paraFeatureStore.getNumConditions();
+		}// Of the constructor
+
+		public double distance(int paraFirstIndex, int paraSecondIndex) {
+			if (floatFeatures != null) {
+				return DistanceKernels.cosine(floatFeatures, paraFirstIndex * numConditions, floatFeatures,
+						paraSecondIndex * numConditions, numConditions);
+			} // Of if
+			return DistanceKernels.cosine(features, paraFirstIndex * numConditions, features,
+					paraSecondIndex * numConditions, numConditions);
+		}// Of distance
+
+		public double referenceDistance(int paraFirstIndex, int paraSecondIndex) {
+			if (features == null) {
+				return distance(paraFirstIndex, paraSecondIndex);
+			} // Of if
+
+			double tempFirst, tempSecond;
+			double tempNumerator = 0;
+			double tempFirstNorm = 0;
+			double tempSecondNorm = 0;
+			for (int i = 0; i < numConditions; i++) {
+				tempFirst = features[paraFirstIndex * numConditions + i];
+				tempSecond = features[paraSecondIndex * numConditions + i];
+				tempNumerator += tempFirst * tempSecond;
+				tempFirstNorm += tempFirst * tempFirst;
+				tempSecondNorm += tempSecond * tempSecond;
+			} // Of for i
+
+			return tempNumerator / (Math.sqrt(tempFirstNorm) * Math.sqrt(tempSecondNorm));
+		}// Of referenceDistance
+
+		public double distance(int paraIndex, double[] paraVector) {
+			if (floatFeatures != null) {
+				return DistanceKernels.cosine(floatFeatures, paraIndex * numConditions, paraVector, numConditions);
+			} // Of if
+			return DistanceKernels.cosine(features, paraIndex * numConditions, paraVector, 0, numConditions);
+		}// Of distance
+
+		public double distance(double[] paraFirstVector, double[] paraSecondVector) {
+			return DistanceKernels.cosine(paraFirstVector, 0, paraSecondVector, 0, paraFirstVector.length);
+		}// Of distance
+
+		public void distances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+			int tempQueryOffset = paraQuery * numConditions;
+			if (floatFeatures != null) {
+				for (int i = 0; i < paraLength; i++) {
+					paraDistances[i] = DistanceKernels.cosine(floatFeatures, tempQueryOffset, floatFeatures,
+							paraBlock[i] * numConditions, numConditions);
+				} // Of for i
+				return;
+			} // Of if
+
+			for (int i = 0; i < paraLength; i++) {
+				paraDistances[i] = DistanceKernels.cosine(features, tempQueryOffset, features,
+						paraBlock[i] * numConditions, numConditions);
+			} // Of for i
+		}// Of distances
+
+		public void distances(double[] paraVector, int[] paraBlock, double[] paraDistances) {
+			if (floatFeatures != null) {
+				for (int i = 0; i < paraBlock.length; i++) {
+					paraDistances[i] = DistanceKernels.cosine(floatFeatures, paraBlock[i] * numConditions, paraVector,
+							numConditions);
+				} // Of for i
+				return;
+			} // Of if
+
+			for (int i = 0; i < paraBlock.length; i++) {
+				paraDistances[i] = DistanceKernels.cosine(features, paraBlock[i] * numConditions, paraVector, 0,
+						numConditions);
+			} // Of for i
+		}// Of distances
+
+		public double comparisonDistance(int paraFirstIndex, int paraSecondIndex) {
+			// The same formula as the distance, so that the values can be mixed.
+			return distance(paraFirstIndex, paraSecondIndex);
+		}// Of comparisonDistance
+
+		public double comparisonDistance(int paraIndex, double[] paraVector) {
+			return distance(paraIndex, paraVector);
+		}// Of comparisonDistance
+
+		public void comparisonDistances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+			distances(paraQuery, paraBlock, paraLength, paraDistances);
+		}// Of comparisonDistances
+
+		public double toComparison(double paraDistance) {
+			return paraDistance;
+		}// Of toComparison
+	}// Of class Cosine
+
+	/**
+	 * The Mahalanobis distance, i.e., the Euclidean distance on the whitened
+	 * store. Vectors are whitened on the fly.
+	 */
+	final class Mahalanobis implements DistanceFunction {
+		/**
+		 * The original store, for whitening vectors.
+		 */
+		final FeatureStore featureStore;
+
+		/**
+		 * The Euclidean distance on the whitened store.
+		 */
+		final Euclidean whitenedEuclidean;
+
+		/**
+		 ********************
+		 * The constructor. The store is whitened if not yet.
+		 *
+		 * @param paraFeatureStore
+		 *            The original feature store.
+		 ********************
+		 */
+		public Mahalanobis(FeatureStore paraFeatureStore) {
+			featureStore = paraFeatureStore;
+			whitenedEuclidean = new Euclidean(paraFeatureStore.getWhitened());
+		}// Of the constructor
+
+		public double distance(int paraFirstIndex, int paraSecondIndex) {
+			return whitenedEuclidean.distance(paraFirstIndex, paraSecondIndex);
+		}// Of distance
+
+		public double distance(int paraIndex, double[] paraVector) {
+			return whitenedEuclidean.distance(paraIndex, featureStore.whiten(paraVector));
+		}// Of distance
+
+		public double distance(double[] paraFirstVector, double[] paraSecondVector) {
+			return whitenedEuclidean.distance(featureStore.whiten(paraFirstVector),
+					featureStore.whiten(paraSecondVector));
+		}// Of distance
+
+		public void distances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+			whitenedEuclidean.distances(paraQuery, paraBlock, paraLength, paraDistances);
+		}// Of distances
+
+		public void distances(double[] paraVector, int[] paraBlock, double[] paraDistances) {
+			// Whiten the vector only once.
+			whitenedEuclidean.distances(featureStore.whiten(paraVector), paraBlock, paraDistances);
+		}// Of distances
+
+		public double comparisonDistance(int paraFirstIndex, int paraSecondIndex) {
+			return whitenedEuclidean.comparisonDistance(paraFirstIndex, paraSecondIndex);
+		}// Of comparisonDistance
+
+		public double comparisonDistance(int paraIndex, double[] paraVector) {
+			return whitenedEuclidean.comparisonDistance(paraIndex, featureStore.whiten(paraVector));
+		}// Of comparisonDistance
+
+		public double[] prepareQuery(double[] paraVector) {
+			return featureStore.whiten(paraVector);
+		}// Of prepareQuery
+
+		public double preparedComparisonDistance(int paraIndex, double[] paraPreparedVector) {
+			return whitenedEuclidean.comparisonDistance(paraIndex, paraPreparedVector);
+		}// Of preparedComparisonDistance
+
+		public void comparisonDistances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+			whitenedEuclidean.comparisonDistances(paraQuery, paraBlock, paraLength, paraDistances);
+		}// Of comparisonDistances
+
+		public double toComparison(double paraDistance) {
+			return paraDistance * paraDistance;
+		}// Of toComparison
+	}// Of class Mahalanobis
+}// Of interface DistanceFunction
@@ -0,0 +1,613 @@
+package pub.rj.paper.common;
+
+/**
+ * Distance kernels over primitive feature rows. Each loop keeps four
+ * independent partial sums (lanes), so that the additions do not wait for one
+ * another and the JIT may pack them into SIMD registers. The remaining
+ * attributes are added to the first lane. The lanes are summed in a fixed
+ * order, hence the results are deterministic, although they may differ from a
+ * sequential loop in the last bits.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class DistanceKernels {
+	/**
+	 * The number of lanes.
+	 */
+	public static final int LANES = 4;
+
+	/**
+	 * The number of queries handled together by the block kernels.
+	 */
+	public static final int QUERY_TILE = 8;
+
+	/**
+	 * The number of doubles of the block rows kept hot while the queries of a
+	 * tile pass over them, about half of an L1 data cache.
+	 */
+	public static final int TILE_DOUBLES = 2048;
+
+	/**
+	 *************************
+	 * The squared Euclidean distance between two rows.
+	 *
+	 * @param paraFirstArray
+	 *            The array of the first row.
+	 * @param paraFirstOffset
+	 *            The offset of the first row.
+	 * @param paraSecondArray
+	 *            The array of the second row.
+	 * @param paraSecondOffset
+	 *            The offset of the second row.
+	 * @param paraLength
+	 *            The number of attributes.
+	 * @return The squared distance.
+	 *************************
+	 */
+	public static double squaredEuclidean(double[] paraFirstArray, int paraFirstOffset, double[] paraSecondArray,
+			int paraSecondOffset, int paraLength) {
+		double tempSum0 = 0, tempSum1 = 0, tempSum2 = 0, tempSum3 = 0;
+		double tempDifference0, tempDifference1, tempDifference2, tempDifference3;
+		int tempBound = paraLength - paraLength % LANES;
+		int i = 0;
+		for (; i < tempBound; i += LANES) {
+			tempDifference0 = paraFirstArray[paraFirstOffset + i] - paraSecondArray[paraSecondOffset + i];
+			tempDifference1 = paraFirstArray[paraFirstOffset + i + 1] - paraSecondArray[paraSecondOffset + i + 1];
+			tempDifference2 = paraFirstArray[paraFirstOffset + i + 2] - paraSecondArray[paraSecondOffset + i + 2];
+			tempDifference3 = paraFirstArray[paraFirstOffset + i + 3] - paraSecondArray[paraSecondOffset + i + 3];
+			tempSum0 += tempDifference0 * tempDifference0;
+			tempSum1 += tempDifference1 * tempDifference1;
+			tempSum2 += tempDifference2 * tempDifference2;
+			tempSum3 += tempDifference3 * tempDifference3;
+		} // Of for i
+		for (; i < paraLength; i++) {
+			tempDifference0 = paraFirstArray[paraFirstOffset + i] - paraSecondArray[paraSecondOffset + i];
+			tempSum0 += tempDifference0 * tempDifference0;
+		} // Of for i
+
+		return (tempSum0 + tempSum1) + (tempSum2 + tempSum3);
+	}// Of squaredEuclidean
+
+	/**
+	 *************************
+	 * The squared Euclidean distance between two rows in float.
+	 *
+	 * @param paraFirstArray
+	 *            The array of the first row.
+	 * @param paraFirstOffset
+	 *            The offset of the first row.
+	 * @param paraSecondArray
+	 *            The array of the second row.
+	 * @param paraSecondOffset
+	 *            The offset of the second row.
+	 * @param paraLength
+	 *            The number of attributes.
+	 * @return The squared distance.
+	 *************************
+	 */
+	public static float squaredEuclidean(float[] paraFirstArray, int paraFirstOffset, float[] paraSecondArray,
+			int paraSecondOffset, int paraLength) {
+		float tempSum0 = 0, tempSum1 = 0, tempSum2 = 0, tempSum3 = 0;
+		float tempDifference0, tempDifference1, tempDifference2, tempDifference3;
+		int tempBound = paraLength - paraLength % LANES;
+		int i = 0;
+		for (; i < tempBound; i += LANES) {
+			tempDifference0 = paraFirstArray[paraFirstOffset + i] - paraSecondArray[paraSecondOffset + i];
+			tempDifference1 = paraFirstArray[paraFirstOffset + i + 1] - paraSecondArray[paraSecondOffset + i + 1];
+			tempDifference2 = paraFirstArray[paraFirstOffset + i + 2] - paraSecondArray[paraSecondOffset + i + 2];
+			tempDifference3 = paraFirstArray[paraFirstOffset + i + 3] - paraSecondArray[paraSecondOffset + i + 3];
+			tempSum0 += tempDifference0 * tempDifference0;
+			tempSum1 += tempDifference1 * tempDifference1;
+			tempSum2 += tempDifference2 * tempDifference2;
+			tempSum3 += tempDifference3 * tempDifference3;
+		} // Of for i
+		for (; i < paraLength; i++) {
+			tempDifference0 = paraFirstArray[paraFirstOffset + i] - paraSecondArray[paraSecondOffset + i];
+			tempSum0 += tempDifference0 * tempDifference0;
+		} // Of for i
+
+		return (tempSum0 + tempSum1) + (tempSum2 + tempSum3);
+	}// Of squaredEuclidean
+
+	/**
+	 *************************
+	 * The squared Euclidean distance between a float row and a vector. The
+	 * vector is rounded to float first.
+	 *
+	 * @param paraFirstArray
+	 *            The array of the row.
+	 * @param paraFirstOffset
+	 *            The offset of the row.
+	 * @param paraVector
+	 *            The vector.
+	 * @param paraLength
+	 *            The number of attributes.
+	 * @return The squared distance.
+	 *************************
+	 */
+	public static float squaredEuclidean(float[] paraFirstArray, int paraFirstOffset, double[] paraVector,
+			int paraLength) {
+		float tempSum0 = 0, tempSum1 = 0, tempSum2 = 0, tempSum3 = 0;
+		float tempDifference0, tempDifference1, tempDifference2, tempDifference3;
+		int tempBound = paraLength - paraLength % LANES;
+		int i = 0;
+		for (; i < tempBound; i += LANES) {
+			tempDifference0 = paraFirstArray[paraFirstOffset + i] - (float) paraVector[i];
+			tempDifference1 = paraFirstArray[paraFirstOffset + i + 1] - (float) paraVector[i + 1];
+			tempDifference2 = paraFirstArray[paraFirstOffset + i + 2] - (float) paraVector[i + 2];
+			tempDifference3 = paraFirstArray[paraFirstOffset + i + 3] - (float) paraVector[i + 3];
+			tempSum0 += tempDifference0 * tempDifference0;
+			tempSum1 += tempDifference1 * tempDifference1;
+			tempSum2 += tempDifference2 * tempDifference2;
+			tempSum3 += tempDifference3 * tempDifference3;
+		} // Of for i
+		for (; i < paraLength; i++) {
+			tempDifference0 = paraFirstArray[paraFirstOffset + i] - (float) paraVector[i];
+			tempSum0 += tempDifference0 * tempDifference0;
+		} // Of for i
+
+		return (tempSum0 + tempSum1) + (tempSum2 + tempSum3);
+	}// Of squaredEuclidean
+
+	/**
+	 *************************
+	 * The Manhattan distance between two rows.
+	 *
+	 * @param paraFirstArray
+	 *            The array of the first row.
+	 * @param paraFirstOffset
+	 *            The offset of the first row.
+	 * @param paraSecondArray
+	 *            The array of the second row.
+	 * @param paraSecondOffset
+	 *            The offset of the second row.
+	 * @param paraLength
+	 *            The number of attributes.
+	 * @return The distance.
+	 *************************
+	 */
+	public static double manhattan(double[] paraFirstArray, int paraFirstOffset, double[] paraSecondArray,
+			int paraSecondOffset, int paraLength) {
+		double tempSum0 = 0, tempSum1 = 0, tempSum2 = 0, tempSum3 = 0;
+		int tempBound = paraLength - paraLength % LANES;
+		int i = 0;
+		for (; i < tempBound; i += LANES) {
+			tempSum0 += Math.abs(paraFirstArray[paraFirstOffset + i] - paraSecondArray[paraSecondOffset + i]);
+			tempSum1 += Math.abs(paraFirstArray[paraFirstOffset + i + 1] - paraSecondArray[paraSecondOffset + i + 1]);
+			tempSum2 += Math.abs(paraFirstArray[paraFirstOffset + i + 2] - paraSecondArray[paraSecondOffset + i + 2]);
+			tempSum3 += Math.abs(paraFirstArray[paraFirstOffset + i + 3] - paraSecondArray[paraSecondOffset + i + 3]);
+		} // Of for i
+		for (; i < paraLength; i++) {
+			tempSum0 += Math.abs(paraFirstArray[paraFirstOffset + i] - paraSecondArray[paraSecondOffset + i]);
+		} // Of for i
+
+		return (tempSum0 + tempSum1) + (tempSum2 + tempSum3);
+	}// Of manhattan
+
+	/**
+	 *************************
+	 * The Manhattan distance between two rows in float.
+	 *
+	 * @param paraFirstArray
+	 *            The array of the first row.
+	 * @param paraFirstOffset
+	 *            The offset of the first row.
+	 * @param paraSecondArray
+	 *            The array of the second row.
+	 * @param paraSecondOffset
+	 *            The offset of the second row.
+	 * @param paraLength
+	 *            The number of attributes.
+	 * @return The distance.
+	 *************************
+	 */
+	public static float manhattan(float[] paraFirstArray, int paraFirstOffset, float[] paraSecondArray,
+			int paraSecondOffset, int paraLength) {
+		float tempSum0 = 0, tempSum1 = 0, tempSum2 = 0, tempSum3 = 0;
+		int tempBound = paraLength - paraLength % LANES;
+		int i = 0;
+		for (; i < tempBound; i += LANES) {
+			tempSum0 += Math.abs(paraFirstArray[paraFirstOffset + i] - paraSecondArray[paraSecondOffset + i]);
+			tempSum1 += Math.abs(paraFirstArray[paraFirstOffset + i + 1] - paraSecondArray[paraSecondOffset + i + 1]);
+			tempSum2 += Math.abs(paraFirstArray[paraFirstOffset + i + 2] - paraSecondArray[paraSecondOffset + i + 2]);
+			tempSum3 += Math.abs(paraFirstArray[paraFirstOffset + i + 3] - paraSecondArray[paraSecondOffset + i + 3]);
+		} // Of for i
+		for (; i < paraLength; i++) {
+			tempSum0 += Math.abs(paraFirstArray[paraFirstOffset + i] - paraSecondArray[paraSecondOffset + i]);
+		} // Of for i
+
+		return (tempSum0 + tempSum1) + (tempSum2 + tempSum3);
+	}// Of manhattan
+
+	/**
+	 *************************
+	 * The Manhattan distance between a float row and a vector. The vector is
+	 * rounded to float first.
+	 *
+	 * @param paraFirstArray
+	 *            The array of the row.
+	 * @param paraFirstOffset
+	 *            The offset of the row.
+	 * @param paraVector
+	 *            The vector.
+	 * @param paraLength
+	 *            The number of attributes.
+	 * @return The distance.
+	 *************************
+	 */
+	public static float manhattan(float[] paraFirstArray, int paraFirstOffset, double[] paraVector,
+			int paraLength) {
+		float tempSum0 = 0, tempSum1 = 0, tempSum2 = 0, tempSum3 = 0;
+		int tempBound = paraLength - paraLength % LANES;
+		int i = 0;
+		for (; i < tempBound; i += LANES) {
+			tempSum0 += Math.abs(paraFirstArray[paraFirstOffset + i] - (float) paraVector[i]);
+			tempSum1 += Math.abs(paraFirstArray[paraFirstOffset + i + 1] - (float) paraVector[i + 1]);
+			tempSum2 += Math.abs(paraFirstArray[paraFirstOffset + i + 2] - (float) paraVector[i + 2]);
+			tempSum3 += Math.abs(paraFirstArray[paraFirstOffset + i + 3] - (float) paraVector[i + 3]);
+		} // Of for i
+		for (; i < paraLength; i++) {
+			tempSum0 += Math.abs(paraFirstArray[paraFirstOffset + i] - (float) paraVector[i]);
+		} // Of for i
+
+		return (tempSum0 + tempSum1) + (tempSum2 + tempSum3);
+	}// Of manhattan
+
+	/**
+	 *************************
+	 * The cosine of two rows, i.e., the inner product divided by the product of
+	 * the norms.
+	 *
+	 * @param paraFirstArray
+	 *            The array of the first row.
+	 * @param paraFirstOffset
+	 *            The offset of the first row.
+	 * @param paraSecondArray
+	 *            The array of the second row.
+	 * @param paraSecondOffset
+	 *            The offset of the second row.
+	 * @param paraLength
+	 *            The number of attributes.
+	 * @return The cosine.
+	 *************************
+	 */
+	public static double cosine(double[] paraFirstArray, int paraFirstOffset, double[] paraSecondArray,
+			int paraSecondOffset, int paraLength) {
+		double tempProduct0 = 0, tempProduct1 = 0;
+		double tempFirstNorm0 = 0, tempFirstNorm1 = 0;
+		double tempSecondNorm0 = 0, tempSecondNorm1 = 0;
+		double tempFirst0, tempFirst1, tempSecond0, tempSecond1;
+		// Three sums per attribute, so two lanes are enough to fill the
+		// pipeline.
+		int tempBound = paraLength - paraLength % 2;
+		int i = 0;
+		for (; i < tempBound; i += 2) {
+			tempFirst0 = paraFirstArray[paraFirstOffset + i];
+			tempFirst1 = paraFirstArray[paraFirstOffset + i + 1];
+			tempSecond0 = paraSecondArray[paraSecondOffset + i];
+			tempSecond1 = paraSecondArray[paraSecondOffset + i + 1];
+			tempProduct0 += tempFirst0 * tempSecond0;
+			tempProduct1 += tempFirst1 * tempSecond1;
+			tempFirstNorm0 += tempFirst0 * tempFirst0;
+			tempFirstNorm1 += tempFirst1 * tempFirst1;
+			tempSecondNorm0 += tempSecond0 * tempSecond0;
+			tempSecondNorm1 += tempSecond1 * tempSecond1;
+		} // Of for i
+		if (i < paraLength) {
+			tempFirst0 = paraFirstArray[paraFirstOffset + i];
+			tempSecond0 = paraSecondArray[paraSecondOffset + i];
+			tempProduct0 += tempFirst0 * tempSecond0;
+			tempFirstNorm0 += tempFirst0 * tempFirst0;
+			tempSecondNorm0 += tempSecond0 * tempSecond0;
+		} // Of if
+
+		return (tempProduct0 + tempProduct1)
+				/ (Math.sqrt(tempFirstNorm0 + tempFirstNorm1) * Math.sqrt(tempSecondNorm0 + tempSecondNorm1));
+	}// Of cosine
+
+	/**
+	 *************************
+	 * The cosine of two rows in float.
+	 *
+	 * @param paraFirstArray
+	 *            The array of the first row.
+	 * @param paraFirstOffset
+	 *            The offset of the first row.
+	 * @param paraSecondArray
+	 *            The array of the second row.
+	 * @param paraSecondOffset
+	 *            The offset of the second row.
+	 * @param paraLength
+	 *            The number of attributes.
+	 * @return The cosine.
+	 *************************
+	 */
+	public static double cosine(float[] paraFirstArray, int paraFirstOffset, float[] paraSecondArray,
+			int paraSecondOffset, int paraLength) {
+		float tempProduct0 = 0, tempProduct1 = 0;
+		float tempFirstNorm0 = 0, tempFirstNorm1 = 0;
+		float tempSecondNorm0 = 0, tempSecondNorm1 = 0;
+		float tempFirst0, tempFirst1, tempSecond0, tempSecond1;
+		int tempBound = paraLength - paraLength % 2;
+		int i = 0;
+		for (; i < tempBound; i += 2) {
+			tempFirst0 = paraFirstArray[paraFirstOffset + i];
+			tempFirst1 = paraFirstArray[paraFirstOffset + i + 1];
+			tempSecond0 = paraSecondArray[paraSecondOffset + i];
+			tempSecond1 = paraSecondArray[paraSecondOffset + i + 1];
+			tempProduct0 += tempFirst0 * tempSecond0;
+			tempProduct1 += tempFirst1 * tempSecond1;
+			tempFirstNorm0 += tempFirst0 * tempFirst0;
+			tempFirstNorm1 += tempFirst1 * tempFirst1;
+			tempSecondNorm0 += tempSecond0 * tempSecond0;
+			tempSecondNorm1 += tempSecond1 * tempSecond1;
+		} // Of for i
+		if (i < paraLength) {
+			tempFirst0 = paraFirstArray[paraFirstOffset + i];
+			tempSecond0 = paraSecondArray[paraSecondOffset + i];
+			tempProduct0 += tempFirst0 * tempSecond0;
+			tempFirstNorm0 += tempFirst0 * tempFirst0;
+			tempSecondNorm0 += tempSecond0 * tempSecond0;
+		} // Of if
+
+		return (tempProduct0 + tempProduct1)
+				/ (Math.sqrt(tempFirstNorm0 + tempFirstNorm1) * Math.sqrt(tempSecondNorm0 + tempSecondNorm1));
+	}// Of cosine
+
+	/**
+	 *************************
+	 * The cosine of a float row and a vector. The vector is rounded to float
+	 * first.
+	 *
+	 * @param paraFirstArray
+	 *            The array of the row.
+	 * @param paraFirstOffset
+	 *            The offset of the row.
+	 * @param paraVector
+	 *            The vector.
+	 * @param paraLength
+	 *            The number of attributes.
+	 * @return The cosine.
+	 *************************
+	 */
+	public static double cosine(float[] paraFirstArray, int paraFirstOffset, double[] paraVector, int paraLength) {
+		float tempProduct0 = 0, tempProduct1 = 0;
+		float tempFirstNorm0 = 0, tempFirstNorm1 = 0;
+		float tempSecondNorm0 = 0, tempSecondNorm1 = 0;
+		float tempFirst0, tempFirst1, tempSecond0, tempSecond1;
+		int tempBound = paraLength - paraLength % 2;
+		int i = 0;
+		for (; i < tempBound; i += 2) {
+			tempFirst0 = paraFirstArray[paraFirstOffset + i];
+			tempFirst1 = paraFirstArray[paraFirstOffset + i + 1];
+			tempSecond0 = (float) paraVector[i];
+			tempSecond1 = (float) paraVector[i + 1];
+			tempProduct0 += tempFirst0 * tempSecond0;
+			tempProduct1 += tempFirst1 * tempSecond1;
+			tempFirstNorm0 += tempFirst0 * tempFirst0;
+			tempFirstNorm1 += tempFirst1 * tempFirst1;
+			tempSecondNorm0 += tempSecond0 * tempSecond0;
+			tempSecondNorm1 += tempSecond1 * tempSecond1;
+		} // Of for i
+		if (i < paraLength) {
+			tempFirst0 = paraFirstArray[paraFirstOffset + i];
+			tempSecond0 = (float) paraVector[i];
+			tempProduct0 += tempFirst0 * tempSecond0;
+			tempFirstNorm0 += tempFirst0 * tempFirst0;
+			tempSecondNorm0 += tempSecond0 * tempSecond0;
+		} // Of if
+
+		return (tempProduct0 + tempProduct1)
+				/ (Math.sqrt(tempFirstNorm0 + tempFirstNorm1) * Math.sqrt(tempSecondNorm0 + tempSecondNorm1));
+	}// Of cosine
+
+	/**
+	 *************************
+	 * The number of block rows in one tile.
+	 *
+	 * @param paraLength
+	 *            The number of attributes.
+	 * @return The number of rows, at least 16.
+	 *************************
+	 */
+	static int tileRows(int paraLength) {
+		return Math.max(16, TILE_DOUBLES / Math.max(paraLength, 1));
+	}// Of tileRows
+
+	/**
+	 *************************
+	 * The squared Euclidean distances between some rows and the rows of a
+	 * block. The block is walked in tiles of rows that stay in the cache
+	 * while every query passes over them, so each block row is fetched from
+	 * memory once per query tile instead of once per query. Each pair is
+	 * computed by squaredEuclidean(), hence the values are the same.
+	 *
+	 * @param paraFeatures
+	 *            The row-major features.
+	 * @param paraNumConditions
+	 *            The number of attributes, i.e., the stride.
+	 * @param paraQueries
+	 *            The array of the query rows.
+	 * @param paraQueryFrom
+	 *            The position of the first query in the array.
+	 * @param paraNumQueries
+	 *            The number of queries.
+	 * @param paraBlock
+	 *            The block rows.
+	 * @param paraLength
+	 *            The number of block rows to consider.
+	 * @param paraDistances
+	 *            The squared distances, the q-th query at q * paraLength.
+	 *************************
+	 */
+	public static void squaredEuclideanBlock(double[] paraFeatures, int paraNumConditions, int[] paraQueries,
+			int paraQueryFrom, int paraNumQueries, int[] paraBlock, int paraLength, double[] paraDistances) {
+		int tempTileRows = tileRows(paraNumConditions);
+		int tempTileEnd, tempQueryOffset, tempOutput;
+		for (int tempTileStart = 0; tempTileStart < paraLength; tempTileStart += tempTileRows) {
+			tempTileEnd = Math.min(tempTileStart + tempTileRows, paraLength);
+			for (int q = 0; q < paraNumQueries; q++) {
+				tempQueryOffset = paraQueries[paraQueryFrom + q] * paraNumConditions;
+				tempOutput = q * paraLength;
+				for (int j = tempTileStart; j < tempTileEnd; j++) {
+					paraDistances[tempOutput + j] = squaredEuclidean(paraFeatures, tempQueryOffset, paraFeatures,
+							paraBlock[j] * paraNumConditions, paraNumConditions);
+				} // Of for j
+			} // Of for q
+		} // Of for tempTileStart
+	}// Of squaredEuclideanBlock
+
+	/**
+	 *************************
+	 * The Manhattan distances between some rows and the rows of a block,
+	 * tiled as squaredEuclideanBlock().
+	 *
+	 * @param paraFeatures
+	 *            The row-major features.
+	 * @param paraNumConditions
+	 *            The number of attributes, i.e., the stride.
+	 * @param paraQueries
+	 *            The array of the query rows.
+	 * @param paraQueryFrom
+	 *            The position of the first query in the array.
+	 * @param paraNumQueries
+	 *            The number of queries.
+	 * @param paraBlock
+	 *            The block rows.
+	 * @param paraLength
+	 *            The number of block rows to consider.
+	 * @param paraDistances
+	 *            The distances, the q-th query at q * paraLength.
+	 *************************
+	 */
+	public static void manhattanBlock(double[] paraFeatures, int paraNumConditions, int[] paraQueries,
+			int paraQueryFrom, int paraNumQueries, int[] paraBlock, int paraLength, double[] paraDistances) {
+		int tempTileRows = tileRows(paraNumConditions);
+		int tempTileEnd, tempQueryOffset, tempOutput;
+		for (int tempTileStart = 0; tempTileStart < paraLength; tempTileStart += tempTileRows) {
+			tempTileEnd = Math.min(tempTileStart + tempTileRows, paraLength);
+			for (int q = 0; q < paraNumQueries; q++) {
+				tempQueryOffset = paraQueries[paraQueryFrom + q] * paraNumConditions;
+				tempOutput = q * paraLength;
+				for (int j = tempTileStart; j < tempTileEnd; j++) {
+					paraDistances[tempOutput + j] = manhattan(paraFeatures, tempQueryOffset, paraFeatures,
+							paraBlock[j] * paraNumConditions, paraNumConditions);
+				} // Of for j
+			} // Of for q
+		} // Of for tempTileStart
+	}// Of manhattanBlock
+
+	/**
+	 *************************
+	 * Compare with sequential loops and time both on random rows.
+	 *
+	 * @param args
+	 *            The parameters.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		int tempNumRows = 2000;
+		int tempLength = 30;
+		java.util.Random tempRandom = new java.util.Random(0);
+		double[] tempValues = new double[tempNumRows * tempLength];
+		for (int i = 0; i < tempValues.length; i++) {
+			tempValues[i] = tempRandom.nextDouble();
+		} // Of for i
+
+		double tempMaximalError = 0;
+		double tempSequential, tempDifference;
+		for (int i = 0; i < 100; i++) {
+			for (int j = 0; j < tempNumRows; j++) {
+				tempSequential = 0;
+				for (int k = 0; k < tempLength; k++) {
+					tempDifference = tempValues[i * tempLength + k] - tempValues[j * tempLength + k];
+					tempSequential += tempDifference * tempDifference;
+				} // Of for k
+				tempDifference = Math.abs(tempSequential
+						- squaredEuclidean(tempValues, i * tempLength, tempValues, j * tempLength, tempLength));
+				tempMaximalError = Math.max(tempMaximalError, tempDifference);
+			} // Of for j
+		} // Of for i
+		System.out.println("Maximal difference with the sequential loop: " + tempMaximalError);
+
+		// The first round warms up the JIT.
+		for (int tempRound = 0; tempRound < 3; tempRound++) {
+			double tempChecksum = 0;
+			long tempStartTime = System.nanoTime();
+			for (int i = 0; i < tempNumRows; i++) {
+				for (int j = 0; j < tempNumRows; j++) {
+					tempSequential = 0;
+					for (int k = 0; k < tempLength; k++) {
+						tempDifference = tempValues[i * tempLength + k] - tempValues[j * tempLength + k];
+						tempSequential += tempDifference * tempDifference;
+					} // Of for k
+					tempChecksum += tempSequential;
+				} // Of for j
+			} // Of for i
+			long tempSequentialTime = System.nanoTime() - tempStartTime;
+
+			tempStartTime = System.nanoTime();
+			for (int i = 0; i < tempNumRows; i++) {
+				for (int j = 0; j < tempNumRows; j++) {
+					tempChecksum -= squaredEuclidean(tempValues, i * tempLength, tempValues, j * tempLength,
+							tempLength);
+				} // Of for j
+			} // Of for i
+			long tempLaneTime = System.nanoTime() - tempStartTime;
+
+			System.out.println("Round " + tempRound + ", sequential: " + tempSequentialTime / 1000000 + " ms, "
+					+ LANES + " lanes: " + tempLaneTime / 1000000 + " ms, checksum difference " + tempChecksum);
+		} // Of for tempRound
+
+		// The block kernel against one query at a time, on a large shuffled
+		// block which does not fit in the cache.
+		int tempNumBlockRows = 50000;
+		double[] tempBlockValues = new double[tempNumBlockRows * tempLength];
+		for (int i = 0; i < tempBlockValues.length; i++) {
+			tempBlockValues[i] = tempRandom.nextDouble();
+		} // Of for i
+		int[] tempBlock = SimpleTools.getRandomOrder(tempNumBlockRows, tempRandom);
+		int tempNumQueries = 256;
+		double[] tempRowDistances = new double[tempNumBlockRows];
+		double[] tempBlockDistances = new double[QUERY_TILE * tempNumBlockRows];
+		for (int tempRound = 0; tempRound < 3; tempRound++) {
+			int tempWrong = 0;
+			long tempRowTime = 0;
+			long tempBlockTime = 0;
+			long tempStartTime;
+			for (int i = 0; i < tempNumQueries; i += QUERY_TILE) {
+				tempStartTime = System.nanoTime();
+				squaredEuclideanBlock(tempBlockValues, tempLength, tempBlock, i, QUERY_TILE, tempBlock,
+						tempNumBlockRows, tempBlockDistances);
+				tempBlockTime += System.nanoTime() - tempStartTime;
+
+				for (int q = 0; q < QUERY_TILE; q++) {
+					tempStartTime = System.nanoTime();
+					for (int j = 0; j < tempNumBlockRows; j++) {
+						tempRowDistances[j] = squaredEuclidean(tempBlockValues, tempBlock[i + q] * tempLength,
+								tempBlockValues, tempBlock[j] * tempLength, tempLength);
+					} // Of for j
+					tempRowTime += System.nanoTime() - tempStartTime;
+					for (int j = 0; j < tempNumBlockRows; j++) {
+						if (tempRowDistances[j] != tempBlockDistances[q * tempNumBlockRows + j]) {
+							tempWrong++;
+						} // Of if
+					} // Of for j
+				} // Of for q
+			} // Of for i
+			System.out.println("Round " + tempRound + ", " + tempNumQueries + " queries over " + tempNumBlockRows
+					+ " shuffled rows, one by one: " + tempRowTime / 1000000 + " ms, blocked: "
+					+ tempBlockTime / 1000000 + " ms, " + tempWrong + " different.");
+		} // Of for tempRound
+	}// Of main
+}// Of class DistanceKernels
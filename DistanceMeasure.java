@@ -0,0 +1,682 @@
+package pub.rj.paper.common;
+
+import java.io.FileReader;
+import java.io.IOException;
+
+import weka.core.Instances;
+
+/**
+ * Distance measures.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Three measures are implemented. More are desired.<br>
+ * Written time: May 20, 2019. <br>
+ * Last modify time: July 27, 2019.
+ */
+
+public class DistanceMeasure {
+	/**
+	 * The data. It should be modified in this class.
+	 */
+	public Instances data;
+
+	/**
+	 * The Euclidean distance.
+	 */
+	public static final int EUCLIDEAN = 0;
+
+	/**
+	 * The Manhattan distance.
+	 */
+	public static final int MANHATTAN = 1;
+
+	/**
+	 * The cosine distance.
+	 */
+	public static final int COSINE = 2;
+
+	/**
+	 * The MAHALANOBIS distance.
+	 */
+	public static final int MAHALANOBIS = 3;
+
+	/**
+	 * The squared Euclidean distance.
+	 */
+	public static final int SQUARED_EUCLIDEAN = 4;
+
+	/**
+	 * The current distance measure.
+	 */
+	int measure;
+
+	/**
+	 * The columnar features shared with the learner.
+	 */
+	FeatureStore featureStore;
+
+	/**
+	 * The distance function chosen by the measure.
+	 */
+	DistanceFunction function;
+
+	/**
+	 * The row-major feature values in the single precision mode, the same as
+	 * featureStore.getFloatValues(). If it is not null, the distances are
+	 * computed in float.
+	 */
+	float[] floatFeatures;
+
+	/**
+	 * The cache of pairwise distances. Null if not enabled.
+	 */
+	DistanceCache cache;
+
+	/**
+	 * The bounded cache used when the full one does not fit. Null if not
+	 * enabled.
+	 */
+	TiledDistanceCache tiledCache;
+
+	/**
+	 ********************
+	 * The constructor. The feature store is built from the data.
+	 * 
+	 * @param paraData
+	 *            The data set.
+	 * @param paraMeasure
+	 *            The measure.
+	 ********************
+	 */
+	public DistanceMeasure(Instances paraData, int paraMeasure) {
+		this(paraData, new FeatureStore(paraData), paraMeasure);
+	}// Of the first constructor
+
+	/**
+	 ********************
+	 * The constructor.
+	 * 
+	 * @param paraData
+	 *            The data set.
+	 * @param paraFeatureStore
+	 *            The feature store of the data set. It is shared, not copied.
+	 * @param paraMeasure
+	 *            The measure.
+	 ********************
+	 */
+	public DistanceMeasure(Instances paraData, FeatureStore paraFeatureStore, int paraMeasure) {
+		data = paraData;
+		featureStore = paraFeatureStore;
+		floatFeatures = paraFeatureStore.getFloatValues();
+		measure = paraMeasure;
+		function = createFunction(paraMeasure, paraFeatureStore);
+		cache = null;
+		tiledCache = null;
+	}// Of the second constructor
+
+	/**
+	 ************************* 
+	 * Create the distance function of the given measure.
+	 * 
+	 * @param paraMeasure
+	 *            The measure.
+	 * @param paraFeatureStore
+	 *            The feature store.
+	 * @return The distance function.
+	 ************************* 
+	 */
+	public static DistanceFunction createFunction(int paraMeasure, FeatureStore paraFeatureStore) {
+		DistanceFunction resultFunction = null;
+		switch (paraMeasure) {
+		case EUCLIDEAN:
+			resultFunction = new DistanceFunction.Euclidean(paraFeatureStore);
+			break;
+		case MANHATTAN:
+			resultFunction = new DistanceFunction.Manhattan(paraFeatureStore);
+			break;
+		case COSINE:
+			resultFunction = new DistanceFunction.Cosine(paraFeatureStore);
+			break;
+		case MAHALANOBIS:
+			resultFunction = new DistanceFunction.Mahalanobis(paraFeatureStore);
+			break;
+		case SQUARED_EUCLIDEAN:
+			resultFunction = new DistanceFunction.SquaredEuclidean(paraFeatureStore);
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported distance measure: " + paraMeasure);
+		}// Of switch
+
+		return resultFunction;
+	}// Of createFunction
+
+	/**
+	 ************************* 
+	 * Get the distance function.
+	 * 
+	 * @return The distance function.
+	 ************************* 
+	 */
+	public DistanceFunction getFunction() {
+		return function;
+	}// Of getFunction
+
+	/**
+	 ************************* 
+	 * Enable the pairwise distance cache with the default memory budget for
+	 * tiles.
+	 * 
+	 * @return True if a cache is enabled.
+	 ************************* 
+	 */
+	public boolean enableCache() {
+		return enableCache(TiledDistanceCache.DEFAULT_MEMORY_BUDGET);
+	}// Of enableCache
+
+	/**
+	 ************************* 
+	 * Enable the pairwise distance cache, in float if the feature store is in
+	 * float. The full cache is preferred. If the number of instances is too
+	 * large for the heap, a tiled cache within the given budget is used
+	 * instead.
+	 * 
+	 * @param paraTiledMemoryBudget
+	 *            The memory budget of the tiled cache in bytes. 0 for no tiled
+	 *            cache.
+	 * @return True if a cache is enabled.
+	 ************************* 
+	 */
+	public boolean enableCache(long paraTiledMemoryBudget) {
+		if (cache == null && tiledCache == null) {
+			int tempNumInstances = featureStore.getNumInstances();
+			cache = DistanceCache.tryCreate(tempNumInstances, floatFeatures != null);
+			if (cache == null && paraTiledMemoryBudget > 0) {
+				tiledCache = new TiledDistanceCache(this, tempNumInstances, TiledDistanceCache.DEFAULT_TILE_SIZE,
+						paraTiledMemoryBudget, floatFeatures != null);
+			} // Of if
+		} // Of if
+
+		return cache != null || tiledCache != null;
+	}// Of enableCache
+
+	/**
+	 ************************* 
+	 * Disable the pairwise distance caches and release the memory.
+	 ************************* 
+	 */
+	public void disableCache() {
+		cache = null;
+		tiledCache = null;
+	}// Of disableCache
+
+	/**
+	 ************************* 
+	 * Get the tiled distance cache, e.g., for its hit/miss counters.
+	 * 
+	 * @return The tiled cache, null if not enabled.
+	 ************************* 
+	 */
+	public TiledDistanceCache getTiledCache() {
+		return tiledCache;
+	}// Of getTiledCache
+
+	/**
+	 ************************* 
+	 * Get the pairwise distance cache.
+	 * 
+	 * @return The cache, null if not enabled.
+	 ************************* 
+	 */
+	public DistanceCache getCache() {
+		return cache;
+	}// Of getCache
+
+	/**
+	 ************************* 
+	 * Get the feature store.
+	 * 
+	 * @return The feature store.
+	 ************************* 
+	 */
+	public FeatureStore getFeatureStore() {
+		return featureStore;
+	}// Of getFeatureStore
+
+	/**
+	 ************************* 
+	 * Get the measure in int.
+	 * 
+	 * @return The measure in int.
+	 ************************* 
+	 */
+	public int getMeasure() {
+		return measure;
+	}// Of getMeasure
+
+	/**
+	 ************************* 
+	 * Compute the distance between two vectors.
+	 * 
+	 * @param paraFirstArray
+	 *            The first array.
+	 * @param paraSecondArray
+	 *            The second array.
+	 * @return The distance.
+	 ************************* 
+	 */
+	public double distance(double[] paraFirstArray, double[] paraSecondArray) {
+		return function.distance(paraFirstArray, paraSecondArray);
+	}// Of distance
+
+	/**
+	 ************************* 
+	 * Compute the distance between two instances. The cache is used if
+	 * enabled.
+	 * 
+	 * @param paraFirstIndex
+	 *            The first instance index.
+	 * @param paraSecondIndex
+	 *            The second instance index.
+	 * @return The distance.
+	 ************************* 
+	 */
+	public double distance(int paraFirstIndex, int paraSecondIndex) {
+		if (paraFirstIndex == paraSecondIndex) {
+			return computeDistance(paraFirstIndex, paraSecondIndex);
+		} // Of if
+
+		if (cache == null) {
+			if (tiledCache != null) {
+				return tiledCache.distance(paraFirstIndex, paraSecondIndex);
+			} // Of if
+			return computeDistance(paraFirstIndex, paraSecondIndex);
+		} // Of if
+
+		int tempPosition = cache.position(paraFirstIndex, paraSecondIndex);
+		double resultDistance = cache.get(tempPosition);
+		if (Double.isNaN(resultDistance)) {
+			cache.set(tempPosition, computeDistance(paraFirstIndex, paraSecondIndex));
+			// Read it back, so that hits and misses agree in float.
+			resultDistance = cache.get(tempPosition);
+		} // Of if
+
+		return resultDistance;
+	}// Of distance
+
+	/**
+	 ************************* 
+	 * Compute the distance between two instances without the cache.
+	 * 
+	 * @param paraFirstIndex
+	 *            The first instance index.
+	 * @param paraSecondIndex
+	 *            The second instance index.
+	 * @return The distance.
+	 ************************* 
+	 */
+	public double computeDistance(int paraFirstIndex, int paraSecondIndex) {
+		return function.distance(paraFirstIndex, paraSecondIndex);
+	}// Of computeDistance
+
+	/**
+	 ************************* 
+	 * Compute the distance between two instances attribute by attribute as
+	 * the original code did, for breaking near ties. The cache is not used.
+	 * 
+	 * @param paraFirstIndex
+	 *            The first instance index.
+	 * @param paraSecondIndex
+	 *            The second instance index.
+	 * @return The distance.
+	 ************************* 
+	 */
+	public double referenceDistance(int paraFirstIndex, int paraSecondIndex) {
+		return function.referenceDistance(paraFirstIndex, paraSecondIndex);
+	}// Of referenceDistance
+
+	/**
+	 ************************* 
+	 * Compute the distance between an instances and a vector.
+	 * 
+	 * @param paraIndex
+	 *            The instance index.
+	 * @param paraArray
+	 *            The array.
+	 * @return The distance.
+	 ************************* 
+	 */
+	public double distance(int paraIndex, double[] paraArray) {
+		return function.distance(paraIndex, paraArray);
+	}// Of distance
+
+	/**
+	 ************************* 
+	 * Compute the distances between an instance and each instance of a block.
+	 * 
+	 * @param paraQuery
+	 *            The query instance index.
+	 * @param paraBlock
+	 *            The block.
+	 * @param paraDistances
+	 *            The array to store the distances, with length no less than
+	 *            the block.
+	 ************************* 
+	 */
+	public void distances(int paraQuery, int[] paraBlock, double[] paraDistances) {
+		distances(paraQuery, paraBlock, paraBlock.length, paraDistances);
+	}// Of distances
+
+	/**
+	 ************************* 
+	 * Compute the distances between an instance and the first instances of a
+	 * block. The measure is resolved only once. The caches are used if
+	 * enabled, so that the values are the same as distance(int, int).
+	 * 
+	 * @param paraQuery
+	 *            The query instance index.
+	 * @param paraBlock
+	 *            The block.
+	 * @param paraLength
+	 *            The number of instances of the block to consider.
+	 * @param paraDistances
+	 *            The array to store the distances, with length no less than
+	 *            paraLength.
+	 ************************* 
+	 */
+	public void distances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+		if (cache != null || tiledCache != null) {
+			for (int i = 0; i < paraLength; i++) {
+				paraDistances[i] = distance(paraQuery, paraBlock[i]);
+			} // Of for i
+			return;
+		} // Of if
+
+		function.distances(paraQuery, paraBlock, paraLength, paraDistances);
+	}// Of distances
+
+	/**
+	 ************************* 
+	 * Compute the distances between some instances and the first instances of
+	 * a block, e.g., for a tile of queries of a density loop. The block rows
+	 * are passed once for all the queries by the measures with a blocked
+	 * kernel. The values are the same as distances(int, int[], int, double[])
+	 * for each query.
+	 * 
+	 * @param paraQueries
+	 *            The array of the query instance indices.
+	 * @param paraQueryFrom
+	 *            The position of the first query in the array.
+	 * @param paraNumQueries
+	 *            The number of queries.
+	 * @param paraBlock
+	 *            The block.
+	 * @param paraLength
+	 *            The number of instances of the block to consider.
+	 * @param paraDistances
+	 *            The array to store the distances, the q-th query at q *
+	 *            paraLength, with length no less than paraNumQueries *
+	 *            paraLength.
+	 ************************* 
+	 */
+	public void distances(int[] paraQueries, int paraQueryFrom, int paraNumQueries, int[] paraBlock,
+			int paraLength, double[] paraDistances) {
+		if (cache != null || tiledCache != null) {
+			for (int q = 0; q < paraNumQueries; q++) {
+				for (int i = 0; i < paraLength; i++) {
+					paraDistances[q * paraLength + i] = distance(paraQueries[paraQueryFrom + q], paraBlock[i]);
+				} // Of for i
+			} // Of for q
+			return;
+		} // Of if
+
+		function.distances(paraQueries, paraQueryFrom, paraNumQueries, paraBlock, paraLength, paraDistances);
+	}// Of distances
+
+	/**
+	 ************************* 
+	 * Compute the distances between a vector, e.g., a cluster center, and each
+	 * instance of a block. The values are the same as distance(int, double[]).
+	 * 
+	 * @param paraVector
+	 *            The vector.
+	 * @param paraBlock
+	 *            The block.
+	 * @param paraDistances
+	 *            The array to store the distances, with length no less than
+	 *            the block.
+	 ************************* 
+	 */
+	public void distances(double[] paraVector, int[] paraBlock, double[] paraDistances) {
+		function.distances(paraVector, paraBlock, paraDistances);
+	}// Of distances
+
+	/**
+	 ************************* 
+	 * Compute the comparison distance between two instances. It orders pairs
+	 * the same as distance(int, int), e.g., it is the squared Euclidean
+	 * distance. If a cache is enabled, the cached distance is cheaper and is
+	 * returned instead.
+	 * 
+	 * @param paraFirstIndex
+	 *            The first instance index.
+	 * @param paraSecondIndex
+	 *            The second instance index.
+	 * @return The comparison distance.
+	 ************************* 
+	 */
+	public double comparisonDistance(int paraFirstIndex, int paraSecondIndex) {
+		if (cache != null || tiledCache != null) {
+			return distance(paraFirstIndex, paraSecondIndex);
+		} // Of if
+
+		return function.comparisonDistance(paraFirstIndex, paraSecondIndex);
+	}// Of comparisonDistance
+
+	/**
+	 ************************* 
+	 * Compute the comparison distance between an instance and a vector. It
+	 * orders the instances, or the vectors, the same as distance(int,
+	 * double[]).
+	 * 
+	 * @param paraIndex
+	 *            The instance index.
+	 * @param paraVector
+	 *            The vector.
+	 * @return The comparison distance.
+	 ************************* 
+	 */
+	public double comparisonDistance(int paraIndex, double[] paraVector) {
+		return function.comparisonDistance(paraIndex, paraVector);
+	}// Of comparisonDistance
+
+	/**
+	 ************************* 
+	 * Prepare a vector compared with many instances, e.g., a cluster center
+	 * in a round of kMeans. For the Mahalanobis distance it is whitened once
+	 * here, not for each instance.
+	 * 
+	 * @param paraVector
+	 *            The vector.
+	 * @return The prepared vector, only for preparedComparisonDistance().
+	 ************************* 
+	 */
+	public double[] prepareQuery(double[] paraVector) {
+		return function.prepareQuery(paraVector);
+	}// Of prepareQuery
+
+	/**
+	 ************************* 
+	 * Compute the comparison distance between an instance and a prepared
+	 * vector. The value is the same as comparisonDistance(int, double[]) on
+	 * the original vector.
+	 * 
+	 * @param paraIndex
+	 *            The instance index.
+	 * @param paraPreparedVector
+	 *            The vector returned by prepareQuery().
+	 * @return The comparison distance.
+	 ************************* 
+	 */
+	public double preparedComparisonDistance(int paraIndex, double[] paraPreparedVector) {
+		return function.preparedComparisonDistance(paraIndex, paraPreparedVector);
+	}// Of preparedComparisonDistance
+
+	/**
+	 ************************* 
+	 * Compute the comparison distances between an instance and the first
+	 * instances of a block.
+	 * 
+	 * @param paraQuery
+	 *            The query instance index.
+	 * @param paraBlock
+	 *            The block.
+	 * @param paraLength
+	 *            The number of instances of the block to consider.
+	 * @param paraDistances
+	 *            The array to store the comparison distances.
+	 ************************* 
+	 */
+	public void comparisonDistances(int paraQuery, int[] paraBlock, int paraLength, double[] paraDistances) {
+		if (cache != null || tiledCache != null) {
+			distances(paraQuery, paraBlock, paraLength, paraDistances);
+			return;
+		} // Of if
+
+		function.comparisonDistances(paraQuery, paraBlock, paraLength, paraDistances);
+	}// Of comparisonDistances
+
+	/**
+	 ************************* 
+	 * Convert a distance to the comparison distance between two instances,
+	 * e.g., for a threshold.
+	 * 
+	 * @param paraDistance
+	 *            The distance.
+	 * @return The comparison distance.
+	 ************************* 
+	 */
+	public double distanceToComparison(double paraDistance) {
+		if (cache != null || tiledCache != null) {
+			return paraDistance;
+		} // Of if
+
+		return function.toComparison(paraDistance);
+	}// Of distanceToComparison
+
+	/**
+	 ************************* 
+	 * Compute the Euclidean distance between two vectors.
+	 * 
+	 * @param paraFirstArray
+	 *            The first array.
+	 * @param paraSecondArray
+	 *            The second array.
+	 * @return The distance.
+	 ************************* 
+	 */
+	public static double euclideanDistance(double[] paraFirstArray, double[] paraSecondArray) {
+		Common.runtimes += paraFirstArray.length;
+		return Math.sqrt(DistanceKernels.squaredEuclidean(paraFirstArray, 0, paraSecondArray, 0, paraFirstArray.length));
+	}// Of euclideanDistance
+
+	/**
+	 ************************* 
+	 * Compute the Manhattan distance between two vectors.
+	 * 
+	 * @param paraFirstArray
+	 *            The first array.
+	 * @param paraSecondArray
+	 *            The second array.
+	 * @return The distance.
+	 ************************* 
+	 */
+	public static double manhattanDistance(double[] paraFirstArray, double[] paraSecondArray) {
+		return DistanceKernels.manhattan(paraFirstArray, 0, paraSecondArray, 0, paraFirstArray.length);
+	}// Of manhattanDistance
+
+	/**
+	 ************************* 
+	 * Compute the cosine distance between two vectors.
+	 * 
+	 * @param paraFirstArray
+	 *            The first array.
+	 * @param paraSecondArray
+	 *            The second array.
+	 * @return The distance.
+	 ************************* 
+	 */
+	public static double cosineDistance(double[] paraFirstArray, double[] paraSecondArray) {
+		return DistanceKernels.cosine(paraFirstArray, 0, paraSecondArray, 0, paraFirstArray.length);
+	}// Of cosineDistance
+
+	/**
+	 ************************* 
+	 * Display the distance measure.
+	 * 
+	 * @return The distance measure.
+	 ************************* 
+	 */
+	public String toString() {
+		String resultString = null;
+
+		switch (measure) {
+		case EUCLIDEAN:
+			resultString = "Euclidean";
+			break;
+		case MANHATTAN:
+			resultString = "Manhattan";
+			break;
+		case COSINE:
+			resultString = "Cosine";
+			break;
+		case MAHALANOBIS:
+			resultString = "MahalanobisDistence";
+			break;
+		case SQUARED_EUCLIDEAN:
+			resultString = "SquaredEuclidean";
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported distance measure: " + measure);
+		}// Of switch
+
+		return resultString;
+	}// Of toString
+
+	/**
+	 ************************* 
+	 * The test entrance
+	 * 
+	 * @author Fan Min
+	 * @param args
+	 *            The parameters.
+	 * @throws IOException
+	 *             The IOException for data reading.
+	 ************************* 
+	 */
+	public static void main(String[] args) throws IOException {
+		System.out.println("Hello.");
+		FileReader fileReader = new FileReader("src/data/iris.arff");
+		Instances data1 = new Instances(fileReader);
+		fileReader.close();
+
+		double[] tempDataIndex0 = { 5.1, 3.5, 1.4, 0.2 };
+		double[] tempData2Index1 = { 5.1, 3.5, 1.4, 0.2 };
+
+		DistanceMeasure tempMeasure = new DistanceMeasure(data1, COSINE);
+		double tempDistance1 = tempMeasure.distance(0, 1);
+		System.out.println("Distance between two instances: " + tempDistance1);
+
+		double tempDistance2 = tempMeasure.distance(0, tempData2Index1);
+		System.out.println("Distance between an instance and an array: " + tempDistance2);
+
+		double tempDistance3 = tempMeasure.distance(tempDataIndex0, tempData2Index1);
+		System.out.println("Distance between two arrays: " + tempDistance3);
+
+	}// Of main
+}// Of class Distance
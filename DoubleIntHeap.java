@@ -0,0 +1,246 @@
+package pub.rj.paper.common;
+
+import java.util.Arrays;
+
+/**
+ * A binary heap of (double key, int payload) pairs in two primitive arrays.
+ * The pairs are ordered by the key, and then by the payload, so that equal
+ * keys come out in a fixed order. A min-heap has the smallest pair at the
+ * top, a max-heap the largest. The arrays only grow beyond the initial
+ * capacity, and clear() keeps them, so a reused heap does not allocate.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class DoubleIntHeap {
+	/**
+	 * The keys in heap order.
+	 */
+	double[] keys;
+
+	/**
+	 * The payloads in heap order.
+	 */
+	int[] payloads;
+
+	/**
+	 * The number of pairs.
+	 */
+	int size;
+
+	/**
+	 * Is the largest pair at the top?
+	 */
+	boolean maxHeap;
+
+	/**
+	 ********************
+	 * The constructor.
+	 *
+	 * @param paraCapacity
+	 *            The initial capacity.
+	 * @param paraMaxHeap
+	 *            True for the largest pair at the top, false for the smallest.
+	 ********************
+	 */
+	public DoubleIntHeap(int paraCapacity, boolean paraMaxHeap) {
+		keys = new double[Math.max(paraCapacity, 1)];
+		payloads = new int[keys.length];
+		size = 0;
+		maxHeap = paraMaxHeap;
+	}// Of the constructor
+
+	/**
+	 ********************
+	 * Remove all pairs. The memory is kept.
+	 ********************
+	 */
+	public void clear() {
+		size = 0;
+	}// Of clear
+
+	/**
+	 ********************
+	 * Getter.
+	 *
+	 * @return The number of pairs.
+	 ********************
+	 */
+	public int size() {
+		return size;
+	}// Of size
+
+	/**
+	 ********************
+	 * Is the heap empty?
+	 *
+	 * @return True if there is no pair.
+	 ********************
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}// Of isEmpty
+
+	/**
+	 ********************
+	 * Does the first pair go above the second one? Keys are compared with <
+	 * and >, so they should not be NaN.
+	 *
+	 * @param paraFirstKey
+	 *            The first key.
+	 * @param paraFirstPayload
+	 *            The first payload.
+	 * @param paraSecondKey
+	 *            The second key.
+	 * @param paraSecondPayload
+	 *            The second payload.
+	 * @return True if the first pair is smaller (larger for a max-heap).
+	 ********************
+	 */
+	public boolean above(double paraFirstKey, int paraFirstPayload, double paraSecondKey, int paraSecondPayload) {
+		if (maxHeap) {
+			return paraFirstKey > paraSecondKey
+					|| (paraFirstKey == paraSecondKey && paraFirstPayload > paraSecondPayload);
+		} // Of if
+
+		return paraFirstKey < paraSecondKey
+				|| (paraFirstKey == paraSecondKey && paraFirstPayload < paraSecondPayload);
+	}// Of above
+
+	/**
+	 ********************
+	 * Add a pair.
+	 *
+	 * @param paraKey
+	 *            The key.
+	 * @param paraPayload
+	 *            The payload.
+	 ********************
+	 */
+	public void push(double paraKey, int paraPayload) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			payloads = Arrays.copyOf(payloads, size * 2);
+		} // Of if
+
+		// Sift up.
+		int tempPosition = size;
+		int tempParent;
+		while (tempPosition > 0) {
+			tempParent = (tempPosition - 1) >> 1;
+			if (!above(paraKey, paraPayload, keys[tempParent], payloads[tempParent])) {
+				break;
+			} // Of if
+			keys[tempPosition] = keys[tempParent];
+			payloads[tempPosition] = payloads[tempParent];
+			tempPosition = tempParent;
+		} // Of while
+		keys[tempPosition] = paraKey;
+		payloads[tempPosition] = paraPayload;
+		size++;
+	}// Of push
+
+	/**
+	 ********************
+	 * Getter.
+	 *
+	 * @return The key at the top.
+	 ********************
+	 */
+	public double peekKey() {
+		return keys[0];
+	}// Of peekKey
+
+	/**
+	 ********************
+	 * Getter.
+	 *
+	 * @return The payload at the top.
+	 ********************
+	 */
+	public int peekPayload() {
+		return payloads[0];
+	}// Of peekPayload
+
+	/**
+	 ********************
+	 * Remove the top pair.
+	 *
+	 * @return The payload of the removed pair.
+	 ********************
+	 */
+	public int pop() {
+		int resultPayload = payloads[0];
+		size--;
+		if (size > 0) {
+			siftDown(keys[size], payloads[size]);
+		} // Of if
+
+		return resultPayload;
+	}// Of pop
+
+	/**
+	 ********************
+	 * Replace the top pair, cheaper than pop() and push().
+	 *
+	 * @param paraKey
+	 *            The new key.
+	 * @param paraPayload
+	 *            The new payload.
+	 ********************
+	 */
+	public void replaceTop(double paraKey, int paraPayload) {
+		siftDown(paraKey, paraPayload);
+	}// Of replaceTop
+
+	/**
+	 ********************
+	 * Put a pair at the top and sift it down.
+	 *
+	 * @param paraKey
+	 *            The key.
+	 * @param paraPayload
+	 *            The payload.
+	 ********************
+	 */
+	private void siftDown(double paraKey, int paraPayload) {
+		int tempPosition = 0;
+		int tempChild;
+		while (true) {
+			tempChild = 2 * tempPosition + 1;
+			if (tempChild >= size) {
+				break;
+			} // Of if
+			if (tempChild + 1 < size
+					&& above(keys[tempChild + 1], payloads[tempChild + 1], keys[tempChild], payloads[tempChild])) {
+				tempChild++;
+			} // Of if
+			if (!above(keys[tempChild], payloads[tempChild], paraKey, paraPayload)) {
+				break;
+			} // Of if
+			keys[tempPosition] = keys[tempChild];
+			payloads[tempPosition] = payloads[tempChild];
+			tempPosition = tempChild;
+		} // Of while
+		keys[tempPosition] = paraKey;
+		payloads[tempPosition] = paraPayload;
+	}// Of siftDown
+
+	/**
+	 ********************
+	 * Show me.
+	 ********************
+	 */
+	public String toString() {
+		return (maxHeap ? "Max-heap" : "Min-heap") + " of " + size + " pairs";
+	}// Of toString
+}// Of class DoubleIntHeap
@@ -0,0 +1,391 @@
+package pub.rj.paper.common;
+
+import java.util.Random;
+
+/**
+ * A nearest neighbor index supporting insertion, for the queried instances
+ * which arrive one by one. The logarithmic method is used: level l is either
+ * empty or a static NeighborIndex over 2^l instances. An insertion merges the
+ * full levels below the first empty one into it, hence each instance is
+ * rebuilt O(log n) times, and a query visits O(log n) static indices. The
+ * instances of a level are sorted by the given keys, so that the static
+ * indices break ties by the keys, and the result is the same as scanning the
+ * instances in the order of the keys.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class DynamicNeighborIndex {
+	/**
+	 * The maximal number of levels.
+	 */
+	public static final int MAXIMAL_LEVELS = 32;
+
+	/**
+	 * The distance measure.
+	 */
+	DistanceMeasure distanceMeasure;
+
+	/**
+	 * The keys breaking ties, indexed by instance. Smaller first.
+	 */
+	int[] keys;
+
+	/**
+	 * The static indices, null for empty levels.
+	 */
+	NeighborIndex[] levels;
+
+	/**
+	 * The instances of each level, sorted by the keys.
+	 */
+	int[][] levelMembers;
+
+	/**
+	 * The number of instances.
+	 */
+	int numPoints;
+
+	/**
+	 * The buffer of neighbors for queries restricted to marked instances.
+	 */
+	int[] neighborBuffer;
+
+	/**
+	 ********************
+	 * The constructor.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraKeys
+	 *            The keys breaking ties, indexed by instance. Not copied.
+	 ********************
+	 */
+	public DynamicNeighborIndex(DistanceMeasure paraDistanceMeasure, int[] paraKeys) {
+		distanceMeasure = paraDistanceMeasure;
+		keys = paraKeys;
+		levels = new NeighborIndex[MAXIMAL_LEVELS];
+		levelMembers = new int[MAXIMAL_LEVELS][];
+		numPoints = 0;
+		neighborBuffer = new int[1];
+	}// Of the constructor
+
+	/**
+	 *************************
+	 * Get the number of instances.
+	 *
+	 * @return The number of instances.
+	 *************************
+	 */
+	public int getNumPoints() {
+		return numPoints;
+	}// Of getNumPoints
+
+	/**
+	 *************************
+	 * Insert an instance. The full levels from the bottom are merged with it
+	 * into the first empty level.
+	 *
+	 * @param paraInstance
+	 *            The instance.
+	 *************************
+	 */
+	public void insert(int paraInstance) {
+		int[] tempMembers = { paraInstance };
+		int tempLevel = 0;
+		while (levels[tempLevel] != null) {
+			tempMembers = merge(levelMembers[tempLevel], tempMembers);
+			levels[tempLevel] = null;
+			levelMembers[tempLevel] = null;
+			tempLevel++;
+		} // Of while
+
+		levelMembers[tempLevel] = tempMembers;
+		levels[tempLevel] = NeighborIndex.create(distanceMeasure, tempMembers, tempMembers.length);
+		numPoints++;
+	}// Of insert
+
+	/**
+	 *************************
+	 * Merge two instance arrays sorted by the keys.
+	 *
+	 * @param paraFirst
+	 *            The first array.
+	 * @param paraSecond
+	 *            The second array.
+	 * @return The merged array.
+	 *************************
+	 */
+	int[] merge(int[] paraFirst, int[] paraSecond) {
+		int[] resultMembers = new int[paraFirst.length + paraSecond.length];
+		int i = 0;
+		int j = 0;
+		for (int k = 0; k < resultMembers.length; k++) {
+			if (j == paraSecond.length || (i < paraFirst.length && keys[paraFirst[i]] < keys[paraSecond[j]])) {
+				resultMembers[k] = paraFirst[i];
+				i++;
+			} else {
+				resultMembers[k] = paraSecond[j];
+				j++;
+			} // Of if
+		} // Of for k
+
+		return resultMembers;
+	}// Of merge
+
+	/**
+	 *************************
+	 * Find the nearest instance.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @return The nearest instance, the one with the smallest key in case of
+	 *         ties. -1 if the index is empty.
+	 *************************
+	 */
+	public int nearest(int paraQuery) {
+		int resultInstance = -1;
+		double tempBestComparison = Double.MAX_VALUE;
+		int tempCandidate;
+		double tempComparison;
+		for (int i = 0; i < MAXIMAL_LEVELS; i++) {
+			if (levels[i] == null) {
+				continue;
+			} // Of if
+
+			tempCandidate = levels[i].nearest(paraQuery);
+			tempComparison = distanceMeasure.comparisonDistance(paraQuery, tempCandidate);
+			if (isBetter(tempComparison, tempCandidate, tempBestComparison, resultInstance)) {
+				tempBestComparison = tempComparison;
+				resultInstance = tempCandidate;
+			} // Of if
+		} // Of for i
+
+		return resultInstance;
+	}// Of nearest
+
+	/**
+	 *************************
+	 * Find the nearest marked instance, e.g., within a block. In each level,
+	 * the neighbors are fetched in a doubling number until a marked one
+	 * appears. For a block formed by clustering, the nearest instance is
+	 * usually marked already.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraMarks
+	 *            The marks indexed by instance.
+	 * @param paraMark
+	 *            The mark of the instances to consider.
+	 * @return The nearest marked instance, the one with the smallest key in
+	 *         case of ties. -1 if no instance is marked.
+	 *************************
+	 */
+	public int nearest(int paraQuery, int[] paraMarks, int paraMark) {
+		int resultInstance = -1;
+		double tempBestComparison = Double.MAX_VALUE;
+		int tempCandidate, tempK, tempCount;
+		double tempComparison;
+		for (int i = 0; i < MAXIMAL_LEVELS; i++) {
+			if (levels[i] == null) {
+				continue;
+			} // Of if
+
+			tempCandidate = -1;
+			tempK = 1;
+			while (tempCandidate == -1) {
+				if (neighborBuffer.length < tempK) {
+					neighborBuffer = new int[tempK];
+				} // Of if
+				tempCount = levels[i].kNearest(paraQuery, tempK, neighborBuffer);
+				for (int j = 0; j < tempCount; j++) {
+					if (paraMarks[neighborBuffer[j]] == paraMark) {
+						tempCandidate = neighborBuffer[j];
+						break;
+					} // Of if
+				} // Of for j
+
+				// The whole level is checked.
+				if (tempCount < tempK || tempK == levelMembers[i].length) {
+					break;
+				} // Of if
+				tempK = Math.min(tempK * 2, levelMembers[i].length);
+			} // Of while
+
+			if (tempCandidate == -1) {
+				continue;
+			} // Of if
+
+			tempComparison = distanceMeasure.comparisonDistance(paraQuery, tempCandidate);
+			if (isBetter(tempComparison, tempCandidate, tempBestComparison, resultInstance)) {
+				tempBestComparison = tempComparison;
+				resultInstance = tempCandidate;
+			} // Of if
+		} // Of for i
+
+		return resultInstance;
+	}// Of nearest
+
+	/**
+	 *************************
+	 * Find the instances within the radius.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraRadius
+	 *            The radius, inclusive.
+	 * @param paraNeighbors
+	 *            The array to store the neighbors, in no particular order. Its
+	 *            length should be the number of instances.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int range(int paraQuery, double paraRadius, int[] paraNeighbors) {
+		int resultCount = 0;
+		int tempCount;
+		for (int i = 0; i < MAXIMAL_LEVELS; i++) {
+			if (levels[i] == null) {
+				continue;
+			} // Of if
+
+			if (neighborBuffer.length < levelMembers[i].length) {
+				neighborBuffer = new int[levelMembers[i].length];
+			} // Of if
+			tempCount = levels[i].range(paraQuery, paraRadius, neighborBuffer);
+			System.arraycopy(neighborBuffer, 0, paraNeighbors, resultCount, tempCount);
+			resultCount += tempCount;
+		} // Of for i
+
+		return resultCount;
+	}// Of range
+
+	/**
+	 *************************
+	 * Is the first candidate better than the second one?
+	 *
+	 * @param paraFirstComparison
+	 *            The comparison distance of the first candidate.
+	 * @param paraFirstInstance
+	 *            The first candidate.
+	 * @param paraSecondComparison
+	 *            The comparison distance of the second candidate.
+	 * @param paraSecondInstance
+	 *            The second candidate, -1 for none.
+	 * @return True if better.
+	 *************************
+	 */
+	boolean isBetter(double paraFirstComparison, int paraFirstInstance, double paraSecondComparison,
+			int paraSecondInstance) {
+		if (paraSecondInstance == -1 || paraFirstComparison < paraSecondComparison) {
+			return true;
+		} // Of if
+
+		return paraFirstComparison == paraSecondComparison && keys[paraFirstInstance] < keys[paraSecondInstance];
+	}// Of isBetter
+
+	/**
+	 *************************
+	 * For display.
+	 *************************
+	 */
+	public String toString() {
+		String resultString = "DynamicNeighborIndex over " + numPoints + " instances, levels";
+		for (int i = 0; i < MAXIMAL_LEVELS; i++) {
+			if (levels[i] != null) {
+				resultString += " " + i;
+			} // Of if
+		} // Of for i
+
+		return resultString;
+	}// Of toString
+
+	/**
+	 *************************
+	 * Test the index against the scan in the order of the keys, while the
+	 * instances are inserted.
+	 *
+	 * @param args
+	 *            Not used now.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		Random tempRandom = new Random(0);
+		int tempNumInstances = 20000;
+		int tempDimension = 3;
+		double[] tempValues = new double[tempNumInstances * tempDimension];
+		for (int i = 0; i < tempValues.length; i++) {
+			// Coarse values to have ties.
+			tempValues[i] = tempRandom.nextInt(50) / 50.0;
+		} // Of for i
+		FeatureStore tempStore = new FeatureStore(tempValues, new int[tempNumInstances], tempDimension, 2);
+
+		// The keys and the insertion order are both random.
+		int[] tempKeys = SimpleTools.getRandomOrder(tempNumInstances, tempRandom);
+		int[] tempOrder = SimpleTools.getRandomOrder(tempNumInstances, tempRandom);
+		int[] tempMarks = new int[tempNumInstances];
+		for (int i = 0; i < tempNumInstances; i++) {
+			tempMarks[i] = tempRandom.nextInt(3);
+		} // Of for i
+
+		int[] tempMeasures = { DistanceMeasure.EUCLIDEAN, DistanceMeasure.MANHATTAN, DistanceMeasure.COSINE };
+		for (int tempMeasure : tempMeasures) {
+			DistanceMeasure tempDistanceMeasure = new DistanceMeasure(null, tempStore, tempMeasure);
+			DynamicNeighborIndex tempIndex = new DynamicNeighborIndex(tempDistanceMeasure, tempKeys);
+			int tempWrong = 0;
+			long tempIndexTime = 0;
+			long tempScanTime = 0;
+			int tempNumInserted = 0;
+			for (int tempCheckpoint = 100; tempCheckpoint <= 2000; tempCheckpoint += 300) {
+				while (tempNumInserted < tempCheckpoint) {
+					tempIndex.insert(tempOrder[tempNumInserted]);
+					tempNumInserted++;
+				} // Of while
+
+				for (int q = tempNumInstances - 1; q >= tempNumInstances - 500; q--) {
+					int tempQuery = tempOrder[q];
+					long tempStartTime = System.nanoTime();
+					int tempActual = tempIndex.nearest(tempQuery);
+					int tempActualMarked = tempIndex.nearest(tempQuery, tempMarks, 1);
+					tempIndexTime += System.nanoTime() - tempStartTime;
+
+					tempStartTime = System.nanoTime();
+					int tempExpected = -1;
+					int tempExpectedMarked = -1;
+					double tempBest = 0;
+					double tempBestMarked = 0;
+					double tempComparison;
+					for (int j = 0; j < tempNumInserted; j++) {
+						int tempInstance = tempOrder[j];
+						tempComparison = tempDistanceMeasure.comparisonDistance(tempQuery, tempInstance);
+						if (tempIndex.isBetter(tempComparison, tempInstance, tempBest, tempExpected)) {
+							tempBest = tempComparison;
+							tempExpected = tempInstance;
+						} // Of if
+						if (tempMarks[tempInstance] == 1
+								&& tempIndex.isBetter(tempComparison, tempInstance, tempBestMarked, tempExpectedMarked)) {
+							tempBestMarked = tempComparison;
+							tempExpectedMarked = tempInstance;
+						} // Of if
+					} // Of for j
+					tempScanTime += System.nanoTime() - tempStartTime;
+
+					if (tempActual != tempExpected || tempActualMarked != tempExpectedMarked) {
+						tempWrong++;
+					} // Of if
+				} // Of for q
+			} // Of for tempCheckpoint
+
+			System.out.println(tempIndex + ", " + tempDistanceMeasure + ": " + tempWrong + " wrong, index "
+					+ tempIndexTime / 1000000 + " ms, scan " + tempScanTime / 1000000 + " ms.");
+		} // Of for tempMeasure
+	}// Of main
+}// Of class DynamicNeighborIndex
@@ -0,0 +1,494 @@
+package pub.rj.paper.common;
+
+import java.io.FileReader;
+import java.util.Arrays;
+
+import Jama.CholeskyDecomposition;
+import Jama.Matrix;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+/**
+ * A read-only columnar copy of the conditional attributes and the labels. The
+ * features are stored row-major in one contiguous double array, so that hot
+ * loops avoid the virtual calls of weka.core.Instance. In the single precision
+ * mode they are stored in a float array instead, which halves the memory for
+ * normalized data.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class FeatureStore {
+	/**
+	 * The feature values, row-major, numInstances * numConditions.
+	 */
+	double[] values;
+
+	/**
+	 * The feature values in the single precision mode, row-major. Exactly one of
+	 * values and floatValues is not null.
+	 */
+	float[] floatValues;
+
+	/**
+	 * The label of each instance.
+	 */
+	int[] labels;
+
+	/**
+	 * The number of instances.
+	 */
+	int numInstances;
+
+	/**
+	 * The number of conditional attributes.
+	 */
+	int numConditions;
+
+	/**
+	 * The number of classes.
+	 */
+	int numClasses;
+
+	/**
+	 * The lower triangular Cholesky factor L of the scatter matrix, i.e., LL' =
+	 * X'X for the centered features X. Null if not computed yet.
+	 */
+	double[][] choleskyFactor;
+
+	/**
+	 * The whitened copy, i.e., each row x replaced by L^-1 x. Null if not
+	 * computed yet.
+	 */
+	FeatureStore whitened;
+
+	/**
+	 ********************
+	 * The constructor. Copy the data. The decision attribute should be the last
+	 * one.
+	 *
+	 * @param paraData
+	 *            The data set.
+	 ********************
+	 */
+	public FeatureStore(Instances paraData) {
+		numInstances = paraData.numInstances();
+		numConditions = paraData.numAttributes() - 1;
+		numClasses = paraData.attribute(numConditions).numValues();
+
+		values = new double[numInstances * numConditions];
+		labels = new int[numInstances];
+		int tempOffset = 0;
+		for (int i = 0; i < numInstances; i++) {
+			for (int j = 0; j < numConditions; j++) {
+				values[tempOffset + j] = paraData.instance(i).value(j);
+			} // Of for j
+			labels[i] = (int) paraData.instance(i).value(numConditions);
+			tempOffset += numConditions;
+		} // Of for i
+	}// Of the first constructor
+
+	/**
+	 ********************
+	 * The constructor. The arrays are used directly without copying.
+	 *
+	 * @param paraValues
+	 *            The feature values, row-major.
+	 * @param paraLabels
+	 *            The labels.
+	 * @param paraNumConditions
+	 *            The number of conditional attributes.
+	 * @param paraNumClasses
+	 *            The number of classes.
+	 ********************
+	 */
+	public FeatureStore(double[] paraValues, int[] paraLabels, int paraNumConditions, int paraNumClasses) {
+		values = paraValues;
+		labels = paraLabels;
+		numInstances = paraLabels.length;
+		numConditions = paraNumConditions;
+		numClasses = paraNumClasses;
+	}// Of the second constructor
+
+	/**
+	 ********************
+	 * The constructor for the single precision mode. The arrays are used
+	 * directly without copying.
+	 *
+	 * @param paraFloatValues
+	 *            The feature values, row-major.
+	 * @param paraLabels
+	 *            The labels.
+	 * @param paraNumConditions
+	 *            The number of conditional attributes.
+	 * @param paraNumClasses
+	 *            The number of classes.
+	 ********************
+	 */
+	public FeatureStore(float[] paraFloatValues, int[] paraLabels, int paraNumConditions, int paraNumClasses) {
+		floatValues = paraFloatValues;
+		labels = paraLabels;
+		numInstances = paraLabels.length;
+		numConditions = paraNumConditions;
+		numClasses = paraNumClasses;
+	}// Of the third constructor
+
+	/**
+	 *************************
+	 * Is the store in the single precision mode?
+	 *
+	 * @return True if the values are stored in float.
+	 *************************
+	 */
+	public boolean isSinglePrecision() {
+		return floatValues != null;
+	}// Of isSinglePrecision
+
+	/**
+	 *************************
+	 * Get a single precision copy. The labels are shared.
+	 *
+	 * @return The store in the single precision mode, or this one if it is
+	 *         already.
+	 *************************
+	 */
+	public FeatureStore toSinglePrecision() {
+		if (floatValues != null) {
+			return this;
+		} // Of if
+
+		float[] tempFloatValues = new float[values.length];
+		for (int i = 0; i < values.length; i++) {
+			tempFloatValues[i] = (float) values[i];
+		} // Of for i
+
+		return new FeatureStore(tempFloatValues, labels, numConditions, numClasses);
+	}// Of toSinglePrecision
+
+	/**
+	 *************************
+	 * Get the feature values. Attention: the array is shared, do not change it.
+	 *
+	 * @return The row-major feature values, null in the single precision mode.
+	 *************************
+	 */
+	public double[] getValues() {
+		return values;
+	}// Of getValues
+
+	/**
+	 *************************
+	 * Get the feature values in the single precision mode. Attention: the array
+	 * is shared, do not change it.
+	 *
+	 * @return The row-major feature values, null in the double precision mode.
+	 *************************
+	 */
+	public float[] getFloatValues() {
+		return floatValues;
+	}// Of getFloatValues
+
+	/**
+	 *************************
+	 * Get the labels. Attention: the array is shared, do not change it.
+	 *
+	 * @return The labels.
+	 *************************
+	 */
+	public int[] getLabels() {
+		return labels;
+	}// Of getLabels
+
+	/**
+	 *************************
+	 * Get the number of instances.
+	 *
+	 * @return The number of instances.
+	 *************************
+	 */
+	public int getNumInstances() {
+		return numInstances;
+	}// Of getNumInstances
+
+	/**
+	 *************************
+	 * Get the number of conditional attributes.
+	 *
+	 * @return The number of conditional attributes.
+	 *************************
+	 */
+	public int getNumConditions() {
+		return numConditions;
+	}// Of getNumConditions
+
+	/**
+	 *************************
+	 * Get the number of classes.
+	 *
+	 * @return The number of classes.
+	 *************************
+	 */
+	public int getNumClasses() {
+		return numClasses;
+	}// Of getNumClasses
+
+	/**
+	 *************************
+	 * Get the value of the given instance on the given attribute.
+	 *
+	 * @param paraIndex
+	 *            The instance index.
+	 * @param paraAttribute
+	 *            The conditional attribute index.
+	 * @return The value.
+	 *************************
+	 */
+	public double value(int paraIndex, int paraAttribute) {
+		if (floatValues != null) {
+			return floatValues[paraIndex * numConditions + paraAttribute];
+		} // Of if
+		return values[paraIndex * numConditions + paraAttribute];
+	}// Of value
+
+	/**
+	 *************************
+	 * Get the label of the given instance.
+	 *
+	 * @param paraIndex
+	 *            The instance index.
+	 * @return The label.
+	 *************************
+	 */
+	public int label(int paraIndex) {
+		return labels[paraIndex];
+	}// Of label
+
+	/**
+	 *************************
+	 * Copy the features of the given instance to the given array.
+	 *
+	 * @param paraIndex
+	 *            The instance index.
+	 * @param paraDestination
+	 *            The array with length no less than numConditions.
+	 *************************
+	 */
+	public void copyRow(int paraIndex, double[] paraDestination) {
+		if (floatValues != null) {
+			int tempOffset = paraIndex * numConditions;
+			for (int i = 0; i < numConditions; i++) {
+				paraDestination[i] = floatValues[tempOffset + i];
+			} // Of for i
+			return;
+		} // Of if
+
+		System.arraycopy(values, paraIndex * numConditions, paraDestination, 0, numConditions);
+	}// Of copyRow
+
+	/**
+	 *************************
+	 * Get a copy of the features of the given instance.
+	 *
+	 * @param paraIndex
+	 *            The instance index.
+	 * @return The feature vector.
+	 *************************
+	 */
+	public double[] getRow(int paraIndex) {
+		double[] resultRow = new double[numConditions];
+		copyRow(paraIndex, resultRow);
+		return resultRow;
+	}// Of getRow
+
+	/**
+	 *************************
+	 * Get the whitened copy. The Mahalanobis distance (x - y)'(X'X)^-1(x - y)
+	 * equals |L^-1 x - L^-1 y|^2, hence it is the Euclidean distance on this
+	 * copy. The scatter matrix is factorized only once, and the copy is kept
+	 * since it does not depend on the order of instances.
+	 *
+	 * @return The whitened store, in float if this one is.
+	 *************************
+	 */
+	public FeatureStore getWhitened() {
+		if (whitened != null) {
+			return whitened;
+		} // Of if
+
+		// Step 1. The scatter matrix of the centered features.
+		double[] tempMeans = new double[numConditions];
+		double[] tempRow = new double[numConditions];
+		for (int i = 0; i < numInstances; i++) {
+			copyRow(i, tempRow);
+			for (int j = 0; j < numConditions; j++) {
+				tempMeans[j] += tempRow[j];
+			} // Of for j
+		} // Of for i
+		for (int j = 0; j < numConditions; j++) {
+			tempMeans[j] /= numInstances;
+		} // Of for j
+
+		double[][] tempScatter = new double[numConditions][numConditions];
+		for (int i = 0; i < numInstances; i++) {
+			copyRow(i, tempRow);
+			for (int j = 0; j < numConditions; j++) {
+				tempRow[j] -= tempMeans[j];
+			} // Of for j
+			for (int j = 0; j < numConditions; j++) {
+				for (int k = 0; k <= j; k++) {
+					tempScatter[j][k] += tempRow[j] * tempRow[k];
+				} // Of for k
+			} // Of for j
+		} // Of for i
+		for (int j = 0; j < numConditions; j++) {
+			for (int k = j + 1; k < numConditions; k++) {
+				tempScatter[j][k] = tempScatter[k][j];
+			} // Of for k
+		} // Of for j
+
+		// Step 2. Factorize it.
+		CholeskyDecomposition tempDecomposition = new Matrix(tempScatter).chol();
+		if (!tempDecomposition.isSPD()) {
+			System.out.println("The covariance matrix is singular, cannot compute the Mahalanobis distance.");
+			System.exit(0);
+		} // Of if
+		choleskyFactor = tempDecomposition.getL().getArray();
+
+		// Step 3. Whiten the rows.
+		double[] tempValues = new double[numInstances * numConditions];
+		for (int i = 0; i < numInstances; i++) {
+			copyRow(i, tempRow);
+			whiten(tempRow, tempValues, i * numConditions);
+		} // Of for i
+
+		whitened = new FeatureStore(tempValues, labels, numConditions, numClasses);
+		if (floatValues != null) {
+			whitened = whitened.toSinglePrecision();
+		} // Of if
+
+		return whitened;
+	}// Of getWhitened
+
+	/**
+	 *************************
+	 * Whiten a vector, e.g., a cluster center, with the same factor as
+	 * getWhitened().
+	 *
+	 * @param paraVector
+	 *            The vector in the original space.
+	 * @return The whitened vector.
+	 *************************
+	 */
+	public double[] whiten(double[] paraVector) {
+		getWhitened();
+		double[] resultVector = new double[numConditions];
+		whiten(paraVector, resultVector, 0);
+		return resultVector;
+	}// Of whiten
+
+	/**
+	 *************************
+	 * Solve Lz = x by forward substitution.
+	 *
+	 * @param paraVector
+	 *            The vector x.
+	 * @param paraDestination
+	 *            The array to store z.
+	 * @param paraOffset
+	 *            The offset of z in the array.
+	 *************************
+	 */
+	void whiten(double[] paraVector, double[] paraDestination, int paraOffset) {
+		double tempSum;
+		for (int j = 0; j < numConditions; j++) {
+			tempSum = paraVector[j];
+			for (int k = 0; k < j; k++) {
+				tempSum -= choleskyFactor[j][k] * paraDestination[paraOffset + k];
+			} // Of for k
+			paraDestination[paraOffset + j] = tempSum / choleskyFactor[j][j];
+		} // Of for j
+	}// Of whiten
+
+	/**
+	 *************************
+	 * Build weka instances with the given header. The features fill the
+	 * conditional attributes in order, and the labels fill the class attribute.
+	 *
+	 * @param paraHeader
+	 *            The header with the class index set.
+	 * @return The data with the class index set.
+	 *************************
+	 */
+	public Instances toInstances(Instances paraHeader) {
+		Instances resultData = new Instances(paraHeader, numInstances);
+		int tempClassIndex = paraHeader.classIndex();
+		resultData.setClassIndex(tempClassIndex);
+		int tempNumAttributes = numConditions + 1;
+		for (int i = 0; i < numInstances; i++) {
+			double[] tempRow = new double[tempNumAttributes];
+			for (int j = 0, k = 0; j < tempNumAttributes; j++) {
+				if (j == tempClassIndex) {
+					tempRow[j] = labels[i];
+				} else {
+					tempRow[j] = value(i, k);
+					k++;
+				} // Of if
+			} // Of for j
+			resultData.add(new DenseInstance(1.0, tempRow));
+		} // Of for i
+
+		return resultData;
+	}// Of toInstances
+
+	/**
+	 *************************
+	 * Display some information.
+	 *
+	 * @return The information.
+	 *************************
+	 */
+	public String toString() {
+		return "FeatureStore with " + numInstances + " instances, " + numConditions + " conditions and "
+				+ numClasses + " classes" + (floatValues != null ? " in single precision" : "");
+	}// Of toString
+
+	/**
+	 *************************
+	 * Test this class.
+	 *
+	 * @param args
+	 *            The parameters.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		String tempFilename = "src/pub/rj/paper/data/iris.arff";
+		if (args.length >= 1) {
+			tempFilename = args[0];
+		} // Of if
+
+		Instances tempData = null;
+		try {
+			FileReader fileReader = new FileReader(tempFilename);
+			tempData = new Instances(fileReader);
+			fileReader.close();
+		} catch (Exception ee) {
+			System.out.println("Cannot read the file: " + tempFilename + "\r\n" + ee);
+			System.exit(0);
+		} // Of try
+		tempData.setClassIndex(tempData.numAttributes() - 1);
+
+		FeatureStore tempStore = new FeatureStore(tempData);
+		System.out.println(tempStore);
+		System.out.println("The first row is: " + Arrays.toString(tempStore.getRow(0)) + " with label "
+				+ tempStore.label(0));
+	}// Of main
+}// Of class FeatureStore
@@ -0,0 +1,444 @@
+package pub.rj.paper.common;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A uniform grid (cell list) for range queries with a fixed radius such as
+ * dc. The instances are put into cubic cells over the few attributes with
+ * the largest spread, and a query only checks the cells within the radius.
+ * One coordinate gap never exceeds the Euclidean or Manhattan distance (nor
+ * the Mahalanobis one on whitened coordinates), so the projection loses no
+ * neighbor. With many attributes the projection prunes little, and create()
+ * falls back to NeighborIndex.create().
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class GridIndex extends NeighborIndex {
+	/**
+	 * The maximal number of attributes to build cells over.
+	 */
+	public static final int PROJECTION_DIMENSION = 3;
+
+	/**
+	 * The maximal number of attributes for a grid. Above it create() falls
+	 * back.
+	 */
+	public static final int MAXIMAL_DIMENSION = 6;
+
+	/**
+	 * The coordinates, whitened for the Mahalanobis distance.
+	 */
+	FeatureStore coordinates;
+
+	/**
+	 * The attributes of the projection.
+	 */
+	int[] attributes;
+
+	/**
+	 * The minimal value of each projected attribute.
+	 */
+	double[] minimums;
+
+	/**
+	 * The number of cells along each projected attribute.
+	 */
+	long[] numCells;
+
+	/**
+	 * The side of the cells, slightly enlarged to absorb rounding.
+	 */
+	double cellSide;
+
+	/**
+	 * The cell id of each occupied cell key.
+	 */
+	HashMap<Long, Integer> cellIds;
+
+	/**
+	 * The first position of each cell in cellMembers, with one more at the
+	 * end.
+	 */
+	int[] cellStarts;
+
+	/**
+	 * The ranks grouped by cell, ascending within each cell.
+	 */
+	int[] cellMembers;
+
+	/**
+	 ********************
+	 * The constructor. Use create() to check the measure and the dimension.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraPoints
+	 *            The instances, copied.
+	 * @param paraNumPoints
+	 *            The number of instances to use from the array.
+	 * @param paraCellSide
+	 *            The side of the cells, typically the radius of the queries.
+	 ********************
+	 */
+	public GridIndex(DistanceMeasure paraDistanceMeasure, int[] paraPoints, int paraNumPoints,
+			double paraCellSide) {
+		super(paraDistanceMeasure, paraPoints, paraNumPoints);
+		coordinates = paraDistanceMeasure.getFeatureStore();
+		if (paraDistanceMeasure.getMeasure() == DistanceMeasure.MAHALANOBIS) {
+			coordinates = coordinates.getWhitened();
+		} // Of if
+		cellSide = paraCellSide * (1 + 4 * slack);
+
+		// Step 1. The attributes with the largest spread.
+		int tempNumConditions = coordinates.getNumConditions();
+		double[] tempMinimums = new double[tempNumConditions];
+		double[] tempMaximums = new double[tempNumConditions];
+		Arrays.fill(tempMinimums, Double.MAX_VALUE);
+		Arrays.fill(tempMaximums, -Double.MAX_VALUE);
+		double tempValue;
+		for (int i = 0; i < numPoints; i++) {
+			for (int j = 0; j < tempNumConditions; j++) {
+				tempValue = coordinates.value(points[i], j);
+				tempMinimums[j] = Math.min(tempMinimums[j], tempValue);
+				tempMaximums[j] = Math.max(tempMaximums[j], tempValue);
+			} // Of for j
+		} // Of for i
+
+		int tempDimension = Math.min(PROJECTION_DIMENSION, tempNumConditions);
+		attributes = new int[tempDimension];
+		boolean[] tempChosen = new boolean[tempNumConditions];
+		for (int i = 0; i < tempDimension; i++) {
+			int tempBest = -1;
+			for (int j = 0; j < tempNumConditions; j++) {
+				if (!tempChosen[j] && (tempBest == -1
+						|| tempMaximums[j] - tempMinimums[j] > tempMaximums[tempBest] - tempMinimums[tempBest])) {
+					tempBest = j;
+				} // Of if
+			} // Of for j
+			tempChosen[tempBest] = true;
+			attributes[i] = tempBest;
+		} // Of for i
+
+		minimums = new double[tempDimension];
+		numCells = new long[tempDimension];
+		for (int i = 0; i < tempDimension; i++) {
+			minimums[i] = tempMinimums[attributes[i]];
+			numCells[i] = (long) ((tempMaximums[attributes[i]] - minimums[i]) / cellSide) + 1;
+		} // Of for i
+
+		// Step 2. Group the ranks by cell with counting sort.
+		int[] tempCells = new int[numPoints];
+		cellIds = new HashMap<Long, Integer>();
+		long[] tempCoordinates = new long[tempDimension];
+		for (int i = 0; i < numPoints; i++) {
+			cellCoordinates(points[i], tempCoordinates);
+			Long tempKey = key(tempCoordinates);
+			Integer tempId = cellIds.get(tempKey);
+			if (tempId == null) {
+				tempId = cellIds.size();
+				cellIds.put(tempKey, tempId);
+			} // Of if
+			tempCells[i] = tempId;
+		} // Of for i
+
+		cellStarts = new int[cellIds.size() + 1];
+		for (int i = 0; i < numPoints; i++) {
+			cellStarts[tempCells[i] + 1]++;
+		} // Of for i
+		for (int i = 0; i < cellIds.size(); i++) {
+			cellStarts[i + 1] += cellStarts[i];
+		} // Of for i
+		int[] tempFill = Arrays.copyOf(cellStarts, cellIds.size());
+		cellMembers = new int[numPoints];
+		for (int i = 0; i < numPoints; i++) {
+			cellMembers[tempFill[tempCells[i]]] = i;
+			tempFill[tempCells[i]]++;
+		} // Of for i
+	}// Of the constructor
+
+	/**
+	 *************************
+	 * Build a grid if it helps, otherwise the index of NeighborIndex.create().
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraPoints
+	 *            The instances.
+	 * @param paraNumPoints
+	 *            The number of instances to use from the array.
+	 * @param paraCellSide
+	 *            The side of the cells, typically the radius of the queries.
+	 * @return The index.
+	 *************************
+	 */
+	public static NeighborIndex create(DistanceMeasure paraDistanceMeasure, int[] paraPoints, int paraNumPoints,
+			double paraCellSide) {
+		if (isApplicable(paraDistanceMeasure, paraCellSide) && paraNumPoints > LEAF_SIZE) {
+			return new GridIndex(paraDistanceMeasure, paraPoints, paraNumPoints, paraCellSide);
+		} // Of if
+
+		return NeighborIndex.create(paraDistanceMeasure, paraPoints, paraNumPoints);
+	}// Of create
+
+	/**
+	 *************************
+	 * Can a grid be used?
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraCellSide
+	 *            The side of the cells.
+	 * @return True if the measure is bounded by coordinate gaps, the dimension
+	 *         is low, and the side is positive.
+	 *************************
+	 */
+	public static boolean isApplicable(DistanceMeasure paraDistanceMeasure, double paraCellSide) {
+		int tempMeasure = paraDistanceMeasure.getMeasure();
+		boolean tempIsBounded = tempMeasure == DistanceMeasure.EUCLIDEAN || tempMeasure == DistanceMeasure.MANHATTAN
+				|| tempMeasure == DistanceMeasure.MAHALANOBIS;
+		return tempIsBounded && paraCellSide > 0
+				&& paraDistanceMeasure.getFeatureStore().getNumConditions() <= MAXIMAL_DIMENSION;
+	}// Of isApplicable
+
+	/**
+	 *************************
+	 * Compute the cell coordinates of an instance. They may be out of the
+	 * grid for an instance not indexed.
+	 *
+	 * @param paraInstance
+	 *            The instance.
+	 * @param paraCoordinates
+	 *            The array to store the cell coordinates.
+	 *************************
+	 */
+	void cellCoordinates(int paraInstance, long[] paraCoordinates) {
+		for (int i = 0; i < attributes.length; i++) {
+			paraCoordinates[i] = (long) Math
+					.floor((coordinates.value(paraInstance, attributes[i]) - minimums[i]) / cellSide);
+		} // Of for i
+	}// Of cellCoordinates
+
+	/**
+	 *************************
+	 * The key of a cell in the grid.
+	 *
+	 * @param paraCoordinates
+	 *            The cell coordinates, within the grid.
+	 * @return The key, the mixed radix number of the coordinates. An overflow
+	 *         for tiny cells only merges some cells, which costs time but
+	 *         loses no instance.
+	 *************************
+	 */
+	Long key(long[] paraCoordinates) {
+		long resultKey = 0;
+		for (int i = 0; i < paraCoordinates.length; i++) {
+			resultKey = resultKey * numCells[i] + paraCoordinates[i];
+		} // Of for i
+
+		return resultKey;
+	}// Of key
+
+	/**
+	 *************************
+	 * Find the positions of the instances within the radius.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraRadius
+	 *            The radius, inclusive.
+	 * @param paraRanks
+	 *            The array to store the positions in ascending order.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int rangeRanks(int paraQuery, double paraRadius, int[] paraRanks) {
+		int resultCount = searchCells(paraQuery, paraRadius, paraRanks, null, 0);
+		Arrays.sort(paraRanks, 0, resultCount);
+
+		return resultCount;
+	}// Of rangeRanks
+
+	/**
+	 *************************
+	 * Count the marked instances within the radius. This way one grid over
+	 * the whole data serves the sub-blocks.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraRadius
+	 *            The radius, inclusive.
+	 * @param paraMarks
+	 *            The marks indexed by instance.
+	 * @param paraMark
+	 *            The mark of the instances to count.
+	 * @return The number of marked instances within the radius.
+	 *************************
+	 */
+	public int countWithin(int paraQuery, double paraRadius, int[] paraMarks, int paraMark) {
+		return searchCells(paraQuery, paraRadius, null, paraMarks, paraMark);
+	}// Of countWithin
+
+	/**
+	 *************************
+	 * Check the cells within the radius.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraRadius
+	 *            The radius, inclusive.
+	 * @param paraRanks
+	 *            The array to store the positions, null for counting only.
+	 * @param paraMarks
+	 *            The marks indexed by instance, null for all instances.
+	 * @param paraMark
+	 *            The mark of the instances to consider.
+	 * @return The number of instances found.
+	 *************************
+	 */
+	int searchCells(int paraQuery, double paraRadius, int[] paraRanks, int[] paraMarks, int paraMark) {
+		int tempDimension = attributes.length;
+		long[] tempCenter = new long[tempDimension];
+		cellCoordinates(paraQuery, tempCenter);
+		long tempReach = (long) Math.ceil(paraRadius * (1 + slack) / cellSide);
+
+		// Odometer over the cells [center - reach, center + reach], clipped to
+		// the grid.
+		long[] tempLows = new long[tempDimension];
+		long[] tempHighs = new long[tempDimension];
+		for (int i = 0; i < tempDimension; i++) {
+			tempLows[i] = Math.max(tempCenter[i] - tempReach, 0);
+			tempHighs[i] = Math.min(tempCenter[i] + tempReach, numCells[i] - 1);
+			if (tempLows[i] > tempHighs[i]) {
+				return 0;
+			} // Of if
+		} // Of for i
+		long[] tempCell = Arrays.copyOf(tempLows, tempDimension);
+
+		int resultCount = 0;
+		int tempRank;
+		while (true) {
+			Integer tempId = cellIds.get(key(tempCell));
+			if (tempId != null) {
+				for (int i = cellStarts[tempId]; i < cellStarts[tempId + 1]; i++) {
+					tempRank = cellMembers[i];
+					if (paraMarks != null && paraMarks[points[tempRank]] != paraMark) {
+						continue;
+					} // Of if
+					if (distanceMeasure.distance(paraQuery, points[tempRank]) <= paraRadius) {
+						if (paraRanks != null) {
+							paraRanks[resultCount] = tempRank;
+						} // Of if
+						resultCount++;
+					} // Of if
+				} // Of for i
+			} // Of if
+
+			// Next cell.
+			int j = tempDimension - 1;
+			while (j >= 0 && tempCell[j] == tempHighs[j]) {
+				tempCell[j] = tempLows[j];
+				j--;
+			} // Of while
+			if (j < 0) {
+				break;
+			} // Of if
+			tempCell[j]++;
+		} // Of while
+
+		return resultCount;
+	}// Of searchCells
+
+	/**
+	 *************************
+	 * Display some information.
+	 *
+	 * @return The information.
+	 *************************
+	 */
+	public String toString() {
+		return "GridIndex over " + numPoints + " instances, " + cellIds.size() + " cells on attributes "
+				+ Arrays.toString(attributes);
+	}// Of toString
+
+	/**
+	 *************************
+	 * Compare the density counts with the scan on random data, for the whole
+	 * data and for a sub-block.
+	 *
+	 * @param args
+	 *            The parameters.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		java.util.Random tempRandom = new java.util.Random(0);
+		int tempNumInstances = 20000;
+		int[] tempDimensions = { 2, 5 };
+		int[] tempMeasures = { DistanceMeasure.EUCLIDEAN, DistanceMeasure.MANHATTAN };
+		for (int tempDimension : tempDimensions) {
+			double[] tempValues = new double[tempNumInstances * tempDimension];
+			for (int i = 0; i < tempValues.length; i++) {
+				// Coarse values to have distances exactly dc.
+				tempValues[i] = tempRandom.nextInt(100) / 100.0;
+			} // Of for i
+			FeatureStore tempStore = new FeatureStore(tempValues, new int[tempNumInstances], tempDimension, 2);
+			int[] tempPoints = new int[tempNumInstances];
+			for (int i = 0; i < tempNumInstances; i++) {
+				tempPoints[i] = i;
+			} // Of for i
+
+			for (int tempMeasure : tempMeasures) {
+				DistanceMeasure tempDistanceMeasure = new DistanceMeasure(null, tempStore, tempMeasure);
+				double tempDc = 0.05 * tempDimension;
+				NeighborIndex tempScan = new NeighborIndex(tempDistanceMeasure, tempPoints, tempNumInstances);
+				long tempStartTime = System.nanoTime();
+				GridIndex tempGrid = new GridIndex(tempDistanceMeasure, tempPoints, tempNumInstances, tempDc);
+				long tempBuildTime = System.nanoTime() - tempStartTime;
+
+				// Every other instance forms a sub-block.
+				int[] tempMarks = new int[tempNumInstances];
+				for (int i = 0; i < tempNumInstances; i += 2) {
+					tempMarks[i] = 1;
+				} // Of for i
+
+				int[] tempNeighbors = new int[tempNumInstances];
+				int tempWrong = 0;
+				long tempScanTime = 0;
+				long tempGridTime = 0;
+				int tempExpected, tempActual, tempExpectedMarked;
+				for (int i = 0; i < tempNumInstances; i += 10) {
+					tempStartTime = System.nanoTime();
+					tempExpected = tempScan.rangeRanks(i, tempDc, tempNeighbors);
+					tempScanTime += System.nanoTime() - tempStartTime;
+					tempExpectedMarked = 0;
+					for (int j = 0; j < tempExpected; j++) {
+						tempExpectedMarked += tempMarks[tempNeighbors[j]];
+					} // Of for j
+
+					tempStartTime = System.nanoTime();
+					tempActual = tempGrid.countWithin(i, tempDc, tempMarks, 1);
+					tempGridTime += System.nanoTime() - tempStartTime;
+					if (tempActual != tempExpectedMarked) {
+						tempWrong++;
+					} // Of if
+					if (tempGrid.rangeRanks(i, tempDc, tempNeighbors) != tempExpected) {
+						tempWrong++;
+					} // Of if
+				} // Of for i
+				System.out.println(tempGrid + " with " + tempDimension + " attributes, " + tempDistanceMeasure
+						+ ": built in " + tempBuildTime / 1000000 + " ms, " + tempWrong + " wrong, scan "
+						+ tempScanTime / 1000000 + " ms, grid " + tempGridTime / 1000000 + " ms.");
+			} // Of for tempMeasure
+		} // Of for tempDimension
+	}// Of main
+}// Of class GridIndex
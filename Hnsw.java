@@ -0,0 +1,620 @@
+package pub.rj.paper.common;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * An approximate neighbor index with hierarchical navigable small world
+ * graphs (HNSW). Each instance gets a random level with exponentially
+ * decaying probability, and is linked to about M near instances on every
+ * layer up to it. A query descends greedily from the top layer, and searches
+ * the bottom layer keeping the best efSearch candidates. Building takes
+ * roughly n log n distances. Larger efConstruction and efSearch give higher
+ * recall and take longer. Only the comparison distances are used, hence any
+ * measure works.
+ * <p>
+ * Unlike the other indices, the results may miss some true neighbors. Use
+ * measureRecall() to check. Range queries are answered by the scan.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class Hnsw extends NeighborIndex {
+	/**
+	 * The default number of links per instance on upper layers. The bottom
+	 * layer allows twice as many.
+	 */
+	public static final int DEFAULT_M = 16;
+
+	/**
+	 * The default number of candidates kept while building.
+	 */
+	public static final int DEFAULT_EF_CONSTRUCTION = 200;
+
+	/**
+	 * The default number of candidates kept while querying.
+	 */
+	public static final int DEFAULT_EF_SEARCH = 100;
+
+	/**
+	 * The seed for the levels, fixed so that the graph is reproducible.
+	 */
+	public static final long SEED = 0;
+
+	/**
+	 * The number of links per instance on upper layers.
+	 */
+	int maxLinks;
+
+	/**
+	 * The number of links per instance on the bottom layer.
+	 */
+	int maxBottomLinks;
+
+	/**
+	 * The number of candidates kept while building.
+	 */
+	int efConstruction;
+
+	/**
+	 * The number of candidates kept while querying.
+	 */
+	int efSearch;
+
+	/**
+	 * The links of each rank on each of its layers.
+	 */
+	int[][][] links;
+
+	/**
+	 * The number of links of each rank on each of its layers.
+	 */
+	int[][] numLinks;
+
+	/**
+	 * The entry rank on the top layer.
+	 */
+	int entry;
+
+	/**
+	 * The top layer.
+	 */
+	int topLevel;
+
+	/**
+	 * The visiting stamp of each rank in the current search.
+	 */
+	int[] visited;
+
+	/**
+	 * The stamp of the current search.
+	 */
+	int stamp;
+
+	/**
+	 * Is each candidate of the current search expanded?
+	 */
+	boolean[] expanded;
+
+	/**
+	 * The position of the last candidate inserted, -1 if rejected.
+	 */
+	int lastPosition;
+
+	/**
+	 ********************
+	 * The constructor with default parameters.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraPoints
+	 *            The instances, copied.
+	 * @param paraNumPoints
+	 *            The number of instances to use from the array.
+	 ********************
+	 */
+	public Hnsw(DistanceMeasure paraDistanceMeasure, int[] paraPoints, int paraNumPoints) {
+		this(paraDistanceMeasure, paraPoints, paraNumPoints, DEFAULT_M, DEFAULT_EF_CONSTRUCTION, DEFAULT_EF_SEARCH);
+	}// Of the first constructor
+
+	/**
+	 ********************
+	 * The constructor.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraPoints
+	 *            The instances, copied.
+	 * @param paraNumPoints
+	 *            The number of instances to use from the array.
+	 * @param paraM
+	 *            The number of links per instance on upper layers.
+	 * @param paraEfConstruction
+	 *            The number of candidates kept while building.
+	 * @param paraEfSearch
+	 *            The number of candidates kept while querying.
+	 ********************
+	 */
+	public Hnsw(DistanceMeasure paraDistanceMeasure, int[] paraPoints, int paraNumPoints, int paraM,
+			int paraEfConstruction, int paraEfSearch) {
+		super(paraDistanceMeasure, paraPoints, paraNumPoints);
+		if (paraM < 2) {
+			System.out.println("Error occurred in Hnsw: M should be at least 2, while it is " + paraM);
+			System.exit(0);
+		} // Of if
+		maxLinks = paraM;
+		maxBottomLinks = 2 * paraM;
+		efConstruction = Math.max(paraEfConstruction, paraM);
+		efSearch = paraEfSearch;
+
+		links = new int[numPoints][][];
+		numLinks = new int[numPoints][];
+		visited = new int[numPoints];
+		stamp = 0;
+		entry = -1;
+		topLevel = -1;
+
+		Random tempRandom = new Random(SEED);
+		double tempLevelFactor = 1 / Math.log(paraM);
+		for (int i = 0; i < numPoints; i++) {
+			int tempLevel = (int) (-Math.log(1 - tempRandom.nextDouble()) * tempLevelFactor);
+			add(i, tempLevel);
+		} // Of for i
+	}// Of the second constructor
+
+	/**
+	 *************************
+	 * Set the number of candidates kept while querying.
+	 *
+	 * @param paraEfSearch
+	 *            The new value.
+	 *************************
+	 */
+	public void setEfSearch(int paraEfSearch) {
+		efSearch = paraEfSearch;
+	}// Of setEfSearch
+
+	/**
+	 *************************
+	 * The results are approximate.
+	 *
+	 * @return False.
+	 *************************
+	 */
+	public boolean isExact() {
+		return false;
+	}// Of isExact
+
+	/**
+	 *************************
+	 * The comparison distance between two ranks.
+	 *
+	 * @param paraFirst
+	 *            The first rank.
+	 * @param paraSecond
+	 *            The second rank.
+	 * @return The comparison distance.
+	 *************************
+	 */
+	double comparison(int paraFirst, int paraSecond) {
+		return distanceMeasure.comparisonDistance(points[paraFirst], points[paraSecond]);
+	}// Of comparison
+
+	/**
+	 *************************
+	 * Add a rank to the graph.
+	 *
+	 * @param paraRank
+	 *            The rank.
+	 * @param paraLevel
+	 *            Its top layer.
+	 *************************
+	 */
+	void add(int paraRank, int paraLevel) {
+		links[paraRank] = new int[paraLevel + 1][];
+		numLinks[paraRank] = new int[paraLevel + 1];
+		for (int i = 0; i <= paraLevel; i++) {
+			// One more for the overflow before shrinking.
+			links[paraRank][i] = new int[(i == 0 ? maxBottomLinks : maxLinks) + 1];
+		} // Of for i
+
+		if (entry == -1) {
+			entry = paraRank;
+			topLevel = paraLevel;
+			return;
+		} // Of if
+
+		// Step 1. Descend greedily to the top layer of the new rank.
+		int tempQuery = points[paraRank];
+		int tempEntry = descend(tempQuery, entry, topLevel, paraLevel + 1);
+
+		// Step 2. Link on every layer below.
+		double[] tempComparisons = new double[efConstruction];
+		int[] tempRanks = new int[efConstruction];
+		int[] tempEntries = { tempEntry };
+		int tempNumEntries = 1;
+		int[] tempSelected = new int[maxBottomLinks];
+		for (int tempLevel = Math.min(paraLevel, topLevel); tempLevel >= 0; tempLevel--) {
+			int tempCount = searchLayer(tempQuery, tempEntries, tempNumEntries, efConstruction, tempLevel,
+					tempComparisons, tempRanks);
+			int tempMaxLinks = tempLevel == 0 ? maxBottomLinks : maxLinks;
+			int tempNumSelected = select(tempRanks, tempComparisons, tempCount, tempMaxLinks, tempSelected);
+			for (int i = 0; i < tempNumSelected; i++) {
+				links[paraRank][tempLevel][i] = tempSelected[i];
+				link(tempSelected[i], paraRank, tempLevel);
+			} // Of for i
+			numLinks[paraRank][tempLevel] = tempNumSelected;
+
+			tempEntries = new int[tempCount];
+			System.arraycopy(tempRanks, 0, tempEntries, 0, tempCount);
+			tempNumEntries = tempCount;
+		} // Of for tempLevel
+
+		if (paraLevel > topLevel) {
+			entry = paraRank;
+			topLevel = paraLevel;
+		} // Of if
+	}// Of add
+
+	/**
+	 *************************
+	 * Add a link, and shrink the links if there are too many.
+	 *
+	 * @param paraRank
+	 *            The rank to link from.
+	 * @param paraNewRank
+	 *            The rank to link to.
+	 * @param paraLevel
+	 *            The layer.
+	 *************************
+	 */
+	void link(int paraRank, int paraNewRank, int paraLevel) {
+		int[] tempLinks = links[paraRank][paraLevel];
+		int tempCount = numLinks[paraRank][paraLevel];
+		tempLinks[tempCount] = paraNewRank;
+		tempCount++;
+		int tempMaxLinks = paraLevel == 0 ? maxBottomLinks : maxLinks;
+		if (tempCount <= tempMaxLinks) {
+			numLinks[paraRank][paraLevel] = tempCount;
+			return;
+		} // Of if
+
+		// Sort the links by comparison distance, then select again.
+		double[] tempComparisons = new double[tempCount];
+		int[] tempRanks = new int[tempCount];
+		int tempSorted = 0;
+		for (int i = 0; i < tempCount; i++) {
+			tempSorted = insert(comparison(paraRank, tempLinks[i]), tempLinks[i], tempComparisons, tempRanks,
+					tempSorted, tempCount);
+		} // Of for i
+		numLinks[paraRank][paraLevel] = select(tempRanks, tempComparisons, tempCount, tempMaxLinks, tempLinks);
+	}// Of link
+
+	/**
+	 *************************
+	 * Select links from sorted candidates with the heuristic of HNSW: a
+	 * candidate nearer to a selected one than to the base is skipped, so that
+	 * the links spread in different directions.
+	 *
+	 * @param paraRanks
+	 *            The candidates, nearest first.
+	 * @param paraComparisons
+	 *            Their comparison distances to the base.
+	 * @param paraCount
+	 *            The number of candidates.
+	 * @param paraMaxLinks
+	 *            The maximal number of links.
+	 * @param paraSelected
+	 *            The array to store the selected ranks.
+	 * @return The number of selected ranks.
+	 *************************
+	 */
+	int select(int[] paraRanks, double[] paraComparisons, int paraCount, int paraMaxLinks, int[] paraSelected) {
+		int resultCount = 0;
+		for (int i = 0; i < paraCount && resultCount < paraMaxLinks; i++) {
+			boolean tempIsGood = true;
+			for (int j = 0; j < resultCount; j++) {
+				if (comparison(paraRanks[i], paraSelected[j]) < paraComparisons[i]) {
+					tempIsGood = false;
+					break;
+				} // Of if
+			} // Of for j
+
+			if (tempIsGood) {
+				paraSelected[resultCount] = paraRanks[i];
+				resultCount++;
+			} // Of if
+		} // Of for i
+
+		return resultCount;
+	}// Of select
+
+	/**
+	 *************************
+	 * Descend greedily through the layers.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraEntry
+	 *            The entry rank.
+	 * @param paraFromLevel
+	 *            The starting layer.
+	 * @param paraToLevel
+	 *            The last layer to search.
+	 * @return The nearest rank found on the last layer.
+	 *************************
+	 */
+	int descend(int paraQuery, int paraEntry, int paraFromLevel, int paraToLevel) {
+		int resultRank = paraEntry;
+		double tempComparison = distanceMeasure.comparisonDistance(paraQuery, points[resultRank]);
+		double tempNewComparison;
+		int tempNeighbor;
+		for (int tempLevel = paraFromLevel; tempLevel >= paraToLevel; tempLevel--) {
+			boolean tempChanged = true;
+			while (tempChanged) {
+				tempChanged = false;
+				int[] tempLinks = links[resultRank][tempLevel];
+				int tempCount = numLinks[resultRank][tempLevel];
+				for (int i = 0; i < tempCount; i++) {
+					tempNeighbor = tempLinks[i];
+					tempNewComparison = distanceMeasure.comparisonDistance(paraQuery, points[tempNeighbor]);
+					if (isBetter(tempNewComparison, tempNeighbor, tempComparison, resultRank)) {
+						tempComparison = tempNewComparison;
+						resultRank = tempNeighbor;
+						tempChanged = true;
+					} // Of if
+				} // Of for i
+			} // Of while
+		} // Of for tempLevel
+
+		return resultRank;
+	}// Of descend
+
+	/**
+	 *************************
+	 * Search a layer, keeping the best candidates sorted. The nearest
+	 * unexpanded candidate is expanded each time, until all are expanded.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraEntries
+	 *            The entry ranks.
+	 * @param paraNumEntries
+	 *            The number of entry ranks.
+	 * @param paraEf
+	 *            The number of candidates to keep.
+	 * @param paraLevel
+	 *            The layer.
+	 * @param paraComparisons
+	 *            The comparison distances of the candidates.
+	 * @param paraRanks
+	 *            The candidates, nearest first.
+	 * @return The number of candidates.
+	 *************************
+	 */
+	int searchLayer(int paraQuery, int[] paraEntries, int paraNumEntries, int paraEf, int paraLevel,
+			double[] paraComparisons, int[] paraRanks) {
+		stamp++;
+		if (stamp == Integer.MAX_VALUE) {
+			java.util.Arrays.fill(visited, 0);
+			stamp = 1;
+		} // Of if
+		if (expanded == null || expanded.length < paraEf) {
+			expanded = new boolean[paraEf];
+		} // Of if
+
+		int resultCount = 0;
+		int tempRank;
+		for (int i = 0; i < paraNumEntries; i++) {
+			tempRank = paraEntries[i];
+			visited[tempRank] = stamp;
+			resultCount = insertCandidate(distanceMeasure.comparisonDistance(paraQuery, points[tempRank]), tempRank,
+					paraComparisons, paraRanks, resultCount, paraEf);
+		} // Of for i
+
+		int tempNext = 0;
+		double tempComparison;
+		while (true) {
+			while (tempNext < resultCount && expanded[tempNext]) {
+				tempNext++;
+			} // Of while
+			if (tempNext >= resultCount) {
+				break;
+			} // Of if
+
+			expanded[tempNext] = true;
+			int tempCurrent = paraRanks[tempNext];
+			int[] tempLinks = links[tempCurrent][paraLevel];
+			int tempNumLinks = numLinks[tempCurrent][paraLevel];
+			for (int i = 0; i < tempNumLinks; i++) {
+				tempRank = tempLinks[i];
+				if (visited[tempRank] == stamp) {
+					continue;
+				} // Of if
+				visited[tempRank] = stamp;
+
+				tempComparison = distanceMeasure.comparisonDistance(paraQuery, points[tempRank]);
+				resultCount = insertCandidate(tempComparison, tempRank, paraComparisons, paraRanks, resultCount,
+						paraEf);
+				if (lastPosition >= 0 && lastPosition < tempNext) {
+					tempNext = lastPosition;
+				} // Of if
+			} // Of for i
+		} // Of while
+
+		return resultCount;
+	}// Of searchLayer
+
+	/**
+	 *************************
+	 * Insert a candidate as insert() does, moving the expanded marks along.
+	 * The position is stored in lastPosition.
+	 *
+	 * @param paraComparison
+	 *            The comparison distance of the candidate.
+	 * @param paraRank
+	 *            The rank of the candidate.
+	 * @param paraComparisons
+	 *            The comparison distances of the list.
+	 * @param paraRanks
+	 *            The ranks of the list.
+	 * @param paraCount
+	 *            The current length of the list.
+	 * @param paraEf
+	 *            The maximal length of the list.
+	 * @return The new length of the list.
+	 *************************
+	 */
+	int insertCandidate(double paraComparison, int paraRank, double[] paraComparisons, int[] paraRanks,
+			int paraCount, int paraEf) {
+		if (paraCount == paraEf && !isBetter(paraComparison, paraRank, paraComparisons[paraEf - 1],
+				paraRanks[paraEf - 1])) {
+			lastPosition = -1;
+			return paraCount;
+		} // Of if
+
+		int j = paraCount < paraEf ? paraCount : paraEf - 1;
+		for (; j > 0 && isBetter(paraComparison, paraRank, paraComparisons[j - 1], paraRanks[j - 1]); j--) {
+			paraComparisons[j] = paraComparisons[j - 1];
+			paraRanks[j] = paraRanks[j - 1];
+			expanded[j] = expanded[j - 1];
+		} // Of for j
+		paraComparisons[j] = paraComparison;
+		paraRanks[j] = paraRank;
+		expanded[j] = false;
+		lastPosition = j;
+
+		return paraCount < paraEf ? paraCount + 1 : paraEf;
+	}// Of insertCandidate
+
+	/**
+	 *************************
+	 * Find the k nearest instances approximately.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraK
+	 *            The k value.
+	 * @param paraNeighbors
+	 *            The array to store the neighbors, nearest first.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int kNearest(int paraQuery, int paraK, int[] paraNeighbors) {
+		if (numPoints == 0) {
+			return 0;
+		} // Of if
+
+		int tempEntry = descend(paraQuery, entry, topLevel, 1);
+		int tempEf = Math.max(efSearch, paraK);
+		double[] tempComparisons = new double[tempEf];
+		int[] tempRanks = new int[tempEf];
+		int[] tempEntries = { tempEntry };
+		int tempCount = searchLayer(paraQuery, tempEntries, 1, tempEf, 0, tempComparisons, tempRanks);
+
+		return toNeighbors(tempRanks, Math.min(tempCount, paraK), paraNeighbors);
+	}// Of kNearest
+
+	/**
+	 *************************
+	 * Measure the recall of an approximate index, i.e., the fraction of the
+	 * true k nearest neighbors it finds.
+	 *
+	 * @param paraExact
+	 *            An exact index over the same instances.
+	 * @param paraApproximate
+	 *            The approximate index.
+	 * @param paraQueries
+	 *            The query instances.
+	 * @param paraK
+	 *            The k value.
+	 * @return The recall.
+	 *************************
+	 */
+	public static double measureRecall(NeighborIndex paraExact, NeighborIndex paraApproximate,
+			int[] paraQueries, int paraK) {
+		int[] tempExpected = new int[paraK];
+		int[] tempActual = new int[paraK];
+		long tempFound = 0;
+		long tempTotal = 0;
+		for (int i = 0; i < paraQueries.length; i++) {
+			int tempNumExpected = paraExact.kNearest(paraQueries[i], paraK, tempExpected);
+			int tempNumActual = paraApproximate.kNearest(paraQueries[i], paraK, tempActual);
+			for (int j = 0; j < tempNumExpected; j++) {
+				for (int k = 0; k < tempNumActual; k++) {
+					if (tempExpected[j] == tempActual[k]) {
+						tempFound++;
+						break;
+					} // Of if
+				} // Of for k
+			} // Of for j
+			tempTotal += tempNumExpected;
+		} // Of for i
+
+		return tempTotal == 0 ? 1 : (double) tempFound / tempTotal;
+	}// Of measureRecall
+
+	/**
+	 *************************
+	 * Report the recall and the time against the exact index on the bundled
+	 * datasets.
+	 *
+	 * @param args
+	 *            The data files, the bundled ones by default.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		String[] tempFilenames = { "src/pub/rj/paper/data/iris.arff", "src/pub/rj/paper/data/R15.arff",
+				"src/pub/rj/paper/data/banana.arff", "src/pub/rj/paper/data/credit6000.arff",
+				"src/pub/rj/paper/data/mushroom.arff" };
+		if (args.length >= 1) {
+			tempFilenames = args;
+		} // Of if
+
+		int tempK = 10;
+		int[] tempEfSearches = { 10, 50, 100, 200 };
+		for (int i = 0; i < tempFilenames.length; i++) {
+			FeatureStore tempStore = null;
+			try {
+				ArffStreamReader tempReader = new ArffStreamReader(tempFilenames[i]);
+				tempReader.normalize();
+				tempStore = tempReader.getFeatureStore();
+			} catch (IOException ee) {
+				System.out.println("Error occurred in Hnsw.main(): " + ee);
+				continue;
+			} // Of try
+
+			int tempNumInstances = tempStore.getNumInstances();
+			int[] tempPoints = new int[tempNumInstances];
+			for (int j = 0; j < tempNumInstances; j++) {
+				tempPoints[j] = j;
+			} // Of for j
+			DistanceMeasure tempMeasure = new DistanceMeasure(null, tempStore, DistanceMeasure.EUCLIDEAN);
+			NeighborIndex tempExact = create(tempMeasure, tempPoints, tempNumInstances);
+
+			long tempStartTime = System.nanoTime();
+			Hnsw tempIndex = new Hnsw(tempMeasure, tempPoints, tempNumInstances);
+			long tempBuildTime = System.nanoTime() - tempStartTime;
+			System.out.println(tempFilenames[i] + ": " + tempNumInstances + " instances, " + tempIndex
+					+ " built in " + tempBuildTime / 1000000 + " ms.");
+
+			for (int tempEfSearch : tempEfSearches) {
+				tempIndex.setEfSearch(tempEfSearch);
+				tempStartTime = System.nanoTime();
+				double tempRecall = measureRecall(tempExact, tempIndex, tempPoints, tempK);
+				System.out.println("  efSearch = " + tempEfSearch + ", recall@" + tempK + " = " + tempRecall
+						+ ", exact + approximate queries in " + (System.nanoTime() - tempStartTime) / 1000000
+						+ " ms.");
+			} // Of for tempEfSearch
+		} // Of for i
+	}// Of main
+}// Of class Hnsw
@@ -0,0 +1,519 @@
+package pub.rj.paper.cluster;
+
+import java.util.Arrays;
+
+import pub.rj.paper.common.*;
+import pub.rj.paper.exception.UnableToClusterInKException;
+import weka.core.Instances;
+
+/**
+ * The kMeans clustering algorithms.
+ * <p>
+ * Author: <b>Fan Min</b>, <b>Shi-Ming Zhang</b> minfanphd@163.com,
+ * minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: The simple version finished.<br>
+ * Written time: April 10, 2019. <br>
+ * Last modify time: July 21, 2019.
+ */
+
+public class KMeans extends MeansClustering {
+	/**
+	 * The tolerance of the bounds relative to the largest distance, plus the
+	 * drift so far. It covers the rounding of the distances and of the bound
+	 * updates, so that a center is skipped only if its comparison distance
+	 * is certainly larger.
+	 */
+	public static final double BOUND_TOLERANCE = 1e-9;
+
+	/**
+	 * The cost of moving and checking the bounds of an instance in a round,
+	 * in attribute visits. Banana (two attributes) breaks even with k = 2.
+	 */
+	public static final int BOUND_COST = 4;
+
+	/**
+	 * Skip distances with the triangle inequality if the measure allows?
+	 */
+	boolean accelerated = true;
+
+	/**
+	 * The number of distances to the centers computed in the current round
+	 * with the bounds.
+	 */
+	long boundDistances;
+
+	/**
+	 * The center of each instance of the block, by position.
+	 */
+	int[] assignments;
+
+	/**
+	 * The upper bound of the distance to the assigned center, by position.
+	 */
+	double[] upperBounds;
+
+	/**
+	 * The lower bound of the distances to the other centers, by position.
+	 */
+	double[] lowerBounds;
+
+	/**
+	 * The distances between the centers.
+	 */
+	double[][] centerDistances;
+
+	/**
+	 * Half of the distance from each center to the nearest other one.
+	 */
+	double[] halfNearestDistances;
+
+	/**
+	 * The distances or their lower bounds from an instance to the centers.
+	 */
+	double[] candidateDistances;
+
+	/**
+	 * The distance each center moved in the last round.
+	 */
+	double[] centerDrifts;
+
+	/**
+	 * The largest distance seen plus the drift so far, the scale of the
+	 * tolerance.
+	 */
+	double boundScale;
+
+	/**
+	 ********************
+	 * The constructor for independent running.
+	 * 
+	 * @param paraFilename
+	 *            The data set filename.
+	 * @param paraDistanceMeasure
+	 *            The distance measure as an object.
+	 ********************
+	 */
+	public KMeans(String paraFilename, int paraDistanceMeasure) {
+		super(paraFilename, paraDistanceMeasure);
+	}// Of the first constructor
+
+	/**
+	 ********************
+	 * The constructor.
+	 * 
+	 * @param paraData
+	 *            The data set.
+	 * @param paraDistanceMeasure
+	 *            The distance measure as an object.
+	 ********************
+	 */
+	public KMeans(Instances paraData, DistanceMeasure paraDistanceMeasure) {
+		super(paraData, paraDistanceMeasure);
+	}// Of the second constructor
+
+	/**
+	 ************************* 
+	 * Switch the bounds of Hamerly and the center distances of Elkan on or
+	 * off. The clusters are the same either way.
+	 * 
+	 * @param paraAccelerated
+	 *            True to skip distances when the measure allows.
+	 ************************* 
+	 */
+	public void setAccelerated(boolean paraAccelerated) {
+		accelerated = paraAccelerated;
+	}// Of setAccelerated
+
+	/**
+	 ************************* 
+	 * Can the distances be skipped with the triangle inequality? The measure
+	 * should be a metric whose computed values are only relatively rounded,
+	 * so the cosine distance, the Mahalanobis one (whitened centers) and the
+	 * single precision mode (centers rounded to float) are excluded. The k
+	 * distances of an instance should also cost more than BOUND_COST visits,
+	 * or nothing the bounds skip can pay for them.
+	 * 
+	 * @param paraK
+	 *            The number of centers.
+	 * @return True if the bounds are used.
+	 ************************* 
+	 */
+	boolean isAccelerated(int paraK) {
+		if (!accelerated || (long) paraK * numConditions <= BOUND_COST || featureStore.isSinglePrecision()) {
+			return false;
+		} // Of if
+
+		int tempMeasure = distanceMeasure.getMeasure();
+		return tempMeasure == DistanceMeasure.EUCLIDEAN || tempMeasure == DistanceMeasure.MANHATTAN;
+	}// Of isAccelerated
+
+	/**
+	 ************************* 
+	 * Convert a comparison distance back to the distance.
+	 * 
+	 * @param paraComparison
+	 *            The comparison distance.
+	 * @return The distance.
+	 ************************* 
+	 */
+	double comparisonToDistance(double paraComparison) {
+		if (distanceMeasure.getMeasure() == DistanceMeasure.EUCLIDEAN) {
+			return Math.sqrt(paraComparison);
+		} // Of if
+
+		return paraComparison;
+	}// Of comparisonToDistance
+
+	/**
+	 ************************* 
+	 * Cluster the given block in using kMeans.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraCenters
+	 *            The given centers.
+	 * @return Clusters
+	 ************************* 
+	 */
+	public int[][] clusterInK(int[] paraBlock, double[][] paraCenters) throws UnableToClusterInKException {
+		// Number of blocks.
+		int tempK = paraCenters.length;
+		int[][] tempBlocks = new int[tempK][paraBlock.length];
+		int[] tempCounters = new int[tempK];
+		double[][] tempCenters = paraCenters;
+		double[][] tempPreviousCenters = null;
+		double[][] tempQueries = new double[tempK][];
+		long tempSaved;
+		long tempPreviousSaved = -1;
+		boolean tempAccelerated = isAccelerated(tempK);
+		if (tempAccelerated) {
+			assignments = new int[paraBlock.length];
+			upperBounds = new double[paraBlock.length];
+			lowerBounds = new double[paraBlock.length];
+			centerDistances = new double[tempK][tempK];
+			halfNearestDistances = new double[tempK];
+			candidateDistances = new double[tempK];
+			centerDrifts = new double[tempK];
+			boundScale = 0;
+		} // Of if
+
+		// Step 2. Cluster
+		double[][] tempNewCenters;
+		// At most 50 rounds.
+		SimpleTools.processTrackingOutput("\r\nKMeans.clusterInK(), round ");
+		for (int round = 0; round < 50; round++) {
+			// Step 2.1. Partition the instances according to the centers.
+			SimpleTools.processTrackingOutput("" + round + ", ");
+			Arrays.fill(tempCounters, 0);
+			if (tempAccelerated) {
+				boundDistances = 0;
+				assignByBounds(paraBlock, tempCenters, tempPreviousCenters);
+			} else {
+				// E.g., whiten the centers once for the Mahalanobis distance.
+				for (int j = 0; j < tempK; j++) {
+					tempQueries[j] = distanceMeasure.prepareQuery(tempCenters[j]);
+				} // Of for j
+			} // Of if
+			for (int i = 0; i < paraBlock.length; i++) {
+				int tempClosestCenterIndex = -1;
+				if (tempAccelerated) {
+					tempClosestCenterIndex = assignments[i];
+				} else {
+					double tempMinimalDistance = Double.MAX_VALUE;
+					double tempDistance;
+					for (int j = 0; j < tempK; j++) {
+						tempDistance = distanceMeasure.preparedComparisonDistance(paraBlock[i], tempQueries[j]);
+						if (tempDistance < tempMinimalDistance) {
+							tempMinimalDistance = tempDistance;
+							tempClosestCenterIndex = j;
+						} // Of if
+					} // Of for j
+				} // Of if
+
+				tempBlocks[tempClosestCenterIndex][tempCounters[tempClosestCenterIndex]] = paraBlock[i];
+				tempCounters[tempClosestCenterIndex]++;
+			} // Of for i
+
+			// Step 2.1.1. The bounds save more as the drifts shrink. Scan
+			// from now on if they stop doing so before paying off.
+			if (tempAccelerated && tempPreviousCenters != null) {
+				tempSaved = (long) tempK * paraBlock.length - boundDistances;
+				if (tempSaved * numConditions < (long) BOUND_COST * paraBlock.length
+						&& tempSaved <= tempPreviousSaved) {
+					tempAccelerated = false;
+				} // Of if
+				tempPreviousSaved = tempSaved;
+			} // Of if
+
+			// Step 2.2. Obtain new centers.
+			tempNewCenters = new double[tempK][numConditions];
+			// The first center
+			double tempValue;
+			double[] tempRow = new double[numConditions];
+			for (int i = 0; i < tempK; i++) {
+				for (int j = 0; j < tempCounters[i]; j++) {
+					featureStore.copyRow(tempBlocks[i][j], tempRow);
+					for (int k = 0; k < numConditions; k++) {
+						tempValue = tempRow[k] / tempCounters[i];
+						// System.out.println("Adding " + tempValue + " for " +
+						// i + ", " + k);
+						tempNewCenters[i][k] += tempValue;
+					} // Of for k
+				} // Of for j
+			} // Of for i
+
+			// Step 2.3. The terminate condition
+			if (SimpleTools.doubleMatricesEqual(tempCenters, tempNewCenters)) {
+				break;
+			} // Of if
+
+			tempPreviousCenters = tempCenters;
+			tempCenters = tempNewCenters;
+		} // Of while
+
+		// Step 3. Compress
+		clusters = new int[tempK][];
+
+		for (int i = 0; i < tempK; i++) {
+			if (tempCounters[i] == 0) {
+				throw new UnableToClusterInKException("Error occurred in KMeans.clusterInK(int[], double[][]):\r\n"
+						+ "Unable to cluster the following block in " + paraCenters.length + ": "
+						+ Arrays.toString(paraBlock));
+			} // Of if
+
+			clusters[i] = new int[tempCounters[i]];
+			for (int j = 0; j < tempCounters[i]; j++) {
+				clusters[i][j] = tempBlocks[i][j];
+			} // Of for j
+		} // Of for i
+
+		return clusters;
+	}// Of clusterInK
+
+	/**
+	 ************************* 
+	 * Assign the instances of the block to the closest centers, the same as
+	 * the scan over all centers with ties to the first one. The first round
+	 * computes all distances. Later the bounds are moved by the drifts of the
+	 * centers, and an instance keeps its center if the upper bound is below
+	 * the lower bound, or below half the distance from its center to the
+	 * nearest other one. Otherwise the upper bound is made exact and checked
+	 * again before the centers are scanned.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraCenters
+	 *            The current centers.
+	 * @param paraPreviousCenters
+	 *            The centers of the previous round, null in the first round.
+	 ************************* 
+	 */
+	void assignByBounds(int[] paraBlock, double[][] paraCenters, double[][] paraPreviousCenters) {
+		int tempK = paraCenters.length;
+		DistanceFunction tempFunction = distanceMeasure.getFunction();
+
+		// Step 1. The distances between the centers.
+		double tempDistance;
+		Arrays.fill(halfNearestDistances, Double.POSITIVE_INFINITY);
+		for (int i = 0; i < tempK; i++) {
+			for (int j = 0; j < i; j++) {
+				tempDistance = tempFunction.distance(paraCenters[i], paraCenters[j]);
+				centerDistances[i][j] = tempDistance;
+				centerDistances[j][i] = tempDistance;
+				boundScale = Math.max(boundScale, tempDistance);
+				halfNearestDistances[i] = Math.min(halfNearestDistances[i], tempDistance / 2);
+				halfNearestDistances[j] = Math.min(halfNearestDistances[j], tempDistance / 2);
+			} // Of for j
+		} // Of for i
+
+		// Step 2. No bounds yet.
+		if (paraPreviousCenters == null) {
+			for (int i = 0; i < paraBlock.length; i++) {
+				scanCenters(paraBlock, i, paraCenters, -1, 0);
+			} // Of for i
+			return;
+		} // Of if
+
+		// Step 3. The drifts of the centers.
+		double[] tempDrifts = centerDrifts;
+		double tempMaximalDrift = 0;
+		double tempSecondDrift = 0;
+		int tempMaximalCenter = -1;
+		for (int i = 0; i < tempK; i++) {
+			tempDrifts[i] = tempFunction.distance(paraPreviousCenters[i], paraCenters[i]);
+			if (tempDrifts[i] > tempMaximalDrift) {
+				tempSecondDrift = tempMaximalDrift;
+				tempMaximalDrift = tempDrifts[i];
+				tempMaximalCenter = i;
+			} else if (tempDrifts[i] > tempSecondDrift) {
+				tempSecondDrift = tempDrifts[i];
+			} // Of if
+		} // Of for i
+		boundScale += tempMaximalDrift;
+
+		// Step 4. Move the bounds, and scan only if they do not decide.
+		int tempCenter;
+		double tempBound, tempComparison;
+		for (int i = 0; i < paraBlock.length; i++) {
+			tempCenter = assignments[i];
+			upperBounds[i] += tempDrifts[tempCenter];
+			lowerBounds[i] -= (tempCenter == tempMaximalCenter) ? tempSecondDrift : tempMaximalDrift;
+			tempBound = Math.max(lowerBounds[i], halfNearestDistances[tempCenter]);
+			if (upperBounds[i] < tempBound - 2 * BOUND_TOLERANCE * boundScale) {
+				continue;
+			} // Of if
+
+			tempComparison = distanceMeasure.comparisonDistance(paraBlock[i], paraCenters[tempCenter]);
+			boundDistances++;
+			upperBounds[i] = comparisonToDistance(tempComparison);
+			boundScale = Math.max(boundScale, upperBounds[i]);
+			if (upperBounds[i] < tempBound - 2 * BOUND_TOLERANCE * boundScale) {
+				continue;
+			} // Of if
+
+			scanCenters(paraBlock, i, paraCenters, tempCenter, tempComparison);
+		} // Of for i
+	}// Of assignByBounds
+
+	/**
+	 ************************* 
+	 * Find the closest center of an instance in the order of the centers, and
+	 * set its bounds. A center farther from the assigned one than twice the
+	 * exact upper bound cannot be closer (Elkan), and is skipped.
+	 * 
+	 * @param paraBlock
+	 *            The given block.
+	 * @param paraPosition
+	 *            The position of the instance in the block.
+	 * @param paraCenters
+	 *            The current centers.
+	 * @param paraAssigned
+	 *            The assigned center, -1 for none.
+	 * @param paraAssignedComparison
+	 *            The comparison distance to the assigned center.
+	 ************************* 
+	 */
+	void scanCenters(int[] paraBlock, int paraPosition, double[][] paraCenters, int paraAssigned,
+			double paraAssignedComparison) {
+		int tempK = paraCenters.length;
+		double tempUpperBound = 0;
+		if (paraAssigned >= 0) {
+			tempUpperBound = comparisonToDistance(paraAssignedComparison);
+		} // Of if
+		double tempMargin = 2 * BOUND_TOLERANCE * boundScale;
+
+		int tempClosestCenterIndex = -1;
+		double tempMinimalDistance = Double.MAX_VALUE;
+		double tempComparison;
+		for (int j = 0; j < tempK; j++) {
+			if (j == paraAssigned) {
+				tempComparison = paraAssignedComparison;
+				candidateDistances[j] = tempUpperBound;
+			} else if (paraAssigned >= 0 && centerDistances[paraAssigned][j] > 2 * tempUpperBound + tempMargin) {
+				// Only a lower bound.
+				candidateDistances[j] = centerDistances[paraAssigned][j] - tempUpperBound;
+				continue;
+			} else {
+				tempComparison = distanceMeasure.comparisonDistance(paraBlock[paraPosition], paraCenters[j]);
+				boundDistances++;
+				candidateDistances[j] = comparisonToDistance(tempComparison);
+				boundScale = Math.max(boundScale, candidateDistances[j]);
+			} // Of if
+
+			if (tempComparison < tempMinimalDistance) {
+				tempMinimalDistance = tempComparison;
+				tempClosestCenterIndex = j;
+			} // Of if
+		} // Of for j
+
+		assignments[paraPosition] = tempClosestCenterIndex;
+		if (tempClosestCenterIndex < 0) {
+			// Undefined distances, the caller fails as the scan does.
+			return;
+		} // Of if
+
+		upperBounds[paraPosition] = candidateDistances[tempClosestCenterIndex];
+		lowerBounds[paraPosition] = Double.POSITIVE_INFINITY;
+		for (int j = 0; j < tempK; j++) {
+			if (j != tempClosestCenterIndex && candidateDistances[j] < lowerBounds[paraPosition]) {
+				lowerBounds[paraPosition] = candidateDistances[j];
+			} // Of if
+		} // Of for j
+	}// Of scanCenters
+
+	/**
+	 ************************* 
+	 * Compare the accelerated kMeans with the scan on the whole data from the
+	 * same random centers: the clusters, the time and the number of
+	 * attribute visits (Common.runtimes).
+	 * 
+	 * @param paraK
+	 *            The number of clusters.
+	 ************************* 
+	 */
+	public void testAcceleration(int paraK) {
+		if (!isAccelerated(paraK) && accelerated) {
+			System.out.println("The measure, the precision or k = " + paraK + " does not allow the acceleration.");
+			return;
+		} // Of if
+
+		boolean tempAccelerated = accelerated;
+		double[][] tempCenters = getRandomCenters(wholeBlock, paraK);
+		int[][][] tempClusters = new int[2][][];
+		long[] tempTimes = new long[2];
+		long[] tempRuntimes = new long[2];
+		for (int i = 0; i < 2; i++) {
+			setAccelerated(i == 1);
+			long tempStartTime = System.nanoTime();
+			long tempStartRuntimes = Common.runtimes;
+			try {
+				tempClusters[i] = clusterInK(wholeBlock, tempCenters);
+			} catch (UnableToClusterInKException ee) {
+				System.out.println(ee);
+				setAccelerated(tempAccelerated);
+				return;
+			} // Of try
+			tempTimes[i] = System.nanoTime() - tempStartTime;
+			tempRuntimes[i] = Common.runtimes - tempStartRuntimes;
+		} // Of for i
+		setAccelerated(tempAccelerated);
+
+		System.out.println("kMeans with k = " + paraK + " on " + numInstances + " instances, the same clusters: "
+				+ Arrays.deepEquals(tempClusters[0], tempClusters[1]) + ", scan " + tempTimes[0] / 1000000 + " ms ("
+				+ tempRuntimes[0] + " visits), accelerated " + tempTimes[1] / 1000000 + " ms (" + tempRuntimes[1]
+				+ " visits).");
+	}// Of testAcceleration
+
+	/**
+	 ************************* 
+	 * Test this class.
+	 * 
+	 * @author Fan Min
+	 * @param args
+	 *            The parameters.
+	 ************************* 
+	 */
+	public static void main(String[] args) {
+		SimpleTools.consoleOutput("Hello, kMeans.");
+		String tempFilename = "src/data/iris.arff";
+		// String tempFilename = "src/data/DLA.arff";
+
+		if (args.length >= 1) {
+			tempFilename = args[0];
+			SimpleTools.consoleOutput("The filename is: " + tempFilename);
+		} // Of if
+
+		KMeans tempkMeans = new KMeans(tempFilename, DistanceMeasure.EUCLIDEAN);
+
+		// tempkMeans.testClusterInTwo();
+		tempkMeans.testClusterInK(2);
+		tempkMeans.testAcceleration(2);
+		tempkMeans.testAcceleration(Math.min(100, tempkMeans.numInstances / 2));
+	}// Of main
+}// Of KMeans
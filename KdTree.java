@@ -0,0 +1,348 @@
+package pub.rj.paper.common;
+
+import java.util.Arrays;
+
+/**
+ * A KD-tree for low dimensional data. Each inner node splits its instances at
+ * the median of the attribute with the largest spread. The gap to the
+ * splitting plane bounds the Euclidean, Manhattan and (on whitened
+ * coordinates) Mahalanobis distances from below.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class KdTree extends NeighborIndex {
+	/**
+	 * A node of the tree.
+	 */
+	static class Node {
+		/**
+		 * The first position in ranks.
+		 */
+		int start;
+
+		/**
+		 * The position after the last one in ranks.
+		 */
+		int end;
+
+		/**
+		 * The splitting attribute, -1 for a leaf.
+		 */
+		int splitAttribute = -1;
+
+		/**
+		 * The splitting value. The left child is no greater, and the right one
+		 * is no less.
+		 */
+		double splitValue;
+
+		/**
+		 * The children.
+		 */
+		Node left, right;
+	}// Of class Node
+
+	/**
+	 * The coordinates, whitened for the Mahalanobis distance.
+	 */
+	FeatureStore coordinates;
+
+	/**
+	 * The number of attributes.
+	 */
+	int numConditions;
+
+	/**
+	 * The ranks of the instances, rearranged by the tree.
+	 */
+	int[] ranks;
+
+	/**
+	 * The coordinates of the instances by rank, row-major.
+	 */
+	double[] rankCoordinates;
+
+	/**
+	 * The root.
+	 */
+	Node root;
+
+	/**
+	 ********************
+	 * The constructor. Use NeighborIndex.create() to check the measure.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraPoints
+	 *            The instances, copied.
+	 * @param paraNumPoints
+	 *            The number of instances to use from the array.
+	 ********************
+	 */
+	public KdTree(DistanceMeasure paraDistanceMeasure, int[] paraPoints, int paraNumPoints) {
+		super(paraDistanceMeasure, paraPoints, paraNumPoints);
+		coordinates = paraDistanceMeasure.getFeatureStore();
+		if (paraDistanceMeasure.getMeasure() == DistanceMeasure.MAHALANOBIS) {
+			coordinates = coordinates.getWhitened();
+		} // Of if
+		numConditions = coordinates.getNumConditions();
+
+		ranks = new int[numPoints];
+		rankCoordinates = new double[numPoints * numConditions];
+		double[] tempRow = new double[numConditions];
+		for (int i = 0; i < numPoints; i++) {
+			ranks[i] = i;
+			coordinates.copyRow(points[i], tempRow);
+			System.arraycopy(tempRow, 0, rankCoordinates, i * numConditions, numConditions);
+		} // Of for i
+
+		root = build(0, numPoints);
+	}// Of the constructor
+
+	/**
+	 *************************
+	 * Build a subtree.
+	 *
+	 * @param paraStart
+	 *            The first position in ranks.
+	 * @param paraEnd
+	 *            The position after the last one.
+	 * @return The root of the subtree.
+	 *************************
+	 */
+	Node build(int paraStart, int paraEnd) {
+		Node resultNode = new Node();
+		resultNode.start = paraStart;
+		resultNode.end = paraEnd;
+		if (paraEnd - paraStart <= LEAF_SIZE) {
+			return resultNode;
+		} // Of if
+
+		// Step 1. The attribute with the largest spread.
+		int tempAttribute = -1;
+		double tempMaxSpread = 0;
+		double tempMin, tempMax, tempValue;
+		for (int j = 0; j < numConditions; j++) {
+			tempMin = Double.MAX_VALUE;
+			tempMax = -Double.MAX_VALUE;
+			for (int i = paraStart; i < paraEnd; i++) {
+				tempValue = rankCoordinates[ranks[i] * numConditions + j];
+				tempMin = Math.min(tempMin, tempValue);
+				tempMax = Math.max(tempMax, tempValue);
+			} // Of for i
+			if (tempMax - tempMin > tempMaxSpread) {
+				tempMaxSpread = tempMax - tempMin;
+				tempAttribute = j;
+			} // Of if
+		} // Of for j
+
+		// All instances are the same.
+		if (tempAttribute == -1) {
+			return resultNode;
+		} // Of if
+
+		// Step 2. Split at the median.
+		int tempMiddle = (paraStart + paraEnd) / 2;
+		select(paraStart, paraEnd, tempMiddle, tempAttribute);
+		resultNode.splitAttribute = tempAttribute;
+		resultNode.splitValue = rankCoordinates[ranks[tempMiddle] * numConditions + tempAttribute];
+		resultNode.left = build(paraStart, tempMiddle);
+		resultNode.right = build(tempMiddle, paraEnd);
+
+		return resultNode;
+	}// Of build
+
+	/**
+	 *************************
+	 * Rearrange the ranks so that the one at the given position is in place
+	 * according to the given attribute, with no greater values before and no
+	 * less values after it.
+	 *
+	 * @param paraStart
+	 *            The first position.
+	 * @param paraEnd
+	 *            The position after the last one.
+	 * @param paraPosition
+	 *            The position to put in place.
+	 * @param paraAttribute
+	 *            The attribute.
+	 *************************
+	 */
+	void select(int paraStart, int paraEnd, int paraPosition, int paraAttribute) {
+		int tempLeft = paraStart;
+		int tempRight = paraEnd - 1;
+		int tempTemp;
+		while (tempLeft < tempRight) {
+			double tempPivot = rankCoordinates[ranks[(tempLeft + tempRight) >>> 1] * numConditions + paraAttribute];
+			int i = tempLeft;
+			int j = tempRight;
+			while (i <= j) {
+				while (rankCoordinates[ranks[i] * numConditions + paraAttribute] < tempPivot) {
+					i++;
+				} // Of while
+				while (rankCoordinates[ranks[j] * numConditions + paraAttribute] > tempPivot) {
+					j--;
+				} // Of while
+				if (i <= j) {
+					tempTemp = ranks[i];
+					ranks[i] = ranks[j];
+					ranks[j] = tempTemp;
+					i++;
+					j--;
+				} // Of if
+			} // Of while
+
+			if (paraPosition <= j) {
+				tempRight = j;
+			} else if (paraPosition >= i) {
+				tempLeft = i;
+			} else {
+				break;
+			} // Of if
+		} // Of while
+	}// Of select
+
+	/**
+	 *************************
+	 * Find the k nearest instances.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraK
+	 *            The k value.
+	 * @param paraNeighbors
+	 *            The array to store the neighbors, nearest first.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int kNearest(int paraQuery, int paraK, int[] paraNeighbors) {
+		double[] tempQuery = new double[numConditions];
+		coordinates.copyRow(paraQuery, tempQuery);
+		double[] tempComparisons = new double[paraK];
+		int[] tempRanks = new int[paraK];
+		int tempCount = search(root, paraQuery, tempQuery, paraK, tempComparisons, tempRanks, 0);
+
+		return toNeighbors(tempRanks, tempCount, paraNeighbors);
+	}// Of kNearest
+
+	/**
+	 *************************
+	 * Search a subtree, the nearer child first.
+	 *
+	 * @param paraNode
+	 *            The root of the subtree.
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraQueryCoordinates
+	 *            The coordinates of the query.
+	 * @param paraK
+	 *            The k value.
+	 * @param paraComparisons
+	 *            The comparison distances of the current list.
+	 * @param paraRanks
+	 *            The ranks of the current list.
+	 * @param paraCount
+	 *            The current length of the list.
+	 * @return The new length of the list.
+	 *************************
+	 */
+	int search(Node paraNode, int paraQuery, double[] paraQueryCoordinates, int paraK, double[] paraComparisons,
+			int[] paraRanks, int paraCount) {
+		if (paraNode.splitAttribute == -1) {
+			int tempRank;
+			for (int i = paraNode.start; i < paraNode.end; i++) {
+				tempRank = ranks[i];
+				paraCount = insert(distanceMeasure.comparisonDistance(paraQuery, points[tempRank]), tempRank,
+						paraComparisons, paraRanks, paraCount, paraK);
+			} // Of for i
+			return paraCount;
+		} // Of if
+
+		double tempGap = paraQueryCoordinates[paraNode.splitAttribute] - paraNode.splitValue;
+		Node tempNear = tempGap <= 0 ? paraNode.left : paraNode.right;
+		Node tempFar = tempGap <= 0 ? paraNode.right : paraNode.left;
+		paraCount = search(tempNear, paraQuery, paraQueryCoordinates, paraK, paraComparisons, paraRanks, paraCount);
+		if (!canPrune(Math.abs(tempGap), paraComparisons, paraCount, paraK)) {
+			paraCount = search(tempFar, paraQuery, paraQueryCoordinates, paraK, paraComparisons, paraRanks,
+					paraCount);
+		} // Of if
+
+		return paraCount;
+	}// Of search
+
+	/**
+	 *************************
+	 * Find the positions of the instances within the radius.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraRadius
+	 *            The radius, inclusive.
+	 * @param paraRanks
+	 *            The array to store the positions in ascending order.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int rangeRanks(int paraQuery, double paraRadius, int[] paraRanks) {
+		double[] tempQuery = new double[numConditions];
+		coordinates.copyRow(paraQuery, tempQuery);
+		int resultCount = searchRange(root, paraQuery, tempQuery, paraRadius, paraRanks, 0);
+		Arrays.sort(paraRanks, 0, resultCount);
+
+		return resultCount;
+	}// Of rangeRanks
+
+	/**
+	 *************************
+	 * Search a subtree for the instances within the radius.
+	 *
+	 * @param paraNode
+	 *            The root of the subtree.
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraQueryCoordinates
+	 *            The coordinates of the query.
+	 * @param paraRadius
+	 *            The radius.
+	 * @param paraRanks
+	 *            The positions found.
+	 * @param paraCount
+	 *            The number of positions found.
+	 * @return The new number of positions found.
+	 *************************
+	 */
+	int searchRange(Node paraNode, int paraQuery, double[] paraQueryCoordinates, double paraRadius,
+			int[] paraRanks, int paraCount) {
+		if (paraNode.splitAttribute == -1) {
+			for (int i = paraNode.start; i < paraNode.end; i++) {
+				if (distanceMeasure.distance(paraQuery, points[ranks[i]]) <= paraRadius) {
+					paraRanks[paraCount] = ranks[i];
+					paraCount++;
+				} // Of if
+			} // Of for i
+			return paraCount;
+		} // Of if
+
+		double tempGap = paraQueryCoordinates[paraNode.splitAttribute] - paraNode.splitValue;
+		if (tempGap <= 0 || !canPrune(tempGap, paraRadius)) {
+			paraCount = searchRange(paraNode.left, paraQuery, paraQueryCoordinates, paraRadius, paraRanks,
+					paraCount);
+		} // Of if
+		if (tempGap >= 0 || !canPrune(-tempGap, paraRadius)) {
+			paraCount = searchRange(paraNode.right, paraQuery, paraQueryCoordinates, paraRadius, paraRanks,
+					paraCount);
+		} // Of if
+
+		return paraCount;
+	}// Of searchRange
+}// Of class KdTree
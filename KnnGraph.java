@@ -0,0 +1,538 @@
+package pub.rj.paper.common;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The k nearest neighbor graph. The global graph over all instances is built
+ * once for a data set and a distance measure, and the graph of a block is the
+ * induced subgraph, i.e., the adjacency lists filtered to the block members.
+ * The lists are ordered by the comparison distance, with ties to smaller
+ * indices as in NeighborIndex. The comparison distance to the k-th neighbor
+ * is kept, since every instance closer than it is in the list. Hence an
+ * exact graph answers the range queries and the nearest denser instances
+ * whose answers lie within this bound, and the callers scan for the others.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class KnnGraph {
+	/**
+	 * The default number of neighbors, the same as random walks.
+	 */
+	public static final int DEFAULT_K = 50;
+
+	/**
+	 * The distance measure.
+	 */
+	DistanceMeasure distanceMeasure;
+
+	/**
+	 * The number of nodes.
+	 */
+	int numNodes;
+
+	/**
+	 * The maximal number of neighbors of a node.
+	 */
+	int k;
+
+	/**
+	 * Are the lists exact?
+	 */
+	boolean exact;
+
+	/**
+	 * The instance of each node. Null for the global graph, where the node is
+	 * the instance.
+	 */
+	int[] instances;
+
+	/**
+	 * The neighbors, k slots for each node, nearest first.
+	 */
+	int[] neighbors;
+
+	/**
+	 * The comparison distances of the neighbors.
+	 */
+	double[] comparisons;
+
+	/**
+	 * The number of neighbors of each node.
+	 */
+	int[] numNeighbors;
+
+	/**
+	 * The comparison distance to the k-th neighbor in the global graph.
+	 * Double.MAX_VALUE if all other instances are neighbors.
+	 */
+	double[] boundComparisons;
+
+	/**
+	 * The relative slack of the bound, covering the rounding errors between
+	 * distances and comparison distances.
+	 */
+	double slack;
+
+	/**
+	 * The marks of the block members for inducing, indexed by instance. The
+	 * graph is not shared between threads.
+	 */
+	int[] inducedMarks;
+
+	/**
+	 * The mark of the current block.
+	 */
+	int inducedMark;
+
+	/**
+	 * The positions in the current block, indexed by instance.
+	 */
+	int[] inducedPositions;
+
+	/**
+	 ********************
+	 * Build the exact global graph.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @param paraK
+	 *            The number of neighbors.
+	 ********************
+	 */
+	public KnnGraph(DistanceMeasure paraDistanceMeasure, int paraNumInstances, int paraK) {
+		this(paraDistanceMeasure, NeighborIndex.create(paraDistanceMeasure, allInstances(paraNumInstances),
+				paraNumInstances), paraK);
+	}// Of the first constructor
+
+	/**
+	 ********************
+	 * Build the global graph with the given index, e.g., an approximate one for
+	 * large data.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraIndex
+	 *            The index over all instances 0 to n - 1.
+	 * @param paraK
+	 *            The number of neighbors.
+	 ********************
+	 */
+	public KnnGraph(DistanceMeasure paraDistanceMeasure, NeighborIndex paraIndex, int paraK) {
+		distanceMeasure = paraDistanceMeasure;
+		numNodes = paraIndex.getNumPoints();
+		k = paraK;
+		exact = paraIndex.isExact();
+		instances = null;
+		slack = paraDistanceMeasure.getFeatureStore().isSinglePrecision() ? 1e-5 : 1e-9;
+
+		neighbors = new int[numNodes * k];
+		comparisons = new double[numNodes * k];
+		numNeighbors = new int[numNodes];
+		boundComparisons = new double[numNodes];
+		int[] tempNeighbors = new int[k + 1];
+		int tempNumFound, tempCount;
+		for (int i = 0; i < numNodes; i++) {
+			// The node itself is skipped.
+			tempNumFound = paraIndex.kNearest(i, k + 1, tempNeighbors);
+			tempCount = 0;
+			for (int j = 0; j < tempNumFound && tempCount < k; j++) {
+				if (tempNeighbors[j] == i) {
+					continue;
+				} // Of if
+				neighbors[i * k + tempCount] = tempNeighbors[j];
+				comparisons[i * k + tempCount] = distanceMeasure.comparisonDistance(i, tempNeighbors[j]);
+				tempCount++;
+			} // Of for j
+
+			numNeighbors[i] = tempCount;
+			if (tempCount < k) {
+				boundComparisons[i] = Double.MAX_VALUE;
+			} else {
+				boundComparisons[i] = comparisons[i * k + k - 1];
+			} // Of if
+		} // Of for i
+	}// Of the second constructor
+
+	/**
+	 ********************
+	 * An empty graph for inducing.
+	 *
+	 * @param paraGraph
+	 *            The global graph.
+	 * @param paraNumNodes
+	 *            The number of nodes.
+	 ********************
+	 */
+	KnnGraph(KnnGraph paraGraph, int paraNumNodes) {
+		distanceMeasure = paraGraph.distanceMeasure;
+		numNodes = paraNumNodes;
+		k = paraGraph.k;
+		exact = paraGraph.exact;
+		slack = paraGraph.slack;
+
+		instances = new int[numNodes];
+		neighbors = new int[numNodes * k];
+		comparisons = new double[numNodes * k];
+		numNeighbors = new int[numNodes];
+		boundComparisons = new double[numNodes];
+	}// Of the third constructor
+
+	/**
+	 *************************
+	 * The instances 0 to n - 1.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @return The instances.
+	 *************************
+	 */
+	static int[] allInstances(int paraNumInstances) {
+		int[] resultInstances = new int[paraNumInstances];
+		for (int i = 0; i < paraNumInstances; i++) {
+			resultInstances[i] = i;
+		} // Of for i
+
+		return resultInstances;
+	}// Of allInstances
+
+	/**
+	 *************************
+	 * Build the global graph over all instances with the default k, with the
+	 * exact index or the approximate HNSW one.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @param paraApproximate
+	 *            Use the HNSW index or not.
+	 * @param paraEfConstruction
+	 *            The number of candidates kept while building the HNSW index.
+	 * @param paraEfSearch
+	 *            The number of candidates kept while querying it.
+	 * @return The graph.
+	 *************************
+	 */
+	public static KnnGraph create(DistanceMeasure paraDistanceMeasure, int paraNumInstances,
+			boolean paraApproximate, int paraEfConstruction, int paraEfSearch) {
+		if (paraApproximate) {
+			return new KnnGraph(paraDistanceMeasure, new Hnsw(paraDistanceMeasure, allInstances(paraNumInstances),
+					paraNumInstances, Hnsw.DEFAULT_M, paraEfConstruction, paraEfSearch), DEFAULT_K);
+		} // Of if
+
+		return new KnnGraph(paraDistanceMeasure, paraNumInstances, DEFAULT_K);
+	}// Of create
+
+	/**
+	 *************************
+	 * The subgraph induced by a block. The nodes are the positions in the
+	 * block, and the lists keep only the block members in the same order. Only
+	 * the global graph can be induced.
+	 *
+	 * @param paraBlock
+	 *            The block.
+	 * @return The subgraph.
+	 *************************
+	 */
+	public KnnGraph induce(int[] paraBlock) {
+		if (instances != null) {
+			System.out.println("Error occurred in KnnGraph.induce(int[]): only the global graph can be induced.");
+			System.exit(0);
+		} // Of if
+
+		if (inducedMarks == null) {
+			inducedMarks = new int[numNodes];
+			inducedPositions = new int[numNodes];
+			inducedMark = 0;
+		} // Of if
+		inducedMark++;
+		for (int i = 0; i < paraBlock.length; i++) {
+			inducedMarks[paraBlock[i]] = inducedMark;
+			inducedPositions[paraBlock[i]] = i;
+		} // Of for i
+
+		KnnGraph resultGraph = new KnnGraph(this, paraBlock.length);
+		int tempInstance, tempNeighbor, tempCount;
+		for (int i = 0; i < paraBlock.length; i++) {
+			tempInstance = paraBlock[i];
+			resultGraph.instances[i] = tempInstance;
+			resultGraph.boundComparisons[i] = boundComparisons[tempInstance];
+			tempCount = 0;
+			for (int j = 0; j < numNeighbors[tempInstance]; j++) {
+				tempNeighbor = neighbors[tempInstance * k + j];
+				if (inducedMarks[tempNeighbor] != inducedMark) {
+					continue;
+				} // Of if
+				resultGraph.neighbors[i * k + tempCount] = inducedPositions[tempNeighbor];
+				resultGraph.comparisons[i * k + tempCount] = comparisons[tempInstance * k + j];
+				tempCount++;
+			} // Of for j
+			resultGraph.numNeighbors[i] = tempCount;
+		} // Of for i
+
+		return resultGraph;
+	}// Of induce
+
+	/**
+	 *************************
+	 * Get the distance measure.
+	 *
+	 * @return The distance measure.
+	 *************************
+	 */
+	public DistanceMeasure getDistanceMeasure() {
+		return distanceMeasure;
+	}// Of getDistanceMeasure
+
+	/**
+	 *************************
+	 * Get the number of nodes.
+	 *
+	 * @return The number of nodes.
+	 *************************
+	 */
+	public int getNumNodes() {
+		return numNodes;
+	}// Of getNumNodes
+
+	/**
+	 *************************
+	 * Get the maximal number of neighbors.
+	 *
+	 * @return The k value.
+	 *************************
+	 */
+	public int getK() {
+		return k;
+	}// Of getK
+
+	/**
+	 *************************
+	 * Are the lists exact?
+	 *
+	 * @return True if built with an exact index.
+	 *************************
+	 */
+	public boolean isExact() {
+		return exact;
+	}// Of isExact
+
+	/**
+	 *************************
+	 * Get the instance of a node.
+	 *
+	 * @param paraNode
+	 *            The node.
+	 * @return The instance.
+	 *************************
+	 */
+	public int getInstance(int paraNode) {
+		if (instances == null) {
+			return paraNode;
+		} // Of if
+
+		return instances[paraNode];
+	}// Of getInstance
+
+	/**
+	 *************************
+	 * Get the number of neighbors of a node.
+	 *
+	 * @param paraNode
+	 *            The node.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int getNumNeighbors(int paraNode) {
+		return numNeighbors[paraNode];
+	}// Of getNumNeighbors
+
+	/**
+	 *************************
+	 * Get a neighbor of a node.
+	 *
+	 * @param paraNode
+	 *            The node.
+	 * @param paraIndex
+	 *            The index in the list, 0 for the nearest.
+	 * @return The neighbor node.
+	 *************************
+	 */
+	public int getNeighbor(int paraNode, int paraIndex) {
+		return neighbors[paraNode * k + paraIndex];
+	}// Of getNeighbor
+
+	/**
+	 *************************
+	 * Get the comparison distance to a neighbor of a node.
+	 *
+	 * @param paraNode
+	 *            The node.
+	 * @param paraIndex
+	 *            The index in the list, 0 for the nearest.
+	 * @return The comparison distance.
+	 *************************
+	 */
+	public double getComparison(int paraNode, int paraIndex) {
+		return comparisons[paraNode * k + paraIndex];
+	}// Of getComparison
+
+	/**
+	 *************************
+	 * Are all instances (of the block) with the comparison distance no greater
+	 * than the given one in the list?
+	 *
+	 * @param paraNode
+	 *            The node.
+	 * @param paraComparison
+	 *            The comparison distance.
+	 * @return True if the list covers them. Always false for an approximate
+	 *         graph.
+	 *************************
+	 */
+	public boolean covers(int paraNode, double paraComparison) {
+		return exact && paraComparison < boundComparisons[paraNode];
+	}// Of covers
+
+	/**
+	 *************************
+	 * Find the nodes within the radius, including the node itself.
+	 *
+	 * @param paraNode
+	 *            The node.
+	 * @param paraRadius
+	 *            The radius, inclusive.
+	 * @param paraNodes
+	 *            The array to store the nodes in ascending order.
+	 * @return The number of nodes, -1 if the list does not cover the radius.
+	 *************************
+	 */
+	public int rangeNodes(int paraNode, double paraRadius, int[] paraNodes) {
+		double tempComparison = distanceMeasure.distanceToComparison(paraRadius * (1 + slack));
+		if (!covers(paraNode, tempComparison)) {
+			return -1;
+		} // Of if
+
+		int tempInstance = getInstance(paraNode);
+		int tempNeighbor;
+		int resultCount = 0;
+		paraNodes[resultCount] = paraNode;
+		resultCount++;
+		for (int i = 0; i < numNeighbors[paraNode]; i++) {
+			if (comparisons[paraNode * k + i] > tempComparison) {
+				break;
+			} // Of if
+
+			tempNeighbor = neighbors[paraNode * k + i];
+			if (distanceMeasure.distance(tempInstance, getInstance(tempNeighbor)) <= paraRadius) {
+				paraNodes[resultCount] = tempNeighbor;
+				resultCount++;
+			} // Of if
+		} // Of for i
+		Arrays.sort(paraNodes, 0, resultCount);
+
+		return resultCount;
+	}// Of rangeNodes
+
+	/**
+	 *************************
+	 * For display.
+	 *************************
+	 */
+	public String toString() {
+		long tempNumEdges = 0;
+		for (int i = 0; i < numNodes; i++) {
+			tempNumEdges += numNeighbors[i];
+		} // Of for i
+
+		return "KnnGraph with " + numNodes + " nodes, k = " + k + ", " + tempNumEdges + " edges"
+				+ (exact ? "" : ", approximate");
+	}// Of toString
+
+	/**
+	 *************************
+	 * Test the induced subgraphs against the index over the block.
+	 *
+	 * @param args
+	 *            Not used now.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		Random tempRandom = new Random(0);
+		int tempNumInstances = 5000;
+		int tempDimension = 3;
+		double[] tempValues = new double[tempNumInstances * tempDimension];
+		for (int i = 0; i < tempValues.length; i++) {
+			// Coarse values to have ties.
+			tempValues[i] = tempRandom.nextInt(40) / 40.0;
+		} // Of for i
+		FeatureStore tempStore = new FeatureStore(tempValues, new int[tempNumInstances], tempDimension, 2);
+
+		// A block of about half of the instances, in random order.
+		int[] tempOrder = SimpleTools.getRandomOrder(tempNumInstances, tempRandom);
+		int[] tempBlock = Arrays.copyOf(tempOrder, tempNumInstances / 2);
+
+		int[] tempMeasures = { DistanceMeasure.EUCLIDEAN, DistanceMeasure.MANHATTAN };
+		for (int tempMeasure : tempMeasures) {
+			DistanceMeasure tempDistanceMeasure = new DistanceMeasure(null, tempStore, tempMeasure);
+			long tempStartTime = System.nanoTime();
+			KnnGraph tempGraph = new KnnGraph(tempDistanceMeasure, tempNumInstances, DEFAULT_K);
+			long tempBuildTime = System.nanoTime() - tempStartTime;
+			KnnGraph tempSubgraph = tempGraph.induce(tempBlock);
+			NeighborIndex tempScan = new NeighborIndex(tempDistanceMeasure, tempBlock, tempBlock.length);
+
+			int[] tempExpected = new int[tempBlock.length];
+			int[] tempActual = new int[tempBlock.length];
+			int tempWrong = 0;
+			int tempAnswered = 0;
+			double tempRadius = 0.05 * tempDimension;
+			for (int i = 0; i < tempBlock.length; i++) {
+				// The induced lists are the nearest block members, possibly in
+				// another order among ties.
+				int tempNumExpected = tempScan.kNearest(tempBlock[i], tempSubgraph.getNumNeighbors(i) + 1,
+						tempExpected);
+				int tempCount = 0;
+				for (int j = 0; j < tempNumExpected && tempCount < tempSubgraph.getNumNeighbors(i); j++) {
+					if (tempExpected[j] == tempBlock[i]) {
+						continue;
+					} // Of if
+					if (tempDistanceMeasure.comparisonDistance(tempBlock[i], tempExpected[j]) != tempSubgraph
+							.getComparison(i, tempCount)) {
+						tempWrong++;
+					} // Of if
+					tempCount++;
+				} // Of for j
+
+				// The range queries.
+				int tempNumActual = tempSubgraph.rangeNodes(i, tempRadius, tempActual);
+				if (tempNumActual == -1) {
+					continue;
+				} // Of if
+				tempAnswered++;
+				tempNumExpected = tempScan.rangeRanks(tempBlock[i], tempRadius, tempExpected);
+				if (tempNumActual != tempNumExpected
+						|| !Arrays.equals(Arrays.copyOf(tempActual, tempNumActual),
+								Arrays.copyOf(tempExpected, tempNumExpected))) {
+					tempWrong++;
+				} // Of if
+			} // Of for i
+
+			System.out.println(tempGraph + ", " + tempDistanceMeasure + ": built in " + tempBuildTime / 1000000
+					+ " ms, " + tempAnswered + " of " + tempBlock.length + " range queries answered, " + tempWrong
+					+ " wrong.");
+		} // Of for tempMeasure
+	}// Of main
+}// Of class KnnGraph
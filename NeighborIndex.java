@@ -0,0 +1,453 @@
+package pub.rj.paper.common;
+
+/**
+ * An index over a set of instances for nearest neighbor queries. This class
+ * scans all instances, and the subclasses prune with spatial structures. The
+ * results are exactly the same as the scan: the comparison distances of
+ * DistanceMeasure are used, and ties are broken by the order of the
+ * instances when the index is built.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class NeighborIndex {
+	/**
+	 * The maximal number of instances in a leaf. Smaller sets are not worth a
+	 * tree.
+	 */
+	public static final int LEAF_SIZE = 16;
+
+	/**
+	 * The maximal number of attributes for a KD-tree. A ball tree is used for
+	 * more.
+	 */
+	public static final int KD_MAXIMAL_DIMENSION = 8;
+
+	/**
+	 * The distance measure.
+	 */
+	DistanceMeasure distanceMeasure;
+
+	/**
+	 * The instances in the given order. The position (rank) breaks ties.
+	 */
+	int[] points;
+
+	/**
+	 * The number of instances.
+	 */
+	int numPoints;
+
+	/**
+	 * The relative slack for pruning, covering the rounding errors of the
+	 * bounds.
+	 */
+	double slack;
+
+	/**
+	 * The buffer of distances for scanning.
+	 */
+	double[] scanDistances;
+
+	/**
+	 ********************
+	 * The constructor.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraPoints
+	 *            The instances, copied.
+	 * @param paraNumPoints
+	 *            The number of instances to use from the array.
+	 ********************
+	 */
+	public NeighborIndex(DistanceMeasure paraDistanceMeasure, int[] paraPoints, int paraNumPoints) {
+		distanceMeasure = paraDistanceMeasure;
+		numPoints = paraNumPoints;
+		points = new int[paraNumPoints];
+		System.arraycopy(paraPoints, 0, points, 0, paraNumPoints);
+		slack = paraDistanceMeasure.getFeatureStore().isSinglePrecision() ? 1e-5 : 1e-9;
+	}// Of the constructor
+
+	/**
+	 *************************
+	 * Build the index suitable for the measure and the dimension. The trees
+	 * need the triangle inequality, hence the cosine and the squared Euclidean
+	 * measures are scanned. Above KD_MAXIMAL_DIMENSION, the VP-tree is used
+	 * for Manhattan and the ball tree for the others.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure.
+	 * @param paraPoints
+	 *            The instances.
+	 * @param paraNumPoints
+	 *            The number of instances to use from the array.
+	 * @return The index.
+	 *************************
+	 */
+	public static NeighborIndex create(DistanceMeasure paraDistanceMeasure, int[] paraPoints, int paraNumPoints) {
+		int tempMeasure = paraDistanceMeasure.getMeasure();
+		boolean tempIsMetric = tempMeasure == DistanceMeasure.EUCLIDEAN || tempMeasure == DistanceMeasure.MANHATTAN
+				|| tempMeasure == DistanceMeasure.MAHALANOBIS;
+		if (!tempIsMetric || paraNumPoints <= LEAF_SIZE) {
+			return new NeighborIndex(paraDistanceMeasure, paraPoints, paraNumPoints);
+		} // Of if
+
+		if (paraDistanceMeasure.getFeatureStore().getNumConditions() <= KD_MAXIMAL_DIMENSION) {
+			return new KdTree(paraDistanceMeasure, paraPoints, paraNumPoints);
+		} // Of if
+
+		if (tempMeasure == DistanceMeasure.MANHATTAN) {
+			return new VpTree(paraDistanceMeasure, paraPoints, paraNumPoints);
+		} // Of if
+
+		return new BallTree(paraDistanceMeasure, paraPoints, paraNumPoints);
+	}// Of create
+
+	/**
+	 *************************
+	 * Get the number of instances.
+	 *
+	 * @return The number of instances.
+	 *************************
+	 */
+	public int getNumPoints() {
+		return numPoints;
+	}// Of getNumPoints
+
+	/**
+	 *************************
+	 * Are the results the same as the scan?
+	 *
+	 * @return True for this class and the trees.
+	 *************************
+	 */
+	public boolean isExact() {
+		return true;
+	}// Of isExact
+
+	/**
+	 *************************
+	 * Find the nearest instance.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @return The nearest instance, the first one in case of ties.
+	 *************************
+	 */
+	public int nearest(int paraQuery) {
+		int[] tempNeighbors = new int[1];
+		kNearest(paraQuery, 1, tempNeighbors);
+		return tempNeighbors[0];
+	}// Of nearest
+
+	/**
+	 *************************
+	 * Find the k nearest instances.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraK
+	 *            The k value.
+	 * @param paraNeighbors
+	 *            The array to store the neighbors, nearest first.
+	 * @return The number of neighbors, i.e., min(k, number of instances).
+	 *************************
+	 */
+	public int kNearest(int paraQuery, int paraK, int[] paraNeighbors) {
+		if (scanDistances == null) {
+			scanDistances = new double[numPoints];
+		} // Of if
+		distanceMeasure.comparisonDistances(paraQuery, points, numPoints, scanDistances);
+
+		double[] tempComparisons = new double[paraK];
+		int[] tempRanks = new int[paraK];
+		int tempCount = 0;
+		for (int i = 0; i < numPoints; i++) {
+			tempCount = insert(scanDistances[i], i, tempComparisons, tempRanks, tempCount, paraK);
+		} // Of for i
+
+		return toNeighbors(tempRanks, tempCount, paraNeighbors);
+	}// Of kNearest
+
+	/**
+	 *************************
+	 * Find the instances within the radius.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraRadius
+	 *            The radius, inclusive.
+	 * @param paraNeighbors
+	 *            The array to store the neighbors in the given order. Its
+	 *            length should be the number of instances.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int range(int paraQuery, double paraRadius, int[] paraNeighbors) {
+		int resultCount = rangeRanks(paraQuery, paraRadius, paraNeighbors);
+		for (int i = 0; i < resultCount; i++) {
+			paraNeighbors[i] = points[paraNeighbors[i]];
+		} // Of for i
+
+		return resultCount;
+	}// Of range
+
+	/**
+	 *************************
+	 * Find the positions (in the given instance array) of the instances within
+	 * the radius. The distances are checked with DistanceMeasure.distance(),
+	 * hence the result is the same as the scan.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraRadius
+	 *            The radius, inclusive.
+	 * @param paraRanks
+	 *            The array to store the positions in ascending order. Its
+	 *            length should be the number of instances.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int rangeRanks(int paraQuery, double paraRadius, int[] paraRanks) {
+		if (scanDistances == null) {
+			scanDistances = new double[numPoints];
+		} // Of if
+		distanceMeasure.distances(paraQuery, points, numPoints, scanDistances);
+
+		int resultCount = 0;
+		for (int i = 0; i < numPoints; i++) {
+			if (scanDistances[i] <= paraRadius) {
+				paraRanks[resultCount] = i;
+				resultCount++;
+			} // Of if
+		} // Of for i
+
+		return resultCount;
+	}// Of rangeRanks
+
+	/**
+	 *************************
+	 * Insert a candidate into the sorted list of the k best ones. Ties keep the
+	 * smaller rank first.
+	 *
+	 * @param paraComparison
+	 *            The comparison distance of the candidate.
+	 * @param paraRank
+	 *            The rank of the candidate.
+	 * @param paraComparisons
+	 *            The comparison distances of the list.
+	 * @param paraRanks
+	 *            The ranks of the list.
+	 * @param paraCount
+	 *            The current length of the list.
+	 * @param paraK
+	 *            The maximal length of the list.
+	 * @return The new length of the list.
+	 *************************
+	 */
+	static int insert(double paraComparison, int paraRank, double[] paraComparisons, int[] paraRanks,
+			int paraCount, int paraK) {
+		if (paraCount == paraK && !isBetter(paraComparison, paraRank, paraComparisons[paraK - 1],
+				paraRanks[paraK - 1])) {
+			return paraCount;
+		} // Of if
+
+		int j = paraCount < paraK ? paraCount : paraK - 1;
+		for (; j > 0 && isBetter(paraComparison, paraRank, paraComparisons[j - 1], paraRanks[j - 1]); j--) {
+			paraComparisons[j] = paraComparisons[j - 1];
+			paraRanks[j] = paraRanks[j - 1];
+		} // Of for j
+		paraComparisons[j] = paraComparison;
+		paraRanks[j] = paraRank;
+
+		return paraCount < paraK ? paraCount + 1 : paraK;
+	}// Of insert
+
+	/**
+	 *************************
+	 * Is the first candidate better than the second one?
+	 *
+	 * @param paraFirstComparison
+	 *            The comparison distance of the first candidate.
+	 * @param paraFirstRank
+	 *            The rank of the first candidate.
+	 * @param paraSecondComparison
+	 *            The comparison distance of the second candidate.
+	 * @param paraSecondRank
+	 *            The rank of the second candidate.
+	 * @return True if it is nearer, or as near with a smaller rank.
+	 *************************
+	 */
+	static boolean isBetter(double paraFirstComparison, int paraFirstRank, double paraSecondComparison,
+			int paraSecondRank) {
+		return paraFirstComparison < paraSecondComparison
+				|| (paraFirstComparison == paraSecondComparison && paraFirstRank < paraSecondRank);
+	}// Of isBetter
+
+	/**
+	 *************************
+	 * Can a region with the given lower bound be skipped?
+	 *
+	 * @param paraBound
+	 *            The lower bound of the distances in the region, as a
+	 *            distance.
+	 * @param paraComparisons
+	 *            The comparison distances of the current list.
+	 * @param paraCount
+	 *            The current length of the list.
+	 * @param paraK
+	 *            The maximal length of the list.
+	 * @return True if no instance in the region can enter the list.
+	 *************************
+	 */
+	boolean canPrune(double paraBound, double[] paraComparisons, int paraCount, int paraK) {
+		if (paraCount < paraK || paraBound <= 0) {
+			return false;
+		} // Of if
+
+		double tempBound = distanceMeasure.distanceToComparison(paraBound * (1 - slack));
+		return tempBound > paraComparisons[paraK - 1];
+	}// Of canPrune
+
+	/**
+	 *************************
+	 * Can a region with the given lower bound be skipped by a range query?
+	 *
+	 * @param paraBound
+	 *            The lower bound of the distances in the region.
+	 * @param paraRadius
+	 *            The radius of the query.
+	 * @return True if no instance in the region is within the radius.
+	 *************************
+	 */
+	boolean canPrune(double paraBound, double paraRadius) {
+		return paraBound * (1 - slack) > paraRadius;
+	}// Of canPrune
+
+	/**
+	 *************************
+	 * Convert the ranks to instances.
+	 *
+	 * @param paraRanks
+	 *            The ranks.
+	 * @param paraCount
+	 *            The number of ranks.
+	 * @param paraNeighbors
+	 *            The array to store the instances.
+	 * @return The number of instances.
+	 *************************
+	 */
+	int toNeighbors(int[] paraRanks, int paraCount, int[] paraNeighbors) {
+		for (int i = 0; i < paraCount; i++) {
+			paraNeighbors[i] = points[paraRanks[i]];
+		} // Of for i
+
+		return paraCount;
+	}// Of toNeighbors
+
+	/**
+	 *************************
+	 * Display some information.
+	 *
+	 * @return The information.
+	 *************************
+	 */
+	public String toString() {
+		return getClass().getSimpleName() + " over " + numPoints + " instances";
+	}// Of toString
+
+	/**
+	 *************************
+	 * Compare the trees with the scan on random data, for both kNN and range
+	 * queries.
+	 *
+	 * @param args
+	 *            The parameters.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		java.util.Random tempRandom = new java.util.Random(0);
+		int tempNumInstances = 3000;
+		int[] tempDimensions = { 3, 20 };
+		int[] tempMeasures = { DistanceMeasure.EUCLIDEAN, DistanceMeasure.MANHATTAN };
+		for (int tempDimension : tempDimensions) {
+			double[] tempValues = new double[tempNumInstances * tempDimension];
+			for (int i = 0; i < tempValues.length; i++) {
+				// Coarse values to have ties.
+				tempValues[i] = tempRandom.nextInt(10) / 10.0;
+			} // Of for i
+			FeatureStore tempStore = new FeatureStore(tempValues, new int[tempNumInstances], tempDimension, 2);
+
+			// Every third instance is indexed.
+			int[] tempPoints = new int[tempNumInstances / 3];
+			for (int i = 0; i < tempPoints.length; i++) {
+				tempPoints[i] = i * 3;
+			} // Of for i
+
+			for (int tempMeasure : tempMeasures) {
+				DistanceMeasure tempDistanceMeasure = new DistanceMeasure(null, tempStore, tempMeasure);
+				// Radii hitting distances exactly test the inclusive bound.
+				double tempRadius = tempMeasure == DistanceMeasure.MANHATTAN ? tempDimension * 0.05
+						: Math.sqrt(tempDimension * 0.01);
+				NeighborIndex tempScan = new NeighborIndex(tempDistanceMeasure, tempPoints, tempPoints.length);
+				NeighborIndex[] tempTrees = { create(tempDistanceMeasure, tempPoints, tempPoints.length),
+						new VpTree(tempDistanceMeasure, tempPoints, tempPoints.length) };
+				int[] tempExpected = new int[tempPoints.length];
+				int[] tempActual = new int[tempPoints.length];
+				for (NeighborIndex tempTree : tempTrees) {
+					int tempWrong = 0;
+					long tempScanTime = 0;
+					long tempTreeTime = 0;
+					long tempStartTime;
+					int tempExpectedCount, tempActualCount;
+					for (int i = 0; i < tempNumInstances; i++) {
+						tempStartTime = System.nanoTime();
+						tempScan.kNearest(i, 5, tempExpected);
+						tempExpectedCount = tempScan.range(i, tempRadius, tempExpected);
+						tempScanTime += System.nanoTime() - tempStartTime;
+						tempStartTime = System.nanoTime();
+						tempTree.kNearest(i, 5, tempActual);
+						tempActualCount = tempTree.range(i, tempRadius, tempActual);
+						tempTreeTime += System.nanoTime() - tempStartTime;
+
+						if (tempExpectedCount != tempActualCount) {
+							tempWrong++;
+						} else {
+							for (int j = 0; j < tempExpectedCount; j++) {
+								if (tempExpected[j] != tempActual[j]) {
+									tempWrong++;
+									break;
+								} // Of if
+							} // Of for j
+						} // Of if
+
+						tempScan.kNearest(i, 5, tempExpected);
+						tempTree.kNearest(i, 5, tempActual);
+						for (int j = 0; j < 5; j++) {
+							if (tempExpected[j] != tempActual[j]) {
+								tempWrong++;
+								break;
+							} // Of if
+						} // Of for j
+						if (tempScan.nearest(i) != tempTree.nearest(i)) {
+							tempWrong++;
+						} // Of if
+					} // Of for i
+					System.out.println(tempTree + " with " + tempDimension + " attributes, " + tempDistanceMeasure
+							+ ": " + tempWrong + " wrong, scan " + tempScanTime / 1000000 + " ms, tree "
+							+ tempTreeTime / 1000000 + " ms.");
+				} // Of for tempTree
+			} // Of for tempMeasure
+		} // Of for tempDimension
+	}// Of main
+}// Of class NeighborIndex
@@ -1,7 +1,7 @@
 package pub.rj.paper.plot;
 
 import weka.core.*;
-import java.io.FileReader;
+import pub.rj.paper.common.BinaryDataset;
 import javax.swing.JFrame;
 import org.jfree.chart.*;
 import org.jfree.chart.plot.*;
@@ -22,9 +22,7 @@ public class PlotData {
 		System.out.println("loading the PlotData");
 		data = null;
 		try {
-			FileReader fileReader = new FileReader(paraFilename);
-			data = new Instances(fileReader);
-			fileReader.close();
+			data = BinaryDataset.readInstances(paraFilename);
 		} catch (Exception ee) {
 			System.out.println("Cannot read the file: " + paraFilename + "\r\n"
 					+ ee);
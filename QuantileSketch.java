@@ -0,0 +1,299 @@
+package pub.rj.paper.common;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A streaming quantile sketch with the P-square algorithm of Jain and
+ * Chlamtac, in its histogram form. It keeps numCells + 1 markers whose
+ * heights follow the equiprobable quantiles 0, 1/numCells, ..., 1 of the
+ * values seen so far, and adjusts them by piecewise-parabolic prediction
+ * when a value arrives. The memory is fixed, any quantile is read by linear
+ * interpolation between the markers, and the minimum and maximum are exact.
+ * Up to numCells + 1 values the quantiles are exact.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class QuantileSketch {
+	/**
+	 * The default number of cells, a marker every half percent.
+	 */
+	public static final int DEFAULT_NUM_CELLS = 200;
+
+	/**
+	 * The number of cells between the markers.
+	 */
+	int numCells;
+
+	/**
+	 * The marker heights. They hold the first values unsorted until there are
+	 * numCells + 1 of them.
+	 */
+	double[] heights;
+
+	/**
+	 * The marker positions, 1-based ranks among the values seen.
+	 */
+	double[] positions;
+
+	/**
+	 * The number of values seen.
+	 */
+	long count;
+
+	/**
+	 ********************
+	 * The constructor.
+	 *
+	 * @param paraNumCells
+	 *            The number of cells, at least 2.
+	 ********************
+	 */
+	public QuantileSketch(int paraNumCells) {
+		if (paraNumCells < 2) {
+			System.out.println("Error occurred in QuantileSketch(int): at least 2 cells are required, not "
+					+ paraNumCells);
+			System.exit(0);
+		} // Of if
+
+		numCells = paraNumCells;
+		heights = new double[numCells + 1];
+		positions = new double[numCells + 1];
+		count = 0;
+	}// Of the first constructor
+
+	/**
+	 ********************
+	 * The constructor with the default number of cells.
+	 ********************
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_NUM_CELLS);
+	}// Of the second constructor
+
+	/**
+	 ********************
+	 * Forget all values. The memory is kept for the next stream.
+	 ********************
+	 */
+	public void reset() {
+		count = 0;
+	}// Of reset
+
+	/**
+	 ********************
+	 * Getter.
+	 *
+	 * @return The number of values seen.
+	 ********************
+	 */
+	public long getCount() {
+		return count;
+	}// Of getCount
+
+	/**
+	 ********************
+	 * Add a value.
+	 *
+	 * @param paraValue
+	 *            The value. It should not be NaN.
+	 ********************
+	 */
+	public void add(double paraValue) {
+		// Step 1. Collect the first values, and sort them into markers.
+		if (count <= numCells) {
+			heights[(int) count] = paraValue;
+			count++;
+			if (count == numCells + 1) {
+				Arrays.sort(heights);
+				for (int i = 0; i <= numCells; i++) {
+					positions[i] = i + 1;
+				} // Of for i
+			} // Of if
+			return;
+		} // Of if
+
+		// Step 2. Find the cell and shift the markers above it.
+		int tempCell;
+		if (paraValue < heights[0]) {
+			heights[0] = paraValue;
+			tempCell = 0;
+		} else if (paraValue >= heights[numCells]) {
+			heights[numCells] = paraValue;
+			tempCell = numCells - 1;
+		} else {
+			// The last marker not above the value.
+			int tempLow = 0;
+			int tempHigh = numCells;
+			int tempMiddle;
+			while (tempHigh - tempLow > 1) {
+				tempMiddle = (tempLow + tempHigh) >>> 1;
+				if (heights[tempMiddle] <= paraValue) {
+					tempLow = tempMiddle;
+				} else {
+					tempHigh = tempMiddle;
+				} // Of if
+			} // Of while
+			tempCell = tempLow;
+		} // Of if
+
+		for (int i = tempCell + 1; i <= numCells; i++) {
+			positions[i]++;
+		} // Of for i
+		count++;
+
+		// Step 3. Move the inner markers towards their desired positions.
+		double tempStep = (count - 1.0) / numCells;
+		double tempDesired, tempGap;
+		int tempSign;
+		double tempHeight;
+		for (int i = 1; i < numCells; i++) {
+			tempDesired = 1 + i * tempStep;
+			tempGap = tempDesired - positions[i];
+			if ((tempGap >= 1 && positions[i + 1] - positions[i] > 1)
+					|| (tempGap <= -1 && positions[i - 1] - positions[i] < -1)) {
+				tempSign = tempGap > 0 ? 1 : -1;
+				tempHeight = parabolic(i, tempSign);
+				if (heights[i - 1] < tempHeight && tempHeight < heights[i + 1]) {
+					heights[i] = tempHeight;
+				} else {
+					heights[i] += tempSign * (heights[i + tempSign] - heights[i])
+							/ (positions[i + tempSign] - positions[i]);
+				} // Of if
+				positions[i] += tempSign;
+			} // Of if
+		} // Of for i
+	}// Of add
+
+	/**
+	 ********************
+	 * The piecewise-parabolic prediction of a marker moved by one position.
+	 *
+	 * @param paraMarker
+	 *            The inner marker.
+	 * @param paraSign
+	 *            The move, 1 or -1.
+	 * @return The predicted height.
+	 ********************
+	 */
+	private double parabolic(int paraMarker, int paraSign) {
+		double tempBelow = positions[paraMarker] - positions[paraMarker - 1];
+		double tempAbove = positions[paraMarker + 1] - positions[paraMarker];
+		return heights[paraMarker] + paraSign / (tempBelow + tempAbove)
+				* ((tempBelow + paraSign) * (heights[paraMarker + 1] - heights[paraMarker]) / tempAbove
+						+ (tempAbove - paraSign) * (heights[paraMarker] - heights[paraMarker - 1]) / tempBelow);
+	}// Of parabolic
+
+	/**
+	 ********************
+	 * Estimate a quantile. The rank 1 + (count - 1) * paraFraction is
+	 * interpolated, so 0 gives the minimum and 1 the maximum.
+	 *
+	 * @param paraFraction
+	 *            The fraction in [0, 1].
+	 * @return The quantile, or NaN without values.
+	 ********************
+	 */
+	public double quantile(double paraFraction) {
+		if (count == 0) {
+			return Double.NaN;
+		} // Of if
+
+		if (paraFraction <= 0) {
+			paraFraction = 0;
+		} else if (paraFraction >= 1) {
+			paraFraction = 1;
+		} // Of if
+
+		double tempRank = 1 + (count - 1) * paraFraction;
+		if (count <= numCells) {
+			// Still exact. Sort a copy, the values are not markers yet.
+			double[] tempSorted = Arrays.copyOf(heights, (int) count);
+			Arrays.sort(tempSorted);
+			int tempIndex = (int) tempRank - 1;
+			if (tempIndex >= count - 1) {
+				return tempSorted[(int) count - 1];
+			} // Of if
+			return tempSorted[tempIndex]
+					+ (tempRank - 1 - tempIndex) * (tempSorted[tempIndex + 1] - tempSorted[tempIndex]);
+		} // Of if
+
+		int tempMarker = 0;
+		while (tempMarker < numCells - 1 && positions[tempMarker + 1] <= tempRank) {
+			tempMarker++;
+		} // Of while
+		return heights[tempMarker] + (tempRank - positions[tempMarker])
+				* (heights[tempMarker + 1] - heights[tempMarker])
+				/ (positions[tempMarker + 1] - positions[tempMarker]);
+	}// Of quantile
+
+	/**
+	 ********************
+	 * Show me.
+	 ********************
+	 */
+	public String toString() {
+		return "QuantileSketch with " + numCells + " cells over " + count + " values";
+	}// Of toString
+
+	/**
+	 *************************
+	 * Compare the estimated quantiles with the exact ones on seeded uniform,
+	 * normal and exponential streams.
+	 *
+	 * @param args
+	 *            The parameters.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		Random tempRandom = new Random(0);
+		double[] tempFractions = { 0, 0.01, 0.02, 0.05, 0.1, 0.5, 0.9, 0.99, 1 };
+		int[] tempSizes = { 50, 1000, 100000 };
+		String[] tempNames = { "uniform", "normal", "exponential" };
+		QuantileSketch tempSketch = new QuantileSketch();
+		for (int tempSize : tempSizes) {
+			for (int tempDistribution = 0; tempDistribution < tempNames.length; tempDistribution++) {
+				double[] tempValues = new double[tempSize];
+				tempSketch.reset();
+				for (int i = 0; i < tempSize; i++) {
+					if (tempDistribution == 0) {
+						tempValues[i] = tempRandom.nextDouble();
+					} else if (tempDistribution == 1) {
+						tempValues[i] = tempRandom.nextGaussian();
+					} else {
+						tempValues[i] = -Math.log(1 - tempRandom.nextDouble());
+					} // Of if
+					tempSketch.add(tempValues[i]);
+				} // Of for i
+				Arrays.sort(tempValues);
+
+				// The error in ranks, as a fraction of the stream.
+				double tempMaximalRankError = 0;
+				double tempEstimate;
+				int tempRank;
+				for (double tempFraction : tempFractions) {
+					tempEstimate = tempSketch.quantile(tempFraction);
+					tempRank = Arrays.binarySearch(tempValues, tempEstimate);
+					if (tempRank < 0) {
+						tempRank = -tempRank - 1;
+					} // Of if
+					tempMaximalRankError = Math.max(tempMaximalRankError,
+							Math.abs(tempRank - tempFraction * (tempSize - 1)) / tempSize);
+				} // Of for tempFraction
+				System.out.println(tempSketch + ", " + tempNames[tempDistribution] + ": median "
+						+ tempSketch.quantile(0.5) + " (exact " + tempValues[tempSize / 2]
+						+ "), maximal rank error " + tempMaximalRankError);
+			} // Of for tempDistribution
+		} // Of for tempSize
+	}// Of main
+}// Of class QuantileSketch
@@ -5,7 +5,6 @@
 
 package pub.rj.paper.common;
 
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.*;
@@ -2554,22 +2553,38 @@ public class SimpleTools extends Object {
 	 ********************************** 
 	 */
 	public static int[] getRandomOrder(int paraLength) {
+		return getRandomOrder(paraLength, random);
+	}// Of getRandomOrder
+
+	/**
+	 ********************************** 
+	 * Get a random order index array with the Fisher-Yates shuffle. It takes
+	 * linear time, and every order has the same probability.
+	 * 
+	 * @param paraLength
+	 *            The length of the array.
+	 * @param paraRandom
+	 *            The random generator. A seeded one gives a reproducible
+	 *            order.
+	 * @return A random order.
+	 ********************************** 
+	 */
+	public static int[] getRandomOrder(int paraLength, Random paraRandom) {
 		// Step 1. Initialize
 		int[] resultArray = new int[paraLength];
 		for (int i = 0; i < paraLength; i++) {
 			resultArray[i] = i;
 		} // Of for i
 
-		// Step 2. Swap many times
-		int tempFirst, tempSecond;
+		// Step 2. Swap each position with a random one not after it.
+		int tempIndex;
 		int tempValue;
-		for (int i = 0; i < paraLength * 10; i++) {
-			tempFirst = random.nextInt(paraLength);
-			tempSecond = random.nextInt(paraLength);
+		for (int i = paraLength - 1; i > 0; i--) {
+			tempIndex = paraRandom.nextInt(i + 1);
 
-			tempValue = resultArray[tempFirst];
-			resultArray[tempFirst] = resultArray[tempSecond];
-			resultArray[tempSecond] = tempValue;
+			tempValue = resultArray[tempIndex];
+			resultArray[tempIndex] = resultArray[i];
+			resultArray[i] = tempValue;
 		} // Of for i
 
 		return resultArray;
@@ -2587,9 +2602,7 @@ public class SimpleTools extends Object {
 		// Step 1. Read the data.
 		Instances tempData = null;
 		try {
-			FileReader fileReader = new FileReader(paraFilename);
-			tempData = new Instances(fileReader);
-			fileReader.close();
+			tempData = BinaryDataset.readInstances(paraFilename);
 		} catch (Exception ee) {
 			System.out.println("Cannot read the file: " + paraFilename + "\r\n" + ee);
 			System.exit(0);
@@ -0,0 +1,373 @@
+package pub.rj.paper.common;
+
+import java.util.Arrays;
+
+/**
+ * A bounded distance cache for datasets too large for DistanceCache. The
+ * distance matrix is cut into square tiles keyed by the pair of instance
+ * ranges (only the upper triangle, the measures are symmetric). At most a
+ * memory budget worth of tiles is kept, and the CLOCK algorithm (an
+ * approximation of LRU) chooses which one to evict. Within a tile values are
+ * filled lazily, NaN stands for not computed yet. The recursion on sub-blocks
+ * revisits the same ranges, so most lookups hit.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class TiledDistanceCache {
+	/**
+	 * The default number of instances along each side of a tile.
+	 */
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	/**
+	 * The default memory budget in bytes.
+	 */
+	public static final long DEFAULT_MEMORY_BUDGET = 256L << 20;
+
+	/**
+	 * The distance measure to compute missing values.
+	 */
+	DistanceMeasure distanceMeasure;
+
+	/**
+	 * The number of instances.
+	 */
+	int numInstances;
+
+	/**
+	 * The number of instances along each side of a tile.
+	 */
+	int tileSize;
+
+	/**
+	 * tileSize * tileSize.
+	 */
+	int tileArea;
+
+	/**
+	 * The number of tiles along each side of the matrix.
+	 */
+	int numTiles;
+
+	/**
+	 * The number of slots, i.e., tiles kept in memory.
+	 */
+	int numSlots;
+
+	/**
+	 * The slot of each tile (upper triangle, row-major), -1 for not in memory.
+	 */
+	int[] directory;
+
+	/**
+	 * The tile (index in the directory) of each slot, -1 for free.
+	 */
+	int[] slotTiles;
+
+	/**
+	 * The reference bits for CLOCK.
+	 */
+	boolean[] referenced;
+
+	/**
+	 * The clock hand.
+	 */
+	int clockHand;
+
+	/**
+	 * The number of slots used so far.
+	 */
+	int numUsedSlots;
+
+	/**
+	 * The values of all slots in double, slot after slot.
+	 */
+	double[] values;
+
+	/**
+	 * The values of all slots in float. Exactly one of values and floatValues
+	 * is not null.
+	 */
+	float[] floatValues;
+
+	/**
+	 * The number of lookups answered from the cache.
+	 */
+	long hits;
+
+	/**
+	 * The number of lookups that had to compute the distance.
+	 */
+	long misses;
+
+	/**
+	 * The number of tiles evicted.
+	 */
+	long evictions;
+
+	/**
+	 ********************
+	 * The constructor.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure to compute missing values.
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @param paraTileSize
+	 *            The number of instances along each side of a tile.
+	 * @param paraMemoryBudget
+	 *            The memory budget of the tiles in bytes. At least one tile is
+	 *            kept.
+	 * @param paraSinglePrecision
+	 *            Store in float or not.
+	 ********************
+	 */
+	public TiledDistanceCache(DistanceMeasure paraDistanceMeasure, int paraNumInstances, int paraTileSize,
+			long paraMemoryBudget, boolean paraSinglePrecision) {
+		distanceMeasure = paraDistanceMeasure;
+		numInstances = paraNumInstances;
+		tileSize = paraTileSize;
+		tileArea = tileSize * tileSize;
+		numTiles = (numInstances + tileSize - 1) / tileSize;
+
+		int tempNumTilePairs = (int) ((long) numTiles * (numTiles + 1) / 2);
+		long tempSlotBytes = (long) tileArea * (paraSinglePrecision ? 4 : 8);
+		long tempNumSlots = paraMemoryBudget / tempSlotBytes;
+		tempNumSlots = Math.min(tempNumSlots, tempNumTilePairs);
+		tempNumSlots = Math.min(tempNumSlots, DistanceCache.MAXIMAL_LENGTH / tileArea);
+		numSlots = (int) Math.max(tempNumSlots, 1);
+
+		directory = new int[tempNumTilePairs];
+		Arrays.fill(directory, -1);
+		slotTiles = new int[numSlots];
+		Arrays.fill(slotTiles, -1);
+		referenced = new boolean[numSlots];
+		clockHand = 0;
+		numUsedSlots = 0;
+
+		if (paraSinglePrecision) {
+			floatValues = new float[numSlots * tileArea];
+		} else {
+			values = new double[numSlots * tileArea];
+		} // Of if
+
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}// Of the constructor
+
+	/**
+	 *************************
+	 * Get the distance between two different instances, computing it if
+	 * necessary.
+	 *
+	 * @param paraFirstIndex
+	 *            The first instance index.
+	 * @param paraSecondIndex
+	 *            The second instance index.
+	 * @return The distance.
+	 *************************
+	 */
+	public double distance(int paraFirstIndex, int paraSecondIndex) {
+		// Step 1. Order the pair so that it falls in the upper triangle.
+		int tempFirst = paraFirstIndex;
+		int tempSecond = paraSecondIndex;
+		int tempRowTile = tempFirst / tileSize;
+		int tempColumnTile = tempSecond / tileSize;
+		if (tempRowTile > tempColumnTile || (tempRowTile == tempColumnTile && tempFirst > tempSecond)) {
+			tempFirst = paraSecondIndex;
+			tempSecond = paraFirstIndex;
+			int tempTile = tempRowTile;
+			tempRowTile = tempColumnTile;
+			tempColumnTile = tempTile;
+		} // Of if
+
+		// Step 2. Find the slot.
+		int tempTile = tempRowTile * numTiles - tempRowTile * (tempRowTile - 1) / 2 + (tempColumnTile - tempRowTile);
+		int tempSlot = directory[tempTile];
+		if (tempSlot < 0) {
+			tempSlot = load(tempTile);
+		} else {
+			referenced[tempSlot] = true;
+		} // Of if
+
+		// Step 3. Look up the value.
+		int tempPosition = tempSlot * tileArea + (tempFirst - tempRowTile * tileSize) * tileSize
+				+ (tempSecond - tempColumnTile * tileSize);
+		double resultDistance;
+		if (floatValues != null) {
+			resultDistance = floatValues[tempPosition];
+		} else {
+			resultDistance = values[tempPosition];
+		} // Of if
+		if (!Double.isNaN(resultDistance)) {
+			hits++;
+			return resultDistance;
+		} // Of if
+
+		misses++;
+		resultDistance = distanceMeasure.computeDistance(tempFirst, tempSecond);
+		if (floatValues != null) {
+			floatValues[tempPosition] = (float) resultDistance;
+			// Read it back, so that hits and misses agree.
+			resultDistance = floatValues[tempPosition];
+		} else {
+			values[tempPosition] = resultDistance;
+		} // Of if
+
+		return resultDistance;
+	}// Of distance
+
+	/**
+	 *************************
+	 * Load a tile into a free slot, or the one chosen by CLOCK.
+	 *
+	 * @param paraTile
+	 *            The tile index in the directory.
+	 * @return The slot.
+	 *************************
+	 */
+	int load(int paraTile) {
+		int resultSlot;
+		if (numUsedSlots < numSlots) {
+			resultSlot = numUsedSlots;
+			numUsedSlots++;
+		} else {
+			// Give referenced slots a second chance.
+			while (referenced[clockHand]) {
+				referenced[clockHand] = false;
+				clockHand = (clockHand + 1) % numSlots;
+			} // Of while
+			resultSlot = clockHand;
+			clockHand = (clockHand + 1) % numSlots;
+
+			directory[slotTiles[resultSlot]] = -1;
+			evictions++;
+		} // Of if
+
+		directory[paraTile] = resultSlot;
+		slotTiles[resultSlot] = paraTile;
+		referenced[resultSlot] = true;
+		int tempStart = resultSlot * tileArea;
+		if (floatValues != null) {
+			Arrays.fill(floatValues, tempStart, tempStart + tileArea, Float.NaN);
+		} else {
+			Arrays.fill(values, tempStart, tempStart + tileArea, Double.NaN);
+		} // Of if
+
+		return resultSlot;
+	}// Of load
+
+	/**
+	 *************************
+	 * Get the number of lookups answered from the cache.
+	 *
+	 * @return The number of hits.
+	 *************************
+	 */
+	public long getHits() {
+		return hits;
+	}// Of getHits
+
+	/**
+	 *************************
+	 * Get the number of lookups that had to compute the distance.
+	 *
+	 * @return The number of misses.
+	 *************************
+	 */
+	public long getMisses() {
+		return misses;
+	}// Of getMisses
+
+	/**
+	 *************************
+	 * Get the number of tiles evicted.
+	 *
+	 * @return The number of evictions.
+	 *************************
+	 */
+	public long getEvictions() {
+		return evictions;
+	}// Of getEvictions
+
+	/**
+	 *************************
+	 * Reset the counters.
+	 *************************
+	 */
+	public void resetCounters() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}// Of resetCounters
+
+	/**
+	 *************************
+	 * Display some information.
+	 *
+	 * @return The information.
+	 *************************
+	 */
+	public String toString() {
+		long tempLookups = hits + misses;
+		return "TiledDistanceCache with " + numSlots + " slots of " + tileSize + "x" + tileSize + " in "
+				+ (floatValues != null ? "float" : "double") + ", hits = " + hits + ", misses = " + misses
+				+ ", evictions = " + evictions + ", hit ratio = "
+				+ (tempLookups == 0 ? 0 : (double) hits / tempLookups);
+	}// Of toString
+
+	/**
+	 *************************
+	 * Compare with the distances without cache on random data, with a budget
+	 * small enough to force evictions.
+	 *
+	 * @param args
+	 *            The parameters.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		int tempNumInstances = 2000;
+		int tempNumConditions = 4;
+		java.util.Random tempRandom = new java.util.Random(0);
+		double[] tempValues = new double[tempNumInstances * tempNumConditions];
+		for (int i = 0; i < tempValues.length; i++) {
+			tempValues[i] = tempRandom.nextDouble();
+		} // Of for i
+		FeatureStore tempStore = new FeatureStore(tempValues, new int[tempNumInstances], tempNumConditions, 2);
+		DistanceMeasure tempMeasure = new DistanceMeasure(null, tempStore, DistanceMeasure.EUCLIDEAN);
+
+		TiledDistanceCache tempCache = new TiledDistanceCache(tempMeasure, tempNumInstances, 64,
+				8L * 64 * 64 * 32, false);
+		int tempBase, tempFirst, tempSecond;
+		int tempWrong = 0;
+		for (int i = 0; i < 100; i++) {
+			// A block of 300 instances, revisited as by the recursion.
+			tempBase = tempRandom.nextInt(tempNumInstances - 300);
+			for (int j = 0; j < 10000; j++) {
+				tempFirst = tempBase + tempRandom.nextInt(300);
+				tempSecond = tempBase + tempRandom.nextInt(300);
+				if (tempFirst == tempSecond) {
+					continue;
+				} // Of if
+				if (tempCache.distance(tempFirst, tempSecond) != tempMeasure
+						.computeDistance(tempFirst, tempSecond)) {
+					tempWrong++;
+				} // Of if
+			} // Of for j
+		} // Of for i
+
+		System.out.println(tempCache);
+		System.out.println("Wrong values: " + tempWrong);
+	}// Of main
+}// Of class TiledDistanceCache
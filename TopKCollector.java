@@ -0,0 +1,225 @@
+package pub.rj.paper.common;
+
+import java.util.Random;
+
+/**
+ * Keep the k best of a stream of (double key, int payload) pairs in
+ * O(n log k). The best are the largest or the smallest keys, and equal keys
+ * prefer the smaller payload, so with the scan position as the payload the
+ * result is the same as keeping a sorted list by insertion with strict
+ * comparisons. NaN keys are never kept. The worst kept pair sits at the top
+ * of a DoubleIntHeap, hence a pair is rejected by one comparison in most
+ * cases.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class TopKCollector {
+	/**
+	 * The worst kept pair at the top. For the largest keys the keys are
+	 * negated, so that it is a max-heap either way.
+	 */
+	DoubleIntHeap heap;
+
+	/**
+	 * The number of pairs to keep.
+	 */
+	int k;
+
+	/**
+	 * Keep the largest keys?
+	 */
+	boolean largest;
+
+	/**
+	 ********************
+	 * The constructor.
+	 *
+	 * @param paraK
+	 *            The number of pairs to keep.
+	 * @param paraLargest
+	 *            True to keep the largest keys, false for the smallest.
+	 ********************
+	 */
+	public TopKCollector(int paraK, boolean paraLargest) {
+		k = paraK;
+		largest = paraLargest;
+		heap = new DoubleIntHeap(paraK, true);
+	}// Of the constructor
+
+	/**
+	 ********************
+	 * Forget the pairs and set a new k. The memory is kept.
+	 *
+	 * @param paraK
+	 *            The number of pairs to keep.
+	 ********************
+	 */
+	public void reset(int paraK) {
+		k = paraK;
+		heap.clear();
+	}// Of reset
+
+	/**
+	 ********************
+	 * Getter.
+	 *
+	 * @return The number of pairs kept, no more than k.
+	 ********************
+	 */
+	public int size() {
+		return heap.size();
+	}// Of size
+
+	/**
+	 ********************
+	 * Offer a pair.
+	 *
+	 * @param paraKey
+	 *            The key.
+	 * @param paraPayload
+	 *            The payload.
+	 * @return True if it is kept for now.
+	 ********************
+	 */
+	public boolean offer(double paraKey, int paraPayload) {
+		if (Double.isNaN(paraKey) || k <= 0) {
+			return false;
+		} // Of if
+
+		double tempKey = largest ? -paraKey : paraKey;
+		if (heap.size() < k) {
+			heap.push(tempKey, paraPayload);
+			return true;
+		} // Of if
+
+		// Better than the worst kept one.
+		if (heap.above(heap.peekKey(), heap.peekPayload(), tempKey, paraPayload)) {
+			heap.replaceTop(tempKey, paraPayload);
+			return true;
+		} // Of if
+
+		return false;
+	}// Of offer
+
+	/**
+	 ********************
+	 * Move the kept pairs out, the best first. The collector is empty
+	 * afterwards.
+	 *
+	 * @param paraPayloads
+	 *            The array for the payloads, with length no less than size().
+	 * @param paraKeys
+	 *            The array for the keys, or null if they are not needed.
+	 * @return The number of pairs.
+	 ********************
+	 */
+	public int drain(int[] paraPayloads, double[] paraKeys) {
+		int resultSize = heap.size();
+		double tempKey;
+		for (int i = resultSize - 1; i >= 0; i--) {
+			tempKey = heap.peekKey();
+			if (paraKeys != null) {
+				paraKeys[i] = largest ? -tempKey : tempKey;
+			} // Of if
+			paraPayloads[i] = heap.pop();
+		} // Of for i
+
+		return resultSize;
+	}// Of drain
+
+	/**
+	 ********************
+	 * Show me.
+	 ********************
+	 */
+	public String toString() {
+		return "TopKCollector of the " + (largest ? "largest " : "smallest ") + k + " keys, " + heap.size()
+				+ " kept";
+	}// Of toString
+
+	/**
+	 *************************
+	 * Compare with sorted lists kept by insertion on random keys with many
+	 * ties and some NaN, and time both for k = 50.
+	 *
+	 * @param args
+	 *            The parameters.
+	 *************************
+	 */
+	public static void main(String[] args) {
+		Random tempRandom = new Random(0);
+		int[] tempKs = { 1, 5, 50 };
+		int tempNumKeys = 100000;
+		double[] tempKeys = new double[tempNumKeys];
+		for (int i = 0; i < tempNumKeys; i++) {
+			tempKeys[i] = tempRandom.nextInt(1000) == 0 ? Double.NaN : tempRandom.nextInt(5000) / 10.0;
+		} // Of for i
+
+		boolean[] tempDirections = { true, false };
+		for (int tempK : tempKs) {
+			for (boolean tempLargest : tempDirections) {
+				// The sorted list kept by insertion, as in the old selection
+				// loops.
+				long tempStartTime = System.nanoTime();
+				int[] tempExpectedPayloads = new int[tempK + 1];
+				double[] tempExpectedKeys = new double[tempK + 1];
+				int tempExpectedSize = 0;
+				boolean tempBetter;
+				for (int i = 0; i < tempNumKeys; i++) {
+					if (Double.isNaN(tempKeys[i])) {
+						continue;
+					} // Of if
+					int j = tempExpectedSize;
+					while (j > 0) {
+						tempBetter = tempLargest ? tempKeys[i] > tempExpectedKeys[j - 1]
+								: tempKeys[i] < tempExpectedKeys[j - 1];
+						if (!tempBetter) {
+							break;
+						} // Of if
+						tempExpectedKeys[j] = tempExpectedKeys[j - 1];
+						tempExpectedPayloads[j] = tempExpectedPayloads[j - 1];
+						j--;
+					} // Of while
+					tempExpectedKeys[j] = tempKeys[i];
+					tempExpectedPayloads[j] = i;
+					if (tempExpectedSize < tempK) {
+						tempExpectedSize++;
+					} // Of if
+				} // Of for i
+				long tempInsertionTime = System.nanoTime() - tempStartTime;
+
+				tempStartTime = System.nanoTime();
+				TopKCollector tempCollector = new TopKCollector(tempK, tempLargest);
+				for (int i = 0; i < tempNumKeys; i++) {
+					tempCollector.offer(tempKeys[i], i);
+				} // Of for i
+				int[] tempPayloads = new int[tempK];
+				double[] tempActualKeys = new double[tempK];
+				int tempSize = tempCollector.drain(tempPayloads, tempActualKeys);
+				long tempHeapTime = System.nanoTime() - tempStartTime;
+
+				int tempWrong = tempSize == tempExpectedSize ? 0 : 1;
+				for (int i = 0; i < Math.min(tempSize, tempExpectedSize); i++) {
+					if (tempPayloads[i] != tempExpectedPayloads[i] || tempActualKeys[i] != tempExpectedKeys[i]) {
+						tempWrong++;
+					} // Of if
+				} // Of for i
+				// The collector is empty after drain(), so print the drained
+				// size.
+				System.out.println("The " + (tempLargest ? "largest " : "smallest ") + tempK + " keys, " + tempSize
+						+ " kept: " + tempWrong + " wrong, insertion " + tempInsertionTime / 1000 + " us, heap "
+						+ tempHeapTime / 1000 + " us.");
+			} // Of for tempLargest
+		} // Of for tempK
+	}// Of main
+}// Of class TopKCollector
@@ -9,7 +9,9 @@ import java.util.Date;
 import javax.swing.JComboBox;
 
 import pub.rj.paper.algorithm.*;
+import pub.rj.paper.cluster.DensityClustering;
 import pub.rj.paper.common.Common;
+import pub.rj.paper.common.Hnsw;
 import pub.rj.paper.common.SimpleTools;
 import pub.rj.paper.guicommon.*;
 import pub.rj.paper.guidialog.common.ErrorDialog;
@@ -95,6 +97,16 @@ public class UCEAL implements ActionListener, ItemListener {
 	 */
 	private Checkbox disorderCheckbox;
 
+	/**
+	 * Single precision (float) storage and distances or not.
+	 */
+	private Checkbox singlePrecisionCheckbox;
+
+	/**
+	 * The approximate HNSW index for the kNN graph or the exact one.
+	 */
+	private Checkbox approximateNeighborsCheckbox;
+
 	/**
 	 * For density computation of Density Peaks (maybe also others.)
 	 */
@@ -115,6 +127,11 @@ public class UCEAL implements ActionListener, ItemListener {
 	 */
 	private IntegerField kValueIntegerField;
 
+	/**
+	 * The number of threads for density computation.
+	 */
+	private IntegerField threadsIntegerField;
+
 	/**
 	 * For neighbor based weight as well as entropy computation.
 	 */
@@ -195,8 +212,12 @@ public class UCEAL implements ActionListener, ItemListener {
 		Panel tempPreprocessingPanel = new Panel();
 		normalizeCheckbox = new Checkbox(" Normalize ", true);
 		disorderCheckbox = new Checkbox(" Disorder ", true);
+		singlePrecisionCheckbox = new Checkbox(" Single precision ", false);
+		approximateNeighborsCheckbox = new Checkbox(" Approximate kNN ", false);
 		tempPreprocessingPanel.add(normalizeCheckbox);
 		tempPreprocessingPanel.add(disorderCheckbox);
+		tempPreprocessingPanel.add(singlePrecisionCheckbox);
+		tempPreprocessingPanel.add(approximateNeighborsCheckbox);
 		//tempInstanceSelectionPanel
 		Panel tempInstanceSelectionPanel = new Panel();
 		String[] tempSelectCriticalStrategyAlgorithms = { "DP representative", "Max total distance" };
@@ -226,6 +247,9 @@ public class UCEAL implements ActionListener, ItemListener {
 		kValueIntegerField = new IntegerField("3");
 		thresholdPanel.add(new Label(" k (for kNN): "));
 		thresholdPanel.add(kValueIntegerField);
+		threadsIntegerField = new IntegerField("" + Runtime.getRuntime().availableProcessors());
+		thresholdPanel.add(new Label(" Threads: "));
+		thresholdPanel.add(threadsIntegerField);
 		intersectionRationFiled = new DoubleField("0.9");
 		thresholdPanel.add(new Label("Intersection ratio panel"));
 		thresholdPanel.add(intersectionRationFiled);
@@ -338,9 +362,12 @@ public class UCEAL implements ActionListener, ItemListener {
 //		boolean tempRetrospect = retrospectCheckbox.getState();
 		boolean tempNormalize = normalizeCheckbox.getState();
 		boolean tempDisorder = disorderCheckbox.getState();
+		boolean tempSinglePrecision = singlePrecisionCheckbox.getState();
+		boolean tempApproximateNeighbors = approximateNeighborsCheckbox.getState();
 		double tempAdaptiveRatio = adaptiveRatioDoubleField.getValue();
 		int tempSmallBlockThreshold = smallBlockThresholdIntegerField.getValue();
 		int tempKValue = kValueIntegerField.getValue();
+		int tempThreads = threadsIntegerField.getValue();
 		double tempIRatio = intersectionRationFiled.getValue();
 		int tempInstanceSelectionStrategy = selectCriticalStrategyJComboBox.getSelectedIndex();
 		int tempQueryAmountStrategy = queryAmountStrategyJComboBox.getSelectedIndex();
@@ -396,10 +423,14 @@ public class UCEAL implements ActionListener, ItemListener {
 //			System.exit(0);
 //		}// Of switch
 
+		// The density objects are created by the learner.
+		DensityClustering.setDefaultParallelism(tempThreads);
 		tempCenal = new ClusterEnsembleActiveLearning(tempFilename, tempDistanceMeasure, tempNormalize,
 				tempDisorder, tempAdaptiveRatio, tempSmallBlockThreshold, tempInstanceSelectionStrategy,
-				tempQueryAmountStrategy);
+				tempQueryAmountStrategy, tempSinglePrecision);
 		tempCenal.setAvailableAlgorithms(tempAvailableAlgorithms);
+		tempCenal.setApproximateNeighbors(tempApproximateNeighbors, Hnsw.DEFAULT_EF_CONSTRUCTION,
+				Hnsw.DEFAULT_EF_SEARCH);
 		tempCenal.setKValue(tempKValue);
 		tempCenal.setIRation(tempIRatio);
 
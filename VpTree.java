@@ -0,0 +1,370 @@
+package pub.rj.paper.common;
+
+import java.util.Arrays;
+
+/**
+ * A vantage point tree. Each inner node picks a vantage instance and splits
+ * the others at the median distance to it. Every child keeps the interval of
+ * the distances from the vantage instance to its instances, so that by the
+ * triangle inequality a query at distance d from the vantage instance is at
+ * least max(d - high, low - d) away from the child. Only the distance measure
+ * is used, hence it works for Manhattan as well as Euclidean, in any
+ * dimension.
+ * <p>
+ * Author: <b>Fan Min</b> minfanphd@163.com, minfan@swpu.edu.cn <br>
+ * Copyright: The source code and all documents are open and free. PLEASE keep
+ * this header while revising the program. <br>
+ * Organization: <a href=http://www.fansmale.com/>Lab of Machine Learning</a>,
+ * Southwest Petroleum University, Chengdu 610500, China.<br>
+ * Project: The cost-sensitive active learning project.
+ * <p>
+ * Progress: Almost finished, further revision is possible.<br>
+ * Written time: October 18, 2026. <br>
+ * Last modify time: October 18, 2026.
+ */
+
+public class VpTree extends NeighborIndex {
+	/**
+	 * A node of the tree.
+	 */
+	static class Node {
+		/**
+		 * The first position in ranks.
+		 */
+		int start;
+
+		/**
+		 * The position after the last one in ranks.
+		 */
+		int end;
+
+		/**
+		 * The vantage instance.
+		 */
+		int vantage;
+
+		/**
+		 * The distance interval from the vantage instance to the inner child.
+		 */
+		double innerLow, innerHigh;
+
+		/**
+		 * The distance interval from the vantage instance to the outer child.
+		 */
+		double outerLow, outerHigh;
+
+		/**
+		 * The children, null for a leaf.
+		 */
+		Node inner, outer;
+	}// Of class Node
+
+	/**
+	 * The ranks of the instances, rearranged by the tree.
+	 */
+	int[] ranks;
+
+	/**
+	 * The distances to the vantage instance during building, by position.
+	 */
+	double[] buildDistances;
+
+	/**
+	 * The root.
+	 */
+	Node root;
+
+	/**
+	 ********************
+	 * The constructor.
+	 *
+	 * @param paraDistanceMeasure
+	 *            The distance measure, should be a metric.
+	 * @param paraPoints
+	 *            The instances, copied.
+	 * @param paraNumPoints
+	 *            The number of instances to use from the array.
+	 ********************
+	 */
+	public VpTree(DistanceMeasure paraDistanceMeasure, int[] paraPoints, int paraNumPoints) {
+		super(paraDistanceMeasure, paraPoints, paraNumPoints);
+		ranks = new int[numPoints];
+		for (int i = 0; i < numPoints; i++) {
+			ranks[i] = i;
+		} // Of for i
+
+		buildDistances = new double[numPoints];
+		root = build(0, numPoints);
+		buildDistances = null;
+	}// Of the constructor
+
+	/**
+	 *************************
+	 * Build a subtree. The vantage instance is the one farthest from the
+	 * first instance, which tends to lie on the border.
+	 *
+	 * @param paraStart
+	 *            The first position in ranks.
+	 * @param paraEnd
+	 *            The position after the last one.
+	 * @return The root of the subtree.
+	 *************************
+	 */
+	Node build(int paraStart, int paraEnd) {
+		Node resultNode = new Node();
+		resultNode.start = paraStart;
+		resultNode.end = paraEnd;
+		if (paraEnd - paraStart <= LEAF_SIZE) {
+			return resultNode;
+		} // Of if
+
+		// Step 1. The vantage instance.
+		int tempFirst = points[ranks[paraStart]];
+		double tempMaxDistance = -1;
+		double tempDistance;
+		for (int i = paraStart; i < paraEnd; i++) {
+			tempDistance = distanceMeasure.distance(tempFirst, points[ranks[i]]);
+			if (tempDistance > tempMaxDistance) {
+				tempMaxDistance = tempDistance;
+				resultNode.vantage = points[ranks[i]];
+			} // Of if
+		} // Of for i
+
+		// All instances are the same.
+		if (tempMaxDistance == 0) {
+			return resultNode;
+		} // Of if
+
+		// Step 2. Split at the median distance.
+		for (int i = paraStart; i < paraEnd; i++) {
+			buildDistances[i] = distanceMeasure.distance(resultNode.vantage, points[ranks[i]]);
+		} // Of for i
+		int tempMiddle = (paraStart + paraEnd) / 2;
+		select(paraStart, paraEnd, tempMiddle);
+
+		// Step 3. The intervals.
+		resultNode.innerLow = Double.MAX_VALUE;
+		resultNode.innerHigh = 0;
+		for (int i = paraStart; i < tempMiddle; i++) {
+			resultNode.innerLow = Math.min(resultNode.innerLow, buildDistances[i]);
+			resultNode.innerHigh = Math.max(resultNode.innerHigh, buildDistances[i]);
+		} // Of for i
+		resultNode.outerLow = Double.MAX_VALUE;
+		resultNode.outerHigh = 0;
+		for (int i = tempMiddle; i < paraEnd; i++) {
+			resultNode.outerLow = Math.min(resultNode.outerLow, buildDistances[i]);
+			resultNode.outerHigh = Math.max(resultNode.outerHigh, buildDistances[i]);
+		} // Of for i
+
+		resultNode.inner = build(paraStart, tempMiddle);
+		resultNode.outer = build(tempMiddle, paraEnd);
+
+		return resultNode;
+	}// Of build
+
+	/**
+	 *************************
+	 * Rearrange the positions so that the one at the given position is in
+	 * place according to buildDistances.
+	 *
+	 * @param paraStart
+	 *            The first position.
+	 * @param paraEnd
+	 *            The position after the last one.
+	 * @param paraPosition
+	 *            The position to put in place.
+	 *************************
+	 */
+	void select(int paraStart, int paraEnd, int paraPosition) {
+		int tempLeft = paraStart;
+		int tempRight = paraEnd - 1;
+		int tempRank;
+		double tempDistance;
+		while (tempLeft < tempRight) {
+			double tempPivot = buildDistances[(tempLeft + tempRight) >>> 1];
+			int i = tempLeft;
+			int j = tempRight;
+			while (i <= j) {
+				while (buildDistances[i] < tempPivot) {
+					i++;
+				} // Of while
+				while (buildDistances[j] > tempPivot) {
+					j--;
+				} // Of while
+				if (i <= j) {
+					tempRank = ranks[i];
+					ranks[i] = ranks[j];
+					ranks[j] = tempRank;
+					tempDistance = buildDistances[i];
+					buildDistances[i] = buildDistances[j];
+					buildDistances[j] = tempDistance;
+					i++;
+					j--;
+				} // Of if
+			} // Of while
+
+			if (paraPosition <= j) {
+				tempRight = j;
+			} else if (paraPosition >= i) {
+				tempLeft = i;
+			} else {
+				break;
+			} // Of if
+		} // Of while
+	}// Of select
+
+	/**
+	 *************************
+	 * The lower bound of the distances from the query to the instances of a
+	 * child. The rounding errors are subtracted as in BallTree.
+	 *
+	 * @param paraDistance
+	 *            The distance from the query to the vantage instance.
+	 * @param paraLow
+	 *            The minimal distance from the vantage instance to the child.
+	 * @param paraHigh
+	 *            The maximal distance from the vantage instance to the child.
+	 * @return The lower bound.
+	 *************************
+	 */
+	double bound(double paraDistance, double paraLow, double paraHigh) {
+		double tempOutside = paraDistance - paraHigh - slack * (paraDistance + paraHigh);
+		double tempInside = paraLow - paraDistance - slack * (paraDistance + paraLow);
+		return Math.max(tempOutside, tempInside);
+	}// Of bound
+
+	/**
+	 *************************
+	 * Find the k nearest instances.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraK
+	 *            The k value.
+	 * @param paraNeighbors
+	 *            The array to store the neighbors, nearest first.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int kNearest(int paraQuery, int paraK, int[] paraNeighbors) {
+		double[] tempComparisons = new double[paraK];
+		int[] tempRanks = new int[paraK];
+		int tempCount = search(root, 0, paraQuery, paraK, tempComparisons, tempRanks, 0);
+
+		return toNeighbors(tempRanks, tempCount, paraNeighbors);
+	}// Of kNearest
+
+	/**
+	 *************************
+	 * Search a subtree, the child with the smaller bound first.
+	 *
+	 * @param paraNode
+	 *            The root of the subtree.
+	 * @param paraBound
+	 *            The lower bound of the distances from the query to the node.
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraK
+	 *            The k value.
+	 * @param paraComparisons
+	 *            The comparison distances of the current list.
+	 * @param paraRanks
+	 *            The ranks of the current list.
+	 * @param paraCount
+	 *            The current length of the list.
+	 * @return The new length of the list.
+	 *************************
+	 */
+	int search(Node paraNode, double paraBound, int paraQuery, int paraK, double[] paraComparisons,
+			int[] paraRanks, int paraCount) {
+		if (canPrune(paraBound, paraComparisons, paraCount, paraK)) {
+			return paraCount;
+		} // Of if
+
+		if (paraNode.inner == null) {
+			int tempRank;
+			for (int i = paraNode.start; i < paraNode.end; i++) {
+				tempRank = ranks[i];
+				paraCount = insert(distanceMeasure.comparisonDistance(paraQuery, points[tempRank]), tempRank,
+						paraComparisons, paraRanks, paraCount, paraK);
+			} // Of for i
+			return paraCount;
+		} // Of if
+
+		double tempDistance = distanceMeasure.distance(paraQuery, paraNode.vantage);
+		double tempInnerBound = bound(tempDistance, paraNode.innerLow, paraNode.innerHigh);
+		double tempOuterBound = bound(tempDistance, paraNode.outerLow, paraNode.outerHigh);
+		if (tempInnerBound <= tempOuterBound) {
+			paraCount = search(paraNode.inner, tempInnerBound, paraQuery, paraK, paraComparisons, paraRanks,
+					paraCount);
+			paraCount = search(paraNode.outer, tempOuterBound, paraQuery, paraK, paraComparisons, paraRanks,
+					paraCount);
+		} else {
+			paraCount = search(paraNode.outer, tempOuterBound, paraQuery, paraK, paraComparisons, paraRanks,
+					paraCount);
+			paraCount = search(paraNode.inner, tempInnerBound, paraQuery, paraK, paraComparisons, paraRanks,
+					paraCount);
+		} // Of if
+
+		return paraCount;
+	}// Of search
+
+	/**
+	 *************************
+	 * Find the positions of the instances within the radius.
+	 *
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraRadius
+	 *            The radius, inclusive.
+	 * @param paraRanks
+	 *            The array to store the positions in ascending order.
+	 * @return The number of neighbors.
+	 *************************
+	 */
+	public int rangeRanks(int paraQuery, double paraRadius, int[] paraRanks) {
+		int resultCount = searchRange(root, paraQuery, paraRadius, paraRanks, 0);
+		Arrays.sort(paraRanks, 0, resultCount);
+
+		return resultCount;
+	}// Of rangeRanks
+
+	/**
+	 *************************
+	 * Search a subtree for the instances within the radius.
+	 *
+	 * @param paraNode
+	 *            The root of the subtree.
+	 * @param paraQuery
+	 *            The query instance.
+	 * @param paraRadius
+	 *            The radius.
+	 * @param paraRanks
+	 *            The positions found.
+	 * @param paraCount
+	 *            The number of positions found.
+	 * @return The new number of positions found.
+	 *************************
+	 */
+	int searchRange(Node paraNode, int paraQuery, double paraRadius, int[] paraRanks, int paraCount) {
+		if (paraNode.inner == null) {
+			for (int i = paraNode.start; i < paraNode.end; i++) {
+				if (distanceMeasure.distance(paraQuery, points[ranks[i]]) <= paraRadius) {
+					paraRanks[paraCount] = ranks[i];
+					paraCount++;
+				} // Of if
+			} // Of for i
+			return paraCount;
+		} // Of if
+
+		double tempDistance = distanceMeasure.distance(paraQuery, paraNode.vantage);
+		if (!canPrune(bound(tempDistance, paraNode.innerLow, paraNode.innerHigh), paraRadius)) {
+			paraCount = searchRange(paraNode.inner, paraQuery, paraRadius, paraRanks, paraCount);
+		} // Of if
+		if (!canPrune(bound(tempDistance, paraNode.outerLow, paraNode.outerHigh), paraRadius)) {
+			paraCount = searchRange(paraNode.outer, paraQuery, paraRadius, paraRanks, paraCount);
+		} // Of if
+
+		return paraCount;
+	}// Of searchRange
+}// Of class VpTree